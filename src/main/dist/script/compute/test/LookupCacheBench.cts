@@ -0,0 +1,12 @@
+{
+	"m_minSlaves": 0,
+	"m_maxSlaves": 0,
+	"m_name": "LookupCacheBench",
+	"m_tasks": [
+		{
+			"m_task": "de.hhu.bsinfo.dxram.lookup.bench.LookupCacheTask",
+			"m_maxThreads": 64,
+			"m_writePermille": 10
+		}
+	]
+}
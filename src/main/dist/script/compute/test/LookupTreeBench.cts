@@ -0,0 +1,17 @@
+{
+	"m_minSlaves": 0,
+	"m_maxSlaves": 0,
+	"m_name": "LookupTreeBench",
+	"m_tasks": [
+		{
+			"m_task": "de.hhu.bsinfo.dxram.lookup.bench.LookupTreeTask",
+			"m_maxThreads": 64,
+			"m_batchSize": 1
+		},
+		{
+			"m_task": "de.hhu.bsinfo.dxram.lookup.bench.LookupTreeTask",
+			"m_maxThreads": 64,
+			"m_batchSize": 64
+		}
+	]
+}
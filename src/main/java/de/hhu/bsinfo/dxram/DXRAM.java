@@ -30,6 +30,7 @@ import de.hhu.bsinfo.dxram.boot.ZookeeperBootComponent;
 import de.hhu.bsinfo.dxram.boot.ZookeeperBootComponentConfig;
 import de.hhu.bsinfo.dxram.chunk.ChunkAnonService;
 import de.hhu.bsinfo.dxram.chunk.ChunkBackupComponent;
+import de.hhu.bsinfo.dxram.chunk.ChunkBackupComponentConfig;
 import de.hhu.bsinfo.dxram.chunk.ChunkComponent;
 import de.hhu.bsinfo.dxram.chunk.ChunkComponentConfig;
 import de.hhu.bsinfo.dxram.chunk.ChunkDebugService;
@@ -61,6 +62,7 @@ import de.hhu.bsinfo.dxram.lookup.LookupComponent;
 import de.hhu.bsinfo.dxram.lookup.LookupComponentConfig;
 import de.hhu.bsinfo.dxram.lookup.LookupService;
 import de.hhu.bsinfo.dxram.migration.MigrationService;
+import de.hhu.bsinfo.dxram.migration.MigrationServiceConfig;
 import de.hhu.bsinfo.dxram.monitoring.MonitoringComponent;
 import de.hhu.bsinfo.dxram.monitoring.MonitoringComponentConfig;
 import de.hhu.bsinfo.dxram.monitoring.MonitoringService;
@@ -75,6 +77,7 @@ import de.hhu.bsinfo.dxram.net.NetworkService;
 import de.hhu.bsinfo.dxram.plugin.PluginComponent;
 import de.hhu.bsinfo.dxram.plugin.PluginComponentConfig;
 import de.hhu.bsinfo.dxram.recovery.RecoveryService;
+import de.hhu.bsinfo.dxram.recovery.RecoveryServiceConfig;
 import de.hhu.bsinfo.dxram.stats.StatisticsService;
 import de.hhu.bsinfo.dxram.stats.StatisticsServiceConfig;
 import de.hhu.bsinfo.dxram.sync.SynchronizationService;
@@ -208,7 +211,7 @@ public final class DXRAM {
     private static void registerComponents(final DXRAMEngine p_engine) {
         p_engine.registerComponent(ApplicationComponent.class, DXRAMModuleConfig.class);
         p_engine.registerComponent(BackupComponent.class, BackupComponentConfig.class);
-        p_engine.registerComponent(ChunkBackupComponent.class, DXRAMModuleConfig.class);
+        p_engine.registerComponent(ChunkBackupComponent.class, ChunkBackupComponentConfig.class);
         p_engine.registerComponent(ChunkComponent.class, ChunkComponentConfig.class);
         p_engine.registerComponent(ChunkIndexComponent.class, DXRAMModuleConfig.class);
         p_engine.registerComponent(ChunkMigrationComponent.class, DXRAMModuleConfig.class);
@@ -243,12 +246,12 @@ public final class DXRAM {
         p_engine.registerService(LoggerService.class, DXRAMModuleConfig.class);
         p_engine.registerService(LookupService.class, DXRAMModuleConfig.class);
         p_engine.registerService(MasterSlaveComputeService.class, MasterSlaveComputeServiceConfig.class);
-        p_engine.registerService(MigrationService.class, DXRAMModuleConfig.class);
+        p_engine.registerService(MigrationService.class, MigrationServiceConfig.class);
         p_engine.registerService(MonitoringService.class, DXRAMModuleConfig.class);
         p_engine.registerService(NameserviceService.class, DXRAMModuleConfig.class);
         p_engine.registerService(NetworkService.class, DXRAMModuleConfig.class);
         p_engine.registerService(NullService.class, DXRAMModuleConfig.class);
-        p_engine.registerService(RecoveryService.class, DXRAMModuleConfig.class);
+        p_engine.registerService(RecoveryService.class, RecoveryServiceConfig.class);
         p_engine.registerService(StatisticsService.class, StatisticsServiceConfig.class);
         p_engine.registerService(SynchronizationService.class, SynchronizationServiceConfig.class);
         p_engine.registerService(TemporaryStorageService.class, TemporaryStorageServiceConfig.class);
@@ -45,6 +45,8 @@ import de.hhu.bsinfo.dxram.log.messages.InitBackupRangeRequest;
 import de.hhu.bsinfo.dxram.log.messages.InitBackupRangeResponse;
 import de.hhu.bsinfo.dxram.log.messages.InitRecoveredBackupRangeRequest;
 import de.hhu.bsinfo.dxram.log.messages.InitRecoveredBackupRangeResponse;
+import de.hhu.bsinfo.dxram.log.messages.LogBufferRequest;
+import de.hhu.bsinfo.dxram.log.messages.LogBufferResponse;
 import de.hhu.bsinfo.dxram.log.messages.LogMessages;
 import de.hhu.bsinfo.dxram.lookup.LookupComponent;
 import de.hhu.bsinfo.dxram.lookup.events.NodeJoinEvent;
@@ -432,9 +434,10 @@ public class BackupComponent extends AbstractDXRAMComponent<BackupComponentConfi
                             currentBackupRange.replaceBackupPeer(failedPeer, newBackupPeer);
                             m_lock.writeLock().unlock();
 
-                            // Send new backup peer all chunks of backup range
+                            // Send new backup peer all chunks of backup range (in background, all affected ranges
+                            // are replicated in parallel)
                             if (newBackupPeer != null) {
-                                m_chunkBackup.replicateBackupRange(newBackupPeer.getNodeID(),
+                                m_chunkBackup.replicateBackupRangeAsync(newBackupPeer.getNodeID(),
                                         m_backupRangeTree.getAllChunkIDRangesOfBackupRange(rangeID), rangeID);
                             }
                         } else {
@@ -482,13 +485,10 @@ public class BackupComponent extends AbstractDXRAMComponent<BackupComponentConfi
 
                                 LOGGER.info("Replicating backup range %d to new peer %s", i, joinedPeer);
 
-                                // Backup range was not complete -> send all chunks to joined peer
-                                int num = m_chunkBackup.replicateBackupRange(joinedPeer.getNodeID(),
+                                // Backup range was not complete -> send all chunks to joined peer (in background)
+                                m_chunkBackup.replicateBackupRangeAsync(joinedPeer.getNodeID(),
                                         m_backupRangeTree.getAllChunkIDRangesOfBackupRange(rangeID), rangeID);
 
-                                LOGGER.info("Replicated %d chunk(s) of backup range %d to new peer %s", num, i,
-                                        joinedPeer);
-
                             } else {
                                 m_lock.writeLock().unlock();
                             }
@@ -573,6 +573,10 @@ public class BackupComponent extends AbstractDXRAMComponent<BackupComponentConfi
                 m_network.registerMessageType(DXRAMMessageTypes.LOG_MESSAGES_TYPE,
                         LogMessages.SUBTYPE_INIT_RECOVERED_BACKUP_RANGE_RESPONSE,
                         InitRecoveredBackupRangeResponse.class);
+                m_network.registerMessageType(DXRAMMessageTypes.LOG_MESSAGES_TYPE,
+                        LogMessages.SUBTYPE_LOG_BUFFER_REQUEST, LogBufferRequest.class);
+                m_network.registerMessageType(DXRAMMessageTypes.LOG_MESSAGES_TYPE,
+                        LogMessages.SUBTYPE_LOG_BUFFER_RESPONSE, LogBufferResponse.class);
             }
         }
 
@@ -17,38 +17,108 @@
 package de.hhu.bsinfo.dxram.chunk;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import de.hhu.bsinfo.dxmem.data.AbstractChunk;
+import de.hhu.bsinfo.dxmem.data.ChunkByteArray;
 import de.hhu.bsinfo.dxmem.data.ChunkID;
+import de.hhu.bsinfo.dxmem.data.ChunkIDRanges;
 import de.hhu.bsinfo.dxmem.data.ChunkLockOperation;
 import de.hhu.bsinfo.dxmem.data.ChunkState;
 import de.hhu.bsinfo.dxnet.core.NetworkException;
 import de.hhu.bsinfo.dxram.DXRAMComponentOrder;
 import de.hhu.bsinfo.dxram.boot.AbstractBootComponent;
+import de.hhu.bsinfo.dxram.chunk.operation.ScratchBufferPool;
 import de.hhu.bsinfo.dxram.engine.AbstractDXRAMComponent;
 import de.hhu.bsinfo.dxram.engine.AbstractDXRAMModule;
 import de.hhu.bsinfo.dxram.engine.DXRAMComponentAccessor;
 import de.hhu.bsinfo.dxram.engine.DXRAMConfig;
 import de.hhu.bsinfo.dxram.engine.DXRAMJNIManager;
-import de.hhu.bsinfo.dxram.engine.DXRAMModuleConfig;
 import de.hhu.bsinfo.dxram.log.messages.InitBackupRangeRequest;
-import de.hhu.bsinfo.dxram.log.messages.LogBufferMessage;
+import de.hhu.bsinfo.dxram.log.messages.LogBufferRequest;
 import de.hhu.bsinfo.dxram.net.NetworkComponent;
+import de.hhu.bsinfo.dxutils.serialization.ByteBufferImExporter;
+import de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil;
 
 /**
  * Component for chunk handling.
  *
+ * Re-replication of backup ranges streams the live chunks (according to the CID table) through pooled buffers.
+ * Every buffer is acknowledged by the backup peer and the number of unacknowledged buffers per backup peer is
+ * bounded. Ranges are replicated by a thread pool in parallel with a shared bandwidth limit.
+ *
  * @author Kevin Beineke, kevin.beineke@hhu.de, 30.03.2016
  */
 @AbstractDXRAMModule.Attributes(supportsSuperpeer = false, supportsPeer = true)
 @AbstractDXRAMComponent.Attributes(priorityInit = DXRAMComponentOrder.Init.BACKUP,
         priorityShutdown = DXRAMComponentOrder.Shutdown.BACKUP)
-public class ChunkBackupComponent extends AbstractDXRAMComponent<DXRAMModuleConfig> {
+public class ChunkBackupComponent extends AbstractDXRAMComponent<ChunkBackupComponentConfig> {
+
+    private static final int ACKNOWLEDGEMENT_TIMEOUT_MS = 10000;
+    private static final int RECOVERY_BATCH_SIZE = 10000;
 
     // component dependencies
     private AbstractBootComponent m_boot;
     private ChunkComponent m_chunk;
     private NetworkComponent m_network;
 
+    private int m_bufferSize;
+    private int m_maxHeaderSize;
+    private ScratchBufferPool<ByteBuffer> m_bufferPool;
+    private ConcurrentHashMap<Short, Semaphore> m_inFlightBuffers;
+    private ReplicationThrottle m_throttle;
+    private ExecutorService m_executor;
+
+    /**
+     * Stores recovered Chunks. The Chunks are allocated in batches with reserved ChunkIDs and written afterwards
+     *
+     * @param p_chunks
+     *         the recovered Chunks
+     * @return for every Chunk, whether it was stored successfully
+     */
+    public boolean[] putRecoveredChunks(final AbstractChunk[] p_chunks) {
+        int batchSize = Math.min(p_chunks.length, RECOVERY_BATCH_SIZE);
+        long[] chunkIDs = new long[batchSize];
+        long[] addresses = new long[batchSize];
+        int[] sizes = new int[batchSize];
+        boolean[] stored = new boolean[p_chunks.length];
+
+        for (int offset = 0; offset < p_chunks.length; offset += batchSize) {
+            int count = Math.min(batchSize, p_chunks.length - offset);
+
+            for (int i = 0; i < count; i++) {
+                chunkIDs[i] = p_chunks[offset + i].getID();
+                sizes[i] = p_chunks[offset + i].sizeofObject();
+            }
+
+            int created = m_chunk.getMemory().createReserved().createReserved(chunkIDs, addresses, sizes, 0, count);
+
+            if (created < count) {
+                LOGGER.error("Allocating recovered chunks failed: %d of %d chunk(s) created", created, count);
+            }
+
+            for (int i = 0; i < created; i++) {
+                m_chunk.getMemory().put().put(p_chunks[offset + i], ChunkLockOperation.NONE, -1);
+
+                if (p_chunks[offset + i].getState() == ChunkState.OK) {
+                    stored[offset + i] = true;
+                } else {
+                    LOGGER.error("Storing recovered chunk 0x%X failed: %s", p_chunks[offset + i].getID(),
+                            p_chunks[offset + i].getState());
+                }
+            }
+        }
+
+        return stored;
+    }
+
     /**
      * Replicates all local Chunks to a specific backup peer
      *
@@ -61,21 +131,39 @@ public class ChunkBackupComponent extends AbstractDXRAMComponent<DXRAMModuleConf
      * @return the number of replicated Chunks
      */
     public int replicateBackupRange(final short p_backupPeer, final long[] p_chunkIDRanges, final short p_rangeID) {
-        int numberOfChunks = 0;
-
-        for (int i = 0; i < p_chunkIDRanges.length; i += 2) {
-            if (ChunkID.getLocalID(p_chunkIDRanges[i + 1]) == 0xFFFFFFFFFFFFL) {
-                // This is the current backup range -> end of range is unknown at this moment
-                // -> current end is highest used LocalID
-                p_chunkIDRanges[i + 1] =
-                        ((long) m_boot.getNodeId() << 48) + m_chunk.getMemory().cidStatus().getHighestUsedLocalID();
-            }
-            numberOfChunks += p_chunkIDRanges[i + 1] - p_chunkIDRanges[i] + 1;
-        }
+        int numberOfChunks = resolveCurrentBackupRange(p_chunkIDRanges);
 
         return replicateBackupRange(p_backupPeer, p_chunkIDRanges, numberOfChunks, p_rangeID);
     }
 
+    /**
+     * Replicates all local Chunks to a specific backup peer in the background. Returns immediately, e.g. to not
+     * block the event thread after a node failure
+     *
+     * @param p_backupPeer
+     *         the new backup peer
+     * @param p_chunkIDRanges
+     *         the ChunkIDs of the Chunks to replicate arranged in ranges
+     * @param p_rangeID
+     *         the RangeID
+     */
+    public void replicateBackupRangeAsync(final short p_backupPeer, final long[] p_chunkIDRanges,
+            final short p_rangeID) {
+        int numberOfChunks = resolveCurrentBackupRange(p_chunkIDRanges);
+
+        try {
+            m_executor.execute(() -> {
+                int replicated = replicateBackupRange(p_backupPeer, p_chunkIDRanges, numberOfChunks, p_rangeID);
+
+                LOGGER.info("Replicated %d chunk(s) of backup range 0x%X to 0x%X", replicated, p_rangeID,
+                        p_backupPeer);
+            });
+        } catch (final RejectedExecutionException e) {
+            LOGGER.error("Replicating backup range 0x%X to 0x%X failed. Component is shut down", p_rangeID,
+                    p_backupPeer);
+        }
+    }
+
     /**
      * Replicates all local Chunks to a specific backup peer
      *
@@ -107,51 +195,83 @@ public class ChunkBackupComponent extends AbstractDXRAMComponent<DXRAMModuleConf
 
         // TODO: Replicates all created chunks including chunks that have not been put
 
-        // Gather all chunks of backup range
-        // FIXME: this limits the size of a chunk to 32 MB if i am not mistaken. thus, replication won't work
-        // for larger chunks
-        byte[] chunkArray = new byte[32 * 1024 * 1024];
-        ByteBuffer chunkBuffer = ByteBuffer.wrap(chunkArray);
+        // Only ChunkIDs in use are replicated (ranges of the CID table, own and migrated chunks)
+        long[] liveRanges = getLiveChunkIDRanges();
+        ReplicationStream stream = new ReplicationStream(p_backupPeer, p_rangeID);
+        ByteBuffer chunkBuffer = m_bufferPool.acquire();
+        byte[] chunkArray = chunkBuffer.array();
 
-        for (int i = 0; i < p_chunkIDRanges.length; i += 2) {
-            for (long currentChunkID = p_chunkIDRanges[i]; currentChunkID <= p_chunkIDRanges[i + 1]; currentChunkID++) {
-                // Store payload behind ChunkID and size
-                int bytes = m_chunk.getMemory().get()
-                        .get(currentChunkID, chunkArray, chunkBuffer.position() + Long.BYTES + Integer.BYTES,
-                                chunkArray.length, ChunkLockOperation.NONE, -1);
+        try {
+            for (int i = 0; i < p_chunkIDRanges.length && !stream.hasFailed(); i += 2) {
+                for (int j = 0; j < liveRanges.length; j += 2) {
+                    long from = Math.max(p_chunkIDRanges[i], liveRanges[j]);
+                    long to = Math.min(p_chunkIDRanges[i + 1], liveRanges[j + 1]);
 
-                if (bytes == 0) {
-                    // Chunk does not fit in current buffer -> send buffer and repeat
-                    chunkBuffer.flip();
+                    for (long currentChunkID = from; currentChunkID <= to && !stream.hasFailed(); currentChunkID++) {
+                        // Store payload behind ChunkID and the max size of the length field. The payload is moved
+                        // behind the actual length field afterwards
+                        int position = chunkBuffer.position();
+                        int bytes = m_chunk.getMemory().get()
+                                .get(currentChunkID, chunkArray, position + m_maxHeaderSize, chunkArray.length,
+                                        ChunkLockOperation.NONE, -1);
 
-                    try {
-                        m_network.sendMessage(new LogBufferMessage(p_backupPeer, p_rangeID, counter, chunkBuffer));
-                    } catch (final NetworkException ignore) {
+                        if (bytes == 0 && position > 0) {
+                            // Chunk does not fit in current buffer -> send buffer and repeat
+                            chunkBuffer.flip();
+                            stream.send(chunkBuffer, counter);
+                            chunkBuffer.clear();
+                            allCounter += counter;
+                            counter = 0;
 
-                    }
+                            position = 0;
+                            bytes = m_chunk.getMemory().get()
+                                    .get(currentChunkID, chunkArray, m_maxHeaderSize, chunkArray.length,
+                                            ChunkLockOperation.NONE, -1);
+                        }
 
-                    chunkBuffer.clear();
-                    allCounter += counter;
-                    counter = 0;
+                        if (bytes == 0) {
+                            // Chunk is larger than a buffer -> send it separately
+                            if (replicateLargeChunk(stream, currentChunkID)) {
+                                allCounter++;
+                            }
+                            continue;
+                        }
 
-                    bytes = m_chunk.getMemory().get()
-                            .get(currentChunkID, chunkArray, chunkBuffer.position() + Long.BYTES + Integer.BYTES,
-                                    chunkArray.length, ChunkLockOperation.NONE, -1);
-                }
+                        if (bytes < 0) {
+                            if (ChunkState.values()[-bytes] != ChunkState.DOES_NOT_EXIST) {
+                                LOGGER.error("Could not replicate 0x%X: %s", currentChunkID,
+                                        ChunkState.values()[-bytes]);
+                            }
+                            continue;
+                        }
+
+                        int headerSize = Long.BYTES + ObjectSizeUtil.sizeofCompactedNumber(bytes);
+                        if (headerSize < m_maxHeaderSize) {
+                            System.arraycopy(chunkArray, position + m_maxHeaderSize, chunkArray,
+                                    position + headerSize, bytes);
+                        }
 
-                if (bytes < 0) {
-                    LOGGER.error("Could not replicate 0x%X: %s", currentChunkID, ChunkState.values()[-bytes]);
-                    continue;
+                        writeHeader(chunkBuffer, currentChunkID, bytes);
+                        chunkBuffer.position(position + headerSize + bytes);
+                        counter++;
+                    }
                 }
+            }
 
-                chunkBuffer.putLong(currentChunkID);
-                chunkBuffer.putInt(bytes);
-                chunkBuffer.position(chunkBuffer.position() + bytes);
-                counter++;
+            if (counter > 0 && !stream.hasFailed()) {
+                chunkBuffer.flip();
+                stream.send(chunkBuffer, counter);
+                allCounter += counter;
             }
+        } finally {
+            chunkBuffer.clear();
+            m_bufferPool.release(chunkBuffer);
         }
 
-        allCounter += counter;
+        if (!stream.finish()) {
+            LOGGER.error("Replicating backup range 0x%X to 0x%X failed. Backup peer did not acknowledge all chunks",
+                    p_rangeID, p_backupPeer);
+        }
 
         return allCounter;
     }
@@ -165,14 +285,240 @@ public class ChunkBackupComponent extends AbstractDXRAMComponent<DXRAMModuleConf
 
     @Override
     protected boolean initComponent(final DXRAMConfig p_config, final DXRAMJNIManager p_jniManager) {
-        // Add DXRAMComponentOrder.Init value if something is put here
+        AtomicInteger threadCounter = new AtomicInteger(1);
+
+        m_bufferSize = (int) getConfig().getReplicationBufferSize().getBytes();
+        m_maxHeaderSize = Long.BYTES + ObjectSizeUtil.sizeofCompactedNumber(m_bufferSize);
+        // buffers are allocated on first use, re-replication is rare
+        m_bufferPool = new ScratchBufferPool<>(getConfig().getReplicationThreads() + 1, () -> {
+            ByteBuffer buffer = ByteBuffer.wrap(new byte[m_bufferSize]);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        });
+        m_inFlightBuffers = new ConcurrentHashMap<>();
+        m_throttle = new ReplicationThrottle(getConfig().getReplicationBandwidthLimit().getBytes());
+        m_executor = Executors.newFixedThreadPool(getConfig().getReplicationThreads(), p_runnable -> {
+            Thread thread = new Thread(p_runnable, "ChunkBackup-replication-" + threadCounter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+
         return true;
     }
 
     @Override
     protected boolean shutdownComponent() {
-        // Add DXRAMComponentOrder.Shutdown value if something is put here
+        if (m_executor != null) {
+            m_executor.shutdownNow();
+            m_executor = null;
+        }
+
         return true;
     }
 
+    /**
+     * Determines the end of the current backup range (if contained) and counts the Chunks
+     *
+     * @param p_chunkIDRanges
+     *         the ChunkIDs of the Chunks to replicate arranged in ranges, the end of the current backup range is
+     *         replaced
+     * @return the number of ChunkIDs
+     */
+    private int resolveCurrentBackupRange(final long[] p_chunkIDRanges) {
+        int numberOfChunks = 0;
+
+        for (int i = 0; i < p_chunkIDRanges.length; i += 2) {
+            if (ChunkID.getLocalID(p_chunkIDRanges[i + 1]) == 0xFFFFFFFFFFFFL) {
+                // This is the current backup range -> end of range is unknown at this moment
+                // -> current end is highest used LocalID
+                p_chunkIDRanges[i + 1] =
+                        ((long) m_boot.getNodeId() << 48) + m_chunk.getMemory().cidStatus().getHighestUsedLocalID();
+            }
+            numberOfChunks += p_chunkIDRanges[i + 1] - p_chunkIDRanges[i] + 1;
+        }
+
+        return numberOfChunks;
+    }
+
+    /**
+     * Returns the ranges of all ChunkIDs in use (created on this peer and migrated to this peer)
+     *
+     * @return the ChunkID ranges (start and end alternating)
+     */
+    private long[] getLiveChunkIDRanges() {
+        ChunkIDRanges ownRanges = m_chunk.getMemory().cidStatus().getCIDRangesOfLocalChunks();
+        ChunkIDRanges migratedRanges = m_chunk.getMemory().cidStatus().getAllMigratedChunkIDRanges();
+        long[] ret = new long[(ownRanges.size() + migratedRanges.size()) * 2];
+        int index = 0;
+
+        for (int i = 0; i < ownRanges.size(); i++) {
+            ret[index++] = ownRanges.getRangeStart(i);
+            ret[index++] = ownRanges.getRangeEnd(i);
+        }
+
+        for (int i = 0; i < migratedRanges.size(); i++) {
+            ret[index++] = migratedRanges.getRangeStart(i);
+            ret[index++] = migratedRanges.getRangeEnd(i);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Sends a Chunk which is larger than the replication buffer in a separate buffer
+     *
+     * @param p_stream
+     *         the replication stream
+     * @param p_chunkID
+     *         the ChunkID
+     * @return true if the Chunk was sent
+     */
+    private boolean replicateLargeChunk(final ReplicationStream p_stream, final long p_chunkID) {
+        ChunkByteArray chunk = m_chunk.getMemory().get().get(p_chunkID, ChunkLockOperation.NONE, -1);
+
+        if (!chunk.isStateOk()) {
+            if (chunk.getState() != ChunkState.DOES_NOT_EXIST) {
+                LOGGER.error("Could not replicate 0x%X: %s", p_chunkID, chunk.getState());
+            }
+            return false;
+        }
+
+        byte[] data = chunk.getData();
+        ByteBuffer buffer =
+                ByteBuffer.allocate(Long.BYTES + ObjectSizeUtil.sizeofCompactedNumber(data.length) + data.length);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        writeHeader(buffer, p_chunkID, data.length);
+        buffer.put(data);
+        buffer.flip();
+
+        return p_stream.send(buffer, 1);
+    }
+
+    /**
+     * Writes the ChunkID and the payload size at the current position (same format as in LogMessages)
+     *
+     * @param p_buffer
+     *         the buffer (little endian)
+     * @param p_chunkID
+     *         the ChunkID
+     * @param p_size
+     *         the payload size
+     */
+    private static void writeHeader(final ByteBuffer p_buffer, final long p_chunkID, final int p_size) {
+        ByteBufferImExporter exporter = new ByteBufferImExporter(p_buffer);
+
+        exporter.writeLong(p_chunkID);
+        exporter.writeCompactNumber(p_size);
+    }
+
+    /**
+     * Buffers of a single backup range on their way to a backup peer. The window of unacknowledged buffers is
+     * shared with all other streams to the same backup peer. Not thread-safe, used by one replicating thread
+     */
+    private final class ReplicationStream {
+        private final short m_backupPeer;
+        private final short m_rangeID;
+        private final Semaphore m_window;
+        private final ArrayDeque<LogBufferRequest> m_pending;
+        private boolean m_failed;
+
+        /**
+         * Creates an instance of ReplicationStream
+         *
+         * @param p_backupPeer
+         *         the backup peer
+         * @param p_rangeID
+         *         the RangeID
+         */
+        private ReplicationStream(final short p_backupPeer, final short p_rangeID) {
+            m_backupPeer = p_backupPeer;
+            m_rangeID = p_rangeID;
+            m_window = m_inFlightBuffers.computeIfAbsent(p_backupPeer,
+                    k -> new Semaphore(getConfig().getMaxInFlightBuffersPerPeer()));
+            m_pending = new ArrayDeque<>();
+        }
+
+        /**
+         * Checks if sending or an acknowledgement failed
+         *
+         * @return true if the stream failed
+         */
+        private boolean hasFailed() {
+            return m_failed;
+        }
+
+        /**
+         * Sends a buffer. Blocks while the window of the backup peer is full or the bandwidth limit is reached.
+         * The buffer is serialized when sending, thus it can be reused afterwards
+         *
+         * @param p_buffer
+         *         the buffer (flipped)
+         * @param p_numberOfChunks
+         *         the number of Chunks in the buffer
+         * @return true if the buffer was sent
+         */
+        private boolean send(final ByteBuffer p_buffer, final int p_numberOfChunks) {
+            // Waiting for an own buffer before blocking on the window, other streams to the same peer might wait
+            // for our permits otherwise
+            while (!m_failed && !m_window.tryAcquire()) {
+                if (m_pending.isEmpty()) {
+                    m_window.acquireUninterruptibly();
+                    break;
+                }
+                awaitOldest();
+            }
+
+            if (m_failed) {
+                return false;
+            }
+
+            m_throttle.acquire(p_buffer.limit());
+
+            LogBufferRequest request = new LogBufferRequest(m_backupPeer, m_rangeID, p_numberOfChunks, p_buffer);
+            try {
+                m_network.sendSync(request, false);
+            } catch (final NetworkException e) {
+                m_window.release();
+                m_failed = true;
+                return false;
+            }
+            m_pending.add(request);
+
+            return true;
+        }
+
+        /**
+         * Waits for all outstanding acknowledgements
+         *
+         * @return true if all buffers were acknowledged
+         */
+        private boolean finish() {
+            while (!m_pending.isEmpty()) {
+                awaitOldest();
+            }
+
+            return !m_failed;
+        }
+
+        /**
+         * Waits for the acknowledgement of the oldest buffer and releases its slot in the window
+         */
+        private void awaitOldest() {
+            LogBufferRequest request = m_pending.poll();
+
+            if (!m_failed) {
+                try {
+                    request.waitForResponse(ACKNOWLEDGEMENT_TIMEOUT_MS);
+                } catch (final NetworkException e) {
+                    m_failed = true;
+                }
+            }
+
+            if (m_failed) {
+                m_network.cancelRequest(request);
+            }
+            m_window.release();
+        }
+    }
 }
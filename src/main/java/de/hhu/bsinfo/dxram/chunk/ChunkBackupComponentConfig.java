@@ -0,0 +1,83 @@
+package de.hhu.bsinfo.dxram.chunk;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+
+import com.google.gson.annotations.Expose;
+
+import de.hhu.bsinfo.dxram.engine.DXRAMConfig;
+import de.hhu.bsinfo.dxram.engine.DXRAMModuleConfig;
+import de.hhu.bsinfo.dxutils.unit.StorageUnit;
+
+/**
+ * Config for the ChunkBackupComponent
+ */
+@Data
+@Accessors(prefix = "m_")
+@EqualsAndHashCode(callSuper = false)
+public class ChunkBackupComponentConfig extends DXRAMModuleConfig {
+    private static final StorageUnit REPLICATION_BUFFER_SIZE_MIN = new StorageUnit(64, StorageUnit.KB);
+    private static final StorageUnit REPLICATION_BUFFER_SIZE_MAX = new StorageUnit(256, StorageUnit.MB);
+
+    /**
+     * Size of a buffer used to re-replicate backup ranges. Larger chunks are sent separately
+     */
+    @Expose
+    private StorageUnit m_replicationBufferSize = new StorageUnit(4, StorageUnit.MB);
+
+    /**
+     * Number of threads re-replicating backup ranges concurrently (after node failures and joins)
+     */
+    @Expose
+    private int m_replicationThreads = 2;
+
+    /**
+     * Max number of unacknowledged buffers per backup peer (shared by all replicating threads)
+     */
+    @Expose
+    private int m_maxInFlightBuffersPerPeer = 4;
+
+    /**
+     * Max bandwidth for re-replication in bytes per second, shared by all replicating threads (0 for unlimited)
+     */
+    @Expose
+    private StorageUnit m_replicationBandwidthLimit = new StorageUnit(0, StorageUnit.MB);
+
+    /**
+     * Constructor
+     */
+    public ChunkBackupComponentConfig() {
+        super(ChunkBackupComponent.class);
+    }
+
+    @Override
+    protected boolean verify(final DXRAMConfig p_config) {
+        if (m_replicationBufferSize.getBytes() < REPLICATION_BUFFER_SIZE_MIN.getBytes()) {
+            LOGGER.error("Min m_replicationBufferSize: %s", REPLICATION_BUFFER_SIZE_MIN);
+            return false;
+        }
+
+        if (m_replicationBufferSize.getBytes() > REPLICATION_BUFFER_SIZE_MAX.getBytes()) {
+            LOGGER.error("Max m_replicationBufferSize: %s", REPLICATION_BUFFER_SIZE_MAX);
+            return false;
+        }
+
+        if (m_replicationThreads < 1) {
+            LOGGER.error("Invalid value m_replicationThreads: %d", m_replicationThreads);
+            return false;
+        }
+
+        if (m_maxInFlightBuffersPerPeer < 1) {
+            LOGGER.error("Invalid value m_maxInFlightBuffersPerPeer: %d", m_maxInFlightBuffersPerPeer);
+            return false;
+        }
+
+        if (m_replicationBandwidthLimit.getBytes() < 0) {
+            LOGGER.error("Invalid value m_replicationBandwidthLimit: %d", m_replicationBandwidthLimit.getBytes());
+            return false;
+        }
+
+        return true;
+    }
+}
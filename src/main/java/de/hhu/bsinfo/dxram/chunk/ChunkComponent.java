@@ -17,6 +17,9 @@
 package de.hhu.bsinfo.dxram.chunk;
 
 import de.hhu.bsinfo.dxmem.DXMem;
+import de.hhu.bsinfo.dxmem.data.AbstractChunk;
+import de.hhu.bsinfo.dxmem.data.ChunkLockOperation;
+import de.hhu.bsinfo.dxmem.data.ChunkState;
 import de.hhu.bsinfo.dxram.DXRAMComponentOrder;
 import de.hhu.bsinfo.dxram.boot.AbstractBootComponent;
 import de.hhu.bsinfo.dxram.engine.AbstractDXRAMComponent;
@@ -38,6 +41,7 @@ public class ChunkComponent extends AbstractDXRAMComponent<ChunkComponentConfig>
     private AbstractBootComponent m_boot;
 
     private DXMem m_memory;
+    private final ChunkWriteTracker m_writeTracker = new ChunkWriteTracker();
 
     /**
      * Check if the key-value backend storage is enabled.
@@ -61,6 +65,138 @@ public class ChunkComponent extends AbstractDXRAMComponent<ChunkComponentConfig>
         return m_memory;
     }
 
+    /**
+     * Get the tracker for writes to chunks which are live migrated
+     *
+     * @return ChunkWriteTracker instance
+     */
+    public ChunkWriteTracker getWriteTracker() {
+        return m_writeTracker;
+    }
+
+    /**
+     * Put a chunk to the local memory. Writes to live migrated chunks are tracked and fail with DOES_NOT_EXIST
+     * once the chunk was moved or with DATA_TEMPORARY_UNAVAILABLE while the ownership is switched
+     *
+     * @param p_chunk
+     *         Chunk to put
+     * @param p_lockOperation
+     *         Lock operation to execute with the put
+     * @param p_lockOperationTimeoutMs
+     *         Timeout for the lock operation in ms
+     * @return True if successful, false on error (check the chunk object state for errors)
+     */
+    public boolean put(final AbstractChunk p_chunk, final ChunkLockOperation p_lockOperation,
+            final int p_lockOperationTimeoutMs) {
+        ChunkWriteTracker.TrackedRange range = m_writeTracker.beginWrite(p_chunk.getID());
+
+        if (range == ChunkWriteTracker.MOVED) {
+            p_chunk.setState(ChunkState.DOES_NOT_EXIST);
+            return false;
+        }
+
+        if (range == ChunkWriteTracker.FENCED) {
+            p_chunk.setState(ChunkState.DATA_TEMPORARY_UNAVAILABLE);
+            return false;
+        }
+
+        try {
+            return getMemory().put().put(p_chunk, p_lockOperation, p_lockOperationTimeoutMs);
+        } finally {
+            m_writeTracker.endWrite(range, p_chunk.getID());
+        }
+    }
+
+    /**
+     * Put the data of a chunk to the local memory. Writes to live migrated chunks are tracked and fail with
+     * DOES_NOT_EXIST once the chunk was moved or with DATA_TEMPORARY_UNAVAILABLE while the ownership is switched
+     *
+     * @param p_chunkID
+     *         ChunkID of the chunk
+     * @param p_data
+     *         Serialized chunk data
+     * @param p_lockOperation
+     *         Lock operation to execute with the put
+     * @param p_lockOperationTimeoutMs
+     *         Timeout for the lock operation in ms
+     * @return Chunk state of the put
+     */
+    public ChunkState put(final long p_chunkID, final byte[] p_data, final ChunkLockOperation p_lockOperation,
+            final int p_lockOperationTimeoutMs) {
+        ChunkWriteTracker.TrackedRange range = m_writeTracker.beginWrite(p_chunkID);
+
+        if (range == ChunkWriteTracker.MOVED) {
+            return ChunkState.DOES_NOT_EXIST;
+        }
+
+        if (range == ChunkWriteTracker.FENCED) {
+            return ChunkState.DATA_TEMPORARY_UNAVAILABLE;
+        }
+
+        try {
+            return getMemory().put().put(p_chunkID, p_data, p_lockOperation, p_lockOperationTimeoutMs);
+        } finally {
+            m_writeTracker.endWrite(range, p_chunkID);
+        }
+    }
+
+    /**
+     * Resize a chunk in the local memory. Resizes of live migrated chunks are tracked and fail with DOES_NOT_EXIST
+     * once the chunk was moved or with DATA_TEMPORARY_UNAVAILABLE while the ownership is switched
+     *
+     * @param p_chunkID
+     *         ChunkID of the chunk
+     * @param p_newSize
+     *         New size of the chunk
+     * @return Chunk state of the resize
+     */
+    public ChunkState resize(final long p_chunkID, final int p_newSize) {
+        ChunkWriteTracker.TrackedRange range = m_writeTracker.beginWrite(p_chunkID);
+
+        if (range == ChunkWriteTracker.MOVED) {
+            return ChunkState.DOES_NOT_EXIST;
+        }
+
+        if (range == ChunkWriteTracker.FENCED) {
+            return ChunkState.DATA_TEMPORARY_UNAVAILABLE;
+        }
+
+        try {
+            return getMemory().resize().resize(p_chunkID, p_newSize);
+        } finally {
+            m_writeTracker.endWrite(range, p_chunkID);
+        }
+    }
+
+    /**
+     * Remove a chunk from the local memory. Removes of live migrated chunks are tracked (the copy on the target is
+     * removed by the migration) and fail with DOES_NOT_EXIST once the chunk was moved or with
+     * DATA_TEMPORARY_UNAVAILABLE while the ownership is switched
+     *
+     * @param p_chunkID
+     *         ChunkID of the chunk
+     * @param p_wasMigrated
+     *         True if the chunk was migrated to this peer (the ChunkID is not reused locally)
+     * @return Size of the removed chunk or the negative ordinal of the chunk state on failure
+     */
+    public int remove(final long p_chunkID, final boolean p_wasMigrated) {
+        ChunkWriteTracker.TrackedRange range = m_writeTracker.beginWrite(p_chunkID);
+
+        if (range == ChunkWriteTracker.MOVED) {
+            return -ChunkState.DOES_NOT_EXIST.ordinal();
+        }
+
+        if (range == ChunkWriteTracker.FENCED) {
+            return -ChunkState.DATA_TEMPORARY_UNAVAILABLE.ordinal();
+        }
+
+        try {
+            return getMemory().remove().remove(p_chunkID, p_wasMigrated);
+        } finally {
+            m_writeTracker.endWrite(range, p_chunkID);
+        }
+    }
+
     @Override
     protected void resolveComponentDependencies(final DXRAMComponentAccessor p_componentAccessor) {
         m_boot = p_componentAccessor.getComponent(AbstractBootComponent.class);
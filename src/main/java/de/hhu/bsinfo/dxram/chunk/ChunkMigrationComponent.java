@@ -32,7 +32,10 @@ import de.hhu.bsinfo.dxram.engine.DXRAMConfig;
 import de.hhu.bsinfo.dxram.engine.DXRAMJNIManager;
 import de.hhu.bsinfo.dxram.engine.DXRAMModuleConfig;
 import de.hhu.bsinfo.dxram.log.messages.LogMessage;
+import de.hhu.bsinfo.dxram.log.messages.RemoveMessage;
 import de.hhu.bsinfo.dxram.net.NetworkComponent;
+import de.hhu.bsinfo.dxutils.ArrayListLong;
+import de.hhu.bsinfo.dxutils.NodeID;
 
 /**
  * Component for migrating chunks
@@ -49,7 +52,8 @@ public class ChunkMigrationComponent extends AbstractDXRAMComponent<DXRAMModuleC
     private NetworkComponent m_network;
 
     /**
-     * Puts migrated Chunks
+     * Puts migrated Chunks. Chunks already stored (re-sent by a live migration) are updated. Chunks without data
+     * were removed on the source during a live migration, a copy stored before is removed
      *
      * @param p_chunkIDs
      *         The chunk IDs of the migrated chunks
@@ -67,15 +71,29 @@ public class ChunkMigrationComponent extends AbstractDXRAMComponent<DXRAMModuleC
         cutChunkIDs = new ArrayList<>();
 
         for (int i = 0; i < p_chunkIDs.length; i++) {
-            m_chunk.getMemory().createReserved().createReserved(p_chunkIDs[i], p_data[i].length);
+            if (p_data[i] == null) {
+                removeMigratedChunk(p_chunkIDs[i]);
+                continue;
+            }
+
+            boolean update = m_chunk.getMemory().exists().exists(p_chunkIDs[i]);
+
+            if (!update) {
+                m_chunk.getMemory().createReserved().createReserved(p_chunkIDs[i], p_data[i].length);
+            }
+
             m_chunk.getMemory().put().put(p_chunkIDs[i], p_data[i], ChunkLockOperation.NONE, -1);
 
             LOGGER.trace("Stored migrated chunk 0x%X locally", p_chunkIDs[i]);
 
             if (m_backup.isActive()) {
-                backupRange = m_backup.registerChunk(p_chunkIDs[i], p_data[i].length);
+                if (update) {
+                    backupRange = m_backup.getBackupRange(p_chunkIDs[i]);
+                } else {
+                    backupRange = m_backup.registerChunk(p_chunkIDs[i], p_data[i].length);
+                }
 
-                if (rangeID != backupRange.getRangeID()) {
+                if (backupRange != null && rangeID != backupRange.getRangeID()) {
                     backupRanges.add(backupRange);
                     cutChunkIDs.add(p_chunkIDs[i]);
                     rangeID = backupRange.getRangeID();
@@ -84,7 +102,7 @@ public class ChunkMigrationComponent extends AbstractDXRAMComponent<DXRAMModuleC
         }
 
         // Send backups after unlocking memory manager lock
-        if (m_backup.isActive()) {
+        if (m_backup.isActive() && !backupRanges.isEmpty()) {
             replicateMigratedChunks(p_chunkIDs, p_data, backupRanges, cutChunkIDs);
         }
 
@@ -108,6 +126,37 @@ public class ChunkMigrationComponent extends AbstractDXRAMComponent<DXRAMModuleC
         return true;
     }
 
+    /**
+     * Removes a migrated chunk stored before, locally and on its backup peers. The ChunkID is not reused here
+     *
+     * @param p_chunkID
+     *         The chunk ID of the removed chunk
+     */
+    private void removeMigratedChunk(final long p_chunkID) {
+        short[] backupPeers = m_backup.isActive() ? m_backup.getArrayOfBackupPeersForLocalChunks(p_chunkID) : null;
+        int size = m_chunk.getMemory().remove().remove(p_chunkID, true);
+
+        if (size <= 0) {
+            return;
+        }
+
+        LOGGER.trace("Removed migrated chunk 0x%X locally", p_chunkID);
+
+        m_backup.deregisterChunk(p_chunkID, size);
+
+        if (backupPeers != null) {
+            for (short backupPeer : backupPeers) {
+                if (backupPeer != NodeID.INVALID_ID) {
+                    try {
+                        m_network.sendMessage(new RemoveMessage(backupPeer, new ArrayListLong(p_chunkID)));
+                    } catch (final NetworkException ignore) {
+
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * Replicate migrated chunks to corresponding backup ranges
      *
@@ -136,6 +185,10 @@ public class ChunkMigrationComponent extends AbstractDXRAMComponent<DXRAMModuleC
         rangeID = backupRange.getRangeID();
 
         for (int i = 0; i < p_chunkIDs.length; i++) {
+            // removed chunks are never cut chunks
+            if (p_data[i] == null) {
+                continue;
+            }
 
             if (p_chunkIDs[i] == cutChunkID) {
                 backupRange = p_backupRanges.get(counter);
@@ -18,11 +18,15 @@ package de.hhu.bsinfo.dxram.chunk;
 
 import de.hhu.bsinfo.dxram.backup.BackupComponent;
 import de.hhu.bsinfo.dxram.boot.AbstractBootComponent;
+import de.hhu.bsinfo.dxram.chunk.operation.AsyncRequestTracker;
 import de.hhu.bsinfo.dxram.chunk.operation.CIDStatus;
 import de.hhu.bsinfo.dxram.chunk.operation.Create;
 import de.hhu.bsinfo.dxram.chunk.operation.Get;
+import de.hhu.bsinfo.dxram.chunk.operation.GetAsync;
 import de.hhu.bsinfo.dxram.chunk.operation.Lock;
 import de.hhu.bsinfo.dxram.chunk.operation.Put;
+import de.hhu.bsinfo.dxram.chunk.operation.PutAsync;
+import de.hhu.bsinfo.dxram.chunk.operation.PutReplicator;
 import de.hhu.bsinfo.dxram.chunk.operation.Remove;
 import de.hhu.bsinfo.dxram.chunk.operation.Resize;
 import de.hhu.bsinfo.dxram.chunk.operation.Status;
@@ -54,11 +58,16 @@ public class ChunkService extends AbstractDXRAMService<ChunkServiceConfig> {
     private CIDStatus m_cidStatus;
     private Create m_create;
     private Get m_get;
+    private GetAsync m_getAsync;
     private Put m_put;
+    private PutAsync m_putAsync;
     private Remove m_remove;
     private Resize m_resize;
     private Lock m_lock;
 
+    private AsyncRequestTracker m_asyncRequestTracker;
+    private PutReplicator m_putReplicator;
+
     /**
      * Get the status operation
      *
@@ -95,6 +104,15 @@ public class ChunkService extends AbstractDXRAMService<ChunkServiceConfig> {
         return m_get;
     }
 
+    /**
+     * Get the asynchronous get operation
+     *
+     * @return Operation
+     */
+    public GetAsync getAsync() {
+        return m_getAsync;
+    }
+
     /**
      * Get the put operation
      *
@@ -104,6 +122,15 @@ public class ChunkService extends AbstractDXRAMService<ChunkServiceConfig> {
         return m_put;
     }
 
+    /**
+     * Get the asynchronous put operation
+     *
+     * @return Operation
+     */
+    public PutAsync putAsync() {
+        return m_putAsync;
+    }
+
     /**
      * Get the remove operation
      *
@@ -145,13 +172,33 @@ public class ChunkService extends AbstractDXRAMService<ChunkServiceConfig> {
     protected boolean startService(final DXRAMConfig p_config) {
         ChunkServiceConfig chunkConfig = p_config.getServiceConfig(ChunkService.class);
 
+        m_asyncRequestTracker = new AsyncRequestTracker(m_network, m_network.getRequestTimeoutMs());
+        m_asyncRequestTracker.start();
+
+        m_putReplicator = new PutReplicator(m_backup, m_network, m_boot.getNodeId(), chunkConfig.isReplicationSync(),
+                chunkConfig.getReplicationWindow().getMs(),
+                (int) chunkConfig.getReplicationMaxBatchSize().getBytes());
+
+        if (m_backup.isActive() && !chunkConfig.isReplicationSync()) {
+            m_putReplicator.start();
+        }
+
         m_status = new Status(getClass(), m_boot, m_backup, m_chunk, m_network, m_lookup, m_nameservice);
         m_cidStatus = new CIDStatus(getClass(), m_boot, m_backup, m_chunk, m_network, m_lookup, m_nameservice);
         m_create = new Create(getClass(), m_boot, m_backup, m_chunk, m_network, m_lookup, m_nameservice);
-        m_get = new Get(getClass(), m_boot, m_backup, m_chunk, m_network, m_lookup, m_nameservice);
-        m_put = new Put(getClass(), m_boot, m_backup, m_chunk, m_network, m_lookup, m_nameservice);
+        long coalescingWindowNs = chunkConfig.getCoalescingWindow().getNs();
+        int coalescingMaxBatchSize = chunkConfig.getCoalescingMaxBatchSize();
+
+        m_get = new Get(getClass(), m_boot, m_backup, m_chunk, m_network, m_lookup, m_nameservice,
+                coalescingWindowNs, coalescingMaxBatchSize);
+        m_getAsync = new GetAsync(getClass(), m_boot, m_backup, m_chunk, m_network, m_lookup, m_nameservice,
+                m_asyncRequestTracker);
+        m_put = new Put(getClass(), m_boot, m_backup, m_chunk, m_network, m_lookup, m_nameservice,
+                m_putReplicator, coalescingWindowNs, coalescingMaxBatchSize);
+        m_putAsync = new PutAsync(getClass(), m_boot, m_backup, m_chunk, m_network, m_lookup, m_nameservice,
+                m_asyncRequestTracker, m_putReplicator);
         m_remove = new Remove(getClass(), m_boot, m_backup, m_chunk, m_network, m_lookup, m_nameservice,
-                chunkConfig.getRemoverQueueSize());
+                m_putReplicator, chunkConfig.getRemoverQueueSize());
         m_resize = new Resize(getClass(), m_boot, m_backup, m_chunk, m_network, m_lookup, m_nameservice);
         m_lock = new Lock(getClass(), m_boot, m_backup, m_chunk, m_network, m_lookup, m_nameservice);
 
@@ -160,6 +207,12 @@ public class ChunkService extends AbstractDXRAMService<ChunkServiceConfig> {
 
     @Override
     protected boolean shutdownService() {
+        m_asyncRequestTracker.shutdown();
+
+        if (m_putReplicator.isAlive()) {
+            m_putReplicator.shutdown();
+        }
+
         return true;
     }
 }
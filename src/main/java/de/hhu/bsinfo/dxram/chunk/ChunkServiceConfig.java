@@ -8,6 +8,8 @@ import com.google.gson.annotations.Expose;
 
 import de.hhu.bsinfo.dxram.engine.DXRAMConfig;
 import de.hhu.bsinfo.dxram.engine.DXRAMModuleConfig;
+import de.hhu.bsinfo.dxutils.unit.StorageUnit;
+import de.hhu.bsinfo.dxutils.unit.TimeUnit;
 
 /**
  * Config for the ChunkService
@@ -24,6 +26,38 @@ public class ChunkServiceConfig extends DXRAMModuleConfig {
     @Expose
     private int m_removerQueueSize = 100000;
 
+    /**
+     * If true, puts are acknowledged after the updated data was sent to all backup peers. Otherwise, updates are
+     * collected and sent asynchronously after the replication window elapsed (backup must be active)
+     */
+    @Expose
+    private boolean m_replicationSync = false;
+
+    /**
+     * Time window to collect and coalesce updated chunks before sending them to the backup peers (async mode only)
+     */
+    @Expose
+    private TimeUnit m_replicationWindow = new TimeUnit(1, TimeUnit.MS);
+
+    /**
+     * Max size of the updates of a single backup range collected before sending them to the backup peers
+     */
+    @Expose
+    private StorageUnit m_replicationMaxBatchSize = new StorageUnit(256, StorageUnit.KB);
+
+    /**
+     * Time window to collect concurrent single chunk remote gets and puts to the same peer and send them with a
+     * single multi chunk request. 0 disables coalescing
+     */
+    @Expose
+    private TimeUnit m_coalescingWindow = new TimeUnit(0, TimeUnit.US);
+
+    /**
+     * Max number of single chunk remote gets or puts coalesced into one request
+     */
+    @Expose
+    private int m_coalescingMaxBatchSize = 64;
+
     /**
      * Constructor
      */
@@ -39,6 +73,24 @@ public class ChunkServiceConfig extends DXRAMModuleConfig {
             return false;
         }
 
+        if (m_replicationMaxBatchSize.getBytes() < 1 || m_replicationMaxBatchSize.getBytes() > Integer.MAX_VALUE) {
+            LOGGER.error("Invalid value (%s) for m_replicationMaxBatchSize", m_replicationMaxBatchSize);
+
+            return false;
+        }
+
+        if (!m_replicationSync && m_replicationWindow.getMs() < 1) {
+            LOGGER.error("Replication window must be at least 1 ms in async mode");
+
+            return false;
+        }
+
+        if (m_coalescingMaxBatchSize < 1) {
+            LOGGER.error("Invalid value (%d) for m_coalescingMaxBatchSize", m_coalescingMaxBatchSize);
+
+            return false;
+        }
+
         return true;
     }
 
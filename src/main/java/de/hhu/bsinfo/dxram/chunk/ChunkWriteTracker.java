@@ -0,0 +1,461 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+
+package de.hhu.bsinfo.dxram.chunk;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import de.hhu.bsinfo.dxutils.NodeID;
+
+/**
+ * Tracks local writes to chunk ranges which are live migrated. Every write to a tracked range sets a bit in the
+ * range's dirty bitmap. A tracked range can be fenced to reject writes while the ownership is switched (writers
+ * never block, they fail and retry later). Writes arriving after the range was moved are rejected (DOES_NOT_EXIST)
+ * and the range is kept for a short period to redirect puts to the new owner.
+ * Writes to untracked ranges only read a volatile array (empty if no live migration is running).
+ * Raw writes address the memory of pinned chunks and do not know the ChunkID. Thus, a pinned chunk counts as written
+ * until it is unpinned: it is marked dirty on unpin and a range can't be fenced while one of its chunks is pinned.
+ */
+public final class ChunkWriteTracker {
+    private static final TrackedRange[] NO_RANGES = new TrackedRange[0];
+    private static final long REDIRECT_PERIOD_NS = TimeUnit.SECONDS.toNanos(10);
+    private static final long PIN_POLL_NS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    /**
+     * Returned by beginWrite if the chunk was moved to another peer
+     */
+    public static final TrackedRange MOVED = new TrackedRange(0, 0, null);
+
+    /**
+     * Returned by beginWrite if the chunk's range is fenced
+     */
+    public static final TrackedRange FENCED = new TrackedRange(0, 0, null);
+
+    private volatile TrackedRange[] m_ranges = NO_RANGES;
+    // all pinned chunks, including the ones pinned before their range was tracked
+    private final Set<Long> m_pinned = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Start tracking writes to a range of chunks
+     *
+     * @param p_from
+     *         First ChunkID of the range
+     * @param p_to
+     *         ChunkID after the last ChunkID of the range (exclusive)
+     * @return Tracked range
+     */
+    public synchronized TrackedRange track(final long p_from, final long p_to) {
+        TrackedRange range = new TrackedRange(p_from, p_to, m_pinned);
+        TrackedRange[] ranges = removeExpired(System.nanoTime());
+        TrackedRange[] newRanges = new TrackedRange[ranges.length + 1];
+
+        System.arraycopy(ranges, 0, newRanges, 0, ranges.length);
+        newRanges[ranges.length] = range;
+        m_ranges = newRanges;
+
+        return range;
+    }
+
+    /**
+     * Stop tracking writes to a range. Moved ranges are kept until the redirect period elapsed
+     *
+     * @param p_range
+     *         Range returned by track
+     */
+    public synchronized void untrack(final TrackedRange p_range) {
+        if (p_range.isMoved()) {
+            return;
+        }
+
+        TrackedRange[] ranges = m_ranges;
+        int count = 0;
+        TrackedRange[] newRanges = new TrackedRange[ranges.length];
+
+        for (TrackedRange range : ranges) {
+            if (range != p_range) {
+                newRanges[count++] = range;
+            }
+        }
+
+        m_ranges = count == 0 ? NO_RANGES : Arrays.copyOf(newRanges, count);
+    }
+
+    /**
+     * Must be called before writing a chunk locally. Never blocks
+     *
+     * @param p_chunkID
+     *         ChunkID of the chunk to write
+     * @return null if the chunk is not tracked, MOVED if the chunk must not be written locally anymore, FENCED if
+     *         the chunk must not be written right now, the tracked range otherwise. Pass it to endWrite after writing
+     */
+    public TrackedRange beginWrite(final long p_chunkID) {
+        TrackedRange[] ranges = m_ranges;
+
+        if (ranges.length == 0) {
+            return null;
+        }
+
+        for (TrackedRange range : ranges) {
+            if (range.contains(p_chunkID)) {
+                if (range.isMoved() && range.isExpired(System.nanoTime())) {
+                    synchronized (this) {
+                        m_ranges = removeExpired(System.nanoTime());
+                    }
+
+                    return null;
+                }
+
+                return range.beginWrite();
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Must be called after writing a chunk locally. Marks the chunk dirty after the write finished
+     *
+     * @param p_range
+     *         Return value of beginWrite
+     * @param p_chunkID
+     *         ChunkID of the written chunk
+     */
+    public void endWrite(final TrackedRange p_range, final long p_chunkID) {
+        if (p_range != null && p_range != MOVED && p_range != FENCED) {
+            p_range.endWrite(p_chunkID);
+        }
+    }
+
+    /**
+     * Must be called before pinning a chunk locally. Waits while the chunk's range is fenced (the fence is bounded
+     * by the migration's fence timeout)
+     *
+     * @param p_chunkID
+     *         ChunkID of the chunk to pin
+     * @return False if the chunk is pinned already
+     */
+    public boolean pin(final long p_chunkID) {
+        while (true) {
+            // Register first, the fence checks the pinned chunks after setting the flag. A chunk pinned already
+            // keeps the fence from completing
+            if (!m_pinned.add(p_chunkID)) {
+                return false;
+            }
+
+            TrackedRange range = getRange(p_chunkID);
+
+            if (range == null || !range.m_fenced) {
+                return true;
+            }
+
+            m_pinned.remove(p_chunkID);
+            LockSupport.parkNanos(PIN_POLL_NS);
+        }
+    }
+
+    /**
+     * Must be called after unpinning a chunk locally (or if pinning failed). Marks the chunk dirty as it might
+     * have been written by raw writes
+     *
+     * @param p_chunkID
+     *         ChunkID of the unpinned chunk
+     */
+    public void unpin(final long p_chunkID) {
+        TrackedRange range = getRange(p_chunkID);
+
+        // Mark dirty before the chunk counts as unpinned: a fence waiting for the pin drains it afterwards
+        if (range != null && !range.isMoved()) {
+            range.markDirty(p_chunkID);
+        }
+
+        m_pinned.remove(p_chunkID);
+    }
+
+    /**
+     * Returns the peer a chunk was moved to by a live migration recently
+     *
+     * @param p_chunkID
+     *         ChunkID
+     * @return New owner or NodeID.INVALID_ID if the chunk was not moved within the redirect period
+     */
+    public short getNewOwner(final long p_chunkID) {
+        for (TrackedRange range : m_ranges) {
+            if (range.contains(p_chunkID) && range.isMoved() && !range.isExpired(System.nanoTime())) {
+                return range.m_newOwner;
+            }
+        }
+
+        return NodeID.INVALID_ID;
+    }
+
+    /**
+     * Get the tracked range containing a chunk
+     *
+     * @param p_chunkID
+     *         ChunkID
+     * @return Tracked range or null
+     */
+    private TrackedRange getRange(final long p_chunkID) {
+        for (TrackedRange range : m_ranges) {
+            if (range.contains(p_chunkID)) {
+                return range;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Removes moved ranges after the redirect period. Caller must hold the monitor
+     *
+     * @param p_nowNs
+     *         Current time
+     * @return Remaining ranges
+     */
+    private TrackedRange[] removeExpired(final long p_nowNs) {
+        TrackedRange[] ranges = m_ranges;
+        int count = 0;
+        TrackedRange[] newRanges = new TrackedRange[ranges.length];
+
+        for (TrackedRange range : ranges) {
+            if (!range.isMoved() || !range.isExpired(p_nowNs)) {
+                newRanges[count++] = range;
+            }
+        }
+
+        return count == ranges.length ? ranges : count == 0 ? NO_RANGES : Arrays.copyOf(newRanges, count);
+    }
+
+    /**
+     * A range of chunks with a dirty bitmap and a write fence
+     */
+    public static final class TrackedRange {
+        private final long m_from;
+        private final long m_to;
+        private final AtomicLongArray m_dirty;
+        private final AtomicLong m_dirtyCount = new AtomicLong();
+        // writers share the read lock, the fence takes the write lock to wait for running writes only
+        private final ReentrantReadWriteLock m_writes = new ReentrantReadWriteLock();
+        private final Set<Long> m_pinned;
+
+        private volatile boolean m_fenced;
+        private volatile short m_newOwner = NodeID.INVALID_ID;
+        private volatile long m_movedTimeNs;
+
+        /**
+         * Constructor
+         *
+         * @param p_from
+         *         First ChunkID of the range
+         * @param p_to
+         *         ChunkID after the last ChunkID of the range (exclusive)
+         * @param p_pinned
+         *         Pinned chunks of the tracker
+         */
+        private TrackedRange(final long p_from, final long p_to, final Set<Long> p_pinned) {
+            if (p_to - p_from > (long) Integer.MAX_VALUE * Long.SIZE) {
+                throw new IllegalArgumentException("Range too large to track");
+            }
+
+            m_from = p_from;
+            m_to = p_to;
+            m_pinned = p_pinned;
+            m_dirty = new AtomicLongArray((int) ((p_to - p_from + Long.SIZE - 1) / Long.SIZE));
+        }
+
+        /**
+         * Get the number of chunks written since the last drain
+         *
+         * @return Number of dirty chunks
+         */
+        public long getDirtyCount() {
+            return m_dirtyCount.get();
+        }
+
+        /**
+         * Get all dirty chunks and clear the bitmap
+         *
+         * @return Ranges of dirty chunks (pairs of first ChunkID and exclusive end)
+         */
+        public long[] drainDirtyRanges() {
+            long[] ranges = new long[16];
+            int size = 0;
+            boolean inRun = false;
+
+            for (int i = 0; i < m_dirty.length(); i++) {
+                long word = m_dirty.getAndSet(i, 0);
+
+                m_dirtyCount.addAndGet(-Long.bitCount(word));
+
+                // skip words not ending or starting a run
+                if (word == (inRun ? -1L : 0L)) {
+                    continue;
+                }
+
+                for (int bit = 0; bit < Long.SIZE; bit++) {
+                    boolean dirty = (word & 1L << bit) != 0;
+
+                    if (dirty != inRun) {
+                        if (size == ranges.length) {
+                            ranges = Arrays.copyOf(ranges, ranges.length * 2);
+                        }
+
+                        // start (inclusive) and end (exclusive) of a run
+                        ranges[size++] = m_from + (long) i * Long.SIZE + bit;
+                        inRun = dirty;
+                    }
+                }
+            }
+
+            if (inRun) {
+                if (size == ranges.length) {
+                    ranges = Arrays.copyOf(ranges, ranges.length + 1);
+                }
+
+                ranges[size++] = m_to;
+            }
+
+            return Arrays.copyOf(ranges, size);
+        }
+
+        /**
+         * Reject all further writes to this range and wait for running writes to finish and pinned chunks to be
+         * unpinned
+         *
+         * @param p_timeoutMs
+         *         Max. time to wait for running writes in ms
+         * @return True if fenced, false if running writes did not finish in time (the range is not fenced)
+         */
+        public boolean fence(final long p_timeoutMs) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(p_timeoutMs);
+
+            m_fenced = true;
+
+            try {
+                if (m_writes.writeLock().tryLock(p_timeoutMs, TimeUnit.MILLISECONDS)) {
+                    m_writes.writeLock().unlock();
+
+                    while (isPinned()) {
+                        if (System.nanoTime() - deadline >= 0) {
+                            m_fenced = false;
+                            return false;
+                        }
+
+                        LockSupport.parkNanos(PIN_POLL_NS);
+                    }
+
+                    return true;
+                }
+            } catch (final InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+
+            m_fenced = false;
+
+            return false;
+        }
+
+        /**
+         * Allow writes to this range again
+         */
+        public void unfence() {
+            m_fenced = false;
+        }
+
+        /**
+         * Mark the range as moved to another peer. Further writes are rejected. Must be called while fenced
+         *
+         * @param p_newOwner
+         *         The new owner of all chunks of the range
+         */
+        public void setMoved(final short p_newOwner) {
+            m_movedTimeNs = System.nanoTime();
+            m_newOwner = p_newOwner;
+        }
+
+        /**
+         * Check if the range was moved
+         *
+         * @return True if moved
+         */
+        public boolean isMoved() {
+            return m_newOwner != NodeID.INVALID_ID;
+        }
+
+        private boolean isPinned() {
+            for (long chunkID : m_pinned) {
+                if (contains(chunkID)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        private boolean contains(final long p_chunkID) {
+            return p_chunkID >= m_from && p_chunkID < m_to;
+        }
+
+        private boolean isExpired(final long p_nowNs) {
+            return p_nowNs - m_movedTimeNs > REDIRECT_PERIOD_NS;
+        }
+
+        private TrackedRange beginWrite() {
+            // Fails only while the fence waits for running writes, the flag is checked afterwards
+            if (!m_writes.readLock().tryLock()) {
+                return isMoved() ? MOVED : FENCED;
+            }
+
+            if (isMoved()) {
+                m_writes.readLock().unlock();
+                return MOVED;
+            }
+
+            if (m_fenced) {
+                m_writes.readLock().unlock();
+                return FENCED;
+            }
+
+            return this;
+        }
+
+        private void endWrite(final long p_chunkID) {
+            // Mark dirty after the write (still holding the read lock): a drain running concurrently to the write
+            // may have copied the old data, this write is copied by the next drain (at the latest by the fenced one)
+            markDirty(p_chunkID);
+
+            m_writes.readLock().unlock();
+        }
+
+        private void markDirty(final long p_chunkID) {
+            int offset = (int) (p_chunkID - m_from);
+            long mask = 1L << (offset & Long.SIZE - 1);
+            long word = m_dirty.getAndAccumulate(offset / Long.SIZE, mask, (p_old, p_mask) -> p_old | p_mask);
+
+            if ((word & mask) == 0) {
+                m_dirtyCount.incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+
+package de.hhu.bsinfo.dxram.chunk;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Paces re-replication to a max bandwidth shared by all replicating threads. Every sender reserves the transfer
+ * time of its buffer on a common timeline and sleeps until its slot starts. Thus, the bandwidth is never exceeded
+ * for longer than the transfer time of a single buffer.
+ */
+final class ReplicationThrottle {
+
+    private final long m_bytesPerSecond;
+
+    private boolean m_started;
+    private long m_nextSlot;
+
+    /**
+     * Constructor
+     *
+     * @param p_bytesPerSecond
+     *         Max bandwidth in bytes per second (0 for unlimited)
+     */
+    ReplicationThrottle(final long p_bytesPerSecond) {
+        m_bytesPerSecond = p_bytesPerSecond;
+    }
+
+    /**
+     * Wait until the given number of bytes can be sent without exceeding the bandwidth
+     *
+     * @param p_bytes
+     *         Number of bytes to send
+     */
+    void acquire(final int p_bytes) {
+        long waitNs = reserve(p_bytes, System.nanoTime());
+
+        if (waitNs > 0) {
+            LockSupport.parkNanos(waitNs);
+        }
+    }
+
+    /**
+     * Reserve the transfer time for the given number of bytes
+     *
+     * @param p_bytes
+     *         Number of bytes to send
+     * @param p_nowNs
+     *         Current time in ns
+     * @return Time in ns to wait before sending
+     */
+    synchronized long reserve(final int p_bytes, final long p_nowNs) {
+        if (m_bytesPerSecond == 0) {
+            return 0;
+        }
+
+        // an idle period does not accumulate credit
+        long start = m_started && m_nextSlot - p_nowNs > 0 ? m_nextSlot : p_nowNs;
+        m_started = true;
+        m_nextSlot = start + (long) ((double) p_bytes * 1000 * 1000 * 1000 / m_bytesPerSecond);
+
+        return start - p_nowNs;
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+
+package de.hhu.bsinfo.dxram.chunk.bench;
+
+import com.google.gson.annotations.Expose;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.hhu.bsinfo.dxram.chunk.operation.ScratchBufferPool;
+import de.hhu.bsinfo.dxram.ms.Signal;
+import de.hhu.bsinfo.dxram.ms.Task;
+import de.hhu.bsinfo.dxram.ms.TaskContext;
+import de.hhu.bsinfo.dxutils.ArrayListShort;
+import de.hhu.bsinfo.dxutils.serialization.Exporter;
+import de.hhu.bsinfo.dxutils.serialization.Importer;
+
+/**
+ * Microbenchmark comparing the scratch buffer pool of the multi chunk operations with the previous thread ID
+ * indexed buffer arrays. Runs with 1, 2, 4, ... up to the max number of threads. Does not require any DXRAM
+ * services, the results only depend on the local node.
+ */
+public class ScratchBufferPoolBenchTask implements Task {
+    private static final Logger LOGGER = LogManager.getFormatterLogger(ScratchBufferPoolBenchTask.class.getSimpleName());
+
+    private static final int THREAD_ID_ARRAY_SIZE = 4096;
+
+    @Expose
+    private int m_maxThreads = 256;
+    @Expose
+    private int m_opsPerThread = 1000000;
+    @Expose
+    private int m_poolSize = 128;
+
+    public ScratchBufferPoolBenchTask() {
+
+    }
+
+    @Override
+    public int execute(final TaskContext p_ctx) {
+        System.out.printf("Benchmarking scratch buffers, %d ops per thread, pool size %d\n", m_opsPerThread,
+                m_poolSize);
+        System.out.println("threads,threadIdArrayOpsPerSec,poolOpsPerSec");
+
+        for (int threads = 1; threads <= m_maxThreads; threads *= 2) {
+            ArrayListShort[] threadIdArray = new ArrayListShort[THREAD_ID_ARRAY_SIZE];
+
+            double arrayOps = run(threads, () -> {
+                int threadId = (int) Thread.currentThread().getId();
+
+                if (threadId >= THREAD_ID_ARRAY_SIZE) {
+                    // this is exactly what breaks the old approach on long running nodes
+                    throw new IllegalStateException("Thread ID " + threadId + " exceeds array size");
+                }
+
+                ArrayListShort buffer = threadIdArray[threadId];
+
+                if (buffer == null) {
+                    buffer = new ArrayListShort(100);
+                    threadIdArray[threadId] = buffer;
+                }
+
+                useBuffer(buffer);
+            });
+
+            ScratchBufferPool<ArrayListShort> pool = new ScratchBufferPool<>(m_poolSize,
+                    () -> new ArrayListShort(100));
+
+            double poolOps = run(threads, () -> {
+                ArrayListShort buffer = pool.acquire();
+                useBuffer(buffer);
+                pool.release(buffer);
+            });
+
+            System.out.printf("%d,%s,%f\n", threads, arrayOps < 0 ? "n/a" : String.format("%f", arrayOps),
+                    poolOps);
+        }
+
+        return 0;
+    }
+
+    @Override
+    public void handleSignal(final Signal p_signal) {
+
+    }
+
+    @Override
+    public void exportObject(final Exporter p_exporter) {
+        p_exporter.writeInt(m_maxThreads);
+        p_exporter.writeInt(m_opsPerThread);
+        p_exporter.writeInt(m_poolSize);
+    }
+
+    @Override
+    public void importObject(final Importer p_importer) {
+        m_maxThreads = p_importer.readInt(m_maxThreads);
+        m_opsPerThread = p_importer.readInt(m_opsPerThread);
+        m_poolSize = p_importer.readInt(m_poolSize);
+    }
+
+    @Override
+    public int sizeofObject() {
+        return Integer.BYTES * 3;
+    }
+
+    /**
+     * Simulate the usage of a scratch buffer by a multi chunk operation
+     *
+     * @param p_buffer
+     *         Buffer to use
+     */
+    private static void useBuffer(final ArrayListShort p_buffer) {
+        for (int i = 0; i < 10; i++) {
+            p_buffer.add((short) i);
+        }
+
+        p_buffer.clear();
+    }
+
+    /**
+     * Run an operation with multiple threads
+     *
+     * @param p_threads
+     *         Number of threads
+     * @param p_op
+     *         Operation to run
+     * @return Aggregated throughput in ops/sec or -1 if the operation failed
+     */
+    private double run(final int p_threads, final Runnable p_op) {
+        Thread[] threads = new Thread[p_threads];
+        long[] timeStart = new long[p_threads];
+        long[] timeEnd = new long[p_threads];
+        boolean[] failed = new boolean[1];
+
+        for (int i = 0; i < threads.length; i++) {
+            int threadIdx = i;
+            threads[i] = new Thread(() -> {
+                timeStart[threadIdx] = System.nanoTime();
+
+                try {
+                    for (int j = 0; j < m_opsPerThread; j++) {
+                        p_op.run();
+                    }
+                } catch (final IllegalStateException e) {
+                    LOGGER.warn(e.getMessage());
+                    failed[0] = true;
+                }
+
+                timeEnd[threadIdx] = System.nanoTime();
+            });
+        }
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (final InterruptedException e) {
+                LOGGER.error("Joining thread failed", e);
+                return -1;
+            }
+        }
+
+        if (failed[0]) {
+            return -1;
+        }
+
+        // total time is measured by the slowest thread
+        long totalTime = 0;
+
+        for (int i = 0; i < p_threads; i++) {
+            long time = timeEnd[i] - timeStart[i];
+
+            if (time > totalTime) {
+                totalTime = time;
+            }
+        }
+
+        return (double) p_threads * m_opsPerThread / (totalTime / 1000.0 / 1000.0 / 1000.0);
+    }
+}
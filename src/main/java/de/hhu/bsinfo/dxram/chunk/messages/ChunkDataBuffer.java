@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.chunk.messages;
+
+import java.util.Arrays;
+
+import de.hhu.bsinfo.dxmem.data.ChunkState;
+import de.hhu.bsinfo.dxnet.core.AbstractMessageExporter;
+import de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil;
+
+/**
+ * Buffer for the data of one or multiple chunks read from memory to send it with a response. The data of all chunks
+ * is read into a single byte array which is reused for multiple responses instead of allocating one ChunkByteArray
+ * per chunk. Make sure the message is sent (and, thus, serialized) before the buffer is reused.
+ */
+public final class ChunkDataBuffer {
+    // arrays grown beyond this factor of their initial size are not kept on clear
+    private static final int MAX_RETAINED_FACTOR = 4;
+
+    private final int m_initialDataSize;
+    private final int m_initialChunkCount;
+
+    private byte[] m_data;
+    private int m_position;
+
+    private byte[] m_states;
+    private int[] m_sizes;
+    private int m_count;
+
+    /**
+     * Constructor
+     *
+     * @param p_initialDataSize
+     *         Initial size of the data array, grows on demand
+     * @param p_initialChunkCount
+     *         Initial number of chunks, grows on demand
+     */
+    public ChunkDataBuffer(final int p_initialDataSize, final int p_initialChunkCount) {
+        m_initialDataSize = p_initialDataSize;
+        m_initialChunkCount = p_initialChunkCount;
+        m_data = new byte[p_initialDataSize];
+        m_states = new byte[p_initialChunkCount];
+        m_sizes = new int[p_initialChunkCount];
+    }
+
+    /**
+     * Get the data array. Data of the next chunk is written to the current position
+     *
+     * @return Data array
+     */
+    public byte[] getData() {
+        return m_data;
+    }
+
+    /**
+     * Get the position to write the data of the next chunk to
+     *
+     * @return Position in data array
+     */
+    public int getPosition() {
+        return m_position;
+    }
+
+    /**
+     * Get the number of free bytes behind the current position
+     *
+     * @return Number of free bytes
+     */
+    public int getRemaining() {
+        return m_data.length - m_position;
+    }
+
+    /**
+     * Get the number of chunks added
+     *
+     * @return Number of chunks
+     */
+    public int getCount() {
+        return m_count;
+    }
+
+    /**
+     * Get the state of a chunk
+     *
+     * @param p_index
+     *         Index of the chunk (order of adding)
+     * @return State of the chunk
+     */
+    public ChunkState getState(final int p_index) {
+        return ChunkState.values()[m_states[p_index]];
+    }
+
+    /**
+     * Grow the data array (keeping its content) to have at least the specified number of free bytes
+     *
+     * @param p_bytes
+     *         Number of free bytes required behind the current position
+     */
+    public void ensureRemaining(final int p_bytes) {
+        if (getRemaining() < p_bytes) {
+            m_data = Arrays.copyOf(m_data, Math.max(m_data.length * 2, m_position + p_bytes));
+        }
+    }
+
+    /**
+     * Add a chunk. Its data must be written to the data array at the current position before
+     *
+     * @param p_state
+     *         State of the chunk read from memory
+     * @param p_size
+     *         Size of the data written, 0 if the state is not OK
+     */
+    public void add(final ChunkState p_state, final int p_size) {
+        if (m_count == m_states.length) {
+            m_states = Arrays.copyOf(m_states, m_count * 2);
+            m_sizes = Arrays.copyOf(m_sizes, m_count * 2);
+        }
+
+        m_states[m_count] = (byte) p_state.ordinal();
+        m_sizes[m_count] = p_size;
+        m_count++;
+        m_position += p_size;
+    }
+
+    /**
+     * Clear the buffer to reuse it. Arrays which grew far beyond their initial size for a single large response are
+     * replaced by arrays of the initial size. Otherwise, pooled buffers keep the memory of the largest response ever
+     * sent
+     */
+    public void clear() {
+        m_position = 0;
+        m_count = 0;
+
+        if (m_data.length > m_initialDataSize * MAX_RETAINED_FACTOR) {
+            m_data = new byte[m_initialDataSize];
+        }
+
+        if (m_states.length > m_initialChunkCount * MAX_RETAINED_FACTOR) {
+            m_states = new byte[m_initialChunkCount];
+            m_sizes = new int[m_initialChunkCount];
+        }
+    }
+
+    /**
+     * Get the serialized size of all chunks (state and data)
+     *
+     * @param p_withLength
+     *         True if the data of each chunk is prepended with its length (byte array)
+     * @return Size in bytes
+     */
+    int sizeofChunks(final boolean p_withLength) {
+        int size = m_count * Byte.BYTES + m_position;
+
+        if (p_withLength) {
+            for (int i = 0; i < m_count; i++) {
+                if (m_states[i] == ChunkState.OK.ordinal()) {
+                    size += ObjectSizeUtil.sizeofCompactedNumber(m_sizes[i]);
+                }
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * Write state and data of all chunks. The data of chunks without state OK is skipped
+     *
+     * @param p_exporter
+     *         Exporter to write to
+     * @param p_withLength
+     *         True to prepend the data of each chunk with its length (byte array)
+     */
+    void writeChunks(final AbstractMessageExporter p_exporter, final boolean p_withLength) {
+        int offset = 0;
+
+        for (int i = 0; i < m_count; i++) {
+            p_exporter.writeByte(m_states[i]);
+
+            if (m_states[i] == ChunkState.OK.ordinal()) {
+                if (p_withLength) {
+                    p_exporter.writeCompactNumber(m_sizes[i]);
+                }
+
+                p_exporter.writeBytes(m_data, offset, m_sizes[i]);
+                offset += m_sizes[i];
+            }
+        }
+    }
+}
@@ -16,7 +16,6 @@
 
 package de.hhu.bsinfo.dxram.chunk.messages;
 
-import de.hhu.bsinfo.dxmem.data.ChunkByteArray;
 import de.hhu.bsinfo.dxmem.data.ChunkState;
 import de.hhu.bsinfo.dxnet.core.AbstractMessageExporter;
 import de.hhu.bsinfo.dxnet.core.AbstractMessageImporter;
@@ -35,7 +34,7 @@ public class GetAnonResponse extends Response {
     // The data of the chunk objects here is used when sending the response only
     // when the response is received, the chunk objects from the request are
     // used to directly write the data to them to avoid further copying
-    private ChunkByteArray[] m_dataChunks;
+    private ChunkDataBuffer m_dataBuffer;
 
     /**
      * Creates an instance of GetAnonResponse.
@@ -48,18 +47,17 @@ public class GetAnonResponse extends Response {
     /**
      * Creates an instance of GetAnonResponse.
      * This constructor is used when sending this message.
-     * Make sure to include all data of the chunks from the request in the correct order. If a chunk does
-     * not exist, set the byte[] at that index to null
+     * Make sure to include all chunks from the request in the correct order
      *
      * @param p_request
      *         the corresponding GetRequest
-     * @param p_chunks
-     *         Chunk data read from the memory.
+     * @param p_dataBuffer
+     *         Buffer with states and data of the chunks read from memory
      */
-    public GetAnonResponse(final GetAnonRequest p_request, final ChunkByteArray[] p_chunks) {
+    public GetAnonResponse(final GetAnonRequest p_request, final ChunkDataBuffer p_dataBuffer) {
         super(p_request, ChunkMessages.SUBTYPE_GET_ANON_RESPONSE);
 
-        m_dataChunks = p_chunks;
+        m_dataBuffer = p_dataBuffer;
     }
 
     @Override
@@ -68,13 +66,9 @@ public class GetAnonResponse extends Response {
         int size = 0;
 
         // when writing payload
-        if (m_dataChunks != null) {
-            size += ObjectSizeUtil.sizeofCompactedNumber(m_dataChunks.length);
-            size += m_dataChunks.length * Byte.BYTES;
-
-            for (ChunkByteArray dataChunk : m_dataChunks) {
-                size += ObjectSizeUtil.sizeofByteArray(dataChunk.getData());
-            }
+        if (m_dataBuffer != null) {
+            size += ObjectSizeUtil.sizeofCompactedNumber(m_dataBuffer.getCount());
+            size += m_dataBuffer.sizeofChunks(true);
         } else {
             // after reading message payload to request data structures
             GetAnonRequest request = (GetAnonRequest) getCorrespondingRequest();
@@ -97,16 +91,10 @@ public class GetAnonResponse extends Response {
     @Override
     protected final void writePayload(final AbstractMessageExporter p_exporter) {
         // write total count once
-        p_exporter.writeCompactNumber(m_dataChunks.length);
-
-        for (int i = 0; i < m_dataChunks.length; i++) {
-            p_exporter.writeByte((byte) m_dataChunks[i].getState().ordinal());
+        p_exporter.writeCompactNumber(m_dataBuffer.getCount());
 
-            if (m_dataChunks[i].isStateOk()) {
-                // write byte array with length information
-                p_exporter.writeByteArray(m_dataChunks[i].getData());
-            }
-        }
+        // write data of each chunk as byte array with length information
+        m_dataBuffer.writeChunks(p_exporter, true);
     }
 
     @Override
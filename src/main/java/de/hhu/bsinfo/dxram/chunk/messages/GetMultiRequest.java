@@ -16,13 +16,18 @@
 
 package de.hhu.bsinfo.dxram.chunk.messages;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 import de.hhu.bsinfo.dxmem.data.AbstractChunk;
 import de.hhu.bsinfo.dxmem.data.ChunkLockOperation;
+import de.hhu.bsinfo.dxmem.data.ChunkState;
 import de.hhu.bsinfo.dxnet.core.AbstractMessageExporter;
 import de.hhu.bsinfo.dxnet.core.AbstractMessageImporter;
 import de.hhu.bsinfo.dxnet.core.Request;
 import de.hhu.bsinfo.dxram.DXRAMMessageTypes;
 import de.hhu.bsinfo.dxutils.ArrayListShort;
+import de.hhu.bsinfo.dxutils.serialization.ByteBufferImExporter;
 import de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil;
 
 /**
@@ -31,7 +36,7 @@ import de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil;
  * @author Florian Klein, florian.klein@hhu.de, 09.03.2012
  * @author Stefan Nothaas, stefan.nothaas@hhu.de, 11.12.2015
  */
-public class GetMultiRequest extends Request {
+public class GetMultiRequest extends Request implements MultiChunkRequest {
     private ChunkLockOperation m_lockOperation = ChunkLockOperation.NONE;
     private int m_lockOperationTimeoutMs = -1;
     // the chunk is stored for the sender of the request
@@ -42,6 +47,10 @@ public class GetMultiRequest extends Request {
     private ArrayListShort m_locationIndexBuffer;
     private short m_targetRemoteLocation;
     private int m_chunkCount;
+    private ResponseCallback m_responseCallback;
+    // response of asynchronous operations, written to the chunks if the operation did not time out
+    private byte[] m_responseStates;
+    private byte[][] m_responseData;
 
     // this is only used when receiving the request
     private long[] m_chunkIDs;
@@ -129,10 +138,12 @@ public class GetMultiRequest extends Request {
         return m_chunksStartOffset;
     }
 
+    @Override
     public ArrayListShort getLocationIndexBuffer() {
         return m_locationIndexBuffer;
     }
 
+    @Override
     public short getTargetRemoteLocation() {
         return m_targetRemoteLocation;
     }
@@ -141,6 +152,62 @@ public class GetMultiRequest extends Request {
         return m_chunkCount;
     }
 
+    /**
+     * Get the callback to execute once the response was received (asynchronous operations only)
+     *
+     * @return Callback or null if none set
+     */
+    public ResponseCallback getResponseCallback() {
+        return m_responseCallback;
+    }
+
+    @Override
+    public void setResponseCallback(final ResponseCallback p_responseCallback) {
+        m_responseCallback = p_responseCallback;
+        m_responseStates = new byte[m_chunkCount];
+        m_responseData = new byte[m_chunkCount][];
+    }
+
+    /**
+     * Get the buffered chunk states of the response (asynchronous operations only)
+     *
+     * @return Chunk states in order of the requested chunks
+     */
+    byte[] getResponseStates() {
+        return m_responseStates;
+    }
+
+    /**
+     * Get the buffered chunk data of the response (asynchronous operations only)
+     *
+     * @return Chunk data in order of the requested chunks, null for chunks without data
+     */
+    byte[][] getResponseData() {
+        return m_responseData;
+    }
+
+    @Override
+    public void applyResponse() {
+        int index = 0;
+
+        for (int i = 0; i < m_locationIndexBuffer.getSize(); i++) {
+            if (m_locationIndexBuffer.get(i) == m_targetRemoteLocation) {
+                AbstractChunk chunk = m_chunks[m_chunksStartOffset + i];
+
+                chunk.setState(ChunkState.values()[m_responseStates[index]]);
+
+                if (chunk.getState() == ChunkState.OK) {
+                    ByteBuffer buffer = ByteBuffer.wrap(m_responseData[index]);
+                    buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+                    new ByteBufferImExporter(buffer).importObject(chunk);
+                }
+
+                index++;
+            }
+        }
+    }
+
     @Override
     protected final int getPayloadLength() {
         int size = 0;
@@ -17,7 +17,6 @@
 package de.hhu.bsinfo.dxram.chunk.messages;
 
 import de.hhu.bsinfo.dxmem.data.AbstractChunk;
-import de.hhu.bsinfo.dxmem.data.ChunkByteArray;
 import de.hhu.bsinfo.dxmem.data.ChunkState;
 import de.hhu.bsinfo.dxnet.core.AbstractMessageExporter;
 import de.hhu.bsinfo.dxnet.core.AbstractMessageImporter;
@@ -36,7 +35,7 @@ public class GetMultiResponse extends Response {
     // The data of the chunk objects here is used when sending the response only
     // when the response is received, the chunk objects from the request are
     // used to directly write the data to them to avoid further copying
-    private ChunkByteArray[] m_dataChunks;
+    private ChunkDataBuffer m_dataBuffer;
 
     /**
      * Creates an instance of GetResponse.
@@ -49,18 +48,17 @@ public class GetMultiResponse extends Response {
     /**
      * Creates an instance of GetResponse.
      * This constructor is used when sending this message.
-     * Make sure to include all data of the chunks from the request in the correct order. If a chunk does
-     * not exist, set the byte[] at that index to null
+     * Make sure to include all chunks from the request in the correct order
      *
      * @param p_request
      *         the corresponding GetRequest
-     * @param p_chunks
-     *         Chunks read from the memory.
+     * @param p_dataBuffer
+     *         Buffer with states and data of the chunks read from memory
      */
-    public GetMultiResponse(final GetMultiRequest p_request, final ChunkByteArray[] p_chunks) {
+    public GetMultiResponse(final GetMultiRequest p_request, final ChunkDataBuffer p_dataBuffer) {
         super(p_request, ChunkMessages.SUBTYPE_GET_MULTI_RESPONSE);
 
-        m_dataChunks = p_chunks;
+        m_dataBuffer = p_dataBuffer;
     }
 
     @Override
@@ -68,16 +66,9 @@ public class GetMultiResponse extends Response {
         int size = 0;
 
         // when writing payload
-        if (m_dataChunks != null) {
-            size += ObjectSizeUtil.sizeofCompactedNumber(m_dataChunks.length);
-
-            size += m_dataChunks.length * Byte.BYTES;
-
-            for (ChunkByteArray dataChunk : m_dataChunks) {
-                if (dataChunk.getData() != null) {
-                    size += dataChunk.getSize();
-                }
-            }
+        if (m_dataBuffer != null) {
+            size += ObjectSizeUtil.sizeofCompactedNumber(m_dataBuffer.getCount());
+            size += m_dataBuffer.sizeofChunks(false);
         } else {
             size += ObjectSizeUtil.sizeofCompactedNumber(m_total);
 
@@ -87,9 +78,19 @@ public class GetMultiResponse extends Response {
             // chunk states
             size += request.getChunkCount() * Byte.BYTES;
 
+            if (request.getResponseCallback() != null) {
+                for (byte[] data : request.getResponseData()) {
+                    if (data != null) {
+                        size += data.length;
+                    }
+                }
+
+                return size;
+            }
+
             for (int i = 0; i < request.getLocationIndexBuffer().getSize(); i++) {
                 if (request.getLocationIndexBuffer().get(i) == request.getTargetRemoteLocation()) {
-                    AbstractChunk chunk = request.getChunks()[i];
+                    AbstractChunk chunk = request.getChunks()[request.getChunksStartOffset() + i];
 
                     if (chunk != null && chunk.getState() == ChunkState.OK) {
                         size += chunk.sizeofObject();
@@ -104,15 +105,9 @@ public class GetMultiResponse extends Response {
     @Override
     protected final void writePayload(final AbstractMessageExporter p_exporter) {
         // write total count once
-        p_exporter.writeCompactNumber(m_dataChunks.length);
+        p_exporter.writeCompactNumber(m_dataBuffer.getCount());
 
-        for (int i = 0; i < m_dataChunks.length; i++) {
-            p_exporter.writeByte((byte) m_dataChunks[i].getState().ordinal());
-
-            if (m_dataChunks[i].isStateOk()) {
-                p_exporter.writeBytes(m_dataChunks[i].getData());
-            }
-        }
+        m_dataBuffer.writeChunks(p_exporter, false);
     }
 
     @Override
@@ -128,9 +123,14 @@ public class GetMultiResponse extends Response {
                     request.getChunkCount() + " != " + m_total);
         }
 
+        if (request.getResponseCallback() != null) {
+            readBufferedPayload(p_importer, request);
+            return;
+        }
+
         for (int i = 0; i < request.getLocationIndexBuffer().getSize(); i++) {
             if (request.getLocationIndexBuffer().get(i) == request.getTargetRemoteLocation()) {
-                AbstractChunk chunk = request.getChunks()[i];
+                AbstractChunk chunk = request.getChunks()[request.getChunksStartOffset() + i];
 
                 chunk.setState(ChunkState.values()[p_importer.readByte((byte) chunk.getState().ordinal())]);
 
@@ -140,4 +140,41 @@ public class GetMultiResponse extends Response {
             }
         }
     }
+
+    /**
+     * Read the payload of a response to an asynchronous operation. The states and data are buffered in the request
+     * and not written to the chunks, the operation might have timed out already and the chunks are owned by the
+     * caller again
+     *
+     * @param p_importer
+     *         Importer to read from
+     * @param p_request
+     *         Corresponding request
+     */
+    private static void readBufferedPayload(final AbstractMessageImporter p_importer,
+            final GetMultiRequest p_request) {
+        byte[] states = p_request.getResponseStates();
+        byte[][] data = p_request.getResponseData();
+        int index = 0;
+
+        for (int i = 0; i < p_request.getLocationIndexBuffer().getSize(); i++) {
+            if (p_request.getLocationIndexBuffer().get(i) == p_request.getTargetRemoteLocation()) {
+                states[index] = p_importer.readByte(states[index]);
+
+                if (states[index] == ChunkState.OK.ordinal()) {
+                    // the size of a chunk is known prior fetching the data
+                    if (data[index] == null) {
+                        data[index] = new byte[p_request.getChunks()[p_request.getChunksStartOffset() + i]
+                                .sizeofObject()];
+                    }
+
+                    p_importer.readBytes(data[index]);
+                }
+
+                index++;
+            }
+        }
+
+        p_request.getResponseCallback().onResponse(p_request);
+    }
 }
@@ -17,7 +17,6 @@
 package de.hhu.bsinfo.dxram.chunk.messages;
 
 import de.hhu.bsinfo.dxmem.data.AbstractChunk;
-import de.hhu.bsinfo.dxmem.data.ChunkByteArray;
 import de.hhu.bsinfo.dxmem.data.ChunkState;
 import de.hhu.bsinfo.dxnet.core.AbstractMessageExporter;
 import de.hhu.bsinfo.dxnet.core.AbstractMessageImporter;
@@ -30,10 +29,10 @@ import de.hhu.bsinfo.dxnet.core.Response;
  * @author Stefan Nothaas, stefan.nothaas@hhu.de, 11.12.2015
  */
 public class GetResponse extends Response {
-    // The data of the chunk object here is used when sending the response only
+    // The data of the chunk here is used when sending the response only
     // when the response is received, the chunk object from the request is
     // used to directly write the data to it to avoid further copying
-    private ChunkByteArray m_dataChunk;
+    private ChunkDataBuffer m_dataBuffer;
 
     /**
      * Creates an instance of GetResponse.
@@ -46,18 +45,16 @@ public class GetResponse extends Response {
     /**
      * Creates an instance of GetResponse.
      * This constructor is used when sending this message.
-     * Make sure to include all data of the chunks from the request in the correct order. If a chunk does
-     * not exist, set the byte[] at that index to null
      *
      * @param p_request
      *         the corresponding GetRequest
-     * @param p_chunk
-     *         Chunk read from memory.
+     * @param p_dataBuffer
+     *         Buffer with state and data of the chunk read from memory
      */
-    public GetResponse(final GetRequest p_request, final ChunkByteArray p_chunk) {
+    public GetResponse(final GetRequest p_request, final ChunkDataBuffer p_dataBuffer) {
         super(p_request, ChunkMessages.SUBTYPE_GET_RESPONSE);
 
-        m_dataChunk = p_chunk;
+        m_dataBuffer = p_dataBuffer;
     }
 
     @Override
@@ -65,12 +62,8 @@ public class GetResponse extends Response {
         int size = 0;
 
         // when writing payload
-        if (m_dataChunk != null) {
-            size += Byte.BYTES;
-
-            if (m_dataChunk.getData() != null) {
-                size += m_dataChunk.getSize();
-            }
+        if (m_dataBuffer != null) {
+            size += m_dataBuffer.sizeofChunks(false);
         } else {
             // after reading message payload to request chunk
             GetRequest request = (GetRequest) getCorrespondingRequest();
@@ -88,11 +81,7 @@ public class GetResponse extends Response {
 
     @Override
     protected final void writePayload(final AbstractMessageExporter p_exporter) {
-        p_exporter.writeByte((byte) m_dataChunk.getState().ordinal());
-
-        if (m_dataChunk.isStateOk()) {
-            p_exporter.writeBytes(m_dataChunk.getData());
-        }
+        m_dataBuffer.writeChunks(p_exporter, false);
     }
 
     @Override
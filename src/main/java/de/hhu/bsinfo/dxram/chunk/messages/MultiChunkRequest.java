@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.chunk.messages;
+
+import de.hhu.bsinfo.dxutils.ArrayListShort;
+
+/**
+ * Request for multiple chunks of a single remote peer which can be sent by asynchronous operations. With a response
+ * callback set, the response is buffered in the request instead of being written to the chunks. The buffered
+ * response is applied to the chunks only if the operation did not time out meanwhile.
+ */
+public interface MultiChunkRequest {
+    /**
+     * Get the location index buffer of the operation (remote peer of every chunk)
+     *
+     * @return Location index buffer
+     */
+    ArrayListShort getLocationIndexBuffer();
+
+    /**
+     * Get the remote peer this request is sent to
+     *
+     * @return NodeID of the remote peer
+     */
+    short getTargetRemoteLocation();
+
+    /**
+     * Set a callback to execute once the response was received. Must be set before sending the request
+     *
+     * @param p_responseCallback
+     *         Callback to execute on the network receive path
+     */
+    void setResponseCallback(final ResponseCallback p_responseCallback);
+
+    /**
+     * Write the buffered response (states and data) to the chunks of the request. Call from the response
+     * callback, only
+     */
+    void applyResponse();
+}
@@ -32,7 +32,7 @@ import de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil;
  * @author Florian Klein, florian.klein@hhu.de, 09.03.2012
  * @author Stefan Nothaas, stefan.nothaas@hhu.de, 11.12.2015
  */
-public class PutMultiRequest extends Request {
+public class PutMultiRequest extends Request implements MultiChunkRequest {
     // this is only used when receiving the request
     private ChunkLockOperation m_lockOperation = ChunkLockOperation.NONE;
     private int m_lockOperationTimeoutMs = -1;
@@ -43,6 +43,9 @@ public class PutMultiRequest extends Request {
     private ArrayListShort m_locationIndexBuffer;
     private short m_targetRemoteLocation;
     private int m_chunkCount;
+    private ResponseCallback m_responseCallback;
+    // response of asynchronous operations, written to the chunks if the operation did not time out
+    private byte[] m_responseStates;
 
     // used when receiving the request
     private int m_numberOfChunks;
@@ -131,10 +134,12 @@ public class PutMultiRequest extends Request {
         return m_chunksStartOffset;
     }
 
+    @Override
     public ArrayListShort getLocationIndexBuffer() {
         return m_locationIndexBuffer;
     }
 
+    @Override
     public short getTargetRemoteLocation() {
         return m_targetRemoteLocation;
     }
@@ -143,6 +148,41 @@ public class PutMultiRequest extends Request {
         return m_chunkCount;
     }
 
+    /**
+     * Get the callback to execute once the response was received (asynchronous operations only)
+     *
+     * @return Callback or null if none set
+     */
+    public ResponseCallback getResponseCallback() {
+        return m_responseCallback;
+    }
+
+    @Override
+    public void setResponseCallback(final ResponseCallback p_responseCallback) {
+        m_responseCallback = p_responseCallback;
+        m_responseStates = new byte[m_chunkCount];
+    }
+
+    /**
+     * Get the buffered chunk states of the response (asynchronous operations only)
+     *
+     * @return Chunk states in order of the sent chunks
+     */
+    byte[] getResponseStates() {
+        return m_responseStates;
+    }
+
+    @Override
+    public void applyResponse() {
+        int index = 0;
+
+        for (int i = 0; i < m_locationIndexBuffer.getSize(); i++) {
+            if (m_locationIndexBuffer.get(i) == m_targetRemoteLocation) {
+                m_chunks[m_chunksStartOffset + i].setState(ChunkState.values()[m_responseStates[index++]]);
+            }
+        }
+    }
+
     /**
      * Get the data of the chunks to put when this request is received
      *
@@ -171,7 +211,7 @@ public class PutMultiRequest extends Request {
 
             for (int i = 0; i < m_locationIndexBuffer.getSize(); i++) {
                 if (m_locationIndexBuffer.get(i) == m_targetRemoteLocation) {
-                    AbstractChunk chunk = m_chunks[i];
+                    AbstractChunk chunk = m_chunks[m_chunksStartOffset + i];
 
                     int tmp = chunk.sizeofObject();
 
@@ -208,7 +248,7 @@ public class PutMultiRequest extends Request {
 
         for (int i = 0; i < m_locationIndexBuffer.getSize(); i++) {
             if (m_locationIndexBuffer.get(i) == m_targetRemoteLocation) {
-                AbstractChunk chunk = m_chunks[i];
+                AbstractChunk chunk = m_chunks[m_chunksStartOffset + i];
 
                 int size = chunk.sizeofObject();
 
@@ -78,9 +78,22 @@ public class PutMultiResponse extends Response {
     protected final void readPayload(final AbstractMessageImporter p_importer) {
         PutMultiRequest request = (PutMultiRequest) getCorrespondingRequest();
 
+        if (request.getResponseCallback() != null) {
+            // asynchronous operation: buffer the states, the chunks are updated if the operation did not time out
+            byte[] states = request.getResponseStates();
+
+            for (int i = 0; i < states.length; i++) {
+                states[i] = p_importer.readByte(states[i]);
+                m_totalStatusCodeCount++;
+            }
+
+            request.getResponseCallback().onResponse(request);
+            return;
+        }
+
         for (int i = 0; i < request.getLocationIndexBuffer().getSize(); i++) {
             if (request.getLocationIndexBuffer().get(i) == request.getTargetRemoteLocation()) {
-                AbstractChunk chunk = request.getChunks()[i];
+                AbstractChunk chunk = request.getChunks()[request.getChunksStartOffset() + i];
 
                 chunk.setState(ChunkState.values()[p_importer.readByte((byte) chunk.getState().ordinal())]);
 
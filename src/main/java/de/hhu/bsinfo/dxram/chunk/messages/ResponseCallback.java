@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.chunk.messages;
+
+import de.hhu.bsinfo.dxnet.core.Request;
+
+/**
+ * Callback attached to a request which is executed once the payload of the corresponding response was read.
+ * Used by asynchronous chunk operations which do not block on the request. The callback is executed on the
+ * network receive path, keep it short and do not block.
+ */
+@FunctionalInterface
+public interface ResponseCallback {
+    /**
+     * Called after the response data was written to the data structures of the request
+     *
+     * @param p_request
+     *         Request the response arrived for
+     */
+    void onResponse(final Request p_request);
+}
@@ -0,0 +1,393 @@
+package de.hhu.bsinfo.dxram.chunk.operation;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.hhu.bsinfo.dxmem.data.AbstractChunk;
+import de.hhu.bsinfo.dxmem.data.ChunkID;
+import de.hhu.bsinfo.dxmem.data.ChunkLockOperation;
+import de.hhu.bsinfo.dxmem.data.ChunkState;
+import de.hhu.bsinfo.dxnet.core.NetworkException;
+import de.hhu.bsinfo.dxnet.core.Request;
+import de.hhu.bsinfo.dxram.backup.BackupComponent;
+import de.hhu.bsinfo.dxram.boot.AbstractBootComponent;
+import de.hhu.bsinfo.dxram.chunk.ChunkComponent;
+import de.hhu.bsinfo.dxram.chunk.messages.MultiChunkRequest;
+import de.hhu.bsinfo.dxram.engine.AbstractDXRAMService;
+import de.hhu.bsinfo.dxram.lookup.LookupComponent;
+import de.hhu.bsinfo.dxram.lookup.LookupRange;
+import de.hhu.bsinfo.dxram.nameservice.NameserviceComponent;
+import de.hhu.bsinfo.dxram.net.NetworkComponent;
+import de.hhu.bsinfo.dxutils.ArrayListShort;
+import de.hhu.bsinfo.dxutils.NodeID;
+import de.hhu.bsinfo.dxutils.stats.ValuePool;
+
+/**
+ * Base of operations on one or multiple chunks which do not block the caller on remote requests. Local chunks are
+ * processed immediately, remote chunks are sent with one request per peer. The returned future is completed from
+ * the network receive path once all responses arrived (or timed out). Responses are buffered in the requests and
+ * applied to the chunks only if the request did not time out before. Thus, the chunks are never modified after
+ * the future was completed.
+ *
+ * @param <T>
+ *         Type of the request sent to the remote peers
+ */
+abstract class AbstractAsyncOperation<T extends Request & MultiChunkRequest> extends AbstractOperation {
+    private final AsyncRequestTracker m_tracker;
+
+    private final ValuePool m_sopAsync;
+    private final ValuePool m_sopAsyncRemoteRequests;
+    private final ValuePool m_sopAsyncError;
+
+    /**
+     * Constructor
+     *
+     * @param p_parentService
+     *         Instance of parent service this operation belongs to
+     * @param p_boot
+     *         Instance of BootComponent
+     * @param p_backup
+     *         Instance of BackupComponent
+     * @param p_chunk
+     *         Instance of ChunkComponent
+     * @param p_network
+     *         Instance of NetworkComponent
+     * @param p_lookup
+     *         Instance of LookupComponent
+     * @param p_nameservice
+     *         Instance of NameserviceComponent
+     * @param p_tracker
+     *         Tracker for timeouts of pending asynchronous requests
+     * @param p_sopAsync
+     *         Statistics for the number of chunks of all operations
+     * @param p_sopAsyncRemoteRequests
+     *         Statistics for the number of remote requests
+     * @param p_sopAsyncError
+     *         Statistics for the number of failed chunks
+     */
+    AbstractAsyncOperation(final Class<? extends AbstractDXRAMService> p_parentService,
+            final AbstractBootComponent p_boot, final BackupComponent p_backup, final ChunkComponent p_chunk,
+            final NetworkComponent p_network, final LookupComponent p_lookup,
+            final NameserviceComponent p_nameservice, final AsyncRequestTracker p_tracker,
+            final ValuePool p_sopAsync, final ValuePool p_sopAsyncRemoteRequests, final ValuePool p_sopAsyncError) {
+        super(p_parentService, p_boot, p_backup, p_chunk, p_network, p_lookup, p_nameservice);
+
+        m_tracker = p_tracker;
+        m_sopAsync = p_sopAsync;
+        m_sopAsyncRemoteRequests = p_sopAsyncRemoteRequests;
+        m_sopAsyncError = p_sopAsyncError;
+    }
+
+    /**
+     * Execute the operation on a single chunk stored locally. Sets the state of the chunk
+     *
+     * @param p_chunk
+     *         Chunk to process
+     * @param p_lockOperation
+     *         Lock operation to execute
+     * @param p_lockOperationTimeoutMs
+     *         Timeout for lock operation in ms
+     */
+    protected abstract void executeLocally(final AbstractChunk p_chunk, final ChunkLockOperation p_lockOperation,
+            final int p_lockOperationTimeoutMs);
+
+    /**
+     * Called after all local chunks were processed and before the remote requests are sent
+     *
+     * @param p_offset
+     *         Offset in chunk array
+     * @param p_count
+     *         Number of chunks of operation
+     * @param p_chunks
+     *         Chunks of operation
+     * @param p_locationIndexBuffer
+     *         Remote peer of every chunk (starting at index 0), NodeID.INVALID_ID for chunks processed locally
+     */
+    protected void onLocalFinished(final int p_offset, final int p_count, final AbstractChunk[] p_chunks,
+            final ArrayListShort p_locationIndexBuffer) {
+    }
+
+    /**
+     * Create the request for all chunks of a single remote peer
+     *
+     * @param p_remote
+     *         Remote peer
+     * @param p_lockOperation
+     *         Lock operation to execute
+     * @param p_lockOperationTimeoutMs
+     *         Timeout for lock operation in ms
+     * @param p_locationIndexBuffer
+     *         Remote peer of every chunk
+     * @param p_offset
+     *         Offset in chunk array
+     * @param p_chunks
+     *         Chunks of operation
+     * @return Request to send
+     */
+    protected abstract T createRequest(final short p_remote, final ChunkLockOperation p_lockOperation,
+            final int p_lockOperationTimeoutMs, final ArrayListShort p_locationIndexBuffer, final int p_offset,
+            final AbstractChunk[] p_chunks);
+
+    /**
+     * Execute the operation on one or multiple chunks asynchronously
+     *
+     * @param p_offset
+     *         Offset in array where to start the operations
+     * @param p_count
+     *         Number of chunks to process
+     * @param p_lockOperation
+     *         Lock operation to execute for each chunk
+     * @param p_lockOperationTimeoutMs
+     *         Timeout for lock operation in ms
+     * @param p_chunks
+     *         Chunks to process
+     * @return Future completed with the number of successful operations
+     */
+    CompletableFuture<Integer> execute(final int p_offset, final int p_count,
+            final ChunkLockOperation p_lockOperation, final int p_lockOperationTimeoutMs,
+            final AbstractChunk[] p_chunks) {
+        m_sopAsync.add(p_count);
+
+        // not thread local: the buffer is accessed by the requests after this call returned
+        ArrayListShort locationIndexBuffer = new ArrayListShort(p_count);
+        ArrayListShort remotes = new ArrayListShort(10);
+
+        for (int i = p_offset; i < p_offset + p_count; i++) {
+            short remotePeer = NodeID.INVALID_ID;
+
+            if (p_chunks[i] != null) {
+                if (p_chunks[i].getID() == ChunkID.INVALID_ID) {
+                    p_chunks[i].setState(ChunkState.INVALID_ID);
+                } else {
+                    remotePeer = resolve(p_chunks[i], p_lockOperation, p_lockOperationTimeoutMs);
+
+                    if (remotePeer != NodeID.INVALID_ID && !contains(remotes, remotePeer)) {
+                        remotes.add(remotePeer);
+                    }
+                }
+            }
+
+            // start at index 0 for location buffer
+            locationIndexBuffer.add(i - p_offset, remotePeer);
+        }
+
+        onLocalFinished(p_offset, p_count, p_chunks, locationIndexBuffer);
+
+        AsyncOperation operation = new AsyncOperation(p_offset, p_count, p_chunks, remotes.getSize());
+
+        if (remotes.getSize() == 0) {
+            operation.complete();
+            return operation.m_future;
+        }
+
+        m_sopAsyncRemoteRequests.add(remotes.getSize());
+
+        for (int i = 0; i < remotes.getSize(); i++) {
+            T request = createRequest(remotes.get(i), p_lockOperation, p_lockOperationTimeoutMs,
+                    locationIndexBuffer, p_offset, p_chunks);
+
+            // create pending state and callback before sending to avoid racing with the response
+            AsyncRequestTracker.PendingRequest pending = m_tracker.create(request,
+                    p_request -> operation.onTimeout(request));
+            request.setResponseCallback(p_request -> {
+                // a timed out request must not touch the chunks anymore
+                if (pending.finish()) {
+                    request.applyResponse();
+                    operation.onRequestFinished();
+                }
+            });
+
+            m_tracker.track(pending);
+
+            try {
+                m_network.sendSync(request, false);
+            } catch (final NetworkException e) {
+                if (pending.finish()) {
+                    m_network.cancelRequest(request);
+                    operation.onSendFailed(request);
+                }
+            }
+        }
+
+        return operation.m_future;
+    }
+
+    /**
+     * Try to process a single chunk locally or resolve the peer storing it
+     *
+     * @param p_chunk
+     *         Chunk to process
+     * @param p_lockOperation
+     *         Lock operation to execute
+     * @param p_lockOperationTimeoutMs
+     *         Timeout for lock operation in ms
+     * @return Remote peer storing the chunk or NodeID.INVALID_ID if the chunk was processed locally or failed
+     */
+    private short resolve(final AbstractChunk p_chunk, final ChunkLockOperation p_lockOperation,
+            final int p_lockOperationTimeoutMs) {
+        if (m_chunk.isStorageEnabled()) {
+            executeLocally(p_chunk, p_lockOperation, p_lockOperationTimeoutMs);
+        } else {
+            p_chunk.setState(ChunkState.DOES_NOT_EXIST);
+        }
+
+        if (p_chunk.getState() != ChunkState.DOES_NOT_EXIST) {
+            return NodeID.INVALID_ID;
+        }
+
+        // seems like it's not available locally, check remotes for remote chunk or migrated
+        LookupRange location = m_lookup.getLookupRange(p_chunk.getID());
+
+        switch (location.getState()) {
+            case OK:
+                if (location.getPrimaryPeer() == m_boot.getNodeId()) {
+                    // migrated to this peer in the meantime
+                    executeLocally(p_chunk, p_lockOperation, p_lockOperationTimeoutMs);
+                    return NodeID.INVALID_ID;
+                }
+
+                // currently undefined because we still have to process it remotely
+                p_chunk.setState(ChunkState.UNDEFINED);
+                return location.getPrimaryPeer();
+            case DOES_NOT_EXIST:
+                p_chunk.setState(ChunkState.DOES_NOT_EXIST);
+                return NodeID.INVALID_ID;
+            case DATA_LOST:
+                p_chunk.setState(ChunkState.DATA_LOST);
+                return NodeID.INVALID_ID;
+            case DATA_TEMPORARY_UNAVAILABLE:
+                // don't block the caller, let the application retry
+                p_chunk.setState(ChunkState.DATA_TEMPORARY_UNAVAILABLE);
+                return NodeID.INVALID_ID;
+            default:
+                throw new IllegalStateException("Unhandled state, location state: " + location.getState());
+        }
+    }
+
+    /**
+     * Check if a short list contains a value
+     *
+     * @param p_list
+     *         List to check
+     * @param p_value
+     *         Value to search for
+     * @return True if list contains value
+     */
+    private static boolean contains(final ArrayListShort p_list, final short p_value) {
+        for (int i = 0; i < p_list.getSize(); i++) {
+            if (p_list.get(i) == p_value) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * State of a single asynchronous call spanning one request per remote peer
+     */
+    private final class AsyncOperation {
+        private final int m_offset;
+        private final int m_count;
+        private final AbstractChunk[] m_chunks;
+        private final AtomicInteger m_pendingRequests;
+        private final CompletableFuture<Integer> m_future = new CompletableFuture<>();
+
+        /**
+         * Constructor
+         *
+         * @param p_offset
+         *         Offset in chunk array
+         * @param p_count
+         *         Number of chunks of operation
+         * @param p_chunks
+         *         Chunks of operation
+         * @param p_pendingRequests
+         *         Number of remote requests to wait for
+         */
+        private AsyncOperation(final int p_offset, final int p_count, final AbstractChunk[] p_chunks,
+                final int p_pendingRequests) {
+            m_offset = p_offset;
+            m_count = p_count;
+            m_chunks = p_chunks;
+            m_pendingRequests = new AtomicInteger(p_pendingRequests);
+        }
+
+        /**
+         * A request was answered and its response was applied to the chunks
+         */
+        private void onRequestFinished() {
+            if (m_pendingRequests.decrementAndGet() == 0) {
+                complete();
+            }
+        }
+
+        /**
+         * A request could not be sent
+         *
+         * @param p_request
+         *         Request that failed
+         */
+        private void onSendFailed(final T p_request) {
+            setErrorState(p_request,
+                    m_backup.isActive() ? ChunkState.DATA_TEMPORARY_UNAVAILABLE : ChunkState.DATA_LOST, true);
+            onRequestFinished();
+        }
+
+        /**
+         * A request timed out
+         *
+         * @param p_request
+         *         Request that timed out
+         */
+        private void onTimeout(final T p_request) {
+            setErrorState(p_request, ChunkState.REMOTE_REQUEST_TIMEOUT, false);
+            onRequestFinished();
+        }
+
+        /**
+         * Set an error state for all chunks of a failed request
+         *
+         * @param p_request
+         *         Failed request
+         * @param p_state
+         *         Error state to set
+         * @param p_invalidate
+         *         True to invalidate the cached lookup ranges of the chunks
+         */
+        private void setErrorState(final T p_request, final ChunkState p_state, final boolean p_invalidate) {
+            ArrayListShort locationIndexBuffer = p_request.getLocationIndexBuffer();
+
+            for (int i = 0; i < locationIndexBuffer.getSize(); i++) {
+                if (locationIndexBuffer.get(i) == p_request.getTargetRemoteLocation()) {
+                    AbstractChunk chunk = m_chunks[m_offset + i];
+
+                    chunk.setState(p_state);
+
+                    if (p_invalidate) {
+                        m_lookup.invalidateRange(chunk.getID());
+                    }
+                }
+            }
+        }
+
+        /**
+         * Count the successful operations and complete the future
+         */
+        private void complete() {
+            int successful = 0;
+
+            for (int i = m_offset; i < m_offset + m_count; i++) {
+                if (m_chunks[i] != null && m_chunks[i].isStateOk()) {
+                    successful++;
+                }
+            }
+
+            if (successful < m_count) {
+                m_sopAsyncError.add(m_count - successful);
+            }
+
+            m_future.complete(successful);
+        }
+    }
+}
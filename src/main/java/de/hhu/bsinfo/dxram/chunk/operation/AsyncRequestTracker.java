@@ -0,0 +1,169 @@
+package de.hhu.bsinfo.dxram.chunk.operation;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.hhu.bsinfo.dxnet.core.Request;
+import de.hhu.bsinfo.dxram.net.NetworkComponent;
+
+/**
+ * Tracks requests of asynchronous chunk operations which are not waited on by any thread. A single thread
+ * checks the deadlines of all pending requests and cancels requests which did not receive a response in time.
+ * All requests share the same timeout, thus the queue of pending requests is ordered by deadline.
+ */
+public class AsyncRequestTracker extends Thread {
+    private static final Logger LOGGER = LogManager.getFormatterLogger(AsyncRequestTracker.class.getSimpleName());
+
+    private static final long CHECK_INTERVAL_NS = 10 * 1000 * 1000;
+
+    private final NetworkComponent m_network;
+    private final long m_timeoutNs;
+
+    private final ConcurrentLinkedQueue<PendingRequest> m_pending = new ConcurrentLinkedQueue<>();
+    private volatile boolean m_run = true;
+
+    /**
+     * Handler called if a tracked request timed out
+     */
+    @FunctionalInterface
+    interface TimeoutHandler {
+        /**
+         * Called (once) when the request timed out. The request is already cancelled
+         *
+         * @param p_request
+         *         Request that timed out
+         */
+        void onTimeout(final Request p_request);
+    }
+
+    /**
+     * A request tracked for a timeout. Either the response or the timeout finishes the request, never both
+     */
+    static final class PendingRequest {
+        private final Request m_request;
+        private final TimeoutHandler m_timeoutHandler;
+        private final AtomicBoolean m_finished = new AtomicBoolean(false);
+        private long m_deadline;
+
+        /**
+         * Constructor
+         *
+         * @param p_request
+         *         Request to track
+         * @param p_timeoutHandler
+         *         Handler to call on timeout
+         */
+        private PendingRequest(final Request p_request, final TimeoutHandler p_timeoutHandler) {
+            m_request = p_request;
+            m_timeoutHandler = p_timeoutHandler;
+        }
+
+        /**
+         * Mark the request finished
+         *
+         * @return True if the caller finished the request, false if it was already finished (e.g. timed out)
+         */
+        boolean finish() {
+            return m_finished.compareAndSet(false, true);
+        }
+
+        /**
+         * Check if the request is finished
+         *
+         * @return True if finished
+         */
+        boolean isFinished() {
+            return m_finished.get();
+        }
+    }
+
+    /**
+     * Constructor
+     *
+     * @param p_network
+     *         Instance of NetworkComponent
+     * @param p_timeoutMs
+     *         Timeout in ms for asynchronous requests
+     */
+    public AsyncRequestTracker(final NetworkComponent p_network, final int p_timeoutMs) {
+        super("AsyncRequestTracker");
+        setDaemon(true);
+
+        m_network = p_network;
+        m_timeoutNs = p_timeoutMs * 1000L * 1000L;
+    }
+
+    /**
+     * Shut down the tracker thread. Requests still pending are not finished anymore
+     */
+    public void shutdown() {
+        m_run = false;
+        LockSupport.unpark(this);
+
+        try {
+            join();
+        } catch (final InterruptedException ignored) {
+        }
+    }
+
+    /**
+     * Create a pending request. Create it before the request is sent to avoid races with the response
+     *
+     * @param p_request
+     *         Request to track
+     * @param p_timeoutHandler
+     *         Handler to call if the request times out
+     * @return Pending request to finish on response
+     */
+    PendingRequest create(final Request p_request, final TimeoutHandler p_timeoutHandler) {
+        return new PendingRequest(p_request, p_timeoutHandler);
+    }
+
+    /**
+     * Start tracking the timeout of a pending request. Call right before sending the request
+     *
+     * @param p_pending
+     *         Pending request to track
+     */
+    void track(final PendingRequest p_pending) {
+        p_pending.m_deadline = System.nanoTime() + m_timeoutNs;
+        m_pending.add(p_pending);
+    }
+
+    @Override
+    public void run() {
+        while (m_run) {
+            PendingRequest head = m_pending.peek();
+
+            if (head == null) {
+                LockSupport.parkNanos(CHECK_INTERVAL_NS);
+                continue;
+            }
+
+            if (head.isFinished()) {
+                m_pending.poll();
+                continue;
+            }
+
+            long remaining = head.m_deadline - System.nanoTime();
+
+            if (remaining > 0) {
+                LockSupport.parkNanos(Math.min(remaining, CHECK_INTERVAL_NS));
+                continue;
+            }
+
+            m_pending.poll();
+
+            if (head.finish()) {
+                LOGGER.debug("Asynchronous request %s timed out", head.m_request);
+
+                m_network.cancelRequest(head.m_request);
+                head.m_timeoutHandler.onTimeout(head.m_request);
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package de.hhu.bsinfo.dxram.chunk.operation;
+
+import de.hhu.bsinfo.dxutils.stats.StatisticsManager;
+import de.hhu.bsinfo.dxutils.stats.ValuePool;
+
+/**
+ * Histogram of batch sizes with power of two buckets: 1, 2-3, 4-7, ..., the last bucket counts all larger batches.
+ * Every bucket is a separate ValuePool counting the batches of its size range.
+ */
+final class BatchSizeHistogram {
+    private static final int BUCKET_COUNT = 16;
+
+    private final ValuePool[] m_buckets = new ValuePool[BUCKET_COUNT];
+
+    /**
+     * Constructor
+     *
+     * @param p_class
+     *         Class the statistics are grouped under
+     * @param p_name
+     *         Name prefix of the buckets
+     */
+    BatchSizeHistogram(final Class<?> p_class, final String p_name) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            String range;
+
+            if (i == 0) {
+                range = "1";
+            } else if (i == BUCKET_COUNT - 1) {
+                range = (1 << i) + "+";
+            } else {
+                range = (1 << i) + "-" + ((1 << i + 1) - 1);
+            }
+
+            m_buckets[i] = new ValuePool(p_class, p_name + '[' + range + ']');
+        }
+    }
+
+    /**
+     * Register all buckets at the StatisticsManager
+     *
+     * @param p_class
+     *         Class of the operation the histogram belongs to
+     */
+    void register(final Class<?> p_class) {
+        for (ValuePool bucket : m_buckets) {
+            StatisticsManager.get().registerOperation(p_class, bucket);
+        }
+    }
+
+    /**
+     * Count a batch
+     *
+     * @param p_size
+     *         Number of elements in the batch (> 0)
+     */
+    void add(final int p_size) {
+        m_buckets[bucket(p_size)].inc();
+    }
+
+    /**
+     * Get the bucket of a batch size
+     *
+     * @param p_size
+     *         Number of elements in the batch (> 0)
+     * @return Index of the bucket
+     */
+    static int bucket(final int p_size) {
+        return Math.min(31 - Integer.numberOfLeadingZeros(p_size), BUCKET_COUNT - 1);
+    }
+}
@@ -0,0 +1,83 @@
+package de.hhu.bsinfo.dxram.chunk.operation;
+
+import de.hhu.bsinfo.dxmem.data.ChunkByteArray;
+import de.hhu.bsinfo.dxmem.data.ChunkLockOperation;
+import de.hhu.bsinfo.dxmem.data.ChunkState;
+import de.hhu.bsinfo.dxram.chunk.ChunkComponent;
+import de.hhu.bsinfo.dxram.chunk.messages.ChunkDataBuffer;
+
+/**
+ * Reads chunk data from memory straight into the (reused) buffer of a response. The chunk is locked for the copy
+ * operation only and no intermediate ChunkByteArray is allocated unless the chunk does not fit the buffer or a
+ * lock operation is requested.
+ */
+final class ChunkDataReader {
+    private static final int INITIAL_DATA_SIZE = 64 * 1024;
+    private static final int INITIAL_CHUNK_COUNT = 100;
+
+    /**
+     * Hidden constructor
+     */
+    private ChunkDataReader() {
+    }
+
+    /**
+     * Create a new buffer with default initial sizes, e.g. for a ScratchBufferPool
+     *
+     * @return New buffer
+     */
+    static ChunkDataBuffer createBuffer() {
+        return new ChunkDataBuffer(INITIAL_DATA_SIZE, INITIAL_CHUNK_COUNT);
+    }
+
+    /**
+     * Read the data of a chunk and add it to the buffer
+     *
+     * @param p_chunk
+     *         Instance of ChunkComponent
+     * @param p_buffer
+     *         Buffer to add the chunk to
+     * @param p_chunkID
+     *         ChunkID of chunk to read
+     * @param p_lockOperation
+     *         Lock operation to execute
+     * @param p_lockOperationTimeoutMs
+     *         Timeout for lock operation in ms
+     * @return State of the chunk
+     */
+    static ChunkState read(final ChunkComponent p_chunk, final ChunkDataBuffer p_buffer, final long p_chunkID,
+            final ChunkLockOperation p_lockOperation, final int p_lockOperationTimeoutMs) {
+        // a lock operation must not be executed twice if the chunk does not fit, use the allocating get instead
+        if (p_lockOperation == ChunkLockOperation.NONE) {
+            int bytes = p_chunk.getMemory().get().get(p_chunkID, p_buffer.getData(), p_buffer.getPosition(),
+                    p_buffer.getRemaining(), p_lockOperation, p_lockOperationTimeoutMs);
+
+            if (bytes > 0) {
+                p_buffer.add(ChunkState.OK, bytes);
+                return ChunkState.OK;
+            }
+
+            if (bytes < 0) {
+                ChunkState state = ChunkState.values()[-bytes];
+
+                p_buffer.add(state, 0);
+                return state;
+            }
+
+            // does not fit the remaining buffer (size unknown), fall back to a single allocation for this chunk
+        }
+
+        ChunkByteArray chunk = p_chunk.getMemory().get().get(p_chunkID, p_lockOperation, p_lockOperationTimeoutMs);
+
+        if (!chunk.isStateOk()) {
+            p_buffer.add(chunk.getState(), 0);
+            return chunk.getState();
+        }
+
+        p_buffer.ensureRemaining(chunk.getSize());
+        System.arraycopy(chunk.getData(), 0, p_buffer.getData(), p_buffer.getPosition(), chunk.getSize());
+        p_buffer.add(ChunkState.OK, chunk.getSize());
+
+        return ChunkState.OK;
+    }
+}
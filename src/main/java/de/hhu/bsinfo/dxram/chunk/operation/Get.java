@@ -1,9 +1,9 @@
 package de.hhu.bsinfo.dxram.chunk.operation;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import de.hhu.bsinfo.dxmem.data.AbstractChunk;
-import de.hhu.bsinfo.dxmem.data.ChunkByteArray;
 import de.hhu.bsinfo.dxmem.data.ChunkID;
 import de.hhu.bsinfo.dxmem.data.ChunkLockOperation;
 import de.hhu.bsinfo.dxmem.data.ChunkState;
@@ -16,6 +16,7 @@ import de.hhu.bsinfo.dxram.backup.BackupComponent;
 import de.hhu.bsinfo.dxram.boot.AbstractBootComponent;
 import de.hhu.bsinfo.dxram.chunk.ChunkComponent;
 import de.hhu.bsinfo.dxram.chunk.ChunkService;
+import de.hhu.bsinfo.dxram.chunk.messages.ChunkDataBuffer;
 import de.hhu.bsinfo.dxram.chunk.messages.ChunkMessages;
 import de.hhu.bsinfo.dxram.chunk.messages.GetMultiRequest;
 import de.hhu.bsinfo.dxram.chunk.messages.GetMultiResponse;
@@ -53,6 +54,10 @@ public class Get extends AbstractOperation implements MessageReceiver {
     private static final ValuePool SOP_INCOMING_ERROR = new ValuePool(ChunkService.class, "GetIncomingError");
     private static final ValuePool SOP_MULTI_INCOMING_ERROR =
             new ValuePool(ChunkService.class, "GetMultiIncomingError");
+    private static final ThroughputPool SOP_COALESCED =
+            new ThroughputPool(ChunkService.class, "GetCoalesced", Value.Base.B_10);
+    private static final BatchSizeHistogram SOP_COALESCED_BATCH_SIZE =
+            new BatchSizeHistogram(ChunkService.class, "GetCoalescedBatchSize");
 
     static {
         StatisticsManager.get().registerOperation(Get.class, SOP_DEFAULT);
@@ -63,13 +68,19 @@ public class Get extends AbstractOperation implements MessageReceiver {
         StatisticsManager.get().registerOperation(Get.class, SOP_MULTI_ERROR);
         StatisticsManager.get().registerOperation(Get.class, SOP_INCOMING_ERROR);
         StatisticsManager.get().registerOperation(Get.class, SOP_MULTI_INCOMING_ERROR);
+        StatisticsManager.get().registerOperation(Get.class, SOP_COALESCED);
+        SOP_COALESCED_BATCH_SIZE.register(Get.class);
     }
 
-    // TODO have a max number of threads configuration parameter somewhere in engine settings?
-    private final ArrayListShort[] m_threadLocalLocationIndexBuffer = new ArrayListShort[4096];
-    private final ArrayListShort[] m_threadLocalRemotesBuffer = new ArrayListShort[4096];
-    private final NodeIDBitfield[] m_threadLocalNodeIDBitfield = new NodeIDBitfield[4096];
-    private final ArrayList<GetMultiRequest>[] m_threadLocalPendingRequests = new ArrayList[4096];
+    private static final int SCRATCH_POOL_SIZE = 128;
+
+    private final ScratchBufferPool<MultiChunkScratch<GetMultiRequest>> m_scratchPool =
+            new ScratchBufferPool<>(SCRATCH_POOL_SIZE, MultiChunkScratch::new);
+    private final ScratchBufferPool<ChunkDataBuffer> m_responseBufferPool =
+            new ScratchBufferPool<>(SCRATCH_POOL_SIZE, ChunkDataReader::createBuffer);
+
+    // null if coalescing is disabled
+    private final RequestCoalescer m_coalescer;
 
     /**
      * Constructor
@@ -88,13 +99,27 @@ public class Get extends AbstractOperation implements MessageReceiver {
      *         Instance of LookupComponent
      * @param p_nameservice
      *         Instance of NameserviceComponent
+     * @param p_coalescingWindowNs
+     *         Time in ns to collect concurrent single chunk remote gets to the same peer (0 to disable)
+     * @param p_coalescingMaxBatchSize
+     *         Max number of single chunk remote gets coalesced into one request
      */
     public Get(final Class<? extends AbstractDXRAMService> p_parentService,
             final AbstractBootComponent p_boot, final BackupComponent p_backup, final ChunkComponent p_chunk,
             final NetworkComponent p_network, final LookupComponent p_lookup,
-            final NameserviceComponent p_nameservice) {
+            final NameserviceComponent p_nameservice, final long p_coalescingWindowNs,
+            final int p_coalescingMaxBatchSize) {
         super(p_parentService, p_boot, p_backup, p_chunk, p_network, p_lookup, p_nameservice);
 
+        if (p_coalescingWindowNs > 0) {
+            m_coalescer = new RequestCoalescer(p_coalescingWindowNs, p_coalescingMaxBatchSize,
+                    (p_peer, p_locationIndexBuffer, p_chunks) -> new GetMultiRequest(p_peer, ChunkLockOperation.NONE,
+                            -1, p_locationIndexBuffer, p_peer, 0, p_chunks), m_network, m_lookup, m_backup,
+                    SOP_COALESCED, SOP_COALESCED_BATCH_SIZE);
+        } else {
+            m_coalescer = null;
+        }
+
         m_network.registerMessageType(DXRAMMessageTypes.CHUNK_MESSAGES_TYPE, ChunkMessages.SUBTYPE_GET_REQUEST,
                 GetRequest.class);
         m_network.registerMessageType(DXRAMMessageTypes.CHUNK_MESSAGES_TYPE, ChunkMessages.SUBTYPE_GET_RESPONSE,
@@ -169,16 +194,7 @@ public class Get extends AbstractOperation implements MessageReceiver {
                     result = true;
                 } else if (p_chunk.getState() == ChunkState.DOES_NOT_EXIST) {
                     // seems like it's not available locally, check remotes for remote chunk or migrated
-                    LookupRange location = m_lookup.getLookupRange(p_chunk.getID());
-
-                    while (location.getState() == LookupState.DATA_TEMPORARY_UNAVAILABLE) {
-                        try {
-                            Thread.sleep(100);
-                        } catch (final InterruptedException ignore) {
-                        }
-
-                        location = m_lookup.getLookupRange(p_chunk.getID());
-                    }
+                    LookupRange location = m_lookup.getLookupRange(p_chunk.getID(), p_lockOperationTimeoutMs);
 
                     if (location.getState() == LookupState.OK) {
                         // currently undefined because we still have to get it from remote
@@ -188,6 +204,11 @@ public class Get extends AbstractOperation implements MessageReceiver {
 
                         if (peer == m_boot.getNodeId()) {
                             result = m_chunk.getMemory().get().get(p_chunk, p_lockOperation, p_lockOperationTimeoutMs);
+                        } else if (m_coalescer != null && p_lockOperation == ChunkLockOperation.NONE) {
+                            // batched with concurrent gets to the same peer, lookup invalidated by sender on errors
+                            m_coalescer.submit(peer, p_chunk);
+
+                            result = p_chunk.isStateOk();
                         } else {
                             // Remote get from specified peer
                             GetRequest request = new GetRequest(peer, p_lockOperation, p_lockOperationTimeoutMs,
@@ -228,6 +249,9 @@ public class Get extends AbstractOperation implements MessageReceiver {
                         p_chunk.setState(ChunkState.DOES_NOT_EXIST);
                     } else if (location.getState() == LookupState.DATA_LOST) {
                         p_chunk.setState(ChunkState.DATA_LOST);
+                    } else if (location.getState() == LookupState.DATA_TEMPORARY_UNAVAILABLE) {
+                        // not available again within the lock operation timeout
+                        p_chunk.setState(ChunkState.DATA_TEMPORARY_UNAVAILABLE);
                     }
                 }
             }
@@ -295,9 +319,14 @@ public class Get extends AbstractOperation implements MessageReceiver {
 
         SOP_MULTI.start();
 
-        ArrayListShort remoteLocIndexBuffer = getThreadLocalLocationIndexBuffer();
-        ArrayListShort remotes = getThreadLocalRemotesBuffer();
-        NodeIDBitfield nodeIDBitfield = getThreadLocalNodeIDBitfield();
+        MultiChunkScratch<GetMultiRequest> scratch = m_scratchPool.acquire();
+        ArrayListShort remoteLocIndexBuffer = scratch.getLocationIndexBuffer();
+        ArrayListShort remotes = scratch.getRemotes();
+        NodeIDBitfield nodeIDBitfield = scratch.getNodeIDBitfield();
+
+        int[] lookupIndices = null;
+        long[] lookupChunkIDs = null;
+        int lookupCount = 0;
 
         for (int i = p_offset; i < p_count; i++) {
             // filter null values and skip
@@ -324,23 +353,33 @@ public class Get extends AbstractOperation implements MessageReceiver {
                 // start at index 0 for location buffer, remote invalid because local
                 remoteLocIndexBuffer.add(i - p_offset, NodeID.INVALID_ID);
             } else if (p_chunks[i].getState() == ChunkState.DOES_NOT_EXIST) {
-                // seems like it's not available locally, check remotes for remote chunk or migrated
-                LookupRange location = m_lookup.getLookupRange(p_chunks[i].getID());
+                // seems like it's not available locally, check remotes for remote chunk or migrated. Resolve the
+                // locations of all such chunks with a single batched lookup below
+                if (lookupIndices == null) {
+                    lookupIndices = new int[p_count - i];
+                    lookupChunkIDs = new long[p_count - i];
+                }
 
-                while (location.getState() == LookupState.DATA_TEMPORARY_UNAVAILABLE) {
-                    try {
-                        Thread.sleep(100);
-                    } catch (final InterruptedException ignore) {
-                    }
+                lookupIndices[lookupCount] = i;
+                lookupChunkIDs[lookupCount++] = p_chunks[i].getID();
+            } else {
+                throw new IllegalStateException("Unhandled chunk state: " + p_chunks[i].getState());
+            }
+        }
 
-                    location = m_lookup.getLookupRange(p_chunks[i].getID());
-                }
+        if (lookupCount > 0) {
+            LookupRange[] locations = m_lookup.getLookupRanges(lookupCount == lookupChunkIDs.length ? lookupChunkIDs :
+                    Arrays.copyOf(lookupChunkIDs, lookupCount), p_lockOperationTimeoutMs);
+
+            for (int i = 0; i < lookupCount; i++) {
+                int index = lookupIndices[i];
+                LookupRange location = locations[i];
 
                 short remotePeer;
 
                 if (location.getState() == LookupState.OK) {
                     // currently undefined because we still have to get it from remote
-                    p_chunks[i].setState(ChunkState.UNDEFINED);
+                    p_chunks[index].setState(ChunkState.UNDEFINED);
 
                     remotePeer = location.getPrimaryPeer();
 
@@ -348,23 +387,25 @@ public class Get extends AbstractOperation implements MessageReceiver {
                         remotes.add(remotePeer);
                     }
                 } else if (location.getState() == LookupState.DOES_NOT_EXIST) {
-                    p_chunks[i].setState(ChunkState.DOES_NOT_EXIST);
+                    p_chunks[index].setState(ChunkState.DOES_NOT_EXIST);
                     remotePeer = NodeID.INVALID_ID;
                 } else if (location.getState() == LookupState.DATA_LOST) {
-                    p_chunks[i].setState(ChunkState.DATA_LOST);
+                    p_chunks[index].setState(ChunkState.DATA_LOST);
+                    remotePeer = NodeID.INVALID_ID;
+                } else if (location.getState() == LookupState.DATA_TEMPORARY_UNAVAILABLE) {
+                    // not available again within the lock operation timeout
+                    p_chunks[index].setState(ChunkState.DATA_TEMPORARY_UNAVAILABLE);
                     remotePeer = NodeID.INVALID_ID;
                 } else {
                     throw new IllegalStateException("Unhandled state, location state: " + location.getState());
                 }
 
                 // start at index 0 for location buffer
-                remoteLocIndexBuffer.add(i - p_offset, remotePeer);
-            } else {
-                throw new IllegalStateException("Unhandled chunk state: " + p_chunks[i].getState());
+                remoteLocIndexBuffer.add(index - p_offset, remotePeer);
             }
         }
 
-        ArrayList<GetMultiRequest> pendingRequests = getThreadLocalPendingReqArray();
+        ArrayList<GetMultiRequest> pendingRequests = scratch.getPendingRequests();
 
         // generate requests
         for (int i = 0; i < remotes.getSize(); i++) {
@@ -438,9 +479,11 @@ public class Get extends AbstractOperation implements MessageReceiver {
             }
         }
 
-        pendingRequests.clear();
-        remotes.clear();
-        remoteLocIndexBuffer.clear();
+        // buffers are not returned on exceptions, the pool creates new ones instead
+        if (!scratch.isOversized()) {
+            scratch.clear();
+            m_scratchPool.release(scratch);
+        }
 
         totalChunksGot = p_count - failures;
 
@@ -466,22 +509,26 @@ public class Get extends AbstractOperation implements MessageReceiver {
 
                 boolean successful;
 
-                ChunkByteArray chunk = m_chunk.getMemory().get().get(request.getChunkID(), request.getLockOperation(),
-                        request.getLockOperationTimeoutMs());
+                ChunkDataBuffer buffer = m_responseBufferPool.acquire();
 
-                successful = chunk.isStateOk();
+                successful = ChunkDataReader.read(m_chunk, buffer, request.getChunkID(), request.getLockOperation(),
+                        request.getLockOperationTimeoutMs()) == ChunkState.OK;
 
-                GetResponse response = new GetResponse(request, chunk);
+                GetResponse response = new GetResponse(request, buffer);
 
                 try {
                     m_network.sendMessage(response);
                 } catch (final NetworkException e) {
-                    m_logger.error("Sending GetResponse for chunk %s failed: %s", ChunkID.toHexString(chunk.getID()),
-                            e);
+                    m_logger.error("Sending GetResponse for chunk %s failed: %s",
+                            ChunkID.toHexString(request.getChunkID()), e);
 
                     successful = false;
                 }
 
+                // response is serialized on send, buffer can be reused
+                buffer.clear();
+                m_responseBufferPool.release(buffer);
+
                 if (!successful) {
                     SOP_INCOMING_ERROR.inc();
                 }
@@ -496,84 +543,37 @@ public class Get extends AbstractOperation implements MessageReceiver {
 
                 SOP_MULTI_INCOMING.start(request.getChunkIDs().length);
 
-                ChunkByteArray[] chunks = new ChunkByteArray[request.getChunkIDs().length];
+                long[] chunkIDs = request.getChunkIDs();
+                ChunkDataBuffer buffer = m_responseBufferPool.acquire();
                 int successfulGets = 0;
 
-                for (int i = 0; i < chunks.length; i++) {
-                    chunks[i] = m_chunk.getMemory().get().get(request.getChunkIDs()[i], request.getLockOperation(),
-                            request.getLockOperationTimeoutMs());
-
-                    if (chunks[i].isStateOk()) {
+                for (long chunkID : chunkIDs) {
+                    if (ChunkDataReader.read(m_chunk, buffer, chunkID, request.getLockOperation(),
+                            request.getLockOperationTimeoutMs()) == ChunkState.OK) {
                         successfulGets++;
                     }
                 }
 
-                GetMultiResponse response = new GetMultiResponse(request, chunks);
+                GetMultiResponse response = new GetMultiResponse(request, buffer);
 
                 try {
                     m_network.sendMessage(response);
                 } catch (final NetworkException e) {
-                    m_logger.error("Sending GetMultiResponse for %d chunks failed: %s", chunks.length, e);
+                    m_logger.error("Sending GetMultiResponse for %d chunks failed: %s", chunkIDs.length, e);
 
                     successfulGets = 0;
                 }
 
-                if (successfulGets < chunks.length) {
-                    SOP_MULTI_INCOMING_ERROR.add(chunks.length - successfulGets);
+                // response is serialized on send, buffer can be reused
+                buffer.clear();
+                m_responseBufferPool.release(buffer);
+
+                if (successfulGets < chunkIDs.length) {
+                    SOP_MULTI_INCOMING_ERROR.add(chunkIDs.length - successfulGets);
                 }
 
                 SOP_MULTI_INCOMING.stop();
             }
         }
     }
-
-    /**
-     * Get a thread local instance avoiding allocations
-     *
-     * @return Thread local instance
-     */
-    private ArrayListShort getThreadLocalLocationIndexBuffer() {
-        ArrayListShort locationIndexBuffer =
-                m_threadLocalLocationIndexBuffer[(int) Thread.currentThread().getId()];
-
-        if (locationIndexBuffer == null) {
-            locationIndexBuffer = new ArrayListShort(100);
-            m_threadLocalLocationIndexBuffer[(int) Thread.currentThread().getId()] = locationIndexBuffer;
-        }
-
-        return locationIndexBuffer;
-    }
-
-    private ArrayListShort getThreadLocalRemotesBuffer() {
-        ArrayListShort remotesBuffer = m_threadLocalRemotesBuffer[(int) Thread.currentThread().getId()];
-
-        if (remotesBuffer == null) {
-            remotesBuffer = new ArrayListShort(10);
-            m_threadLocalRemotesBuffer[(int) Thread.currentThread().getId()] = remotesBuffer;
-        }
-
-        return remotesBuffer;
-    }
-
-    private NodeIDBitfield getThreadLocalNodeIDBitfield() {
-        NodeIDBitfield bitfield = m_threadLocalNodeIDBitfield[(int) Thread.currentThread().getId()];
-
-        if (bitfield == null) {
-            bitfield = new NodeIDBitfield();
-            m_threadLocalNodeIDBitfield[(int) Thread.currentThread().getId()] = bitfield;
-        }
-
-        return bitfield;
-    }
-
-    private ArrayList<GetMultiRequest> getThreadLocalPendingReqArray() {
-        ArrayList<GetMultiRequest> requests = m_threadLocalPendingRequests[(int) Thread.currentThread().getId()];
-
-        if (requests == null) {
-            requests = new ArrayList<>(10);
-            m_threadLocalPendingRequests[(int) Thread.currentThread().getId()] = requests;
-        }
-
-        return requests;
-    }
 }
@@ -16,6 +16,7 @@ import de.hhu.bsinfo.dxram.backup.BackupComponent;
 import de.hhu.bsinfo.dxram.boot.AbstractBootComponent;
 import de.hhu.bsinfo.dxram.chunk.ChunkComponent;
 import de.hhu.bsinfo.dxram.chunk.data.ChunkAnon;
+import de.hhu.bsinfo.dxram.chunk.messages.ChunkDataBuffer;
 import de.hhu.bsinfo.dxram.chunk.messages.ChunkMessages;
 import de.hhu.bsinfo.dxram.chunk.messages.GetAnonRequest;
 import de.hhu.bsinfo.dxram.chunk.messages.GetAnonResponse;
@@ -45,6 +46,11 @@ public class GetAnon extends AbstractOperation implements MessageReceiver {
         StatisticsManager.get().registerOperation(ChunkAnon.class, SOP_INCOMING_GET);
     }
 
+    private static final int SCRATCH_POOL_SIZE = 128;
+
+    private final ScratchBufferPool<ChunkDataBuffer> m_responseBufferPool =
+            new ScratchBufferPool<>(SCRATCH_POOL_SIZE, ChunkDataReader::createBuffer);
+
     /**
      * Constructor
      *
@@ -153,16 +159,9 @@ public class GetAnon extends AbstractOperation implements MessageReceiver {
                 // remote or migrated, figure out location and sort by peers
                 LookupRange lookupRange;
 
-                lookupRange = m_lookup.getLookupRange(p_cids[p_offset + i]);
-
-                while (lookupRange.getState() == LookupState.DATA_TEMPORARY_UNAVAILABLE) {
-                    try {
-                        Thread.sleep(100);
-                    } catch (final InterruptedException ignore) {
-                    }
-
-                    lookupRange = m_lookup.getLookupRange(p_cids[p_offset + i]);
-                }
+                // blocks until the range is available again if temporarily unavailable (e.g. recovery) or the lock
+                // operation timeout elapsed
+                lookupRange = m_lookup.getLookupRange(p_cids[p_offset + i], p_lockOperationTimeoutMs);
 
                 if (lookupRange.getState() == LookupState.OK) {
                     short peer = lookupRange.getPrimaryPeer();
@@ -240,15 +239,15 @@ public class GetAnon extends AbstractOperation implements MessageReceiver {
             GetAnonRequest request = (GetAnonRequest) p_message;
 
             long[] chunkIDs = request.getChunkIDs();
-            ChunkByteArray[] chunks = new ChunkByteArray[chunkIDs.length];
+            ChunkDataBuffer buffer = m_responseBufferPool.acquire();
 
             SOP_INCOMING_GET.start(request.getChunkIDs().length);
 
-            for (int i = 0; i < chunks.length; i++) {
-                chunks[i] = m_chunk.getMemory().get().get(chunkIDs[i], ChunkLockOperation.NONE, -1);
+            for (long chunkID : chunkIDs) {
+                ChunkDataReader.read(m_chunk, buffer, chunkID, ChunkLockOperation.NONE, -1);
             }
 
-            GetAnonResponse response = new GetAnonResponse(request, chunks);
+            GetAnonResponse response = new GetAnonResponse(request, buffer);
 
             try {
                 m_network.sendMessage(response);
@@ -256,6 +255,10 @@ public class GetAnon extends AbstractOperation implements MessageReceiver {
                 m_logger.error("Sending GetAnonResponse chunks failed: %s", e);
             }
 
+            // response is serialized on send, buffer can be reused
+            buffer.clear();
+            m_responseBufferPool.release(buffer);
+
             SOP_INCOMING_GET.stop();
         }
     }
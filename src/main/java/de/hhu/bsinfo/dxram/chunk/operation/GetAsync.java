@@ -0,0 +1,139 @@
+package de.hhu.bsinfo.dxram.chunk.operation;
+
+import java.util.concurrent.CompletableFuture;
+
+import de.hhu.bsinfo.dxmem.data.AbstractChunk;
+import de.hhu.bsinfo.dxmem.data.ChunkLockOperation;
+import de.hhu.bsinfo.dxram.backup.BackupComponent;
+import de.hhu.bsinfo.dxram.boot.AbstractBootComponent;
+import de.hhu.bsinfo.dxram.chunk.ChunkComponent;
+import de.hhu.bsinfo.dxram.chunk.ChunkService;
+import de.hhu.bsinfo.dxram.chunk.messages.GetMultiRequest;
+import de.hhu.bsinfo.dxram.engine.AbstractDXRAMService;
+import de.hhu.bsinfo.dxram.lookup.LookupComponent;
+import de.hhu.bsinfo.dxram.nameservice.NameserviceComponent;
+import de.hhu.bsinfo.dxram.net.NetworkComponent;
+import de.hhu.bsinfo.dxutils.ArrayListShort;
+import de.hhu.bsinfo.dxutils.stats.StatisticsManager;
+import de.hhu.bsinfo.dxutils.stats.ValuePool;
+
+/**
+ * Get the stored data of one or multiple chunks without blocking the caller on remote requests. Local chunks are
+ * read immediately, remote chunks are requested with one GetMultiRequest per peer. The returned future is completed
+ * from the network receive path once all responses arrived (or timed out). Dependent actions registered on the
+ * future without an executor are executed on the network thread, use the async variants for anything non-trivial.
+ */
+public class GetAsync extends AbstractAsyncOperation<GetMultiRequest> {
+    private static final ValuePool SOP_ASYNC = new ValuePool(ChunkService.class, "GetAsync");
+    private static final ValuePool SOP_ASYNC_REMOTE_REQUESTS = new ValuePool(ChunkService.class, "GetAsyncRequests");
+    private static final ValuePool SOP_ASYNC_ERROR = new ValuePool(ChunkService.class, "GetAsyncError");
+
+    static {
+        StatisticsManager.get().registerOperation(GetAsync.class, SOP_ASYNC);
+        StatisticsManager.get().registerOperation(GetAsync.class, SOP_ASYNC_REMOTE_REQUESTS);
+        StatisticsManager.get().registerOperation(GetAsync.class, SOP_ASYNC_ERROR);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param p_parentService
+     *         Instance of parent service this operation belongs to
+     * @param p_boot
+     *         Instance of BootComponent
+     * @param p_backup
+     *         Instance of BackupComponent
+     * @param p_chunk
+     *         Instance of ChunkComponent
+     * @param p_network
+     *         Instance of NetworkComponent
+     * @param p_lookup
+     *         Instance of LookupComponent
+     * @param p_nameservice
+     *         Instance of NameserviceComponent
+     * @param p_tracker
+     *         Tracker for timeouts of pending asynchronous requests
+     */
+    public GetAsync(final Class<? extends AbstractDXRAMService> p_parentService,
+            final AbstractBootComponent p_boot, final BackupComponent p_backup, final ChunkComponent p_chunk,
+            final NetworkComponent p_network, final LookupComponent p_lookup,
+            final NameserviceComponent p_nameservice, final AsyncRequestTracker p_tracker) {
+        super(p_parentService, p_boot, p_backup, p_chunk, p_network, p_lookup, p_nameservice, p_tracker, SOP_ASYNC,
+                SOP_ASYNC_REMOTE_REQUESTS, SOP_ASYNC_ERROR);
+
+        // message types and receivers are registered by the synchronous Get operation
+    }
+
+    /**
+     * Get the data of one or multiple chunks asynchronously
+     *
+     * @param p_chunks
+     *         Chunks to get
+     * @return Future completed with the number of successful operations. If less than expected, check the chunk
+     * object states for errors
+     */
+    public CompletableFuture<Integer> get(final AbstractChunk... p_chunks) {
+        return get(0, p_chunks.length, ChunkLockOperation.NONE, -1, p_chunks);
+    }
+
+    /**
+     * Get the data of one or multiple chunks asynchronously
+     *
+     * @param p_lockOperation
+     *         Lock operation to execute for each get operation
+     * @param p_lockOperationTimeoutMs
+     *         Timeout for lock operation in ms
+     * @param p_chunks
+     *         Chunks to get
+     * @return Future completed with the number of successful operations. If less than expected, check the chunk
+     * object states for errors
+     */
+    public CompletableFuture<Integer> get(final ChunkLockOperation p_lockOperation,
+            final int p_lockOperationTimeoutMs, final AbstractChunk... p_chunks) {
+        return get(0, p_chunks.length, p_lockOperation, p_lockOperationTimeoutMs, p_chunks);
+    }
+
+    /**
+     * Get the data of one or multiple chunks asynchronously. The caller must not touch the chunks until the returned
+     * future is completed. Resolving the location of remote chunks might still block on a lookup cache miss. Chunks
+     * of ranges which are temporarily unavailable (e.g. during recovery) are not waited for but marked with state
+     * DATA_TEMPORARY_UNAVAILABLE
+     *
+     * @param p_offset
+     *         Offset in array where to start get operations
+     * @param p_count
+     *         Number of chunks to get (might be less array size/number of chunks provided)
+     * @param p_lockOperation
+     *         Lock operation to execute for each get operation
+     * @param p_lockOperationTimeoutMs
+     *         Timeout for lock operation in ms (-1 for unlimited. Be careful with remote chunks here! This might lead
+     *         to network timeouts instead)
+     * @param p_chunks
+     *         Chunks to get
+     * @return Future completed with the number of successful operations. If less than expected, check the chunk
+     * object states for errors
+     */
+    public CompletableFuture<Integer> get(final int p_offset, final int p_count,
+            final ChunkLockOperation p_lockOperation, final int p_lockOperationTimeoutMs,
+            final AbstractChunk... p_chunks) {
+        m_logger.trace("getAsync[offset %d, count %d, lock op %s, lock timeout %d, chunks (%d): %s]", p_offset,
+                p_count, p_lockOperation, p_lockOperationTimeoutMs, p_chunks.length,
+                AbstractChunk.toChunkIDListString(p_chunks));
+
+        return execute(p_offset, p_count, p_lockOperation, p_lockOperationTimeoutMs, p_chunks);
+    }
+
+    @Override
+    protected void executeLocally(final AbstractChunk p_chunk, final ChunkLockOperation p_lockOperation,
+            final int p_lockOperationTimeoutMs) {
+        m_chunk.getMemory().get().get(p_chunk, p_lockOperation, p_lockOperationTimeoutMs);
+    }
+
+    @Override
+    protected GetMultiRequest createRequest(final short p_remote, final ChunkLockOperation p_lockOperation,
+            final int p_lockOperationTimeoutMs, final ArrayListShort p_locationIndexBuffer, final int p_offset,
+            final AbstractChunk[] p_chunks) {
+        return new GetMultiRequest(p_remote, p_lockOperation, p_lockOperationTimeoutMs, p_locationIndexBuffer,
+                p_remote, p_offset, p_chunks);
+    }
+}
@@ -153,16 +153,7 @@ public class Lock extends AbstractOperation implements MessageReceiver {
                 totalChunks++;
             } else if (p_chunks[i].getState() == ChunkState.DOES_NOT_EXIST) {
                 // seems like it's not available locally, check remotes for remote chunk or migrated
-                LookupRange location = m_lookup.getLookupRange(p_chunks[i].getID());
-
-                while (location.getState() == LookupState.DATA_TEMPORARY_UNAVAILABLE) {
-                    try {
-                        Thread.sleep(100);
-                    } catch (final InterruptedException ignore) {
-                    }
-
-                    location = m_lookup.getLookupRange(p_chunks[i].getID());
-                }
+                LookupRange location = m_lookup.getLookupRange(p_chunks[i].getID(), p_lockTimeoutMs);
 
                 if (location.getState() == LookupState.OK) {
                     // currently undefined because we still have to get it from remote
@@ -177,6 +168,9 @@ public class Lock extends AbstractOperation implements MessageReceiver {
                     p_chunks[i].setState(ChunkState.DOES_NOT_EXIST);
                 } else if (location.getState() == LookupState.DATA_LOST) {
                     p_chunks[i].setState(ChunkState.DATA_LOST);
+                } else if (location.getState() == LookupState.DATA_TEMPORARY_UNAVAILABLE) {
+                    // not available again within the lock timeout
+                    p_chunks[i].setState(ChunkState.DATA_TEMPORARY_UNAVAILABLE);
                 }
             }
         }
@@ -189,7 +183,7 @@ public class Lock extends AbstractOperation implements MessageReceiver {
             if (peer == m_boot.getNodeId()) {
                 // local, migrated data to current node
                 for (AbstractChunk chunk : remoteChunks) {
-                    chunk.setState(m_chunk.getMemory().resize().resize(chunk.getID(), chunk.sizeofObject()));
+                    chunk.setState(m_chunk.resize(chunk.getID(), chunk.sizeofObject()));
 
                     if (chunk.isStateOk()) {
                         totalChunks++;
@@ -0,0 +1,82 @@
+package de.hhu.bsinfo.dxram.chunk.operation;
+
+import java.util.ArrayList;
+
+import de.hhu.bsinfo.dxutils.ArrayListShort;
+import de.hhu.bsinfo.dxutils.NodeIDBitfield;
+
+/**
+ * Scratch buffers used by operations on multiple chunks to sort the chunks by remote peers and create requests.
+ * Pooled with a ScratchBufferPool to avoid allocations on every call.
+ *
+ * @param <T>
+ *         Type of requests created by the operation
+ */
+final class MultiChunkScratch<T> {
+    // scratch buffers used for more chunks are not pooled to not keep their memory forever
+    private static final int MAX_RETAINED_CHUNK_COUNT = 10000;
+
+    private final ArrayListShort m_locationIndexBuffer = new ArrayListShort(100);
+    private final ArrayListShort m_remotes = new ArrayListShort(10);
+    private final NodeIDBitfield m_nodeIDBitfield = new NodeIDBitfield();
+    private final ArrayList<T> m_pendingRequests = new ArrayList<>(10);
+
+    /**
+     * Get the buffer storing the location (remote peer) for each chunk of the operation
+     *
+     * @return Location index buffer
+     */
+    ArrayListShort getLocationIndexBuffer() {
+        return m_locationIndexBuffer;
+    }
+
+    /**
+     * Get the buffer with the remote peers involved in the operation
+     *
+     * @return Remotes buffer
+     */
+    ArrayListShort getRemotes() {
+        return m_remotes;
+    }
+
+    /**
+     * Get the bitfield to filter duplicate remote peers
+     *
+     * @return Node ID bitfield
+     */
+    NodeIDBitfield getNodeIDBitfield() {
+        return m_nodeIDBitfield;
+    }
+
+    /**
+     * Get the list of pending requests of the operation
+     *
+     * @return Pending requests
+     */
+    ArrayList<T> getPendingRequests() {
+        return m_pendingRequests;
+    }
+
+    /**
+     * Check if the buffers grew too large to keep them in a pool. The buffers only grow with the number of chunks
+     * of an operation, so this must be checked before clearing
+     *
+     * @return True if the scratch should be dropped instead of released to the pool
+     */
+    boolean isOversized() {
+        return m_locationIndexBuffer.getSize() > MAX_RETAINED_CHUNK_COUNT;
+    }
+
+    /**
+     * Reset all buffers for the next operation
+     */
+    void clear() {
+        for (int i = 0; i < m_remotes.getSize(); i++) {
+            m_nodeIDBitfield.set(m_remotes.get(i), false);
+        }
+
+        m_pendingRequests.clear();
+        m_remotes.clear();
+        m_locationIndexBuffer.clear();
+    }
+}
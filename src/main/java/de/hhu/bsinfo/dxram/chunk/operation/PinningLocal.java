@@ -13,6 +13,7 @@
 
 package de.hhu.bsinfo.dxram.chunk.operation;
 
+import de.hhu.bsinfo.dxmem.data.ChunkID;
 import de.hhu.bsinfo.dxmem.operations.Pinning.PinnedMemory;
 import de.hhu.bsinfo.dxram.backup.BackupComponent;
 import de.hhu.bsinfo.dxram.boot.AbstractBootComponent;
@@ -27,7 +28,8 @@ import de.hhu.bsinfo.dxutils.stats.StatisticsManager;
 import de.hhu.bsinfo.dxutils.stats.ValuePool;
 
 /**
- * Pin chunks (local only).
+ * Pin chunks (local only). Pinned chunks are written by raw writes. Thus, pinned chunks of live migrated ranges
+ * count as written until they are unpinned (see ChunkWriteTracker).
  * 
  * @author Ruslan Curbanov, ruslan.curbanov@uni-duesseldorf.de, 19.02.2019
  *
@@ -94,7 +96,16 @@ public class PinningLocal extends AbstractOperation {
      */
     public PinnedMemory pin(final long p_cid, final int p_acquireLockTimeoutMs) {
         SOP_PIN.inc();
-        return m_chunk.getMemory().pinning().pin(p_cid, p_acquireLockTimeoutMs);
+
+        boolean tracked = m_chunk.getWriteTracker().pin(p_cid);
+
+        PinnedMemory pinnedMemory = m_chunk.getMemory().pinning().pin(p_cid, p_acquireLockTimeoutMs);
+
+        if (tracked && !pinnedMemory.isStateOk()) {
+            m_chunk.getWriteTracker().unpin(p_cid);
+        }
+
+        return pinnedMemory;
     }
 
     /**
@@ -107,7 +118,14 @@ public class PinningLocal extends AbstractOperation {
      */
     public long unpin(final long p_pinnedChunkAddress) {
         SOP_UNPIN.inc();
-        return m_chunk.getMemory().pinning().unpin(p_pinnedChunkAddress);
+
+        long cid = m_chunk.getMemory().pinning().unpin(p_pinnedChunkAddress);
+
+        if (cid != ChunkID.INVALID_ID) {
+            m_chunk.getWriteTracker().unpin(cid);
+        }
+
+        return cid;
     }
 
     /**
@@ -119,5 +137,6 @@ public class PinningLocal extends AbstractOperation {
     public void unpinCID(final long p_cidOfPinnedChunk) {
         SOP_UNPIN.inc();
         m_chunk.getMemory().pinning().unpinCID(p_cidOfPinnedChunk);
+        m_chunk.getWriteTracker().unpin(p_cidOfPinnedChunk);
     }
 }
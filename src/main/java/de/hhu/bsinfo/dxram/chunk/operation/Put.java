@@ -1,6 +1,7 @@
 package de.hhu.bsinfo.dxram.chunk.operation;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import de.hhu.bsinfo.dxmem.data.AbstractChunk;
 import de.hhu.bsinfo.dxmem.data.ChunkID;
@@ -12,7 +13,6 @@ import de.hhu.bsinfo.dxnet.core.Message;
 import de.hhu.bsinfo.dxnet.core.NetworkException;
 import de.hhu.bsinfo.dxram.DXRAMMessageTypes;
 import de.hhu.bsinfo.dxram.backup.BackupComponent;
-import de.hhu.bsinfo.dxram.backup.BackupRange;
 import de.hhu.bsinfo.dxram.boot.AbstractBootComponent;
 import de.hhu.bsinfo.dxram.chunk.ChunkComponent;
 import de.hhu.bsinfo.dxram.chunk.ChunkService;
@@ -53,6 +53,10 @@ public class Put extends AbstractOperation implements MessageReceiver {
     private static final ValuePool SOP_INCOMING_ERROR = new ValuePool(ChunkService.class, "GetIncomingError");
     private static final ValuePool SOP_MULTI_INCOMING_ERROR =
             new ValuePool(ChunkService.class, "GetMultiIncomingError");
+    private static final ThroughputPool SOP_COALESCED =
+            new ThroughputPool(ChunkService.class, "PutCoalesced", Value.Base.B_10);
+    private static final BatchSizeHistogram SOP_COALESCED_BATCH_SIZE =
+            new BatchSizeHistogram(ChunkService.class, "PutCoalescedBatchSize");
 
     static {
         StatisticsManager.get().registerOperation(Get.class, SOP_DEFAULT);
@@ -63,13 +67,18 @@ public class Put extends AbstractOperation implements MessageReceiver {
         StatisticsManager.get().registerOperation(Get.class, SOP_MULTI_ERROR);
         StatisticsManager.get().registerOperation(Get.class, SOP_INCOMING_ERROR);
         StatisticsManager.get().registerOperation(Get.class, SOP_MULTI_INCOMING_ERROR);
+        StatisticsManager.get().registerOperation(Put.class, SOP_COALESCED);
+        SOP_COALESCED_BATCH_SIZE.register(Put.class);
     }
 
-    // TODO have a max number of threads configuration parameter somewhere in engine settings?
-    private final ArrayListShort[] m_threadLocalLocationIndexBuffer = new ArrayListShort[4096];
-    private final ArrayListShort[] m_threadLocalRemotesBuffer = new ArrayListShort[4096];
-    private final NodeIDBitfield[] m_threadLocalNodeIDBitfield = new NodeIDBitfield[4096];
-    private final ArrayList<PutMultiRequest>[] m_threadLocalPendingRequests = new ArrayList[4096];
+    private static final int SCRATCH_POOL_SIZE = 128;
+
+    private final ScratchBufferPool<MultiChunkScratch<PutMultiRequest>> m_scratchPool =
+            new ScratchBufferPool<>(SCRATCH_POOL_SIZE, MultiChunkScratch::new);
+
+    private final PutReplicator m_replicator;
+    // null if coalescing is disabled
+    private final RequestCoalescer m_coalescer;
 
     /**
      * Constructor
@@ -88,13 +97,31 @@ public class Put extends AbstractOperation implements MessageReceiver {
      *         Instance of LookupComponent
      * @param p_nameservice
      *         Instance of NameserviceComponent
+     * @param p_replicator
+     *         Replicator for updated chunks
+     * @param p_coalescingWindowNs
+     *         Time in ns to collect concurrent single chunk remote puts to the same peer (0 to disable)
+     * @param p_coalescingMaxBatchSize
+     *         Max number of single chunk remote puts coalesced into one request
      */
     public Put(final Class<? extends AbstractDXRAMService> p_parentService,
             final AbstractBootComponent p_boot, final BackupComponent p_backup, final ChunkComponent p_chunk,
             final NetworkComponent p_network, final LookupComponent p_lookup,
-            final NameserviceComponent p_nameservice) {
+            final NameserviceComponent p_nameservice, final PutReplicator p_replicator,
+            final long p_coalescingWindowNs, final int p_coalescingMaxBatchSize) {
         super(p_parentService, p_boot, p_backup, p_chunk, p_network, p_lookup, p_nameservice);
 
+        m_replicator = p_replicator;
+
+        if (p_coalescingWindowNs > 0) {
+            m_coalescer = new RequestCoalescer(p_coalescingWindowNs, p_coalescingMaxBatchSize,
+                    (p_peer, p_locationIndexBuffer, p_chunks) -> new PutMultiRequest(p_peer, ChunkLockOperation.NONE,
+                            -1, p_locationIndexBuffer, p_peer, 0, p_chunks), m_network, m_lookup, m_backup,
+                    SOP_COALESCED, SOP_COALESCED_BATCH_SIZE);
+        } else {
+            m_coalescer = null;
+        }
+
         m_network.registerMessageType(DXRAMMessageTypes.CHUNK_MESSAGES_TYPE, ChunkMessages.SUBTYPE_PUT_REQUEST,
                 PutRequest.class);
         m_network.registerMessageType(DXRAMMessageTypes.CHUNK_MESSAGES_TYPE, ChunkMessages.SUBTYPE_PUT_RESPONSE,
@@ -161,25 +188,18 @@ public class Put extends AbstractOperation implements MessageReceiver {
             } else {
                 // try to get locally, will check first if it exists
                 if (m_chunk.isStorageEnabled()) {
-                    m_chunk.getMemory().put().put(p_chunk, p_lockOperation, p_lockOperationTimeoutMs);
+                    m_chunk.put(p_chunk, p_lockOperation, p_lockOperationTimeoutMs);
                 } else {
                     p_chunk.setState(ChunkState.DOES_NOT_EXIST);
                 }
 
                 if (p_chunk.getState() == ChunkState.OK) {
                     result = true;
+
+                    replicate(p_chunk);
                 } else if (p_chunk.getState() == ChunkState.DOES_NOT_EXIST) {
                     // seems like it's not available locally, check remotes for remote chunk or migrated
-                    LookupRange location = m_lookup.getLookupRange(p_chunk.getID());
-
-                    while (location.getState() == LookupState.DATA_TEMPORARY_UNAVAILABLE) {
-                        try {
-                            Thread.sleep(100);
-                        } catch (final InterruptedException ignore) {
-                        }
-
-                        location = m_lookup.getLookupRange(p_chunk.getID());
-                    }
+                    LookupRange location = m_lookup.getLookupRange(p_chunk.getID(), p_lockOperationTimeoutMs);
 
                     if (location.getState() == LookupState.OK) {
                         // currently undefined because we still have to get it from remote
@@ -188,7 +208,16 @@ public class Put extends AbstractOperation implements MessageReceiver {
                         short peer = location.getPrimaryPeer();
 
                         if (peer == m_boot.getNodeId()) {
-                            result = m_chunk.getMemory().get().get(p_chunk, p_lockOperation, p_lockOperationTimeoutMs);
+                            result = m_chunk.put(p_chunk, p_lockOperation, p_lockOperationTimeoutMs);
+
+                            if (result) {
+                                replicate(p_chunk);
+                            }
+                        } else if (m_coalescer != null && p_lockOperation == ChunkLockOperation.NONE) {
+                            // batched with concurrent puts to the same peer, lookup invalidated by sender on errors
+                            m_coalescer.submit(peer, p_chunk);
+
+                            result = p_chunk.isStateOk();
                         } else {
                             // Remote get from specified peer
                             PutRequest request = new PutRequest(peer, p_lockOperation, p_lockOperationTimeoutMs,
@@ -229,6 +258,9 @@ public class Put extends AbstractOperation implements MessageReceiver {
                         p_chunk.setState(ChunkState.DOES_NOT_EXIST);
                     } else if (location.getState() == LookupState.DATA_LOST) {
                         p_chunk.setState(ChunkState.DATA_LOST);
+                    } else if (location.getState() == LookupState.DATA_TEMPORARY_UNAVAILABLE) {
+                        // not available again within the lock operation timeout
+                        p_chunk.setState(ChunkState.DATA_TEMPORARY_UNAVAILABLE);
                     }
                 }
             }
@@ -297,9 +329,19 @@ public class Put extends AbstractOperation implements MessageReceiver {
 
         SOP_MULTI.start();
 
-        ArrayListShort remoteLocIndexBuffer = getThreadLocalLocationIndexBuffer();
-        ArrayListShort remotes = getThreadLocalRemotesBuffer();
-        NodeIDBitfield nodeIDBitfield = getThreadLocalNodeIDBitfield();
+        MultiChunkScratch<PutMultiRequest> scratch = m_scratchPool.acquire();
+        ArrayListShort remoteLocIndexBuffer = scratch.getLocationIndexBuffer();
+        ArrayListShort remotes = scratch.getRemotes();
+        NodeIDBitfield nodeIDBitfield = scratch.getNodeIDBitfield();
+
+        int[] lookupIndices = null;
+        long[] lookupChunkIDs = null;
+        int lookupCount = 0;
+
+        // count failures instead of success
+        int failures = 0;
+
+        PutReplicator.Ticket ticket = m_replicator.isActive() ? new PutReplicator.Ticket() : null;
 
         for (int i = p_offset; i < p_count; i++) {
             // filter null values and skip
@@ -315,7 +357,7 @@ public class Put extends AbstractOperation implements MessageReceiver {
 
             // try to put locally, will check first if it exists
             if (m_chunk.isStorageEnabled()) {
-                m_chunk.getMemory().put().put(p_chunks[i], p_lockOperation, p_lockOperationTimeoutMs);
+                m_chunk.put(p_chunks[i], p_lockOperation, p_lockOperationTimeoutMs);
             } else {
                 p_chunks[i].setState(ChunkState.DOES_NOT_EXIST);
             }
@@ -323,26 +365,44 @@ public class Put extends AbstractOperation implements MessageReceiver {
             if (p_chunks[i].getState() == ChunkState.OK) {
                 totalChunksGot++;
 
+                if (ticket != null) {
+                    m_replicator.add(p_chunks[i], ticket);
+                }
+
                 // start at index 0 for location buffer, remote invalid because local
                 remoteLocIndexBuffer.add(i - p_offset, NodeID.INVALID_ID);
             } else if (p_chunks[i].getState() == ChunkState.DOES_NOT_EXIST) {
-                // seems like it's not available locally, check remotes for remote chunk or migrated
-                LookupRange location = m_lookup.getLookupRange(p_chunks[i].getID());
+                // seems like it's not available locally, check remotes for remote chunk or migrated. Resolve the
+                // locations of all such chunks with a single batched lookup below
+                if (lookupIndices == null) {
+                    lookupIndices = new int[p_count - i];
+                    lookupChunkIDs = new long[p_count - i];
+                }
 
-                while (location.getState() == LookupState.DATA_TEMPORARY_UNAVAILABLE) {
-                    try {
-                        Thread.sleep(100);
-                    } catch (final InterruptedException ignore) {
-                    }
+                lookupIndices[lookupCount] = i;
+                lookupChunkIDs[lookupCount++] = p_chunks[i].getID();
+            } else if (p_chunks[i].getState() == ChunkState.DATA_TEMPORARY_UNAVAILABLE) {
+                // written by a live migration right now, the caller has to retry
+                remoteLocIndexBuffer.add(i - p_offset, NodeID.INVALID_ID);
+                failures++;
+            } else {
+                throw new IllegalStateException("Unhandled chunk state: " + p_chunks[i].getState());
+            }
+        }
 
-                    location = m_lookup.getLookupRange(p_chunks[i].getID());
-                }
+        if (lookupCount > 0) {
+            LookupRange[] locations = m_lookup.getLookupRanges(lookupCount == lookupChunkIDs.length ? lookupChunkIDs :
+                    Arrays.copyOf(lookupChunkIDs, lookupCount), p_lockOperationTimeoutMs);
+
+            for (int i = 0; i < lookupCount; i++) {
+                int index = lookupIndices[i];
+                LookupRange location = locations[i];
 
                 short remotePeer;
 
                 if (location.getState() == LookupState.OK) {
                     // currently undefined because we still have to get it from remote
-                    p_chunks[i].setState(ChunkState.UNDEFINED);
+                    p_chunks[index].setState(ChunkState.UNDEFINED);
 
                     remotePeer = location.getPrimaryPeer();
 
@@ -350,23 +410,25 @@ public class Put extends AbstractOperation implements MessageReceiver {
                         remotes.add(remotePeer);
                     }
                 } else if (location.getState() == LookupState.DOES_NOT_EXIST) {
-                    p_chunks[i].setState(ChunkState.DOES_NOT_EXIST);
+                    p_chunks[index].setState(ChunkState.DOES_NOT_EXIST);
                     remotePeer = NodeID.INVALID_ID;
                 } else if (location.getState() == LookupState.DATA_LOST) {
-                    p_chunks[i].setState(ChunkState.DATA_LOST);
+                    p_chunks[index].setState(ChunkState.DATA_LOST);
+                    remotePeer = NodeID.INVALID_ID;
+                } else if (location.getState() == LookupState.DATA_TEMPORARY_UNAVAILABLE) {
+                    // not available again within the lock operation timeout
+                    p_chunks[index].setState(ChunkState.DATA_TEMPORARY_UNAVAILABLE);
                     remotePeer = NodeID.INVALID_ID;
                 } else {
                     throw new IllegalStateException("Unhandled state, location state: " + location.getState());
                 }
 
                 // start at index 0 for location buffer
-                remoteLocIndexBuffer.add(i - p_offset, remotePeer);
-            } else {
-                throw new IllegalStateException("Unhandled chunk state: " + p_chunks[i].getState());
+                remoteLocIndexBuffer.add(index - p_offset, remotePeer);
             }
         }
 
-        ArrayList<PutMultiRequest> pendingRequests = getThreadLocalPendingReqArray();
+        ArrayList<PutMultiRequest> pendingRequests = scratch.getPendingRequests();
 
         // generate requests
         for (int i = 0; i < remotes.getSize(); i++) {
@@ -379,9 +441,6 @@ public class Put extends AbstractOperation implements MessageReceiver {
             pendingRequests.add(req);
         }
 
-        // count failures instead of success
-        int failures = 0;
-
         // send requests
         for (int i = 0; i < pendingRequests.size(); i++) {
             PutMultiRequest request = pendingRequests.get(i);
@@ -413,6 +472,11 @@ public class Put extends AbstractOperation implements MessageReceiver {
             }
         }
 
+        // replicate local updates while the remote puts are in flight
+        if (ticket != null) {
+            m_replicator.commit(ticket);
+        }
+
         // collect responses
         for (int i = 0; i < pendingRequests.size(); i++) {
             PutMultiRequest request = pendingRequests.get(i);
@@ -420,6 +484,9 @@ public class Put extends AbstractOperation implements MessageReceiver {
             if (request != null) {
                 try {
                     request.waitForResponse(10000);
+
+                    // e.g. moved by a live migration, resolve the location again on retry
+                    invalidateFailed(request);
                 } catch (final NetworkException e) {
                     m_network.cancelRequest(request);
 
@@ -440,9 +507,11 @@ public class Put extends AbstractOperation implements MessageReceiver {
             }
         }
 
-        pendingRequests.clear();
-        remotes.clear();
-        remoteLocIndexBuffer.clear();
+        // buffers are not returned on exceptions, the pool creates new ones instead
+        if (!scratch.isOversized()) {
+            scratch.clear();
+            m_scratchPool.release(scratch);
+        }
 
         totalChunksGot = p_count - failures;
 
@@ -455,6 +524,62 @@ public class Put extends AbstractOperation implements MessageReceiver {
         return totalChunksGot;
     }
 
+    /**
+     * Invalidate the cached locations of all chunks of a multi put request which failed remotely
+     *
+     * @param p_request
+     *         Request with response received
+     */
+    private void invalidateFailed(final PutMultiRequest p_request) {
+        AbstractChunk[] chunks = p_request.getChunks();
+        int startOffset = p_request.getChunksStartOffset();
+        ArrayListShort locaIndexBuf = p_request.getLocationIndexBuffer();
+
+        for (int j = 0; j < locaIndexBuf.getSize(); j++) {
+            if (locaIndexBuf.get(j) == p_request.getTargetRemoteLocation() && !chunks[startOffset + j].isStateOk()) {
+                m_lookup.invalidateRange(chunks[startOffset + j].getID());
+            }
+        }
+    }
+
+    /**
+     * Replicate a single local chunk that was put successfully
+     *
+     * @param p_chunk
+     *         Chunk to replicate
+     */
+    private void replicate(final AbstractChunk p_chunk) {
+        if (m_replicator.isActive()) {
+            PutReplicator.Ticket ticket = new PutReplicator.Ticket();
+
+            m_replicator.add(p_chunk, ticket);
+            m_replicator.commit(ticket);
+        }
+    }
+
+    /**
+     * Get the state to reply to a put which failed locally. Puts to chunks which were moved by a live migration
+     * recently are answered with DATA_TEMPORARY_UNAVAILABLE: the sender invalidates its cached location and retries
+     * against the new owner. Puts are not forwarded as this would block the message handler and locks taken at this
+     * peer do not exist at the new owner
+     *
+     * @param p_chunkID
+     *         ChunkID of the chunk
+     * @param p_state
+     *         State of the local put
+     * @return State to reply
+     */
+    private ChunkState getReplyState(final long p_chunkID, final ChunkState p_state) {
+        if (p_state == ChunkState.DOES_NOT_EXIST &&
+                m_chunk.getWriteTracker().getNewOwner(p_chunkID) != NodeID.INVALID_ID) {
+            m_logger.trace("Redirecting put of migrated chunk %X", p_chunkID);
+
+            return ChunkState.DATA_TEMPORARY_UNAVAILABLE;
+        }
+
+        return p_state;
+    }
+
     @Override
     public void onIncomingMessage(final Message p_message) {
         if (p_message.getType() == DXRAMMessageTypes.CHUNK_MESSAGES_TYPE) {
@@ -472,18 +597,17 @@ public class Put extends AbstractOperation implements MessageReceiver {
                 byte statusChunks;
                 boolean successful;
 
-                ChunkState state = m_chunk.getMemory().put().put(chunkID, data, request.getLockOperation(),
-                        request.getLockOperationTimeoutMs());
+                ChunkState state = getReplyState(chunkID, m_chunk.put(chunkID, data, request.getLockOperation(),
+                        request.getLockOperationTimeoutMs()));
 
                 statusChunks = (byte) state.ordinal();
                 successful = state == ChunkState.OK;
 
-                if (successful) {
-                    if (m_backup.isActive()) {
-                        // sort by backup peers
-                        BackupRange backupRange = m_backup.getBackupRange(chunkID);
-                        // TODO backup?
-                    }
+                if (successful && m_replicator.isActive()) {
+                    PutReplicator.Ticket ticket = new PutReplicator.Ticket();
+
+                    m_replicator.add(chunkID, data, ticket);
+                    m_replicator.commit(ticket);
                 }
 
                 // send response to remote
@@ -513,19 +637,28 @@ public class Put extends AbstractOperation implements MessageReceiver {
 
                 byte[] chunkStates = new byte[request.getChunkIDs().length];
                 int successfulPuts = 0;
+                PutReplicator.Ticket ticket = m_replicator.isActive() ? new PutReplicator.Ticket() : null;
 
                 for (int i = 0; i < chunkStates.length; i++) {
-                    ChunkState state = m_chunk.getMemory().put().put(request.getChunkIDs()[i],
-                            request.getChunkData()[i],
-                            request.getLockOperation(), request.getLockOperationTimeoutMs());
+                    ChunkState state = getReplyState(request.getChunkIDs()[i], m_chunk.put(request.getChunkIDs()[i],
+                            request.getChunkData()[i], request.getLockOperation(),
+                            request.getLockOperationTimeoutMs()));
 
                     chunkStates[i] = (byte) state.ordinal();
 
                     if (state == ChunkState.OK) {
                         successfulPuts++;
+
+                        if (ticket != null) {
+                            m_replicator.add(request.getChunkIDs()[i], request.getChunkData()[i], ticket);
+                        }
                     }
                 }
 
+                if (ticket != null) {
+                    m_replicator.commit(ticket);
+                }
+
                 PutMultiResponse response = new PutMultiResponse(request, chunkStates);
 
                 try {
@@ -544,54 +677,4 @@ public class Put extends AbstractOperation implements MessageReceiver {
             }
         }
     }
-
-    /**
-     * Get a thread local instance avoiding allocations
-     *
-     * @return Thread local instance
-     */
-    private ArrayListShort getThreadLocalLocationIndexBuffer() {
-        ArrayListShort locationIndexBuffer =
-                m_threadLocalLocationIndexBuffer[(int) Thread.currentThread().getId()];
-
-        if (locationIndexBuffer == null) {
-            locationIndexBuffer = new ArrayListShort(100);
-            m_threadLocalLocationIndexBuffer[(int) Thread.currentThread().getId()] = locationIndexBuffer;
-        }
-
-        return locationIndexBuffer;
-    }
-
-    private ArrayListShort getThreadLocalRemotesBuffer() {
-        ArrayListShort remotesBuffer = m_threadLocalRemotesBuffer[(int) Thread.currentThread().getId()];
-
-        if (remotesBuffer == null) {
-            remotesBuffer = new ArrayListShort(10);
-            m_threadLocalRemotesBuffer[(int) Thread.currentThread().getId()] = remotesBuffer;
-        }
-
-        return remotesBuffer;
-    }
-
-    private NodeIDBitfield getThreadLocalNodeIDBitfield() {
-        NodeIDBitfield bitfield = m_threadLocalNodeIDBitfield[(int) Thread.currentThread().getId()];
-
-        if (bitfield == null) {
-            bitfield = new NodeIDBitfield();
-            m_threadLocalNodeIDBitfield[(int) Thread.currentThread().getId()] = bitfield;
-        }
-
-        return bitfield;
-    }
-
-    private ArrayList<PutMultiRequest> getThreadLocalPendingReqArray() {
-        ArrayList<PutMultiRequest> requests = m_threadLocalPendingRequests[(int) Thread.currentThread().getId()];
-
-        if (requests == null) {
-            requests = new ArrayList<>(10);
-            m_threadLocalPendingRequests[(int) Thread.currentThread().getId()] = requests;
-        }
-
-        return requests;
-    }
 }
@@ -144,7 +144,7 @@ public class PutAnon extends AbstractOperation implements MessageReceiver {
 
             // try to put every chunk locally, returns false if it does not exist
             // and saves us an additional check
-            if (m_chunk.getMemory().put().put(p_chunks[i + p_offset], p_lockOperation, p_lockOperationTimeoutMs)) {
+            if (m_chunk.put(p_chunks[i + p_offset], p_lockOperation, p_lockOperationTimeoutMs)) {
                 chunksPut++;
 
                 if (m_backup.isActive()) {
@@ -154,18 +154,10 @@ public class PutAnon extends AbstractOperation implements MessageReceiver {
                             remoteChunksByBackupRange.computeIfAbsent(backupRange, a -> new ArrayList<>());
                     remoteChunksOfBackupRange.add(p_chunks[i + p_offset]);
                 }
-            } else {
+            } else if (p_chunks[i + p_offset].getState() != ChunkState.DATA_TEMPORARY_UNAVAILABLE) {
                 // remote or migrated, figure out location and sort by peers
-                LookupRange location = m_lookup.getLookupRange(p_chunks[i + p_offset].getID());
-
-                while (location.getState() == LookupState.DATA_TEMPORARY_UNAVAILABLE) {
-                    try {
-                        Thread.sleep(100);
-                    } catch (final InterruptedException ignore) {
-                    }
-
-                    location = m_lookup.getLookupRange(p_chunks[i + p_offset].getID());
-                }
+                LookupRange location =
+                        m_lookup.getLookupRange(p_chunks[i + p_offset].getID(), p_lockOperationTimeoutMs);
 
                 if (location.getState() == LookupState.OK) {
                     // currently undefined because we still have to get it from remote
@@ -179,6 +171,9 @@ public class PutAnon extends AbstractOperation implements MessageReceiver {
                     p_chunks[i + p_offset].setState(ChunkState.DOES_NOT_EXIST);
                 } else if (location.getState() == LookupState.DATA_LOST) {
                     p_chunks[i + p_offset].setState(ChunkState.DATA_LOST);
+                } else if (location.getState() == LookupState.DATA_TEMPORARY_UNAVAILABLE) {
+                    // not available again within the lock operation timeout
+                    p_chunks[i + p_offset].setState(ChunkState.DATA_TEMPORARY_UNAVAILABLE);
                 }
             }
         }
@@ -190,7 +185,7 @@ public class PutAnon extends AbstractOperation implements MessageReceiver {
             if (peer == m_boot.getNodeId()) {
                 // local put, migrated data to current node
                 for (final ChunkAnon chunk : entry.getValue()) {
-                    if (m_chunk.getMemory().put().put(chunk, p_lockOperation, p_lockOperationTimeoutMs)) {
+                    if (m_chunk.put(chunk, p_lockOperation, p_lockOperationTimeoutMs)) {
                         chunksPut++;
                     }
                 }
@@ -289,7 +284,7 @@ public class PutAnon extends AbstractOperation implements MessageReceiver {
             Map<BackupRange, ArrayList<ChunkAnon>> remoteChunksByBackupRange = new TreeMap<>();
 
             for (int i = 0; i < chunkStates.length; i++) {
-                ChunkState state = m_chunk.getMemory().put().put(request.getChunkIDs()[i], request.getChunkData()[i],
+                ChunkState state = m_chunk.put(request.getChunkIDs()[i], request.getChunkData()[i],
                         request.getLockOperation(), request.getLockOperationTimeoutMs());
 
                 if (state != ChunkState.OK) {
@@ -0,0 +1,169 @@
+package de.hhu.bsinfo.dxram.chunk.operation;
+
+import java.util.concurrent.CompletableFuture;
+
+import de.hhu.bsinfo.dxmem.data.AbstractChunk;
+import de.hhu.bsinfo.dxmem.data.ChunkLockOperation;
+import de.hhu.bsinfo.dxmem.data.ChunkState;
+import de.hhu.bsinfo.dxram.backup.BackupComponent;
+import de.hhu.bsinfo.dxram.boot.AbstractBootComponent;
+import de.hhu.bsinfo.dxram.chunk.ChunkComponent;
+import de.hhu.bsinfo.dxram.chunk.ChunkService;
+import de.hhu.bsinfo.dxram.chunk.messages.PutMultiRequest;
+import de.hhu.bsinfo.dxram.engine.AbstractDXRAMService;
+import de.hhu.bsinfo.dxram.lookup.LookupComponent;
+import de.hhu.bsinfo.dxram.nameservice.NameserviceComponent;
+import de.hhu.bsinfo.dxram.net.NetworkComponent;
+import de.hhu.bsinfo.dxutils.ArrayListShort;
+import de.hhu.bsinfo.dxutils.NodeID;
+import de.hhu.bsinfo.dxutils.stats.StatisticsManager;
+import de.hhu.bsinfo.dxutils.stats.ValuePool;
+
+/**
+ * Put data of one or multiple chunks without blocking the caller on remote requests. Local chunks are
+ * written immediately, remote chunks are sent with one PutMultiRequest per peer. The returned future is completed
+ * from the network receive path once all responses arrived (or timed out). Dependent actions registered on the
+ * future without an executor are executed on the network thread, use the async variants for anything non-trivial.
+ */
+public class PutAsync extends AbstractAsyncOperation<PutMultiRequest> {
+    private static final ValuePool SOP_ASYNC = new ValuePool(ChunkService.class, "PutAsync");
+    private static final ValuePool SOP_ASYNC_REMOTE_REQUESTS = new ValuePool(ChunkService.class, "PutAsyncRequests");
+    private static final ValuePool SOP_ASYNC_ERROR = new ValuePool(ChunkService.class, "PutAsyncError");
+
+    static {
+        StatisticsManager.get().registerOperation(PutAsync.class, SOP_ASYNC);
+        StatisticsManager.get().registerOperation(PutAsync.class, SOP_ASYNC_REMOTE_REQUESTS);
+        StatisticsManager.get().registerOperation(PutAsync.class, SOP_ASYNC_ERROR);
+    }
+
+    private final PutReplicator m_replicator;
+
+    /**
+     * Constructor
+     *
+     * @param p_parentService
+     *         Instance of parent service this operation belongs to
+     * @param p_boot
+     *         Instance of BootComponent
+     * @param p_backup
+     *         Instance of BackupComponent
+     * @param p_chunk
+     *         Instance of ChunkComponent
+     * @param p_network
+     *         Instance of NetworkComponent
+     * @param p_lookup
+     *         Instance of LookupComponent
+     * @param p_nameservice
+     *         Instance of NameserviceComponent
+     * @param p_tracker
+     *         Tracker for timeouts of pending asynchronous requests
+     * @param p_replicator
+     *         Replicator for updated chunks
+     */
+    public PutAsync(final Class<? extends AbstractDXRAMService> p_parentService,
+            final AbstractBootComponent p_boot, final BackupComponent p_backup, final ChunkComponent p_chunk,
+            final NetworkComponent p_network, final LookupComponent p_lookup,
+            final NameserviceComponent p_nameservice, final AsyncRequestTracker p_tracker,
+            final PutReplicator p_replicator) {
+        super(p_parentService, p_boot, p_backup, p_chunk, p_network, p_lookup, p_nameservice, p_tracker, SOP_ASYNC,
+                SOP_ASYNC_REMOTE_REQUESTS, SOP_ASYNC_ERROR);
+
+        // message types and receivers are registered by the synchronous Put operation
+        m_replicator = p_replicator;
+    }
+
+    /**
+     * Put the data of one or multiple chunks asynchronously
+     *
+     * @param p_chunks
+     *         Chunks to put
+     * @return Future completed with the number of successful operations. If less than expected, check the chunk
+     * object states for errors
+     */
+    public CompletableFuture<Integer> put(final AbstractChunk... p_chunks) {
+        return put(0, p_chunks.length, ChunkLockOperation.NONE, -1, p_chunks);
+    }
+
+    /**
+     * Put the data of one or multiple chunks asynchronously
+     *
+     * @param p_lockOperation
+     *         Lock operation to execute for each put operation
+     * @param p_lockOperationTimeoutMs
+     *         Timeout for lock operation in ms
+     * @param p_chunks
+     *         Chunks to put
+     * @return Future completed with the number of successful operations. If less than expected, check the chunk
+     * object states for errors
+     */
+    public CompletableFuture<Integer> put(final ChunkLockOperation p_lockOperation,
+            final int p_lockOperationTimeoutMs, final AbstractChunk... p_chunks) {
+        return put(0, p_chunks.length, p_lockOperation, p_lockOperationTimeoutMs, p_chunks);
+    }
+
+    /**
+     * Put the data of one or multiple chunks asynchronously. The caller must not modify the chunks until the returned
+     * future is completed. Resolving the location of remote chunks might still block on a lookup cache miss. Chunks
+     * of ranges which are temporarily unavailable (e.g. during recovery) are not waited for but marked with state
+     * DATA_TEMPORARY_UNAVAILABLE
+     *
+     * @param p_offset
+     *         Offset in array where to start put operations
+     * @param p_count
+     *         Number of chunks to put (might be less array size/number of chunks provided)
+     * @param p_lockOperation
+     *         Lock operation to execute for each put operation
+     * @param p_lockOperationTimeoutMs
+     *         Timeout for lock operation in ms (-1 for unlimited. Be careful with remote chunks here! This might lead
+     *         to network timeouts instead)
+     * @param p_chunks
+     *         Chunks to put
+     * @return Future completed with the number of successful operations. If less than expected, check the chunk
+     * object states for errors
+     */
+    public CompletableFuture<Integer> put(final int p_offset, final int p_count,
+            final ChunkLockOperation p_lockOperation, final int p_lockOperationTimeoutMs,
+            final AbstractChunk... p_chunks) {
+        m_logger.trace("putAsync[offset %d, count %d, lock op %s, lock timeout %d, chunks (%d): %s]", p_offset,
+                p_count, p_lockOperation, p_lockOperationTimeoutMs, p_chunks.length,
+                AbstractChunk.toChunkIDListString(p_chunks));
+
+        return execute(p_offset, p_count, p_lockOperation, p_lockOperationTimeoutMs, p_chunks);
+    }
+
+    @Override
+    protected void executeLocally(final AbstractChunk p_chunk, final ChunkLockOperation p_lockOperation,
+            final int p_lockOperationTimeoutMs) {
+        m_chunk.put(p_chunk, p_lockOperation, p_lockOperationTimeoutMs);
+    }
+
+    @Override
+    protected void onLocalFinished(final int p_offset, final int p_count, final AbstractChunk[] p_chunks,
+            final ArrayListShort p_locationIndexBuffer) {
+        if (!m_replicator.isActive()) {
+            return;
+        }
+
+        // replicate local updates before the remote puts are sent
+        PutReplicator.Ticket ticket = new PutReplicator.Ticket();
+
+        for (int i = 0; i < p_count; i++) {
+            AbstractChunk chunk = p_chunks[p_offset + i];
+
+            if (p_locationIndexBuffer.get(i) == NodeID.INVALID_ID && chunk != null &&
+                    chunk.getState() == ChunkState.OK) {
+                m_replicator.add(chunk, ticket);
+            }
+        }
+
+        m_replicator.commit(ticket);
+    }
+
+    @Override
+    protected PutMultiRequest createRequest(final short p_remote, final ChunkLockOperation p_lockOperation,
+            final int p_lockOperationTimeoutMs, final ArrayListShort p_locationIndexBuffer, final int p_offset,
+            final AbstractChunk[] p_chunks) {
+        return new PutMultiRequest(p_remote, p_lockOperation, p_lockOperationTimeoutMs, p_locationIndexBuffer,
+                p_remote, p_offset, p_chunks);
+    }
+}
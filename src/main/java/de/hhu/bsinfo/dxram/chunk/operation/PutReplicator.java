@@ -0,0 +1,481 @@
+package de.hhu.bsinfo.dxram.chunk.operation;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.hhu.bsinfo.dxmem.data.AbstractChunk;
+import de.hhu.bsinfo.dxnet.core.NetworkException;
+import de.hhu.bsinfo.dxram.backup.BackupComponent;
+import de.hhu.bsinfo.dxram.backup.BackupPeer;
+import de.hhu.bsinfo.dxram.backup.BackupRange;
+import de.hhu.bsinfo.dxram.chunk.ChunkService;
+import de.hhu.bsinfo.dxram.log.messages.LogMessage;
+import de.hhu.bsinfo.dxram.net.NetworkComponent;
+import de.hhu.bsinfo.dxutils.ArrayListLong;
+import de.hhu.bsinfo.dxutils.serialization.ByteBufferImExporter;
+import de.hhu.bsinfo.dxutils.serialization.Exporter;
+import de.hhu.bsinfo.dxutils.serialization.Importer;
+import de.hhu.bsinfo.dxutils.stats.StatisticsManager;
+import de.hhu.bsinfo.dxutils.stats.ValuePool;
+
+/**
+ * Replicates updated chunk data of put operations to the backup peers. Updated chunks are collected per backup range
+ * and shipped with one LogMessage per backup peer and batch. Repeated writes to the same chunk before the batch is
+ * sent are coalesced, only the latest data is logged.
+ * In sync mode, a put commits the backup ranges it touched before it is acknowledged. Committing a range sends its
+ * pending batch unless another thread already sent a batch containing the caller's updates (group commit). Updates
+ * of other ranges are not sent. The chunks are not serialized in sync mode because they are sent before the put
+ * returns. In async mode, the puts are acknowledged immediately and a single thread sends the batches after the
+ * configured window elapsed. Batches exceeding the max batch size are sent by the thread adding to it in both modes.
+ * Pending updates of removed chunks are dropped before the backup peers are informed about the remove.
+ */
+public class PutReplicator extends Thread {
+    private static final Logger LOGGER = LogManager.getFormatterLogger(PutReplicator.class.getSimpleName());
+
+    private static final ValuePool SOP_COALESCED = new ValuePool(ChunkService.class, "PutReplicationCoalesced");
+    private static final ValuePool SOP_BATCH_CHUNKS = new ValuePool(ChunkService.class, "PutReplicationBatchChunks");
+    private static final ValuePool SOP_GROUP_COMMITS = new ValuePool(ChunkService.class, "PutReplicationGroupCommits");
+
+    static {
+        StatisticsManager.get().registerOperation(PutReplicator.class, SOP_COALESCED);
+        StatisticsManager.get().registerOperation(PutReplicator.class, SOP_BATCH_CHUNKS);
+        StatisticsManager.get().registerOperation(PutReplicator.class, SOP_GROUP_COMMITS);
+    }
+
+    private final BackupComponent m_backup;
+    private final NetworkComponent m_network;
+    private final short m_ownNodeID;
+
+    private final boolean m_sync;
+    private final long m_windowNs;
+    private final int m_maxBatchBytes;
+
+    // pending updates by RangeID
+    private final AtomicReferenceArray<RangeQueue> m_queues = new AtomicReferenceArray<>(1 << 16);
+    // all queues created so far, iterated by the replicator thread
+    private final CopyOnWriteArrayList<RangeQueue> m_activeQueues = new CopyOnWriteArrayList<>();
+
+    private volatile boolean m_run = true;
+
+    /**
+     * Backup ranges and sequence numbers of the updates added by a single put operation
+     */
+    static final class Ticket {
+        private short[] m_rangeIDs = new short[4];
+        private long[] m_sequences = new long[4];
+        private int m_size;
+
+        /**
+         * Remember an added update. Only the latest sequence number per range is kept
+         *
+         * @param p_rangeID
+         *         RangeID of the update
+         * @param p_sequence
+         *         Sequence number of the update in its range
+         */
+        private void add(final short p_rangeID, final long p_sequence) {
+            for (int i = 0; i < m_size; i++) {
+                if (m_rangeIDs[i] == p_rangeID) {
+                    m_sequences[i] = p_sequence;
+                    return;
+                }
+            }
+
+            if (m_size == m_rangeIDs.length) {
+                m_rangeIDs = Arrays.copyOf(m_rangeIDs, m_size * 2);
+                m_sequences = Arrays.copyOf(m_sequences, m_size * 2);
+            }
+
+            m_rangeIDs[m_size] = p_rangeID;
+            m_sequences[m_size] = p_sequence;
+            m_size++;
+        }
+    }
+
+    /**
+     * Pending updates of a single backup range
+     */
+    private static final class RangeQueue {
+        // serializes sending to keep the order of updates of the same chunk on the backup peers
+        private final Object m_sendLock = new Object();
+
+        // guarded by this
+        private Batch m_batch;
+        private long m_added;
+
+        // sequence number of the last update sent, written under the send lock
+        private volatile long m_sent;
+    }
+
+    /**
+     * Dirty chunks of a single backup range
+     */
+    private static final class Batch {
+        private final BackupRange m_range;
+        private final LinkedHashMap<Long, AbstractChunk> m_chunks = new LinkedHashMap<>();
+        private int m_bytes;
+
+        /**
+         * Constructor
+         *
+         * @param p_range
+         *         Backup range of all chunks in this batch
+         */
+        private Batch(final BackupRange p_range) {
+            m_range = p_range;
+        }
+    }
+
+    /**
+     * Serialized data of an updated chunk. Exports the raw data as expected by the LogMessage
+     */
+    private static final class DirtyChunk extends AbstractChunk {
+        private byte[] m_data;
+
+        /**
+         * Constructor
+         *
+         * @param p_chunkID
+         *         ChunkID of the updated chunk
+         * @param p_data
+         *         Serialized chunk data (not copied)
+         */
+        private DirtyChunk(final long p_chunkID, final byte[] p_data) {
+            super(p_chunkID);
+
+            m_data = p_data;
+        }
+
+        @Override
+        public void exportObject(final Exporter p_exporter) {
+            p_exporter.writeBytes(m_data);
+        }
+
+        @Override
+        public void importObject(final Importer p_importer) {
+            p_importer.readBytes(m_data);
+        }
+
+        @Override
+        public int sizeofObject() {
+            return m_data.length;
+        }
+    }
+
+    /**
+     * Constructor
+     *
+     * @param p_backup
+     *         Instance of BackupComponent
+     * @param p_network
+     *         Instance of NetworkComponent
+     * @param p_ownNodeID
+     *         NodeID of this peer
+     * @param p_sync
+     *         True to send the updates before puts are acknowledged, false to send them asynchronously
+     * @param p_windowMs
+     *         Time window in ms to collect and coalesce updates in async mode
+     * @param p_maxBatchBytes
+     *         Max size of a batch of a single backup range. Full batches are sent immediately
+     */
+    public PutReplicator(final BackupComponent p_backup, final NetworkComponent p_network, final short p_ownNodeID,
+            final boolean p_sync, final long p_windowMs, final int p_maxBatchBytes) {
+        super("PutReplicator");
+        setDaemon(true);
+
+        m_backup = p_backup;
+        m_network = p_network;
+        m_ownNodeID = p_ownNodeID;
+        m_sync = p_sync;
+        m_windowNs = p_windowMs * 1000L * 1000L;
+        m_maxBatchBytes = p_maxBatchBytes;
+    }
+
+    /**
+     * Check if replication is active (backup enabled)
+     *
+     * @return True if updates have to be replicated
+     */
+    boolean isActive() {
+        return m_backup.isActive();
+    }
+
+    /**
+     * Add an updated local chunk. In async mode, the chunk is serialized, thus it can be modified after this call.
+     * In sync mode, the chunk must not be modified before the ticket was committed
+     *
+     * @param p_chunk
+     *         Chunk that was put successfully
+     * @param p_ticket
+     *         Ticket of the calling put operation to commit afterwards
+     */
+    void add(final AbstractChunk p_chunk, final Ticket p_ticket) {
+        if (m_sync) {
+            add(p_chunk.getID(), p_chunk, p_chunk.sizeofObject(), p_ticket);
+        } else {
+            byte[] data = new byte[p_chunk.sizeofObject()];
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            ByteBufferImExporter exporter = new ByteBufferImExporter(buffer);
+
+            exporter.exportObject(p_chunk);
+
+            add(p_chunk.getID(), new DirtyChunk(p_chunk.getID(), data), data.length, p_ticket);
+        }
+    }
+
+    /**
+     * Add updated data of a chunk
+     *
+     * @param p_chunkID
+     *         ChunkID of the chunk that was put successfully
+     * @param p_data
+     *         Serialized data of the chunk. Must not be modified after this call
+     * @param p_ticket
+     *         Ticket of the calling put operation to commit afterwards
+     */
+    void add(final long p_chunkID, final byte[] p_data, final Ticket p_ticket) {
+        add(p_chunkID, new DirtyChunk(p_chunkID, p_data), p_data.length, p_ticket);
+    }
+
+    /**
+     * Commit all updates added with the given ticket. In sync mode, the batches of all ranges touched by the caller
+     * are sent before returning unless they were sent by another thread already. Call before acknowledging the put
+     *
+     * @param p_ticket
+     *         Ticket passed to add
+     */
+    void commit(final Ticket p_ticket) {
+        if (m_sync) {
+            for (int i = 0; i < p_ticket.m_size; i++) {
+                flush(m_queues.get(p_ticket.m_rangeIDs[i] & 0xFFFF), p_ticket.m_sequences[i]);
+            }
+        }
+
+        p_ticket.m_size = 0;
+    }
+
+    /**
+     * Drop the pending updates of removed chunks. Call before informing the backup peers about the remove, the
+     * pending updates would be logged after the remove otherwise. Waits for batches of the chunks' ranges which are
+     * sent right now
+     *
+     * @param p_chunkIDs
+     *         ChunkIDs of the removed chunks
+     */
+    void discard(final ArrayListLong p_chunkIDs) {
+        for (int i = 0; i < p_chunkIDs.getSize(); i++) {
+            long chunkID = p_chunkIDs.get(i);
+            BackupRange range = m_backup.getBackupRange(chunkID);
+
+            if (range == null) {
+                // error already logged by backup component
+                continue;
+            }
+
+            RangeQueue queue = m_queues.get(range.getRangeID() & 0xFFFF);
+
+            if (queue == null) {
+                // no updates of this range, yet
+                continue;
+            }
+
+            synchronized (queue.m_sendLock) {
+                synchronized (queue) {
+                    if (queue.m_batch != null) {
+                        AbstractChunk previous = queue.m_batch.m_chunks.remove(chunkID);
+
+                        if (previous != null) {
+                            queue.m_batch.m_bytes -= previous.sizeofObject();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Shut down the replicator thread. Pending updates are sent before returning
+     */
+    public void shutdown() {
+        m_run = false;
+        LockSupport.unpark(this);
+
+        try {
+            join();
+        } catch (final InterruptedException ignored) {
+        }
+
+        flush();
+    }
+
+    @Override
+    public void run() {
+        while (m_run) {
+            LockSupport.parkNanos(m_windowNs);
+
+            flush();
+        }
+    }
+
+    /**
+     * Add an updated chunk to the batch of its backup range
+     *
+     * @param p_chunkID
+     *         ChunkID of the chunk that was put successfully
+     * @param p_chunk
+     *         Chunk exporting the data to log
+     * @param p_size
+     *         Size of the exported data
+     * @param p_ticket
+     *         Ticket of the calling put operation
+     */
+    private void add(final long p_chunkID, final AbstractChunk p_chunk, final int p_size, final Ticket p_ticket) {
+        BackupRange range = m_backup.getBackupRange(p_chunkID);
+
+        if (range == null) {
+            // error already logged by backup component
+            return;
+        }
+
+        RangeQueue queue = getQueue(range.getRangeID());
+        boolean full;
+        long sequence;
+
+        synchronized (queue) {
+            if (queue.m_batch == null) {
+                queue.m_batch = new Batch(range);
+            }
+
+            Batch batch = queue.m_batch;
+            AbstractChunk previous = batch.m_chunks.put(p_chunkID, p_chunk);
+
+            if (previous != null) {
+                batch.m_bytes -= previous.sizeofObject();
+                SOP_COALESCED.inc();
+            }
+
+            batch.m_bytes += p_size;
+            full = batch.m_bytes >= m_maxBatchBytes;
+            sequence = ++queue.m_added;
+        }
+
+        p_ticket.add(range.getRangeID(), sequence);
+
+        if (full) {
+            flush(queue, Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Get the queue of a backup range. Creates the queue if it does not exist
+     *
+     * @param p_rangeID
+     *         RangeID
+     * @return Queue of the range
+     */
+    private RangeQueue getQueue(final short p_rangeID) {
+        RangeQueue queue = m_queues.get(p_rangeID & 0xFFFF);
+
+        if (queue == null) {
+            RangeQueue newQueue = new RangeQueue();
+
+            if (m_queues.compareAndSet(p_rangeID & 0xFFFF, null, newQueue)) {
+                m_activeQueues.add(newQueue);
+                queue = newQueue;
+            } else {
+                queue = m_queues.get(p_rangeID & 0xFFFF);
+            }
+        }
+
+        return queue;
+    }
+
+    /**
+     * Send all pending batches
+     */
+    private void flush() {
+        for (RangeQueue queue : m_activeQueues) {
+            flush(queue, Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Send the pending batch of a single backup range if the update with the given sequence number was not sent, yet
+     *
+     * @param p_queue
+     *         Queue of the range
+     * @param p_sequence
+     *         Sequence number of the update that has to be sent. Long.MAX_VALUE to send the pending batch anyway
+     */
+    private void flush(final RangeQueue p_queue, final long p_sequence) {
+        if (p_queue.m_sent >= p_sequence) {
+            SOP_GROUP_COMMITS.inc();
+            return;
+        }
+
+        synchronized (p_queue.m_sendLock) {
+            // sent with the batch of another thread while waiting for the lock
+            if (p_queue.m_sent >= p_sequence) {
+                SOP_GROUP_COMMITS.inc();
+                return;
+            }
+
+            Batch batch;
+            long sequence;
+
+            synchronized (p_queue) {
+                batch = p_queue.m_batch;
+                sequence = p_queue.m_added;
+                p_queue.m_batch = null;
+            }
+
+            if (batch != null) {
+                send(batch);
+            }
+
+            p_queue.m_sent = sequence;
+        }
+    }
+
+    /**
+     * Send a batch to all backup peers of its backup range
+     *
+     * @param p_batch
+     *         Batch to send
+     * @lock send lock of the range must be held to keep the order of updates
+     */
+    private void send(final Batch p_batch) {
+        AbstractChunk[] chunks = p_batch.m_chunks.values().toArray(new AbstractChunk[0]);
+        short rangeID = p_batch.m_range.getRangeID();
+
+        SOP_BATCH_CHUNKS.add(chunks.length);
+
+        // backup peers might have been replaced since the batch was created
+        BackupPeer[] backupPeers = p_batch.m_range.getBackupPeers();
+
+        if (backupPeers == null) {
+            return;
+        }
+
+        for (BackupPeer backupPeer : backupPeers) {
+            if (backupPeer != null && backupPeer.getNodeID() != m_ownNodeID) {
+                LOGGER.trace("Logging %d chunks of range %d to 0x%X", chunks.length, rangeID, backupPeer.getNodeID());
+
+                try {
+                    m_network.sendMessage(new LogMessage(backupPeer.getNodeID(), rangeID, chunks));
+                } catch (final NetworkException ignore) {
+                    // failure handling replicates the range to a new backup peer
+                }
+            }
+        }
+    }
+}
@@ -27,6 +27,9 @@ import de.hhu.bsinfo.dxutils.stats.ThroughputPool;
 import de.hhu.bsinfo.dxutils.stats.Value;
 
 /**
+ * Raw writes to pinned chunks (local only). Writes address memory and not chunks, thus writes to chunks of live
+ * migrated ranges are tracked from pin to unpin (see PinningLocal).
+ *
  * @author Ruslan Curbanov, ruslan.curbanov@uni-duesseldorf.de, 19.02.2019
  *
  */
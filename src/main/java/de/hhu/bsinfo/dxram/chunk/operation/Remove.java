@@ -4,7 +4,9 @@ import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
 
 import de.hhu.bsinfo.dxmem.data.AbstractChunk;
@@ -20,6 +22,7 @@ import de.hhu.bsinfo.dxram.backup.BackupRange;
 import de.hhu.bsinfo.dxram.boot.AbstractBootComponent;
 import de.hhu.bsinfo.dxram.chunk.ChunkComponent;
 import de.hhu.bsinfo.dxram.chunk.ChunkService;
+import de.hhu.bsinfo.dxram.chunk.ChunkWriteTracker;
 import de.hhu.bsinfo.dxram.chunk.messages.ChunkMessages;
 import de.hhu.bsinfo.dxram.chunk.messages.RemoveMessage;
 import de.hhu.bsinfo.dxram.chunk.messages.ReuseIDMessage;
@@ -44,6 +47,7 @@ public class Remove extends AbstractOperation implements MessageReceiver {
     private static final TimePool SOP_INCOMING_REMOVE_TIME = new TimePool(ChunkService.class, "RemoveIncoming");
     private static final ValuePool SOP_REMOVE = new ValuePool(ChunkService.class, "Remove");
     private static final ValuePool SOP_INCOMING_REMOVE = new ValuePool(ChunkService.class, "RemoveIncoming");
+    private static final long FENCED_RETRY_NS = TimeUnit.MILLISECONDS.toNanos(1);
 
     static {
         StatisticsManager.get().registerOperation(Remove.class, SOP_REMOVE_TIME);
@@ -52,6 +56,7 @@ public class Remove extends AbstractOperation implements MessageReceiver {
         StatisticsManager.get().registerOperation(Remove.class, SOP_INCOMING_REMOVE_TIME);
     }
 
+    private final PutReplicator m_replicator;
     private ChunkRemover m_remover;
 
     /**
@@ -71,13 +76,17 @@ public class Remove extends AbstractOperation implements MessageReceiver {
      *         Instance of LookupComponent
      * @param p_nameservice
      *         Instance of NameserviceComponent
+     * @param p_replicator
+     *         Replicator with the pending put updates to drop for removed chunks
      */
     public Remove(final Class<? extends AbstractDXRAMService> p_parentService,
             final AbstractBootComponent p_boot, final BackupComponent p_backup, final ChunkComponent p_chunk,
             final NetworkComponent p_network, final LookupComponent p_lookup,
-            final NameserviceComponent p_nameservice, final int p_removerQueueSize) {
+            final NameserviceComponent p_nameservice, final PutReplicator p_replicator, final int p_removerQueueSize) {
         super(p_parentService, p_boot, p_backup, p_chunk, p_network, p_lookup, p_nameservice);
 
+        m_replicator = p_replicator;
+
         m_remover = new ChunkRemover(p_removerQueueSize);
         m_remover.start();
 
@@ -162,6 +171,8 @@ public class Remove extends AbstractOperation implements MessageReceiver {
         Map<Long, ArrayListLong> remoteChunksByBackupPeers = new TreeMap<>();
         ArrayListLong localChunks = new ArrayListLong();
         Map<Short, ArrayListLong> reuseChunkIDsByPeers = new TreeMap<>();
+        ChunkWriteTracker tracker = m_chunk.getWriteTracker();
+        ChunkWriteTracker.TrackedRange[] localRanges = new ChunkWriteTracker.TrackedRange[p_count];
 
         for (int i = 0; i < p_count; i++) {
             // invalid values allowed -> filter
@@ -170,6 +181,24 @@ public class Remove extends AbstractOperation implements MessageReceiver {
             }
 
             if (m_chunk.isStorageEnabled() && m_chunk.getMemory().exists().exists(p_cids[i + p_offset])) {
+                // Track removes of live migrated chunks before removing them from the superpeer overlay
+                ChunkWriteTracker.TrackedRange range = tracker.beginWrite(p_cids[i + p_offset]);
+
+                if (range == ChunkWriteTracker.MOVED) {
+                    // moved by a live migration recently, remove it on the new owner
+                    remoteChunksByPeers.computeIfAbsent(tracker.getNewOwner(p_cids[i + p_offset]),
+                            a -> new ArrayListLong()).add(p_cids[i + p_offset]);
+                    continue;
+                }
+
+                if (range == ChunkWriteTracker.FENCED) {
+                    m_logger.error("Removing chunk ID 0x%X failed: %s", p_cids[i + p_offset],
+                            ChunkState.DATA_TEMPORARY_UNAVAILABLE);
+                    continue;
+                }
+
+                localRanges[localChunks.getSize()] = range;
+
                 if (ChunkID.getCreatorID(p_cids[i + p_offset]) != m_boot.getNodeId()) {
                     // sort by initial owner/creator for chunk ID reuse
                     ArrayListLong reuseChunkIDsOfPeer = reuseChunkIDsByPeers.computeIfAbsent(ChunkID.getCreatorID(
@@ -189,16 +218,7 @@ public class Remove extends AbstractOperation implements MessageReceiver {
                 }
             } else {
                 // remote or migrated, figure out location and sort by peers
-                LookupRange location = m_lookup.getLookupRange(p_cids[i + p_offset]);
-
-                while (location.getState() == LookupState.DATA_TEMPORARY_UNAVAILABLE) {
-                    try {
-                        Thread.sleep(100);
-                    } catch (final InterruptedException ignore) {
-                    }
-
-                    location = m_lookup.getLookupRange(p_cids[i + p_offset]);
-                }
+                LookupRange location = m_lookup.getLookupRange(p_cids[i + p_offset], -1);
 
                 if (location.getState() == LookupState.OK) {
                     short peer = location.getPrimaryPeer();
@@ -215,7 +235,11 @@ public class Remove extends AbstractOperation implements MessageReceiver {
 
         // remove local chunkIDs
         for (int i = 0; i < localChunks.getSize(); i++) {
-            size = m_chunk.getMemory().remove().remove(localChunks.get(i));
+            try {
+                size = m_chunk.getMemory().remove().remove(localChunks.get(i));
+            } finally {
+                tracker.endWrite(localRanges[i], localChunks.get(i));
+            }
 
             if (size > 0) {
                 chunksRemoved++;
@@ -251,13 +275,13 @@ public class Remove extends AbstractOperation implements MessageReceiver {
                 m_lookup.removeChunkIDs(remoteChunks);
 
                 for (int i = 0; i < remoteChunks.getSize(); i++) {
-                    size = m_chunk.getMemory().remove().remove(localChunks.get(i), false);
+                    size = m_chunk.remove(remoteChunks.get(i), false);
 
                     if (size > 0) {
                         chunksRemoved++;
-                        m_backup.deregisterChunk(localChunks.get(i), size);
+                        m_backup.deregisterChunk(remoteChunks.get(i), size);
                     } else {
-                        m_logger.error("Removing chunk ID 0x%X failed: %s", localChunks.get(i),
+                        m_logger.error("Removing chunk ID 0x%X failed: %s", remoteChunks.get(i),
                                 ChunkState.values()[-size]);
                     }
                 }
@@ -288,6 +312,9 @@ public class Remove extends AbstractOperation implements MessageReceiver {
 
                 backupPeers = BackupRange.convert(backupPeersAsLong);
 
+                // pending put updates must not be logged after the remove
+                m_replicator.discard(ids);
+
                 for (BackupPeer backupPeer : backupPeers) {
                     if (backupPeer != null && backupPeer.getNodeID() != m_boot.getNodeId()) {
 
@@ -463,23 +490,53 @@ public class Remove extends AbstractOperation implements MessageReceiver {
 
             Map<Long, ArrayListLong> remoteChunksByBackupPeers = new TreeMap<>();
             Map<Short, ArrayListLong> reuseChunkIDsByPeers = new TreeMap<>();
+            Map<Short, ArrayListLong> movedChunksByPeers = new TreeMap<>();
+            ChunkWriteTracker tracker = m_chunk.getWriteTracker();
+            ChunkWriteTracker.TrackedRange[] ranges = new ChunkWriteTracker.TrackedRange[p_chunkIDs.length];
+            ArrayListLong chunkIDs = new ArrayListLong();
+            ArrayListLong fencedChunkIDs = null;
+
+            // Track removes of live migrated chunks before removing them from the superpeer overlay
+            for (long chunkID : p_chunkIDs) {
+                ChunkWriteTracker.TrackedRange range = tracker.beginWrite(chunkID);
+
+                if (range == ChunkWriteTracker.MOVED) {
+                    movedChunksByPeers.computeIfAbsent(tracker.getNewOwner(chunkID), k -> new ArrayListLong())
+                            .add(chunkID);
+                } else if (range == ChunkWriteTracker.FENCED) {
+                    if (fencedChunkIDs == null) {
+                        fencedChunkIDs = new ArrayListLong();
+                    }
+
+                    fencedChunkIDs.add(chunkID);
+                } else {
+                    ranges[chunkIDs.getSize()] = range;
+                    chunkIDs.add(chunkID);
+                }
+            }
 
             // remove chunks from superpeer overlay first, so cannot be found before being deleted
-            m_lookup.removeChunkIDs(ArrayListLong.wrap(p_chunkIDs));
+            m_lookup.removeChunkIDs(chunkIDs);
 
-            for (long p_chunkID : p_chunkIDs) {
+            for (int i = 0; i < chunkIDs.getSize(); i++) {
                 if (m_backup.isActive()) {
                     // sort by backup peers
-                    long backupPeersAsLong = m_backup.getBackupPeersForLocalChunks(p_chunkID);
+                    long backupPeersAsLong = m_backup.getBackupPeersForLocalChunks(chunkIDs.get(i));
                     ArrayListLong remoteChunkIDsOfBackupPeers = remoteChunksByBackupPeers.computeIfAbsent(
                             backupPeersAsLong, k -> new ArrayListLong());
-                    remoteChunkIDsOfBackupPeers.add(p_chunkID);
+                    remoteChunkIDsOfBackupPeers.add(chunkIDs.get(i));
                 }
             }
 
             // remove chunks first (local)
-            for (long chunkID : p_chunkIDs) {
-                size = m_chunk.getMemory().remove().remove(chunkID, false);
+            for (int i = 0; i < chunkIDs.getSize(); i++) {
+                long chunkID = chunkIDs.get(i);
+
+                try {
+                    size = m_chunk.getMemory().remove().remove(chunkID, false);
+                } finally {
+                    tracker.endWrite(ranges[i], chunkID);
+                }
 
                 if (size < 0) {
                     m_logger.warn("Removing chunk 0x%X failed: ", chunkID, ChunkState.values()[-size]);
@@ -522,6 +579,9 @@ public class Remove extends AbstractOperation implements MessageReceiver {
 
                     backupPeers = BackupRange.convert(backupPeersAsLong);
 
+                    // pending put updates must not be logged after the remove
+                    m_replicator.discard(ids);
+
                     for (BackupPeer backupPeer : backupPeers) {
                         if (backupPeer != null && backupPeer.getNodeID() != m_boot.getNodeId()) {
 
@@ -537,7 +597,29 @@ public class Remove extends AbstractOperation implements MessageReceiver {
                 }
             }
 
+            // Chunks moved by a live migration recently are removed by the new owner
+            for (Map.Entry<Short, ArrayListLong> entry : movedChunksByPeers.entrySet()) {
+                try {
+                    m_network.sendMessage(new RemoveMessage(entry.getKey(), entry.getValue()));
+                } catch (final NetworkException e) {
+                    m_logger.error("Forwarding chunk remove to peer 0x%X failed: %s", entry.getKey(), e);
+                }
+            }
+
             SOP_INCOMING_REMOVE_TIME.stop();
+
+            if (fencedChunkIDs != null) {
+                // The ownership of the chunks is switched right now (bounded by the migration's fence timeout)
+                LockSupport.parkNanos(FENCED_RETRY_NS);
+
+                long[] retry = new long[fencedChunkIDs.getSize()];
+
+                for (int i = 0; i < retry.length; i++) {
+                    retry[i] = fencedChunkIDs.get(i);
+                }
+
+                remove(retry);
+            }
         }
     }
 }
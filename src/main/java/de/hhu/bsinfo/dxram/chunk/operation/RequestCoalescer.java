@@ -0,0 +1,264 @@
+package de.hhu.bsinfo.dxram.chunk.operation;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+
+import de.hhu.bsinfo.dxmem.data.AbstractChunk;
+import de.hhu.bsinfo.dxmem.data.ChunkState;
+import de.hhu.bsinfo.dxnet.NetworkResponseDelayedException;
+import de.hhu.bsinfo.dxnet.core.NetworkException;
+import de.hhu.bsinfo.dxnet.core.Request;
+import de.hhu.bsinfo.dxram.backup.BackupComponent;
+import de.hhu.bsinfo.dxram.lookup.LookupComponent;
+import de.hhu.bsinfo.dxram.net.NetworkComponent;
+import de.hhu.bsinfo.dxutils.ArrayListShort;
+import de.hhu.bsinfo.dxutils.stats.ThroughputPool;
+
+/**
+ * Coalesces concurrent single chunk operations to the same remote peer into one multi chunk request.
+ * The first thread submitting a chunk for a peer becomes the leader of a new batch. It waits until the window
+ * elapsed or the batch is full, sends the batch on behalf of all threads and wakes up the waiting followers.
+ * The result of the operation is stored in the state of each chunk by the multi chunk response.
+ */
+final class RequestCoalescer {
+    private final long m_windowNs;
+    private final int m_maxBatchSize;
+    private final RequestFactory m_requestFactory;
+    private final NetworkComponent m_network;
+    private final LookupComponent m_lookup;
+    private final BackupComponent m_backup;
+    private final ThroughputPool m_sopBatches;
+    private final BatchSizeHistogram m_sopBatchSize;
+
+    // open batch per remote peer
+    private final ConcurrentHashMap<Short, PeerSlot> m_slots = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the multi chunk request for a batch
+     */
+    @FunctionalInterface
+    interface RequestFactory {
+        /**
+         * Create a request for a batch. The response must set the state of every chunk
+         *
+         * @param p_peer
+         *         Remote peer to send the batch to
+         * @param p_locationIndexBuffer
+         *         Location of every chunk of the batch (all p_peer)
+         * @param p_chunks
+         *         Chunks of the batch (array might be larger than the batch)
+         * @return Request for the batch
+         */
+        Request create(final short p_peer, final ArrayListShort p_locationIndexBuffer,
+                final AbstractChunk[] p_chunks);
+    }
+
+    /**
+     * Open batch of a single remote peer
+     */
+    private static final class PeerSlot {
+        // guarded by slot
+        private Batch m_open;
+    }
+
+    /**
+     * Chunks sent with a single request
+     */
+    private static final class Batch {
+        private final Thread m_leader;
+        private final AbstractChunk[] m_chunks;
+        // guarded by slot
+        private int m_count;
+        // set under slot lock, no further chunks are added
+        private volatile boolean m_closed;
+        // guarded by batch
+        private boolean m_done;
+
+        /**
+         * Constructor
+         *
+         * @param p_leader
+         *         Thread sending the batch
+         * @param p_maxBatchSize
+         *         Max number of chunks in the batch
+         */
+        private Batch(final Thread p_leader, final int p_maxBatchSize) {
+            m_leader = p_leader;
+            m_chunks = new AbstractChunk[p_maxBatchSize];
+        }
+    }
+
+    /**
+     * Constructor
+     *
+     * @param p_windowNs
+     *         Time in ns the leader of a batch waits for further chunks
+     * @param p_maxBatchSize
+     *         Max number of chunks per batch. Full batches are sent immediately
+     * @param p_requestFactory
+     *         Factory for the multi chunk requests of the batches
+     * @param p_network
+     *         Instance of NetworkComponent
+     * @param p_lookup
+     *         Instance of LookupComponent
+     * @param p_backup
+     *         Instance of BackupComponent
+     * @param p_sopBatches
+     *         Statistics for sent batches (throughput of batches and chunks)
+     * @param p_sopBatchSize
+     *         Statistics for the number of chunks per batch
+     */
+    RequestCoalescer(final long p_windowNs, final int p_maxBatchSize, final RequestFactory p_requestFactory,
+            final NetworkComponent p_network, final LookupComponent p_lookup, final BackupComponent p_backup,
+            final ThroughputPool p_sopBatches, final BatchSizeHistogram p_sopBatchSize) {
+        m_windowNs = p_windowNs;
+        m_maxBatchSize = p_maxBatchSize;
+        m_requestFactory = p_requestFactory;
+        m_network = p_network;
+        m_lookup = p_lookup;
+        m_backup = p_backup;
+        m_sopBatches = p_sopBatches;
+        m_sopBatchSize = p_sopBatchSize;
+    }
+
+    /**
+     * Submit a chunk and wait until the batch it was added to was sent and the response received
+     *
+     * @param p_peer
+     *         Remote peer storing the chunk
+     * @param p_chunk
+     *         Chunk to add to the batch. Check the chunk state for the result once this call returns
+     */
+    void submit(final short p_peer, final AbstractChunk p_chunk) {
+        PeerSlot slot = m_slots.computeIfAbsent(p_peer, k -> new PeerSlot());
+        Batch batch;
+        boolean leader;
+
+        synchronized (slot) {
+            batch = slot.m_open;
+            leader = batch == null;
+
+            if (leader) {
+                batch = new Batch(Thread.currentThread(), m_maxBatchSize);
+                slot.m_open = batch;
+            }
+
+            batch.m_chunks[batch.m_count++] = p_chunk;
+
+            if (batch.m_count == m_maxBatchSize) {
+                slot.m_open = null;
+                batch.m_closed = true;
+
+                if (!leader) {
+                    LockSupport.unpark(batch.m_leader);
+                }
+            }
+        }
+
+        if (leader) {
+            sendBatch(p_peer, slot, batch);
+        } else {
+            synchronized (batch) {
+                while (!batch.m_done) {
+                    try {
+                        batch.wait();
+                    } catch (final InterruptedException ignored) {
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Wait for the window to elapse (or the batch to get full), send the batch and wake up all followers
+     *
+     * @param p_peer
+     *         Remote peer of the batch
+     * @param p_slot
+     *         Slot of the remote peer
+     * @param p_batch
+     *         Batch to send
+     */
+    private void sendBatch(final short p_peer, final PeerSlot p_slot, final Batch p_batch) {
+        long deadline = System.nanoTime() + m_windowNs;
+
+        while (!p_batch.m_closed) {
+            long remaining = deadline - System.nanoTime();
+
+            if (remaining <= 0) {
+                break;
+            }
+
+            LockSupport.parkNanos(this, remaining);
+        }
+
+        synchronized (p_slot) {
+            if (p_slot.m_open == p_batch) {
+                p_slot.m_open = null;
+            }
+
+            p_batch.m_closed = true;
+        }
+
+        m_sopBatchSize.add(p_batch.m_count);
+        m_sopBatches.start();
+
+        try {
+            send(p_peer, p_batch.m_chunks, p_batch.m_count);
+        } finally {
+            m_sopBatches.stop(p_batch.m_count);
+
+            synchronized (p_batch) {
+                p_batch.m_done = true;
+                p_batch.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Send a batch with a single request. Errors are reported with the chunk states
+     *
+     * @param p_peer
+     *         Remote peer storing the chunks
+     * @param p_chunks
+     *         Chunks of the batch
+     * @param p_count
+     *         Number of chunks in the batch
+     */
+    private void send(final short p_peer, final AbstractChunk[] p_chunks, final int p_count) {
+        ArrayListShort locationIndexBuffer = new ArrayListShort(p_count);
+
+        for (int i = 0; i < p_count; i++) {
+            locationIndexBuffer.add(p_peer);
+        }
+
+        Request request = m_requestFactory.create(p_peer, locationIndexBuffer, p_chunks);
+
+        try {
+            m_network.sendSync(request);
+
+            for (int i = 0; i < p_count; i++) {
+                if (!p_chunks[i].isStateOk()) {
+                    m_lookup.invalidateRange(p_chunks[i].getID());
+                }
+            }
+        } catch (final NetworkException e) {
+            ChunkState errorState;
+
+            if (m_backup.isActive()) {
+                errorState = ChunkState.DATA_TEMPORARY_UNAVAILABLE;
+            } else {
+                if (e instanceof NetworkResponseDelayedException) {
+                    errorState = ChunkState.REMOTE_REQUEST_TIMEOUT;
+                } else {
+                    errorState = ChunkState.DATA_LOST;
+                }
+            }
+
+            for (int i = 0; i < p_count; i++) {
+                p_chunks[i].setState(errorState);
+                m_lookup.invalidate(p_chunks[i].getID());
+            }
+        }
+    }
+}
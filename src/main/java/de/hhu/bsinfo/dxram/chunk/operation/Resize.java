@@ -25,6 +25,7 @@ import de.hhu.bsinfo.dxram.lookup.LookupRange;
 import de.hhu.bsinfo.dxram.lookup.LookupState;
 import de.hhu.bsinfo.dxram.nameservice.NameserviceComponent;
 import de.hhu.bsinfo.dxram.net.NetworkComponent;
+import de.hhu.bsinfo.dxutils.NodeID;
 import de.hhu.bsinfo.dxutils.stats.StatisticsManager;
 import de.hhu.bsinfo.dxutils.stats.ThroughputPool;
 import de.hhu.bsinfo.dxutils.stats.Value;
@@ -87,22 +88,13 @@ public class Resize extends AbstractOperation implements MessageReceiver {
             }
 
             // try to resize locally
-            p_chunks[i].setState(m_chunk.getMemory().resize().resize(p_chunks[i].getID(), p_chunks[i].sizeofObject()));
+            p_chunks[i].setState(m_chunk.resize(p_chunks[i].getID(), p_chunks[i].sizeofObject()));
 
             if (p_chunks[i].getState() == ChunkState.OK) {
                 totalChunks++;
             } else if (p_chunks[i].getState() == ChunkState.DOES_NOT_EXIST) {
                 // seems like it's not available locally, check remotes for remote chunk or migrated
-                LookupRange location = m_lookup.getLookupRange(p_chunks[i].getID());
-
-                while (location.getState() == LookupState.DATA_TEMPORARY_UNAVAILABLE) {
-                    try {
-                        Thread.sleep(100);
-                    } catch (final InterruptedException ignore) {
-                    }
-
-                    location = m_lookup.getLookupRange(p_chunks[i].getID());
-                }
+                LookupRange location = m_lookup.getLookupRange(p_chunks[i].getID(), -1);
 
                 if (location.getState() == LookupState.OK) {
                     // currently undefined because we still have to get it from remote
@@ -129,7 +121,7 @@ public class Resize extends AbstractOperation implements MessageReceiver {
             if (peer == m_boot.getNodeId()) {
                 // local, migrated data to current node
                 for (AbstractChunk chunk : remoteChunks) {
-                    chunk.setState(m_chunk.getMemory().resize().resize(chunk.getID(), chunk.sizeofObject()));
+                    chunk.setState(m_chunk.resize(chunk.getID(), chunk.sizeofObject()));
 
                     if (chunk.isStateOk()) {
                         totalChunks++;
@@ -207,8 +199,14 @@ public class Resize extends AbstractOperation implements MessageReceiver {
             byte[] chunkStates = new byte[request.getChunkIDs().length];
 
             for (int i = 0; i < chunkStates.length; i++) {
-                ChunkState state = m_chunk.getMemory().resize().resize(request.getChunkIDs()[i],
-                        request.getNewSizes()[i]);
+                ChunkState state = m_chunk.resize(request.getChunkIDs()[i], request.getNewSizes()[i]);
+
+                if (state == ChunkState.DOES_NOT_EXIST &&
+                        m_chunk.getWriteTracker().getNewOwner(request.getChunkIDs()[i]) != NodeID.INVALID_ID) {
+                    // moved by a live migration recently, the sender invalidates its cached location and retries
+                    state = ChunkState.DATA_TEMPORARY_UNAVAILABLE;
+                }
+
                 chunkStates[i] = (byte) state.ordinal();
 
                 if (state == ChunkState.OK) {
@@ -0,0 +1,92 @@
+package de.hhu.bsinfo.dxram.chunk.operation;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, lock-free pool of scratch buffers shared by all threads executing an operation. Replaces buffers indexed
+ * by thread ID which limit the number of threads and waste memory with few threads. Acquiring and releasing does not
+ * allocate once the pool is warm. Each thread starts searching at a slot derived from its thread ID to likely get
+ * back the buffer it released before and to reduce contention. If all slots are taken, a new buffer is created and
+ * dropped on release if the pool is still full.
+ *
+ * @param <T>
+ *         Type of scratch buffer
+ */
+public class ScratchBufferPool<T> {
+    private final AtomicReferenceArray<T> m_slots;
+    private final int m_mask;
+    private final Supplier<T> m_supplier;
+
+    /**
+     * Constructor
+     *
+     * @param p_size
+     *         Max number of buffers kept in the pool (rounded up to a power of two)
+     * @param p_supplier
+     *         Supplier to create new buffers
+     */
+    public ScratchBufferPool(final int p_size, final Supplier<T> p_supplier) {
+        if (p_size < 1) {
+            throw new IllegalArgumentException("Invalid pool size " + p_size);
+        }
+
+        int size = Integer.highestOneBit(p_size);
+
+        if (size < p_size) {
+            size <<= 1;
+        }
+
+        m_slots = new AtomicReferenceArray<>(size);
+        m_mask = size - 1;
+        m_supplier = p_supplier;
+    }
+
+    /**
+     * Get the max number of buffers kept in the pool
+     *
+     * @return Pool size
+     */
+    public int getSize() {
+        return m_slots.length();
+    }
+
+    /**
+     * Acquire a buffer from the pool. Creates a new buffer if the pool is empty
+     *
+     * @return Buffer for exclusive use by the caller until released
+     */
+    public T acquire() {
+        int start = (int) Thread.currentThread().getId();
+
+        for (int i = 0; i <= m_mask; i++) {
+            int idx = (start + i) & m_mask;
+            T buffer = m_slots.get(idx);
+
+            if (buffer != null && m_slots.compareAndSet(idx, buffer, null)) {
+                return buffer;
+            }
+        }
+
+        return m_supplier.get();
+    }
+
+    /**
+     * Return a buffer to the pool. The buffer must be reset by the caller. If the pool is full, the buffer is
+     * dropped
+     *
+     * @param p_buffer
+     *         Buffer to return
+     */
+    public void release(final T p_buffer) {
+        int start = (int) Thread.currentThread().getId();
+
+        for (int i = 0; i <= m_mask; i++) {
+            int idx = (start + i) & m_mask;
+
+            if (m_slots.get(idx) == null && m_slots.compareAndSet(idx, null, p_buffer)) {
+                return;
+            }
+        }
+    }
+}
@@ -35,6 +35,8 @@ import de.hhu.bsinfo.dxram.log.messages.InitRecoveredBackupRangeRequest;
 import de.hhu.bsinfo.dxram.log.messages.InitRecoveredBackupRangeResponse;
 import de.hhu.bsinfo.dxram.log.messages.LogAnonMessage;
 import de.hhu.bsinfo.dxram.log.messages.LogBufferMessage;
+import de.hhu.bsinfo.dxram.log.messages.LogBufferRequest;
+import de.hhu.bsinfo.dxram.log.messages.LogBufferResponse;
 import de.hhu.bsinfo.dxram.log.messages.LogMessage;
 import de.hhu.bsinfo.dxram.log.messages.LogMessages;
 import de.hhu.bsinfo.dxram.log.messages.RemoveMessage;
@@ -104,6 +106,9 @@ public final class LogService extends AbstractDXRAMService<DXRAMModuleConfig> im
                     case LogMessages.SUBTYPE_LOG_BUFFER_MESSAGE:
                         incomingLogBufferMessage((LogBufferMessage) p_message);
                         break;
+                    case LogMessages.SUBTYPE_LOG_BUFFER_REQUEST:
+                        incomingLogBufferRequest((LogBufferRequest) p_message);
+                        break;
                     case LogMessages.SUBTYPE_REMOVE_MESSAGE:
                         incomingRemoveMessage((RemoveMessage) p_message);
                         break;
@@ -176,6 +181,25 @@ public final class LogService extends AbstractDXRAMService<DXRAMModuleConfig> im
                 p_message.getMessageBuffer());
     }
 
+    /**
+     * Handles an incoming LogBufferRequest
+     *
+     * @param p_request
+     *         the LogBufferRequest
+     */
+    private void incomingLogBufferRequest(final LogBufferRequest p_request) {
+        m_log.incomingLogChunks(p_request.getSource(), p_request.getRangeID(), p_request.getNumberOfDataStructures(),
+                p_request.getMessageBuffer());
+
+        try {
+            m_network.sendMessage(new LogBufferResponse(p_request));
+        } catch (final NetworkException e) {
+
+            LOGGER.error("Could not acknowledge LogBufferRequest", e);
+
+        }
+    }
+
     /**
      * Handles an incoming RemoveMessage
      *
@@ -275,6 +299,7 @@ public final class LogService extends AbstractDXRAMService<DXRAMModuleConfig> im
         m_network.register(DXRAMMessageTypes.LOG_MESSAGES_TYPE, LogMessages.SUBTYPE_LOG_MESSAGE, this);
         m_network.register(DXRAMMessageTypes.LOG_MESSAGES_TYPE, LogMessages.SUBTYPE_LOG_ANON_MESSAGE, this);
         m_network.register(DXRAMMessageTypes.LOG_MESSAGES_TYPE, LogMessages.SUBTYPE_LOG_BUFFER_MESSAGE, this);
+        m_network.register(DXRAMMessageTypes.LOG_MESSAGES_TYPE, LogMessages.SUBTYPE_LOG_BUFFER_REQUEST, this);
         m_network.register(DXRAMMessageTypes.LOG_MESSAGES_TYPE, LogMessages.SUBTYPE_REMOVE_MESSAGE, this);
         m_network.register(DXRAMMessageTypes.LOG_MESSAGES_TYPE, LogMessages.SUBTYPE_INIT_BACKUP_RANGE_REQUEST, this);
         m_network.register(DXRAMMessageTypes.LOG_MESSAGES_TYPE, LogMessages.SUBTYPE_INIT_RECOVERED_BACKUP_RANGE_REQUEST,
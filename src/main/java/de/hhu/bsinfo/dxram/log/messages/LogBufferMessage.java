@@ -115,7 +115,7 @@ public class LogBufferMessage extends Message {
     protected final void writePayload(final AbstractMessageExporter p_exporter) {
         p_exporter.writeShort(m_rangeID);
         p_exporter.writeInt(m_numberOfDSs);
-        p_exporter.writeBytes(m_buffer.array());
+        p_exporter.writeBytes(m_buffer.array(), 0, m_buffer.limit());
     }
 
     @Override
@@ -36,10 +36,13 @@ import de.hhu.bsinfo.dxram.event.AbstractEvent;
 import de.hhu.bsinfo.dxram.event.EventComponent;
 import de.hhu.bsinfo.dxram.event.EventListener;
 import de.hhu.bsinfo.dxram.failure.events.NodeFailureEvent;
+import de.hhu.bsinfo.dxram.lookup.events.LookupRangesAvailableEvent;
+import de.hhu.bsinfo.dxram.lookup.events.NameserviceCacheEntriesUpdateEvent;
 import de.hhu.bsinfo.dxram.lookup.events.NameserviceCacheEntryUpdateEvent;
 import de.hhu.bsinfo.dxram.lookup.overlay.OverlayPeer;
 import de.hhu.bsinfo.dxram.lookup.overlay.OverlaySuperpeer;
-import de.hhu.bsinfo.dxram.lookup.overlay.cache.CacheTree;
+import de.hhu.bsinfo.dxram.lookup.overlay.cache.ChunkIDCache;
+import de.hhu.bsinfo.dxram.lookup.overlay.cache.NameserviceCache;
 import de.hhu.bsinfo.dxram.lookup.overlay.storage.BarrierStatus;
 import de.hhu.bsinfo.dxram.lookup.overlay.storage.LookupTree;
 import de.hhu.bsinfo.dxram.lookup.overlay.storage.NameserviceEntry;
@@ -53,7 +56,6 @@ import de.hhu.bsinfo.dxram.tmp.TemporaryStorageService;
 import de.hhu.bsinfo.dxram.tmp.TemporaryStorageServiceConfig;
 import de.hhu.bsinfo.dxram.util.NodeRole;
 import de.hhu.bsinfo.dxutils.ArrayListLong;
-import de.hhu.bsinfo.dxutils.Cache;
 import de.hhu.bsinfo.dxutils.NodeID;
 import de.hhu.bsinfo.dxutils.unit.IPV4Unit;
 
@@ -67,7 +69,6 @@ import de.hhu.bsinfo.dxutils.unit.IPV4Unit;
         priorityShutdown = DXRAMComponentOrder.Shutdown.LOOKUP)
 public class LookupComponent extends AbstractDXRAMComponent<LookupComponentConfig>
         implements EventListener<AbstractEvent> {
-    private static final short ORDER = 10;
 
     // component dependencies
     private AbstractBootComponent m_boot;
@@ -78,8 +79,11 @@ public class LookupComponent extends AbstractDXRAMComponent<LookupComponentConfi
     private OverlaySuperpeer m_superpeer;
     private OverlayPeer m_peer;
 
-    private CacheTree m_chunkIDCacheTree;
-    private Cache<Integer, Long> m_applicationIDCache;
+    private ChunkIDCache m_chunkIDCache;
+    private LookupPrefetcher m_prefetcher;
+    private NameserviceCache m_applicationIDCache;
+
+    private LookupRangeAvailability m_rangeAvailability;
 
     /**
      * Get the number of entries in name service
@@ -136,15 +140,28 @@ public class LookupComponent extends AbstractDXRAMComponent<LookupComponentConfi
 
         if (getConfig().isCachesEnabled()) {
             // Read from cache
-            ret = m_chunkIDCacheTree.getMetadata(p_chunkID);
+            ret = m_chunkIDCache.getMetadata(p_chunkID);
             if (ret == null) {
-                // Cache miss -> get LookupRange from superpeer
-                ret = m_peer.getLookupRange(p_chunkID);
-
-                // Add response to cache
-                if (ret != null && ret.getState() == LookupState.OK) {
-                    m_chunkIDCacheTree.cacheRange(((long) ChunkID.getCreatorID(p_chunkID) << 48) + ret.getRange()[0],
-                            ((long) ChunkID.getCreatorID(p_chunkID) << 48) + ret.getRange()[1], ret.getPrimaryPeer());
+                // Cache miss -> get LookupRange and, on sequential access, subsequent LookupRanges from superpeer
+                LookupRange[] ranges = m_peer.getLookupRangeWithPrefetch(p_chunkID,
+                        m_prefetcher.getPrefetchCount(p_chunkID));
+
+                if (ranges != null) {
+                    ret = ranges[0];
+
+                    // Add response to cache
+                    long creator = (long) ChunkID.getCreatorID(p_chunkID) << 48;
+                    for (LookupRange range : ranges) {
+                        if (range.getState() == LookupState.OK) {
+                            m_chunkIDCache.cacheRange(creator + range.getRange()[0], creator + range.getRange()[1],
+                                    range.getPrimaryPeer());
+                        }
+                    }
+
+                    LookupRange last = ranges[ranges.length - 1];
+                    if (last.getState() == LookupState.OK) {
+                        m_prefetcher.rangesFetched(creator + last.getRange()[1]);
+                    }
                 }
             }
         } else {
@@ -156,6 +173,164 @@ public class LookupComponent extends AbstractDXRAMComponent<LookupComponentConfi
         return ret;
     }
 
+    /**
+     * Get the corresponding LookupRange for the given ChunkID. If the range is temporarily unavailable (e.g. the
+     * creator is recovered) or no responsible superpeer is known, wait until the superpeers notify about the range
+     * being available again or the timeout elapsed
+     *
+     * @param p_chunkID
+     *         the ChunkID
+     * @param p_timeoutMs
+     *         Max time to wait for the range to become available, -1 to wait until it is available
+     * @return the current location and the range borders. State is DATA_TEMPORARY_UNAVAILABLE on timeout
+     */
+    public LookupRange getLookupRange(final long p_chunkID, final long p_timeoutMs) {
+        LookupRange ret;
+        long deadline = p_timeoutMs < 0 ? -1 : System.nanoTime() + p_timeoutMs * 1000 * 1000;
+
+        while (true) {
+            // read epoch first to not miss a notification arriving while querying the superpeer
+            long epoch = m_rangeAvailability.getEpoch();
+
+            ret = getLookupRange(p_chunkID);
+
+            if (ret != null && ret.getState() != LookupState.DATA_TEMPORARY_UNAVAILABLE) {
+                return ret;
+            }
+
+            m_rangeAvailability.await(epoch, deadline);
+
+            // No further lookup after the deadline
+            if (deadline != -1 && System.nanoTime() - deadline >= 0) {
+                return ret != null ? ret : new LookupRange(LookupState.DATA_TEMPORARY_UNAVAILABLE);
+            }
+        }
+    }
+
+    /**
+     * Get the corresponding LookupRanges for multiple ChunkIDs, e.g. for a multi chunk operation. Cached ranges are
+     * served locally and missing ranges are requested with a single request per responsible superpeer. With caches
+     * enabled, one ChunkID per creator is resolved first because the chunks of a multi operation are often located
+     * in the same range. Temporarily unavailable ranges are waited for (see getLookupRange(long, long)) and requested
+     * again with a single batch whenever the superpeers notify about available ranges until the timeout elapsed
+     *
+     * @param p_chunkIDs
+     *         the ChunkIDs
+     * @param p_timeoutMs
+     *         Max time to wait for temporarily unavailable ranges, -1 to wait until they are available
+     * @return the current locations and the range borders in the order of the ChunkIDs. State is
+     * DATA_TEMPORARY_UNAVAILABLE for ranges not available within the timeout
+     */
+    public LookupRange[] getLookupRanges(final long[] p_chunkIDs, final long p_timeoutMs) {
+        LookupRange[] ret;
+        int[] unavailable;
+        int unavailableCount;
+        long deadline = p_timeoutMs < 0 ? -1 : System.nanoTime() + p_timeoutMs * 1000 * 1000;
+        // read epoch first to not miss a notification arriving while querying the superpeers
+        long epoch = m_rangeAvailability.getEpoch();
+
+        NodeRole.assertNodeRole(NodeRole.PEER, m_boot.getNodeRole());
+
+        LOGGER.trace("Entering getLookupRanges with: %d chunkIDs", p_chunkIDs.length);
+
+        if (getConfig().isCachesEnabled()) {
+            int[] misses = new int[p_chunkIDs.length];
+            int missCount = 0;
+
+            ret = new LookupRange[p_chunkIDs.length];
+
+            // Read from cache
+            for (int i = 0; i < p_chunkIDs.length; i++) {
+                ret[i] = m_chunkIDCache.getMetadata(p_chunkIDs[i]);
+                if (ret[i] == null) {
+                    misses[missCount++] = i;
+                }
+            }
+
+            if (missCount > 0) {
+                // First round: resolve one ChunkID per creator, the ranges are likely to cover further misses
+                short[] creators = new short[missCount];
+                int creatorCount = 0;
+                int[] firstRound = new int[missCount];
+                int firstRoundCount = 0;
+
+                for (int i = 0; i < missCount; i++) {
+                    short creator = ChunkID.getCreatorID(p_chunkIDs[misses[i]]);
+                    boolean known = false;
+
+                    for (int j = 0; j < creatorCount; j++) {
+                        if (creators[j] == creator) {
+                            known = true;
+                            break;
+                        }
+                    }
+
+                    if (!known) {
+                        creators[creatorCount++] = creator;
+                        firstRound[firstRoundCount++] = misses[i];
+                    }
+                }
+
+                requestLookupRanges(p_chunkIDs, firstRound, firstRoundCount, ret);
+
+                // Second round: serve misses covered by the fetched ranges from cache and request the rest
+                if (firstRoundCount < missCount) {
+                    int secondRoundCount = 0;
+
+                    for (int i = 0; i < missCount; i++) {
+                        int index = misses[i];
+
+                        if (ret[index] == null) {
+                            ret[index] = m_chunkIDCache.getMetadata(p_chunkIDs[index]);
+                            if (ret[index] == null) {
+                                misses[secondRoundCount++] = index;
+                            }
+                        }
+                    }
+
+                    requestLookupRanges(p_chunkIDs, misses, secondRoundCount, ret);
+                }
+            }
+        } else {
+            ret = m_peer.getLookupRanges(p_chunkIDs);
+        }
+
+        // Wait for temporarily unavailable ranges (or ranges without a known responsible superpeer) like for single
+        // lookups and request all of them again with one batch per notification, all within the same timeout
+        unavailable = new int[ret.length];
+        while (true) {
+            unavailableCount = 0;
+            for (int i = 0; i < ret.length; i++) {
+                if (ret[i] == null || ret[i].getState() == LookupState.DATA_TEMPORARY_UNAVAILABLE) {
+                    unavailable[unavailableCount++] = i;
+                }
+            }
+
+            if (unavailableCount == 0) {
+                break;
+            }
+
+            m_rangeAvailability.await(epoch, deadline);
+
+            // No further lookup after the deadline
+            if (deadline != -1 && System.nanoTime() - deadline >= 0) {
+                for (int i = 0; i < unavailableCount; i++) {
+                    if (ret[unavailable[i]] == null) {
+                        ret[unavailable[i]] = new LookupRange(LookupState.DATA_TEMPORARY_UNAVAILABLE);
+                    }
+                }
+                break;
+            }
+
+            epoch = m_rangeAvailability.getEpoch();
+            requestLookupRanges(p_chunkIDs, unavailable, unavailableCount, ret);
+        }
+
+        LOGGER.trace("Exiting getLookupRanges");
+
+        return ret;
+    }
+
     /**
      * Remove the ChunkIDs from range after deletion of that chunks
      *
@@ -223,19 +398,18 @@ public class LookupComponent extends AbstractDXRAMComponent<LookupComponentConfi
 
         if (getConfig().isCachesEnabled()) {
             // Read from application cache first
-            final Long chunkID = m_applicationIDCache.get(p_id);
+            ret = m_applicationIDCache.get(p_id);
 
-            if (chunkID == null) {
+            if (ret == ChunkID.INVALID_ID) {
                 // Cache miss -> ask superpeer
 
                 LOGGER.trace("Value not cached for application cache: %d", p_id);
 
+                long stamp = m_applicationIDCache.getStamp(p_id);
                 ret = m_peer.getChunkIDForNameserviceEntry(p_id, p_timeoutMs);
 
-                // Cache response
-                m_applicationIDCache.put(p_id, ret);
-            } else {
-                ret = chunkID;
+                // Cache response (discarded if the entry was updated in the meantime)
+                m_applicationIDCache.offer(p_id, ret, stamp);
             }
         } else {
             ret = m_peer.getChunkIDForNameserviceEntry(p_id, p_timeoutMs);
@@ -246,6 +420,85 @@ public class LookupComponent extends AbstractDXRAMComponent<LookupComponentConfi
         return ret;
     }
 
+    /**
+     * Insert multiple name service entries
+     *
+     * @param p_ids
+     *         the AIDs
+     * @param p_chunkIDs
+     *         the ChunkIDs (same order as AIDs)
+     */
+    public void insertNameserviceEntries(final int[] p_ids, final long[] p_chunkIDs) {
+        NodeRole.assertNodeRole(NodeRole.PEER, m_boot.getNodeRole());
+
+        LOGGER.trace("Entering insertIDs with: %d ids", p_ids.length);
+
+        if (getConfig().isCachesEnabled()) {
+            m_applicationIDCache.putAll(p_ids, p_chunkIDs);
+        }
+
+        m_peer.insertNameserviceEntries(p_ids, p_chunkIDs);
+
+        LOGGER.trace("Exiting insertIDs");
+    }
+
+    /**
+     * Get ChunkIDs for multiple AIDs
+     *
+     * @param p_ids
+     *         the AIDs
+     * @param p_timeoutMs
+     *         Timeout for trying to get the entries (if they do not exist, yet).
+     *         set this to -1 for infinite loop if you know for sure, that the entries have to exist
+     * @return the corresponding ChunkIDs (same order as AIDs)
+     */
+    public long[] getChunkIDsForNameserviceEntries(final int[] p_ids, final int p_timeoutMs) {
+        long[] ret;
+
+        NodeRole.assertNodeRole(NodeRole.PEER, m_boot.getNodeRole());
+
+        LOGGER.trace("Entering getChunkIDs with: %d ids", p_ids.length);
+
+        if (getConfig().isCachesEnabled()) {
+            int[] misses = new int[p_ids.length];
+            int count = 0;
+
+            // Read from application cache first
+            ret = new long[p_ids.length];
+            for (int i = 0; i < p_ids.length; i++) {
+                ret[i] = m_applicationIDCache.get(p_ids[i]);
+
+                if (ret[i] == ChunkID.INVALID_ID) {
+                    misses[count++] = i;
+                }
+            }
+
+            if (count > 0) {
+                // Cache misses -> ask superpeers
+                int[] ids = new int[count];
+                long[] stamps = new long[count];
+                for (int i = 0; i < count; i++) {
+                    ids[i] = p_ids[misses[i]];
+                    stamps[i] = m_applicationIDCache.getStamp(ids[i]);
+                }
+
+                long[] chunkIDs = m_peer.getChunkIDsForNameserviceEntries(ids, p_timeoutMs);
+                for (int i = 0; i < count; i++) {
+                    ret[misses[i]] = chunkIDs[i];
+
+                    // Cache response (discarded if the entry was updated in the meantime)
+                    m_applicationIDCache.offer(ids[i], chunkIDs[i], stamps[i]);
+                }
+            }
+        } else {
+            ret = m_peer.getChunkIDsForNameserviceEntries(p_ids, p_timeoutMs);
+        }
+
+        LOGGER.trace("Exiting getChunkIDs");
+
+        return ret;
+    }
+
     /**
      * Store migration of given ChunkID to a new location
      *
@@ -358,7 +611,7 @@ public class LookupComponent extends AbstractDXRAMComponent<LookupComponentConfi
         if (getConfig().isCachesEnabled()) {
             for (long chunkID : p_chunkIDs) {
                 assert chunkID != ChunkID.INVALID_ID;
-                m_chunkIDCacheTree.invalidateChunkID(chunkID);
+                m_chunkIDCache.invalidateChunkID(chunkID);
             }
         }
     }
@@ -373,7 +626,7 @@ public class LookupComponent extends AbstractDXRAMComponent<LookupComponentConfi
         if (getConfig().isCachesEnabled()) {
             for (int i = 0; i < p_chunkIDs.getSize(); i++) {
                 assert p_chunkIDs.get(i) != ChunkID.INVALID_ID;
-                m_chunkIDCacheTree.invalidateChunkID(p_chunkIDs.get(i));
+                m_chunkIDCache.invalidateChunkID(p_chunkIDs.get(i));
             }
         }
     }
@@ -387,7 +640,7 @@ public class LookupComponent extends AbstractDXRAMComponent<LookupComponentConfi
     public void invalidateRange(final long p_chunkID) {
         if (getConfig().isCachesEnabled()) {
             assert p_chunkID != ChunkID.INVALID_ID;
-            m_chunkIDCacheTree.invalidateRange(p_chunkID);
+            m_chunkIDCache.invalidateRange(p_chunkID);
         }
     }
 
@@ -594,6 +847,69 @@ public class LookupComponent extends AbstractDXRAMComponent<LookupComponentConfi
         return m_peer.superpeerStorageGetAnon(p_chunk);
     }
 
+    /**
+     * Get the data of a block from the superpeer storage starting at an offset (anonymous chunk)
+     *
+     * @param p_chunk
+     *         Chunk with the storage id assigned to read the data into.
+     * @param p_offset
+     *         Offset within the block to start reading at
+     * @return True on success, false on failure (also if the offset is larger than the block).
+     */
+    public boolean superpeerStorageGetAnon(final ChunkAnon p_chunk, final int p_offset) {
+        NodeRole.assertNodeRole(NodeRole.PEER, m_boot.getNodeRole());
+
+        if (p_chunk.getID() > 0x7FFFFFFF || p_chunk.getID() < 0) {
+
+            LOGGER.error("Invalid id 0x%X for anonymous chunk to get data from superpeer storage", p_chunk.getID());
+
+            return false;
+        }
+
+        return m_peer.superpeerStorageGetAnon(p_chunk, p_offset);
+    }
+
+    /**
+     * Create multiple blocks of memory in the superpeer storage (in parallel).
+     *
+     * @param p_storageIds
+     *         Storage ids to use to identify the blocks.
+     * @param p_sizes
+     *         Sizes of the blocks to allocate
+     * @return For every block, true if it was created by this call, false if creating it failed.
+     */
+    public boolean[] superpeerStorageCreate(final int[] p_storageIds, final int[] p_sizes) {
+        NodeRole.assertNodeRole(NodeRole.PEER, m_boot.getNodeRole());
+
+        return m_peer.superpeerStorageCreate(p_storageIds, p_sizes);
+    }
+
+    /**
+     * Put data into multiple allocated blocks of memory in the superpeer storage (anonymous chunks, in parallel)
+     *
+     * @param p_chunks
+     *         Chunks to put with the storage ids assigned.
+     * @return True if successful, false otherwise.
+     */
+    public boolean superpeerStoragePutAnon(final ChunkAnon[] p_chunks) {
+        NodeRole.assertNodeRole(NodeRole.PEER, m_boot.getNodeRole());
+
+        return m_peer.superpeerStoragePutAnon(p_chunks);
+    }
+
+    /**
+     * Get data of multiple blocks from the superpeer storage (anonymous chunks, in parallel)
+     *
+     * @param p_chunks
+     *         Anonymous chunks with the storage ids assigned to read the data into.
+     * @return True on success, false on failure.
+     */
+    public boolean superpeerStorageGetAnon(final ChunkAnon[] p_chunks) {
+        NodeRole.assertNodeRole(NodeRole.PEER, m_boot.getNodeRole());
+
+        return m_peer.superpeerStorageGetAnon(p_chunks);
+    }
+
     /**
      * Remove an allocated block from the superpeer storage.
      *
@@ -665,16 +981,30 @@ public class LookupComponent extends AbstractDXRAMComponent<LookupComponentConfi
 
             if (event.getRole() == NodeRole.PEER) {
                 if (getConfig().isCachesEnabled()) {
-                    m_chunkIDCacheTree.invalidatePeer(event.getNodeID());
+                    m_chunkIDCache.invalidatePeer(event.getNodeID());
                 }
+            } else if (m_rangeAvailability != null) {
+                // responsible superpeer changes, let waiting threads ask the new one
+                m_rangeAvailability.signal();
             }
 
+        } else if (p_event instanceof LookupRangesAvailableEvent) {
+
+            m_rangeAvailability.signal();
+
         } else if (p_event instanceof NameserviceCacheEntryUpdateEvent) {
 
             NameserviceCacheEntryUpdateEvent event = (NameserviceCacheEntryUpdateEvent) p_event;
             // update if available to avoid caching all entries
-            if (m_applicationIDCache.contains(event.getId())) {
-                m_applicationIDCache.put(event.getId(), event.getChunkID());
+            if (m_applicationIDCache != null) {
+                m_applicationIDCache.update(event.getId(), event.getChunkID());
+            }
+        } else if (p_event instanceof NameserviceCacheEntriesUpdateEvent) {
+
+            NameserviceCacheEntriesUpdateEvent event = (NameserviceCacheEntriesUpdateEvent) p_event;
+            // update if available to avoid caching all entries
+            if (m_applicationIDCache != null) {
+                m_applicationIDCache.updateAll(event.getIDs(), event.getChunkIDs());
             }
         }
     }
@@ -710,14 +1040,10 @@ public class LookupComponent extends AbstractDXRAMComponent<LookupComponentConfi
         BackupRange.setBackupRangeSize(backupConfig.getBackupRangeSize().getBytes());
 
         if (getConfig().isCachesEnabled()) {
-            m_chunkIDCacheTree = new CacheTree(ORDER, getConfig().getCacheTtl().getMs(),
+            m_chunkIDCache = new ChunkIDCache(getConfig().getCacheTtl().getMs(),
                     getConfig().getMaxCacheEntries());
-
-            // TODO: Check cache! If number of entries is smaller than number of entries in nameservice, bg won't terminate.
-            m_applicationIDCache = new Cache<>(nameserviceConfig.getNameserviceCacheEntries());
-            // m_aidCache.enableTTL();
-
-            m_event.registerListener(this, NodeFailureEvent.class);
+            m_prefetcher = new LookupPrefetcher(getConfig().getMaxPrefetchRanges());
+            m_applicationIDCache = new NameserviceCache(nameserviceConfig.getNameserviceCacheEntries());
         }
 
         if (m_boot.getNodeRole() == NodeRole.SUPERPEER) {
@@ -731,6 +1057,14 @@ public class LookupComponent extends AbstractDXRAMComponent<LookupComponentConfi
             m_peer = new OverlayPeer(m_boot.getNodeId(), m_boot.getBootstrapId(),
                     m_boot.getNumberOfAvailableSuperpeers(), m_boot, m_network, m_event);
             m_event.registerListener(this, NameserviceCacheEntryUpdateEvent.class);
+            m_event.registerListener(this, NameserviceCacheEntriesUpdateEvent.class);
+
+            m_rangeAvailability = new LookupRangeAvailability();
+            m_event.registerListener(this, LookupRangesAvailableEvent.class);
+        }
+
+        if (getConfig().isCachesEnabled() || m_peer != null) {
+            m_event.registerListener(this, NodeFailureEvent.class);
         }
 
         return true;
@@ -743,9 +1077,9 @@ public class LookupComponent extends AbstractDXRAMComponent<LookupComponentConfi
         }
 
         if (getConfig().isCachesEnabled()) {
-            if (m_chunkIDCacheTree != null) {
-                m_chunkIDCacheTree.close();
-                m_chunkIDCacheTree = null;
+            if (m_chunkIDCache != null) {
+                m_chunkIDCache.close();
+                m_chunkIDCache = null;
             }
             if (m_applicationIDCache != null) {
                 m_applicationIDCache.clear();
@@ -782,14 +1116,14 @@ public class LookupComponent extends AbstractDXRAMComponent<LookupComponentConfi
 
         if (getConfig().isCachesEnabled()) {
             // Read from cache
-            ret = m_chunkIDCacheTree.getPrimaryPeer(p_chunkID);
+            ret = m_chunkIDCache.getPrimaryPeer(p_chunkID);
             if (ret == NodeID.INVALID_ID) {
                 // Cache miss -> get LookupRange from superpeer
                 lookupRange = m_peer.getLookupRange(p_chunkID);
 
                 // Add response to cache
                 if (lookupRange != null) {
-                    m_chunkIDCacheTree.cacheRange(((long) ChunkID.getCreatorID(p_chunkID) << 48) +
+                    m_chunkIDCache.cacheRange(((long) ChunkID.getCreatorID(p_chunkID) << 48) +
                                     lookupRange.getRange()[0],
                             ((long) ChunkID.getCreatorID(p_chunkID) << 48) + lookupRange.getRange()[1],
                             lookupRange.getPrimaryPeer());
@@ -845,6 +1179,47 @@ public class LookupComponent extends AbstractDXRAMComponent<LookupComponentConfi
         return ret;
     }
 
+    /**
+     * Requests the LookupRanges of a subset of ChunkIDs from the superpeers and caches the valid ones (if caches are
+     * enabled)
+     *
+     * @param p_chunkIDs
+     *         all ChunkIDs
+     * @param p_indices
+     *         the indices of the ChunkIDs to request
+     * @param p_count
+     *         the number of indices
+     * @param p_lookupRanges
+     *         the array to store the LookupRanges in (same indices as the ChunkIDs)
+     */
+    private void requestLookupRanges(final long[] p_chunkIDs, final int[] p_indices, final int p_count,
+            final LookupRange[] p_lookupRanges) {
+        long[] chunkIDs;
+        LookupRange[] ranges;
+
+        if (p_count == 0) {
+            return;
+        }
+
+        chunkIDs = new long[p_count];
+        for (int i = 0; i < p_count; i++) {
+            chunkIDs[i] = p_chunkIDs[p_indices[i]];
+        }
+
+        ranges = m_peer.getLookupRanges(chunkIDs);
+
+        for (int i = 0; i < p_count; i++) {
+            p_lookupRanges[p_indices[i]] = ranges[i];
+
+            // Add response to cache
+            if (getConfig().isCachesEnabled() && ranges[i] != null && ranges[i].getState() == LookupState.OK) {
+                m_chunkIDCache.cacheRange(((long) ChunkID.getCreatorID(chunkIDs[i]) << 48) + ranges[i].getRange()[0],
+                        ((long) ChunkID.getCreatorID(chunkIDs[i]) << 48) + ranges[i].getRange()[1],
+                        ranges[i].getPrimaryPeer());
+            }
+        }
+    }
+
     /**
      * Invalidates the cache entry for given ChunkID range
      *
@@ -866,7 +1241,7 @@ public class LookupComponent extends AbstractDXRAMComponent<LookupComponentConfi
     @SuppressWarnings("unused")
     private void clear() {
         if (getConfig().isCachesEnabled()) {
-            m_chunkIDCacheTree = new CacheTree(ORDER, getConfig().getCacheTtl().getMs(),
+            m_chunkIDCache = new ChunkIDCache(getConfig().getCacheTtl().getMs(),
                     getConfig().getMaxCacheEntries());
             m_applicationIDCache.clear();
         }
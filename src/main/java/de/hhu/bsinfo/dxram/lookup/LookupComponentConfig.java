@@ -26,17 +26,25 @@ public class LookupComponentConfig extends DXRAMModuleConfig {
     private boolean m_cachesEnabled = true;
 
     /**
-     * Maximum number of entries in cache tree. Currently unused!
+     * Maximum number of cached ranges. The maximum is split evenly across the creators of all cached ranges (at least
+     * one range per creator). Least recently used ranges are replaced (CLOCK) if exceeded
      */
     @Expose
     private long m_maxCacheEntries = 1000L;
 
     /**
-     * Time to live for btree nodes in cache tree.
+     * Time to live for ranges in cache tree. Expired ranges are fetched from the superpeers again
      */
     @Expose
     private TimeUnit m_cacheTtl = new TimeUnit(1, TimeUnit.SEC);
 
+    /**
+     * Maximum number of subsequent ranges fetched with a cache miss. Only used if sequential access to the chunks of
+     * a creator is detected, 0 to disable prefetching
+     */
+    @Expose
+    private int m_maxPrefetchRanges = 16;
+
     /**
      * The break time between superpeer stabilization routines (such as pinging all peers and check neighbors).
      */
@@ -52,6 +60,18 @@ public class LookupComponentConfig extends DXRAMModuleConfig {
 
     @Override
     protected boolean verify(final DXRAMConfig p_config) {
+        if (m_maxCacheEntries < 1) {
+            LOGGER.error("Invalid value (%d) for m_maxCacheEntries", m_maxCacheEntries);
+
+            return false;
+        }
+
+        if (m_maxPrefetchRanges < 0) {
+            LOGGER.error("Invalid value (%d) for m_maxPrefetchRanges", m_maxPrefetchRanges);
+
+            return false;
+        }
+
         if (m_cacheTtl.getMs() < 1000L) {
             LOGGER.warn("A high effort is needed to satisfy TTL!");
         }
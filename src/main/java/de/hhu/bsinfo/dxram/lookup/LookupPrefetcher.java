@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import de.hhu.bsinfo.dxmem.data.ChunkID;
+
+/**
+ * Decides how many subsequent lookup ranges to prefetch on a cache miss. Sequential access is detected per
+ * creator: a miss shortly behind the last range fetched for the creator doubles the number of prefetched ranges
+ * (up to a maximum), any other miss disables prefetching for the creator again. Thus, random access does not
+ * prefetch at all.
+ */
+final class LookupPrefetcher {
+    // Max distance (LocalIDs) of a miss behind the last fetched range to still count as sequential access
+    static final long SEQUENTIAL_DISTANCE = 1024;
+
+    private final int m_maxPrefetchCount;
+    private final ConcurrentHashMap<Short, CreatorState> m_creators = new ConcurrentHashMap<>();
+
+    /**
+     * Access state of a single creator
+     */
+    private static final class CreatorState {
+        // guarded by state
+        private long m_lastFetchedLID = -1;
+        private int m_prefetchCount;
+    }
+
+    /**
+     * Constructor
+     *
+     * @param p_maxPrefetchCount
+     *         Max number of ranges to prefetch per miss, 0 to disable prefetching
+     */
+    LookupPrefetcher(final int p_maxPrefetchCount) {
+        m_maxPrefetchCount = p_maxPrefetchCount;
+    }
+
+    /**
+     * Get the number of subsequent ranges to prefetch for a cache miss
+     *
+     * @param p_chunkID
+     *         ChunkID which missed the cache
+     * @return Number of ranges to prefetch
+     */
+    int getPrefetchCount(final long p_chunkID) {
+        CreatorState state;
+        long localID;
+
+        if (m_maxPrefetchCount == 0) {
+            return 0;
+        }
+
+        state = getState(ChunkID.getCreatorID(p_chunkID));
+        localID = ChunkID.getLocalID(p_chunkID);
+
+        synchronized (state) {
+            if (state.m_lastFetchedLID != -1 && localID > state.m_lastFetchedLID &&
+                    localID - state.m_lastFetchedLID <= SEQUENTIAL_DISTANCE) {
+                state.m_prefetchCount = Math.min(Math.max(state.m_prefetchCount * 2, 1), m_maxPrefetchCount);
+            } else {
+                state.m_prefetchCount = 0;
+            }
+
+            return state.m_prefetchCount;
+        }
+    }
+
+    /**
+     * Remember the end of the last range fetched (including prefetched ranges) for the creator
+     *
+     * @param p_lastChunkID
+     *         Last ChunkID of the last fetched range
+     */
+    void rangesFetched(final long p_lastChunkID) {
+        CreatorState state;
+
+        if (m_maxPrefetchCount == 0) {
+            return;
+        }
+
+        state = getState(ChunkID.getCreatorID(p_lastChunkID));
+
+        synchronized (state) {
+            state.m_lastFetchedLID = ChunkID.getLocalID(p_lastChunkID);
+        }
+    }
+
+    /**
+     * Get the access state of a creator, creates it if necessary
+     *
+     * @param p_creatorID
+     *         the creator's NodeID
+     * @return the access state
+     */
+    private CreatorState getState(final short p_creatorID) {
+        CreatorState ret = m_creators.get(p_creatorID);
+
+        if (ret == null) {
+            ret = m_creators.computeIfAbsent(p_creatorID, k -> new CreatorState());
+        }
+
+        return ret;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Waitable notification for lookup ranges becoming available again. Threads getting DATA_TEMPORARY_UNAVAILABLE
+ * for a lookup range (e.g. during recovery) wait for the next notification instead of polling the superpeer in
+ * fixed intervals. Every notification increments an epoch. A waiter reads the epoch before querying the lookup
+ * range to not miss notifications arriving between the query and the wait.
+ */
+final class LookupRangeAvailability {
+    // Upper bound for a single wait in case a notification got lost (e.g. failed superpeer)
+    private static final long MAX_WAIT_NS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final Object m_lock = new Object();
+    private long m_epoch;
+
+    /**
+     * Get the current epoch. Call before querying the lookup range
+     *
+     * @return Current epoch
+     */
+    long getEpoch() {
+        synchronized (m_lock) {
+            return m_epoch;
+        }
+    }
+
+    /**
+     * Notify all waiting threads that lookup ranges might be available again
+     */
+    void signal() {
+        synchronized (m_lock) {
+            m_epoch++;
+            m_lock.notifyAll();
+        }
+    }
+
+    /**
+     * Wait until the epoch changed or the deadline is reached. Returns early, at the latest after MAX_WAIT_NS,
+     * to let the caller re-check the lookup range if a notification got lost
+     *
+     * @param p_epoch
+     *         Epoch read before querying the lookup range
+     * @param p_deadlineNs
+     *         Deadline as System.nanoTime() value or -1 to wait without deadline
+     */
+    void await(final long p_epoch, final long p_deadlineNs) {
+        synchronized (m_lock) {
+            long waitNs = MAX_WAIT_NS;
+
+            if (p_deadlineNs != -1) {
+                waitNs = Math.min(waitNs, p_deadlineNs - System.nanoTime());
+            }
+
+            if (m_epoch != p_epoch || waitNs <= 0) {
+                return;
+            }
+
+            try {
+                TimeUnit.NANOSECONDS.timedWait(m_lock, waitNs);
+            } catch (final InterruptedException ignore) {
+            }
+        }
+    }
+}
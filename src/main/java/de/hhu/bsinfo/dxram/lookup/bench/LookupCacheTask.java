@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup.bench;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.google.gson.annotations.Expose;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.hhu.bsinfo.dxram.lookup.overlay.cache.ChunkIDCache;
+import de.hhu.bsinfo.dxram.ms.Signal;
+import de.hhu.bsinfo.dxram.ms.Task;
+import de.hhu.bsinfo.dxram.ms.TaskContext;
+import de.hhu.bsinfo.dxutils.serialization.Exporter;
+import de.hhu.bsinfo.dxutils.serialization.Importer;
+
+/**
+ * Task to benchmark the peer-side lookup cache (ChunkIDCache) as used by LookupComponent.getLookupRange with
+ * a mix of cache lookups and range inserts. Runs with 1, 2, 4, ... up to the max number of threads
+ */
+public class LookupCacheTask implements Task {
+    private static final Logger LOGGER = LogManager.getFormatterLogger(LookupCacheTask.class.getSimpleName());
+
+    private static final long RANGE_SIZE = 1000;
+
+    @Expose
+    private int m_maxThreads = 64;
+
+    @Expose
+    private int m_numCreators = 16;
+
+    @Expose
+    private int m_rangesPerCreator = 100;
+
+    @Expose
+    private int m_writePermille = 10;
+
+    @Expose
+    private int m_opsPerThread = 1000000;
+
+    @Override
+    public int execute(final TaskContext p_ctx) {
+        ChunkIDCache cache = new ChunkIDCache(Long.MAX_VALUE / 2, (long) m_rangesPerCreator * m_numCreators);
+
+        for (int creator = 1; creator <= m_numCreators; creator++) {
+            for (int range = 0; range < m_rangesPerCreator; range++) {
+                cacheRange(cache, creator, range);
+            }
+        }
+
+        System.out.printf("Lookup cache with %d creators, %d ranges per creator, %d permille writes\n",
+                m_numCreators, m_rangesPerCreator, m_writePermille);
+
+        for (int numThreads = 1; numThreads <= m_maxThreads; numThreads *= 2) {
+            Thread[] threads = new Thread[numThreads];
+            long[] timeStart = new long[numThreads];
+            long[] timeEnd = new long[numThreads];
+
+            for (int i = 0; i < threads.length; i++) {
+                int threadIdx = i;
+                threads[i] = new Thread(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+
+                    timeStart[threadIdx] = System.nanoTime();
+
+                    for (int j = 0; j < m_opsPerThread; j++) {
+                        int creator = random.nextInt(1, m_numCreators + 1);
+                        int range = random.nextInt(m_rangesPerCreator);
+
+                        if (random.nextInt(1000) < m_writePermille) {
+                            cacheRange(cache, creator, range);
+                        } else {
+                            cache.getMetadata(((long) creator << 48) + range * RANGE_SIZE +
+                                    random.nextLong(RANGE_SIZE / 2 + 1));
+                        }
+                    }
+
+                    timeEnd[threadIdx] = System.nanoTime();
+                });
+            }
+
+            for (Thread thread : threads) {
+                thread.start();
+            }
+
+            boolean threadJoinFailed = false;
+            for (Thread thread : threads) {
+                try {
+                    thread.join();
+                } catch (final InterruptedException e) {
+                    LOGGER.error("Joining thread failed", e);
+                    threadJoinFailed = true;
+                }
+            }
+
+            if (threadJoinFailed) {
+                return -1;
+            }
+
+            // total time is measured by the slowest thread
+            long totalTime = 0;
+            for (int i = 0; i < numThreads; i++) {
+                long time = timeEnd[i] - timeStart[i];
+                if (time > totalTime) {
+                    totalTime = time;
+                }
+            }
+
+            System.out.printf("Threads: %d, total time: %f sec, throughput: %f ops/sec\n", numThreads,
+                    totalTime / 1000.0 / 1000.0 / 1000.0,
+                    1000.0 * 1000.0 * 1000.0 / ((double) totalTime / ((long) m_opsPerThread * numThreads)));
+        }
+
+        cache.close();
+
+        return 0;
+    }
+
+    @Override
+    public void handleSignal(final Signal p_signal) {
+
+    }
+
+    @Override
+    public void exportObject(final Exporter p_exporter) {
+        p_exporter.writeInt(m_maxThreads);
+        p_exporter.writeInt(m_numCreators);
+        p_exporter.writeInt(m_rangesPerCreator);
+        p_exporter.writeInt(m_writePermille);
+        p_exporter.writeInt(m_opsPerThread);
+    }
+
+    @Override
+    public void importObject(final Importer p_importer) {
+        m_maxThreads = p_importer.readInt(m_maxThreads);
+        m_numCreators = p_importer.readInt(m_numCreators);
+        m_rangesPerCreator = p_importer.readInt(m_rangesPerCreator);
+        m_writePermille = p_importer.readInt(m_writePermille);
+        m_opsPerThread = p_importer.readInt(m_opsPerThread);
+    }
+
+    @Override
+    public int sizeofObject() {
+        return Integer.BYTES * 5;
+    }
+
+    /**
+     * Cache a range of a creator as done after a cache miss. Ranges of a creator are not adjacent
+     *
+     * @param p_cache
+     *         Cache to insert the range into
+     * @param p_creator
+     *         Creator of the range
+     * @param p_range
+     *         Index of the range
+     */
+    private static void cacheRange(final ChunkIDCache p_cache, final int p_creator, final int p_range) {
+        long start = ((long) p_creator << 48) + p_range * RANGE_SIZE;
+
+        p_cache.cacheRange(start, start + RANGE_SIZE / 2, (short) p_creator);
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup.bench;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.google.gson.annotations.Expose;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.hhu.bsinfo.dxram.lookup.overlay.NodeIDSet;
+import de.hhu.bsinfo.dxram.lookup.overlay.storage.BarriersTable;
+import de.hhu.bsinfo.dxram.lookup.overlay.storage.MetadataHandler;
+import de.hhu.bsinfo.dxram.lookup.overlay.storage.NameserviceHashTable;
+import de.hhu.bsinfo.dxram.lookup.overlay.storage.PeerHandler;
+import de.hhu.bsinfo.dxram.lookup.overlay.storage.SuperpeerStorage;
+import de.hhu.bsinfo.dxram.ms.Signal;
+import de.hhu.bsinfo.dxram.ms.Task;
+import de.hhu.bsinfo.dxram.ms.TaskContext;
+import de.hhu.bsinfo.dxutils.NodeID;
+import de.hhu.bsinfo.dxutils.serialization.Exporter;
+import de.hhu.bsinfo.dxutils.serialization.Importer;
+
+/**
+ * Task to benchmark the superpeer-side handling of lookup requests (MetadataHandler with pre-populated lookup
+ * trees) as done for GetLookupRangeRequests (batch size 1) and GetLookupRangesRequests (batch size > 1).
+ * Runs with 1, 2, 4, ... up to the max number of concurrent requesters
+ */
+public class LookupTreeTask implements Task {
+    private static final Logger LOGGER = LogManager.getFormatterLogger(LookupTreeTask.class.getSimpleName());
+
+    private static final long RANGE_SIZE = 1000;
+
+    @Expose
+    private int m_maxThreads = 64;
+
+    @Expose
+    private int m_numCreators = 16;
+
+    @Expose
+    private int m_rangesPerCreator = 1000;
+
+    @Expose
+    private int m_batchSize = 1;
+
+    @Expose
+    private int m_requestsPerThread = 1000000;
+
+    @Override
+    public int execute(final TaskContext p_ctx) {
+        MetadataHandler metadata = new MetadataHandler(new PeerHandler[NodeID.MAX_ID], new NameserviceHashTable(1000),
+                new SuperpeerStorage(0, 0), new BarriersTable(0, NodeID.INVALID_ID), new NodeIDSet());
+
+        // Migrate every other range of each creator to get one lookup tree entry per range
+        for (int creator = 1; creator <= m_numCreators; creator++) {
+            for (int range = 0; range < m_rangesPerCreator; range += 2) {
+                long start = ((long) creator << 48) + range * RANGE_SIZE + 1;
+
+                metadata.putChunkIDRangeInLookupTree(start, start + RANGE_SIZE - 1, (short) (creator + 1), false,
+                        PeerHandler.NEXT_VERSION);
+            }
+        }
+
+        System.out.printf("Lookup trees with %d creators, %d ranges per creator, %d ChunkIDs per request\n",
+                m_numCreators, m_rangesPerCreator, m_batchSize);
+
+        for (int numThreads = 1; numThreads <= m_maxThreads; numThreads *= 2) {
+            Thread[] threads = new Thread[numThreads];
+            long[] timeStart = new long[numThreads];
+            long[] timeEnd = new long[numThreads];
+
+            for (int i = 0; i < threads.length; i++) {
+                int threadIdx = i;
+                threads[i] = new Thread(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    long[] chunkIDs = new long[m_batchSize];
+
+                    timeStart[threadIdx] = System.nanoTime();
+
+                    for (int j = 0; j < m_requestsPerThread; j++) {
+                        // Requests of a peer usually address chunks of a single creator
+                        long creator = (long) random.nextInt(1, m_numCreators + 1) << 48;
+
+                        if (m_batchSize == 1) {
+                            metadata.getLookupRangeFromLookupTree(
+                                    creator + random.nextLong(1, m_rangesPerCreator * RANGE_SIZE), false);
+                        } else {
+                            for (int k = 0; k < chunkIDs.length; k++) {
+                                chunkIDs[k] = creator + random.nextLong(1, m_rangesPerCreator * RANGE_SIZE);
+                            }
+
+                            metadata.getLookupRangesFromLookupTree(chunkIDs, false);
+                        }
+                    }
+
+                    timeEnd[threadIdx] = System.nanoTime();
+                });
+            }
+
+            for (Thread thread : threads) {
+                thread.start();
+            }
+
+            boolean threadJoinFailed = false;
+            for (Thread thread : threads) {
+                try {
+                    thread.join();
+                } catch (final InterruptedException e) {
+                    LOGGER.error("Joining thread failed", e);
+                    threadJoinFailed = true;
+                }
+            }
+
+            if (threadJoinFailed) {
+                return -1;
+            }
+
+            // total time is measured by the slowest thread
+            long totalTime = 0;
+            for (int i = 0; i < numThreads; i++) {
+                long time = timeEnd[i] - timeStart[i];
+                if (time > totalTime) {
+                    totalTime = time;
+                }
+            }
+
+            double requestsPerSec =
+                    1000.0 * 1000.0 * 1000.0 / ((double) totalTime / ((long) m_requestsPerThread * numThreads));
+            System.out.printf("Requesters: %d, total time: %f sec, throughput: %f requests/sec, %f lookups/sec\n",
+                    numThreads, totalTime / 1000.0 / 1000.0 / 1000.0, requestsPerSec, requestsPerSec * m_batchSize);
+        }
+
+        return 0;
+    }
+
+    @Override
+    public void handleSignal(final Signal p_signal) {
+
+    }
+
+    @Override
+    public void exportObject(final Exporter p_exporter) {
+        p_exporter.writeInt(m_maxThreads);
+        p_exporter.writeInt(m_numCreators);
+        p_exporter.writeInt(m_rangesPerCreator);
+        p_exporter.writeInt(m_batchSize);
+        p_exporter.writeInt(m_requestsPerThread);
+    }
+
+    @Override
+    public void importObject(final Importer p_importer) {
+        m_maxThreads = p_importer.readInt(m_maxThreads);
+        m_numCreators = p_importer.readInt(m_numCreators);
+        m_rangesPerCreator = p_importer.readInt(m_rangesPerCreator);
+        m_batchSize = p_importer.readInt(m_batchSize);
+        m_requestsPerThread = p_importer.readInt(m_requestsPerThread);
+    }
+
+    @Override
+    public int sizeofObject() {
+        return Integer.BYTES * 5;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup.events;
+
+import de.hhu.bsinfo.dxram.event.AbstractEvent;
+
+/**
+ * This event is fired when multiple existing nameservice entries are updated with a single message.
+ */
+public class NameserviceCacheEntriesUpdateEvent extends AbstractEvent {
+
+    private int[] m_ids;
+    private long[] m_chunkIDs;
+
+    /**
+     * Constructor
+     *
+     * @param p_sourceClass
+     *         The calling class
+     * @param p_ids
+     *         Ids of the mappings.
+     * @param p_chunkIDs
+     *         Chunk ids mapped to the ids (same order as ids)
+     */
+    public NameserviceCacheEntriesUpdateEvent(final String p_sourceClass, final int[] p_ids,
+            final long[] p_chunkIDs) {
+        super(p_sourceClass);
+
+        m_ids = p_ids;
+        m_chunkIDs = p_chunkIDs;
+    }
+
+    /**
+     * Get the ids of the mappings.
+     *
+     * @return Ids.
+     */
+    public int[] getIDs() {
+        return m_ids;
+    }
+
+    /**
+     * Get the chunk ids mapped to the ids.
+     *
+     * @return Chunk ids (same order as ids).
+     */
+    public long[] getChunkIDs() {
+        return m_chunkIDs;
+    }
+}
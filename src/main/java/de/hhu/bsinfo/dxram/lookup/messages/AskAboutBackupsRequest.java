@@ -16,8 +16,6 @@
 
 package de.hhu.bsinfo.dxram.lookup.messages;
 
-import java.util.ArrayList;
-
 import de.hhu.bsinfo.dxnet.core.AbstractMessageExporter;
 import de.hhu.bsinfo.dxnet.core.AbstractMessageImporter;
 import de.hhu.bsinfo.dxnet.core.Request;
@@ -32,13 +30,12 @@ import de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil;
 public class AskAboutBackupsRequest extends Request {
 
     // Attributes
-    private ArrayList<Short> m_peers;
+    private short[] m_peers;
+    private long[] m_versions;
     private int m_numberOfNameserviceEntries;
     private int m_numberOfStorages;
     private int m_numberOfBarriers;
 
-    private int m_length; // Used for serialization, only
-
     // Constructors
 
     /**
@@ -48,6 +45,7 @@ public class AskAboutBackupsRequest extends Request {
         super();
 
         m_peers = null;
+        m_versions = null;
     }
 
     /**
@@ -56,7 +54,9 @@ public class AskAboutBackupsRequest extends Request {
      * @param p_destination
      *         the destination
      * @param p_peers
-     *         all peers for which this superpeer stores backups
+     *         all peers for which this superpeer stores backups (sorted)
+     * @param p_versions
+     *         the versions of the stored lookup trees of all peers (-1 if there is none)
      * @param p_numberOfNameserviceEntries
      *         the number of expected nameservice entries
      * @param p_numberOfStorages
@@ -64,11 +64,12 @@ public class AskAboutBackupsRequest extends Request {
      * @param p_numberOfBarriers
      *         the number of expected barriers
      */
-    public AskAboutBackupsRequest(final short p_destination, final ArrayList<Short> p_peers,
+    public AskAboutBackupsRequest(final short p_destination, final short[] p_peers, final long[] p_versions,
             final int p_numberOfNameserviceEntries, final int p_numberOfStorages, final int p_numberOfBarriers) {
         super(p_destination, DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_ASK_ABOUT_BACKUPS_REQUEST);
 
         m_peers = p_peers;
+        m_versions = p_versions;
         m_numberOfNameserviceEntries = p_numberOfNameserviceEntries;
         m_numberOfStorages = p_numberOfStorages;
         m_numberOfBarriers = p_numberOfBarriers;
@@ -81,10 +82,19 @@ public class AskAboutBackupsRequest extends Request {
      *
      * @return the peers
      */
-    public final ArrayList<Short> getPeers() {
+    public final short[] getPeers() {
         return m_peers;
     }
 
+    /**
+     * Get the versions of the lookup trees the superpeer stores
+     *
+     * @return the versions
+     */
+    public final long[] getVersions() {
+        return m_versions;
+    }
+
     /**
      * Get the expected number of nameservice entries
      *
@@ -116,11 +126,16 @@ public class AskAboutBackupsRequest extends Request {
     protected final int getPayloadLength() {
         int ret;
 
-        if (m_peers != null && !m_peers.isEmpty()) {
-            ret = ObjectSizeUtil.sizeofCompactedNumber(m_peers.size()) + Short.BYTES * m_peers.size();
+        if (m_peers != null) {
+            ret = ObjectSizeUtil.sizeofShortArray(m_peers);
         } else {
             ret = Byte.BYTES;
         }
+        if (m_versions != null) {
+            ret += ObjectSizeUtil.sizeofLongArray(m_versions);
+        } else {
+            ret += Byte.BYTES;
+        }
         ret += 3 * Integer.BYTES;
 
         return ret;
@@ -129,13 +144,15 @@ public class AskAboutBackupsRequest extends Request {
     // Methods
     @Override
     protected final void writePayload(final AbstractMessageExporter p_exporter) {
-        if (m_peers == null || m_peers.isEmpty()) {
+        if (m_peers == null) {
+            p_exporter.writeCompactNumber(0);
+        } else {
+            p_exporter.writeShortArray(m_peers);
+        }
+        if (m_versions == null) {
             p_exporter.writeCompactNumber(0);
         } else {
-            p_exporter.writeCompactNumber(m_peers.size());
-            for (short peer : m_peers) {
-                p_exporter.writeShort(peer);
-            }
+            p_exporter.writeLongArray(m_versions);
         }
         p_exporter.writeInt(m_numberOfNameserviceEntries);
         p_exporter.writeInt(m_numberOfStorages);
@@ -144,16 +161,8 @@ public class AskAboutBackupsRequest extends Request {
 
     @Override
     protected final void readPayload(final AbstractMessageImporter p_importer) {
-        m_length = p_importer.readCompactNumber(m_length);
-        if (m_peers == null) {
-            m_peers = new ArrayList<Short>(m_length);
-        }
-        for (int i = 0; i < m_length; i++) {
-            short peer = p_importer.readShort((short) 0);
-            if (m_peers.size() == i) {
-                m_peers.add(peer);
-            }
-        }
+        m_peers = p_importer.readShortArray(m_peers);
+        m_versions = p_importer.readLongArray(m_versions);
         m_numberOfNameserviceEntries = p_importer.readInt(m_numberOfNameserviceEntries);
         m_numberOfStorages = p_importer.readInt(m_numberOfStorages);
         m_numberOfBarriers = p_importer.readInt(m_numberOfBarriers);
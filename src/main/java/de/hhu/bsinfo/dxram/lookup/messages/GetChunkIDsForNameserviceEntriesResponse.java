@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup.messages;
+
+import de.hhu.bsinfo.dxnet.core.AbstractMessageExporter;
+import de.hhu.bsinfo.dxnet.core.AbstractMessageImporter;
+import de.hhu.bsinfo.dxnet.core.Response;
+import de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil;
+
+/**
+ * Response to a GetChunkIDsForNameserviceEntriesRequest
+ */
+public class GetChunkIDsForNameserviceEntriesResponse extends Response {
+
+    // Attributes
+    private long[] m_chunkIDs;
+
+    // Constructors
+
+    /**
+     * Creates an instance of GetChunkIDsForNameserviceEntriesResponse
+     */
+    public GetChunkIDsForNameserviceEntriesResponse() {
+        super();
+    }
+
+    /**
+     * Creates an instance of GetChunkIDsForNameserviceEntriesResponse
+     *
+     * @param p_request
+     *         the corresponding GetChunkIDsForNameserviceEntriesRequest
+     * @param p_chunkIDs
+     *         the requested ChunkIDs (same order as ids, -1 if not available)
+     */
+    public GetChunkIDsForNameserviceEntriesResponse(final GetChunkIDsForNameserviceEntriesRequest p_request,
+            final long[] p_chunkIDs) {
+        super(p_request, LookupMessages.SUBTYPE_GET_CHUNKIDS_FOR_NAMESERVICE_ENTRIES_RESPONSE);
+
+        m_chunkIDs = p_chunkIDs;
+    }
+
+    // Getters
+
+    /**
+     * Get the ChunkIDs
+     *
+     * @return the ChunkIDs
+     */
+    public final long[] getChunkIDs() {
+        return m_chunkIDs;
+    }
+
+    @Override
+    protected final int getPayloadLength() {
+        return ObjectSizeUtil.sizeofLongArray(m_chunkIDs);
+    }
+
+    // Methods
+    @Override
+    protected final void writePayload(final AbstractMessageExporter p_exporter) {
+        p_exporter.writeLongArray(m_chunkIDs);
+    }
+
+    @Override
+    protected final void readPayload(final AbstractMessageImporter p_importer) {
+        m_chunkIDs = p_importer.readLongArray(m_chunkIDs);
+    }
+
+}
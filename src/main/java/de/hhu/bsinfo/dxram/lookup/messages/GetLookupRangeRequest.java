@@ -21,6 +21,7 @@ import de.hhu.bsinfo.dxnet.core.AbstractMessageExporter;
 import de.hhu.bsinfo.dxnet.core.AbstractMessageImporter;
 import de.hhu.bsinfo.dxnet.core.Request;
 import de.hhu.bsinfo.dxram.DXRAMMessageTypes;
+import de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil;
 
 /**
  * Lookup Request
@@ -31,6 +32,7 @@ public class GetLookupRangeRequest extends Request {
 
     // Attributes
     private long m_chunkID;
+    private int m_prefetchCount;
 
     // Constructors
 
@@ -52,11 +54,27 @@ public class GetLookupRangeRequest extends Request {
      *         the ChunkID of the requested object
      */
     public GetLookupRangeRequest(final short p_destination, final long p_chunkID) {
+        this(p_destination, p_chunkID, 0);
+    }
+
+    /**
+     * Creates an instance of LookupRequest
+     *
+     * @param p_destination
+     *         the destination
+     * @param p_chunkID
+     *         the ChunkID of the requested object
+     * @param p_prefetchCount
+     *         the number of subsequent ranges of the same creator to return in addition
+     */
+    public GetLookupRangeRequest(final short p_destination, final long p_chunkID, final int p_prefetchCount) {
         super(p_destination, DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_GET_LOOKUP_RANGE_REQUEST);
 
         assert p_chunkID != ChunkID.INVALID_ID;
+        assert p_prefetchCount >= 0;
 
         m_chunkID = p_chunkID;
+        m_prefetchCount = p_prefetchCount;
     }
 
     // Getters
@@ -70,20 +88,31 @@ public class GetLookupRangeRequest extends Request {
         return m_chunkID;
     }
 
+    /**
+     * Get the number of subsequent ranges to prefetch
+     *
+     * @return the prefetch count
+     */
+    public final int getPrefetchCount() {
+        return m_prefetchCount;
+    }
+
     @Override
     protected final int getPayloadLength() {
-        return Long.BYTES;
+        return Long.BYTES + ObjectSizeUtil.sizeofCompactedNumber(m_prefetchCount);
     }
 
     // Methods
     @Override
     protected final void writePayload(final AbstractMessageExporter p_exporter) {
         p_exporter.writeLong(m_chunkID);
+        p_exporter.writeCompactNumber(m_prefetchCount);
     }
 
     @Override
     protected final void readPayload(final AbstractMessageImporter p_importer) {
         m_chunkID = p_importer.readLong(m_chunkID);
+        m_prefetchCount = p_importer.readCompactNumber(m_prefetchCount);
     }
 
 }
@@ -20,6 +20,7 @@ import de.hhu.bsinfo.dxnet.core.AbstractMessageExporter;
 import de.hhu.bsinfo.dxnet.core.AbstractMessageImporter;
 import de.hhu.bsinfo.dxnet.core.Response;
 import de.hhu.bsinfo.dxram.lookup.LookupRange;
+import de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil;
 
 /**
  * Response to a LookupRequest
@@ -30,6 +31,9 @@ public class GetLookupRangeResponse extends Response {
 
     // Attributes
     private LookupRange m_lookupRange;
+    private LookupRange[] m_prefetchedRanges;
+    // count field used for reading, only
+    private int m_prefetchedCount;
 
     // Constructors
 
@@ -51,9 +55,25 @@ public class GetLookupRangeResponse extends Response {
      *         the primary peer, backup peers and range
      */
     public GetLookupRangeResponse(final GetLookupRangeRequest p_request, final LookupRange p_lookupRange) {
+        this(p_request, p_lookupRange, new LookupRange[0]);
+    }
+
+    /**
+     * Creates an instance of LookupResponse
+     *
+     * @param p_request
+     *         the corresponding LookupRequest
+     * @param p_lookupRange
+     *         the primary peer, backup peers and range
+     * @param p_prefetchedRanges
+     *         the subsequent ranges of the same creator (might be less than requested)
+     */
+    public GetLookupRangeResponse(final GetLookupRangeRequest p_request, final LookupRange p_lookupRange,
+            final LookupRange[] p_prefetchedRanges) {
         super(p_request, LookupMessages.SUBTYPE_GET_LOOKUP_RANGE_RESPONSE);
 
         m_lookupRange = p_lookupRange;
+        m_prefetchedRanges = p_prefetchedRanges;
     }
 
     // Getters
@@ -67,15 +87,35 @@ public class GetLookupRangeResponse extends Response {
         return m_lookupRange;
     }
 
+    /**
+     * Get the prefetched ranges following the LookupRange
+     *
+     * @return the prefetched LookupRanges in ascending order
+     */
+    public final LookupRange[] getPrefetchedRanges() {
+        return m_prefetchedRanges;
+    }
+
     @Override
     protected final int getPayloadLength() {
-        return m_lookupRange.sizeofObject();
+        int size = m_lookupRange.sizeofObject() + ObjectSizeUtil.sizeofCompactedNumber(m_prefetchedRanges.length);
+
+        for (LookupRange lookupRange : m_prefetchedRanges) {
+            size += lookupRange.sizeofObject();
+        }
+
+        return size;
     }
 
     // Methods
     @Override
     protected final void writePayload(final AbstractMessageExporter p_exporter) {
         p_exporter.exportObject(m_lookupRange);
+        p_exporter.writeCompactNumber(m_prefetchedRanges.length);
+
+        for (LookupRange lookupRange : m_prefetchedRanges) {
+            p_exporter.exportObject(lookupRange);
+        }
     }
 
     @Override
@@ -84,6 +124,19 @@ public class GetLookupRangeResponse extends Response {
             m_lookupRange = new LookupRange();
         }
         p_importer.importObject(m_lookupRange);
+
+        m_prefetchedCount = p_importer.readCompactNumber(m_prefetchedCount);
+
+        if (m_prefetchedRanges == null) {
+            m_prefetchedRanges = new LookupRange[m_prefetchedCount];
+        }
+
+        for (int i = 0; i < m_prefetchedCount; i++) {
+            if (m_prefetchedRanges[i] == null) {
+                m_prefetchedRanges[i] = new LookupRange();
+            }
+            p_importer.importObject(m_prefetchedRanges[i]);
+        }
     }
 
 }
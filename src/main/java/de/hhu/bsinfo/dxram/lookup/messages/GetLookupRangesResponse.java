@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup.messages;
+
+import de.hhu.bsinfo.dxnet.core.AbstractMessageExporter;
+import de.hhu.bsinfo.dxnet.core.AbstractMessageImporter;
+import de.hhu.bsinfo.dxnet.core.Response;
+import de.hhu.bsinfo.dxram.lookup.LookupRange;
+import de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil;
+
+/**
+ * Response to a GetLookupRangesRequest
+ */
+public class GetLookupRangesResponse extends Response {
+
+    // Attributes
+    private LookupRange[] m_lookupRanges;
+    // count field used for reading, only
+    private int m_count;
+
+    // Constructors
+
+    /**
+     * Creates an instance of GetLookupRangesResponse
+     */
+    public GetLookupRangesResponse() {
+        super();
+    }
+
+    /**
+     * Creates an instance of GetLookupRangesResponse
+     *
+     * @param p_request
+     *         the corresponding GetLookupRangesRequest
+     * @param p_lookupRanges
+     *         the lookup ranges in the order of the requested ChunkIDs
+     */
+    public GetLookupRangesResponse(final GetLookupRangesRequest p_request, final LookupRange[] p_lookupRanges) {
+        super(p_request, LookupMessages.SUBTYPE_GET_LOOKUP_RANGES_RESPONSE);
+
+        m_lookupRanges = p_lookupRanges;
+    }
+
+    // Getters
+
+    /**
+     * Get the lookup ranges
+     *
+     * @return the lookup ranges in the order of the requested ChunkIDs
+     */
+    public final LookupRange[] getLookupRanges() {
+        return m_lookupRanges;
+    }
+
+    @Override
+    protected final int getPayloadLength() {
+        int size = ObjectSizeUtil.sizeofCompactedNumber(m_lookupRanges.length);
+
+        for (LookupRange lookupRange : m_lookupRanges) {
+            size += lookupRange.sizeofObject();
+        }
+
+        return size;
+    }
+
+    // Methods
+    @Override
+    protected final void writePayload(final AbstractMessageExporter p_exporter) {
+        p_exporter.writeCompactNumber(m_lookupRanges.length);
+
+        for (LookupRange lookupRange : m_lookupRanges) {
+            p_exporter.exportObject(lookupRange);
+        }
+    }
+
+    @Override
+    protected final void readPayload(final AbstractMessageImporter p_importer) {
+        m_count = p_importer.readCompactNumber(m_count);
+
+        if (m_lookupRanges == null) {
+            m_lookupRanges = new LookupRange[m_count];
+        }
+
+        for (int i = 0; i < m_count; i++) {
+            if (m_lookupRanges[i] == null) {
+                m_lookupRanges[i] = new LookupRange();
+            }
+            p_importer.importObject(m_lookupRanges[i]);
+        }
+    }
+
+}
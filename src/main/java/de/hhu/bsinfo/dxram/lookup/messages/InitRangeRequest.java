@@ -33,6 +33,7 @@ public class InitRangeRequest extends Request {
     private short m_rangeOwner;
     private BackupRange m_backupRange;
     private boolean m_isBackup;
+    private long m_version;
 
     // Constructors
 
@@ -45,6 +46,7 @@ public class InitRangeRequest extends Request {
         m_rangeOwner = -1;
         m_backupRange = null;
         m_isBackup = false;
+        m_version = -1;
     }
 
     /**
@@ -66,6 +68,29 @@ public class InitRangeRequest extends Request {
         m_rangeOwner = p_rangeOwner;
         m_backupRange = p_backupRange;
         m_isBackup = p_isBackup;
+        m_version = -1;
+    }
+
+    /**
+     * Creates an instance of InitRangeRequest forwarded to a backup superpeer
+     *
+     * @param p_destination
+     *         the destination
+     * @param p_rangeOwner
+     *         the peer that created the new backup range
+     * @param p_backupRange
+     *         the backup range to initialize
+     * @param p_version
+     *         the version of the lookup tree assigned by the responsible superpeer
+     */
+    public InitRangeRequest(final short p_destination, final short p_rangeOwner, final BackupRange p_backupRange,
+            final long p_version) {
+        super(p_destination, DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_INIT_RANGE_REQUEST);
+
+        m_rangeOwner = p_rangeOwner;
+        m_backupRange = p_backupRange;
+        m_isBackup = true;
+        m_version = p_version;
     }
 
     // Getters
@@ -97,9 +122,18 @@ public class InitRangeRequest extends Request {
         return m_isBackup;
     }
 
+    /**
+     * Returns the version of the lookup tree assigned by the responsible superpeer
+     *
+     * @return the version or -1 if the message was not forwarded by the responsible superpeer
+     */
+    public final long getVersion() {
+        return m_version;
+    }
+
     @Override
     protected final int getPayloadLength() {
-        return Short.BYTES + m_backupRange.sizeofObject() + Byte.BYTES;
+        return Short.BYTES + m_backupRange.sizeofObject() + Byte.BYTES + Long.BYTES;
     }
 
     // Methods
@@ -108,6 +142,7 @@ public class InitRangeRequest extends Request {
         p_exporter.writeShort(m_rangeOwner);
         p_exporter.exportObject(m_backupRange);
         p_exporter.writeBoolean(m_isBackup);
+        p_exporter.writeLong(m_version);
     }
 
     @Override
@@ -118,6 +153,7 @@ public class InitRangeRequest extends Request {
         }
         p_importer.importObject(m_backupRange);
         m_isBackup = p_importer.readBoolean(m_isBackup);
+        m_version = p_importer.readLong(m_version);
     }
 
 }
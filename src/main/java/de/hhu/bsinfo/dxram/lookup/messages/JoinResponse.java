@@ -23,6 +23,7 @@ import de.hhu.bsinfo.dxnet.core.AbstractMessageImporter;
 import de.hhu.bsinfo.dxnet.core.Response;
 import de.hhu.bsinfo.dxram.boot.NodeRegistry;
 import de.hhu.bsinfo.dxram.boot.NodesConfiguration;
+import de.hhu.bsinfo.dxram.lookup.overlay.NodeIDSet;
 import de.hhu.bsinfo.dxutils.NodeID;
 import de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil;
 
@@ -37,13 +38,11 @@ public class JoinResponse extends Response {
     private short m_newContactSuperpeer;
     private short m_predecessor;
     private short m_successor;
-    private ArrayList<Short> m_superpeers;
-    private ArrayList<Short> m_peers;
+    private short[] m_superpeers;
+    private short[] m_peers;
     private ArrayList<NodesConfiguration.NodeEntry> m_onlineNodes;
     private byte[] m_metadata;
 
-    private int m_superpeersToRead; // Used for serialization, only
-    private int m_peersToRead; // Used for serialization, only
     private int m_nodesToRead; // Used for serialization, only
 
     // Constructors
@@ -85,7 +84,7 @@ public class JoinResponse extends Response {
      */
     public JoinResponse(final JoinRequest p_request, final short p_newContactSuperpeer, final short p_predecessor,
             final short p_successor,
-            final ArrayList<Short> p_superpeers, final ArrayList<Short> p_peers,
+            final NodeIDSet p_superpeers, final NodeIDSet p_peers,
             final ArrayList<NodesConfiguration.NodeEntry> p_onlineNodes,
             final byte[] p_metadata) {
         super(p_request, LookupMessages.SUBTYPE_JOIN_RESPONSE);
@@ -93,8 +92,8 @@ public class JoinResponse extends Response {
         m_newContactSuperpeer = p_newContactSuperpeer;
         m_predecessor = p_predecessor;
         m_successor = p_successor;
-        m_superpeers = p_superpeers;
-        m_peers = p_peers;
+        m_superpeers = p_superpeers != null ? p_superpeers.toArray() : null;
+        m_peers = p_peers != null ? p_peers.toArray() : null;
         m_onlineNodes = new ArrayList<>();
         m_metadata = p_metadata;
     }
@@ -133,7 +132,7 @@ public class JoinResponse extends Response {
      *
      * @return the NodeIDs
      */
-    public final ArrayList<Short> getSuperpeers() {
+    public final short[] getSuperpeers() {
         return m_superpeers;
     }
 
@@ -142,7 +141,7 @@ public class JoinResponse extends Response {
      *
      * @return the NodeIDs
      */
-    public final ArrayList<Short> getPeers() {
+    public final short[] getPeers() {
         return m_peers;
     }
 
@@ -171,14 +170,14 @@ public class JoinResponse extends Response {
         if (m_newContactSuperpeer == NodeID.INVALID_ID) {
             ret = Short.BYTES * 3;
 
-            if (m_superpeers != null && !m_superpeers.isEmpty()) {
-                ret += ObjectSizeUtil.sizeofCompactedNumber(m_superpeers.size()) + Short.BYTES * m_superpeers.size();
+            if (m_superpeers != null) {
+                ret += ObjectSizeUtil.sizeofShortArray(m_superpeers);
             } else {
                 ret += Byte.BYTES;
             }
 
-            if (m_peers != null && !m_peers.isEmpty()) {
-                ret += ObjectSizeUtil.sizeofCompactedNumber(m_peers.size()) + Short.BYTES * m_peers.size();
+            if (m_peers != null) {
+                ret += ObjectSizeUtil.sizeofShortArray(m_peers);
             } else {
                 ret += Byte.BYTES;
             }
@@ -212,22 +211,16 @@ public class JoinResponse extends Response {
             p_exporter.writeShort(m_predecessor);
             p_exporter.writeShort(m_successor);
 
-            if (m_superpeers == null || m_superpeers.isEmpty()) {
+            if (m_superpeers == null) {
                 p_exporter.writeCompactNumber(0);
             } else {
-                p_exporter.writeCompactNumber(m_superpeers.size());
-                for (short superpeer : m_superpeers) {
-                    p_exporter.writeShort(superpeer);
-                }
+                p_exporter.writeShortArray(m_superpeers);
             }
 
-            if (m_peers == null || m_peers.isEmpty()) {
+            if (m_peers == null) {
                 p_exporter.writeCompactNumber(0);
             } else {
-                p_exporter.writeCompactNumber(m_peers.size());
-                for (short peer : m_peers) {
-                    p_exporter.writeShort(peer);
-                }
+                p_exporter.writeShortArray(m_peers);
             }
 
             if (m_onlineNodes == null || m_onlineNodes.isEmpty()) {
@@ -256,29 +249,8 @@ public class JoinResponse extends Response {
             m_predecessor = p_importer.readShort(m_predecessor);
             m_successor = p_importer.readShort(m_successor);
 
-            m_superpeersToRead = p_importer.readCompactNumber(m_superpeersToRead);
-            if (m_superpeers == null) {
-                // Do not overwrite existing array list
-                m_superpeers = new ArrayList<Short>(m_superpeersToRead);
-            }
-            for (int i = 0; i < m_superpeersToRead; i++) {
-                short superpeer = p_importer.readShort((short) 0);
-                if (m_superpeers.size() == i) {
-                    m_superpeers.add(superpeer);
-                }
-            }
-
-            m_peersToRead = p_importer.readCompactNumber(m_peersToRead);
-            if (m_peers == null) {
-                // Do not overwrite existing array list
-                m_peers = new ArrayList<Short>(m_peersToRead);
-            }
-            for (int i = 0; i < m_peersToRead; i++) {
-                short peer = p_importer.readShort((short) 0);
-                if (m_peers.size() == i) {
-                    m_peers.add(peer);
-                }
-            }
+            m_superpeers = p_importer.readShortArray(m_superpeers);
+            m_peers = p_importer.readShortArray(m_peers);
 
             m_nodesToRead = p_importer.readCompactNumber(m_nodesToRead);
             if (m_onlineNodes == null) {
@@ -97,6 +97,16 @@ public final class LookupMessages {
     public static final byte SUBTYPE_GET_METADATA_SUMMARY_REQUEST = 66;
     public static final byte SUBTYPE_GET_METADATA_SUMMARY_RESPONSE = 67;
 
+    public static final byte SUBTYPE_LOOKUP_RANGES_AVAILABLE_MESSAGE = 68;
+
+    public static final byte SUBTYPE_GET_LOOKUP_RANGES_REQUEST = 69;
+    public static final byte SUBTYPE_GET_LOOKUP_RANGES_RESPONSE = 70;
+
+    public static final byte SUBTYPE_INSERT_NAMESERVICE_ENTRIES_BATCH_REQUEST = 71;
+    public static final byte SUBTYPE_INSERT_NAMESERVICE_ENTRIES_BATCH_RESPONSE = 72;
+    public static final byte SUBTYPE_GET_CHUNKIDS_FOR_NAMESERVICE_ENTRIES_REQUEST = 73;
+    public static final byte SUBTYPE_GET_CHUNKIDS_FOR_NAMESERVICE_ENTRIES_RESPONSE = 74;
+
     /**
      * Hidden constructor
      */
@@ -35,6 +35,7 @@ public class MigrateRangeRequest extends Request {
     private long m_endChunkID;
     private short m_nodeID;
     private boolean m_isBackup;
+    private long m_version;
 
     // Constructors
 
@@ -48,6 +49,7 @@ public class MigrateRangeRequest extends Request {
         m_endChunkID = ChunkID.INVALID_ID;
         m_nodeID = NodeID.INVALID_ID;
         m_isBackup = false;
+        m_version = -1;
     }
 
     /**
@@ -72,6 +74,32 @@ public class MigrateRangeRequest extends Request {
         m_endChunkID = p_endChunkID;
         m_nodeID = p_nodeID;
         m_isBackup = p_isBackup;
+        m_version = -1;
+    }
+
+    /**
+     * Creates an instance of MigrateRangeRequest forwarded to a backup superpeer
+     *
+     * @param p_destination
+     *         the destination
+     * @param p_startChunkID
+     *         the first object that has to be migrated
+     * @param p_endChunkID
+     *         the last object that has to be migrated
+     * @param p_nodeID
+     *         the peer where the object has to be migrated
+     * @param p_version
+     *         the version of the lookup tree assigned by the responsible superpeer
+     */
+    public MigrateRangeRequest(final short p_destination, final long p_startChunkID, final long p_endChunkID,
+            final short p_nodeID, final long p_version) {
+        super(p_destination, DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_MIGRATE_RANGE_REQUEST);
+
+        m_startChunkID = p_startChunkID;
+        m_endChunkID = p_endChunkID;
+        m_nodeID = p_nodeID;
+        m_isBackup = true;
+        m_version = p_version;
     }
 
     // Getters
@@ -112,9 +140,18 @@ public class MigrateRangeRequest extends Request {
         return m_isBackup;
     }
 
+    /**
+     * Returns the version of the lookup tree assigned by the responsible superpeer
+     *
+     * @return the version or -1 if the message was not forwarded by the responsible superpeer
+     */
+    public final long getVersion() {
+        return m_version;
+    }
+
     @Override
     protected final int getPayloadLength() {
-        return Long.BYTES * 2 + Short.BYTES + Byte.BYTES;
+        return Long.BYTES * 3 + Short.BYTES + Byte.BYTES;
     }
 
     // Methods
@@ -124,6 +161,7 @@ public class MigrateRangeRequest extends Request {
         p_exporter.writeLong(m_endChunkID);
         p_exporter.writeShort(m_nodeID);
         p_exporter.writeBoolean(m_isBackup);
+        p_exporter.writeLong(m_version);
     }
 
     @Override
@@ -132,6 +170,7 @@ public class MigrateRangeRequest extends Request {
         m_endChunkID = p_importer.readLong(m_endChunkID);
         m_nodeID = p_importer.readShort(m_nodeID);
         m_isBackup = p_importer.readBoolean(m_isBackup);
+        m_version = p_importer.readLong(m_version);
     }
 
 }
@@ -34,6 +34,7 @@ public class MigrateRequest extends Request {
     private long m_chunkID;
     private short m_nodeID;
     private boolean m_isBackup;
+    private long m_version;
 
     // Constructors
 
@@ -46,6 +47,7 @@ public class MigrateRequest extends Request {
         m_chunkID = ChunkID.INVALID_ID;
         m_nodeID = NodeID.INVALID_ID;
         m_isBackup = false;
+        m_version = -1;
     }
 
     /**
@@ -67,6 +69,29 @@ public class MigrateRequest extends Request {
         m_chunkID = p_chunkID;
         m_nodeID = p_nodeID;
         m_isBackup = p_isBackup;
+        m_version = -1;
+    }
+
+    /**
+     * Creates an instance of MigrateRequest forwarded to a backup superpeer
+     *
+     * @param p_destination
+     *         the destination
+     * @param p_chunkID
+     *         the object that has to be migrated
+     * @param p_nodeID
+     *         the peer where the object has to be migrated
+     * @param p_version
+     *         the version of the lookup tree assigned by the responsible superpeer
+     */
+    public MigrateRequest(final short p_destination, final long p_chunkID, final short p_nodeID,
+            final long p_version) {
+        super(p_destination, DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_MIGRATE_REQUEST);
+
+        m_chunkID = p_chunkID;
+        m_nodeID = p_nodeID;
+        m_isBackup = true;
+        m_version = p_version;
     }
 
     // Getters
@@ -98,9 +123,18 @@ public class MigrateRequest extends Request {
         return m_isBackup;
     }
 
+    /**
+     * Returns the version of the lookup tree assigned by the responsible superpeer
+     *
+     * @return the version or -1 if the message was not forwarded by the responsible superpeer
+     */
+    public final long getVersion() {
+        return m_version;
+    }
+
     @Override
     protected final int getPayloadLength() {
-        return Long.BYTES + Short.BYTES + Byte.BYTES;
+        return Long.BYTES * 2 + Short.BYTES + Byte.BYTES;
     }
 
     // Methods
@@ -109,6 +143,7 @@ public class MigrateRequest extends Request {
         p_exporter.writeLong(m_chunkID);
         p_exporter.writeShort(m_nodeID);
         p_exporter.writeBoolean(m_isBackup);
+        p_exporter.writeLong(m_version);
     }
 
     @Override
@@ -116,6 +151,7 @@ public class MigrateRequest extends Request {
         m_chunkID = p_importer.readLong(m_chunkID);
         m_nodeID = p_importer.readShort(m_nodeID);
         m_isBackup = p_importer.readBoolean(m_isBackup);
+        m_version = p_importer.readLong(m_version);
     }
 
 }
@@ -16,11 +16,11 @@
 
 package de.hhu.bsinfo.dxram.lookup.messages;
 
-import de.hhu.bsinfo.dxmem.data.ChunkID;
 import de.hhu.bsinfo.dxnet.core.AbstractMessageExporter;
 import de.hhu.bsinfo.dxnet.core.AbstractMessageImporter;
 import de.hhu.bsinfo.dxnet.core.Request;
 import de.hhu.bsinfo.dxram.DXRAMMessageTypes;
+import de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil;
 
 /**
  * Message to notify peers about an update in the nameservice to update their local caches
@@ -30,8 +30,8 @@ import de.hhu.bsinfo.dxram.DXRAMMessageTypes;
 public class NameserviceUpdatePeerCachesMessage extends Request {
 
     // Attributes
-    private int m_id;
-    private long m_chunkID;
+    private int[] m_ids;
+    private long[] m_chunkIDs;
 
     // Constructors
 
@@ -40,9 +40,6 @@ public class NameserviceUpdatePeerCachesMessage extends Request {
      */
     public NameserviceUpdatePeerCachesMessage() {
         super();
-
-        m_id = -1;
-        m_chunkID = ChunkID.INVALID_ID;
     }
 
     /**
@@ -56,49 +53,63 @@ public class NameserviceUpdatePeerCachesMessage extends Request {
      *         the ChunkID to store
      */
     public NameserviceUpdatePeerCachesMessage(final short p_destination, final int p_id, final long p_chunkID) {
+        this(p_destination, new int[] {p_id}, new long[] {p_chunkID});
+    }
+
+    /**
+     * Creates an instance of NameserviceUpdatePeerCachesMessage
+     *
+     * @param p_destination
+     *         the destination
+     * @param p_ids
+     *         the ids to store
+     * @param p_chunkIDs
+     *         the ChunkIDs to store (same order as ids)
+     */
+    public NameserviceUpdatePeerCachesMessage(final short p_destination, final int[] p_ids, final long[] p_chunkIDs) {
         super(p_destination, DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
                 LookupMessages.SUBTYPE_NAMESERVICE_UPDATE_PEER_CACHES_MESSAGE);
 
-        m_id = p_id;
-        m_chunkID = p_chunkID;
+        m_ids = p_ids;
+        m_chunkIDs = p_chunkIDs;
     }
 
     // Getters
 
     /**
-     * Get the id to store
+     * Get the ids to store
      *
-     * @return the id to store
+     * @return the ids to store
      */
-    public final int getID() {
-        return m_id;
+    public final int[] getIDs() {
+        return m_ids;
     }
 
     /**
-     * Get the ChunkID to store
+     * Get the ChunkIDs to store
      *
-     * @return the ChunkID to store
+     * @return the ChunkIDs to store
      */
-    public final long getChunkID() {
-        return m_chunkID;
+    public final long[] getChunkIDs() {
+        return m_chunkIDs;
     }
 
     @Override
     protected final int getPayloadLength() {
-        return Integer.BYTES + Long.BYTES;
+        return ObjectSizeUtil.sizeofIntArray(m_ids) + ObjectSizeUtil.sizeofLongArray(m_chunkIDs);
     }
 
     // Methods
     @Override
     protected final void writePayload(final AbstractMessageExporter p_exporter) {
-        p_exporter.writeInt(m_id);
-        p_exporter.writeLong(m_chunkID);
+        p_exporter.writeIntArray(m_ids);
+        p_exporter.writeLongArray(m_chunkIDs);
     }
 
     @Override
     protected final void readPayload(final AbstractMessageImporter p_importer) {
-        m_id = p_importer.readInt(m_id);
-        m_chunkID = p_importer.readLong(m_chunkID);
+        m_ids = p_importer.readIntArray(m_ids);
+        m_chunkIDs = p_importer.readLongArray(m_chunkIDs);
     }
 
 }
@@ -34,6 +34,7 @@ public class RemoveChunkIDsRequest extends Request {
     private ArrayListLong m_chunkIDsOut;
     private long[] m_chunkIDs;
     private boolean m_isBackup;
+    private long m_version;
 
     // Constructors
 
@@ -45,6 +46,7 @@ public class RemoveChunkIDsRequest extends Request {
 
         m_chunkIDs = null;
         m_isBackup = false;
+        m_version = -1;
     }
 
     /**
@@ -64,6 +66,27 @@ public class RemoveChunkIDsRequest extends Request {
 
         m_chunkIDsOut = p_chunkIDs;
         m_isBackup = p_isBackup;
+        m_version = -1;
+    }
+
+    /**
+     * Creates an instance of RemoveRequest forwarded to a backup superpeer
+     *
+     * @param p_destination
+     *         the destination
+     * @param p_chunkIDs
+     *         the ChunkIDs that have to be removed
+     * @param p_version
+     *         the version of the lookup tree assigned by the responsible superpeer
+     */
+    public RemoveChunkIDsRequest(final short p_destination, final ArrayListLong p_chunkIDs, final long p_version) {
+        super(p_destination, DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_REMOVE_CHUNKIDS_REQUEST);
+
+        assert p_chunkIDs != null;
+
+        m_chunkIDsOut = p_chunkIDs;
+        m_isBackup = true;
+        m_version = p_version;
     }
 
     // Getters
@@ -86,13 +109,22 @@ public class RemoveChunkIDsRequest extends Request {
         return m_isBackup;
     }
 
+    /**
+     * Returns the version of the lookup tree assigned by the responsible superpeer
+     *
+     * @return the version or -1 if the message was not forwarded on behalf of the responsible superpeer
+     */
+    public final long getVersion() {
+        return m_version;
+    }
+
     @Override
     protected final int getPayloadLength() {
 
         if (m_chunkIDsOut != null) {
-            return m_chunkIDsOut.sizeofObject() + Byte.BYTES;
+            return m_chunkIDsOut.sizeofObject() + Byte.BYTES + Long.BYTES;
         } else {
-            return ObjectSizeUtil.sizeofLongArray(m_chunkIDs) + Byte.BYTES;
+            return ObjectSizeUtil.sizeofLongArray(m_chunkIDs) + Byte.BYTES + Long.BYTES;
         }
     }
 
@@ -101,12 +133,14 @@ public class RemoveChunkIDsRequest extends Request {
     protected final void writePayload(final AbstractMessageExporter p_exporter) {
         p_exporter.exportObject(m_chunkIDsOut);
         p_exporter.writeBoolean(m_isBackup);
+        p_exporter.writeLong(m_version);
     }
 
     @Override
     protected final void readPayload(final AbstractMessageImporter p_importer) {
         m_chunkIDs = p_importer.readLongArray(m_chunkIDs);
         m_isBackup = p_importer.readBoolean(m_isBackup);
+        m_version = p_importer.readLong(m_version);
     }
 
 }
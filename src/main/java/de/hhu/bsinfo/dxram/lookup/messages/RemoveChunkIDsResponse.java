@@ -30,6 +30,7 @@ public class RemoveChunkIDsResponse extends Response {
 
     // Attributes
     private short[] m_backupSuperpeers;
+    private long m_version;
 
     // Constructors
 
@@ -40,6 +41,7 @@ public class RemoveChunkIDsResponse extends Response {
         super();
 
         m_backupSuperpeers = null;
+        m_version = -1;
     }
 
     /**
@@ -51,9 +53,25 @@ public class RemoveChunkIDsResponse extends Response {
      *         the backup superpeers
      */
     public RemoveChunkIDsResponse(final RemoveChunkIDsRequest p_request, final short[] p_backupSuperpeers) {
+        this(p_request, p_backupSuperpeers, -1);
+    }
+
+    /**
+     * Creates an instance of RemoveResponse
+     *
+     * @param p_request
+     *         the corresponding RemoveRequest
+     * @param p_backupSuperpeers
+     *         the backup superpeers
+     * @param p_version
+     *         the version of the lookup tree assigned by the responsible superpeer
+     */
+    public RemoveChunkIDsResponse(final RemoveChunkIDsRequest p_request, final short[] p_backupSuperpeers,
+            final long p_version) {
         super(p_request, LookupMessages.SUBTYPE_REMOVE_CHUNKIDS_RESPONSE);
 
         m_backupSuperpeers = p_backupSuperpeers;
+        m_version = p_version;
     }
 
     // Getters
@@ -67,12 +85,21 @@ public class RemoveChunkIDsResponse extends Response {
         return m_backupSuperpeers;
     }
 
+    /**
+     * Get the version of the lookup tree assigned by the responsible superpeer (to be forwarded to the backups)
+     *
+     * @return the version
+     */
+    public final long getVersion() {
+        return m_version;
+    }
+
     @Override
     protected final int getPayloadLength() {
         if (m_backupSuperpeers != null) {
-            return ObjectSizeUtil.sizeofShortArray(m_backupSuperpeers);
+            return ObjectSizeUtil.sizeofShortArray(m_backupSuperpeers) + Long.BYTES;
         } else {
-            return Byte.BYTES;
+            return Byte.BYTES + Long.BYTES;
         }
     }
 
@@ -84,11 +111,13 @@ public class RemoveChunkIDsResponse extends Response {
         } else {
             p_exporter.writeShortArray(m_backupSuperpeers);
         }
+        p_exporter.writeLong(m_version);
     }
 
     @Override
     protected final void readPayload(final AbstractMessageImporter p_importer) {
         m_backupSuperpeers = p_importer.readShortArray(m_backupSuperpeers);
+        m_version = p_importer.readLong(m_version);
     }
 
 }
@@ -35,6 +35,7 @@ public class ReplaceBackupPeerRequest extends Request {
     private short m_failedBackupPeer;
     private short m_newBackupPeer;
     private boolean m_isBackup;
+    private long m_version;
 
     // Constructors
 
@@ -48,6 +49,7 @@ public class ReplaceBackupPeerRequest extends Request {
         m_failedBackupPeer = NodeID.INVALID_ID;
         m_newBackupPeer = NodeID.INVALID_ID;
         m_isBackup = false;
+        m_version = -1;
     }
 
     /**
@@ -73,6 +75,33 @@ public class ReplaceBackupPeerRequest extends Request {
         m_failedBackupPeer = p_failedBackupPeer;
         m_newBackupPeer = p_newBackupPeer;
         m_isBackup = p_isBackup;
+        m_version = -1;
+    }
+
+    /**
+     * Creates an instance of ReplaceBackupPeerRequest forwarded to a backup superpeer
+     *
+     * @param p_destination
+     *         the destination
+     * @param p_rangeID
+     *         the RangeID
+     * @param p_failedBackupPeer
+     *         the failed backup peer
+     * @param p_newBackupPeer
+     *         the replacement
+     * @param p_version
+     *         the version of the lookup tree assigned by the responsible superpeer
+     */
+    public ReplaceBackupPeerRequest(final short p_destination, final short p_rangeID, final short p_failedBackupPeer,
+            final short p_newBackupPeer, final long p_version) {
+        super(p_destination, DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_REPLACE_BACKUP_PEER_REQUEST);
+
+        m_rangeID = p_rangeID;
+        m_failedBackupPeer = p_failedBackupPeer;
+        m_newBackupPeer = p_newBackupPeer;
+        m_isBackup = true;
+        m_version = p_version;
     }
 
     // Getters
@@ -113,9 +142,18 @@ public class ReplaceBackupPeerRequest extends Request {
         return m_isBackup;
     }
 
+    /**
+     * Returns the version of the lookup tree assigned by the responsible superpeer
+     *
+     * @return the version or -1 if the message was not forwarded by the responsible superpeer
+     */
+    public final long getVersion() {
+        return m_version;
+    }
+
     @Override
     protected final int getPayloadLength() {
-        return 3 * Short.BYTES + Byte.BYTES;
+        return 3 * Short.BYTES + Byte.BYTES + Long.BYTES;
     }
 
     // Methods
@@ -125,6 +163,7 @@ public class ReplaceBackupPeerRequest extends Request {
         p_exporter.writeShort(m_failedBackupPeer);
         p_exporter.writeShort(m_newBackupPeer);
         p_exporter.writeBoolean(m_isBackup);
+        p_exporter.writeLong(m_version);
     }
 
     @Override
@@ -133,6 +172,7 @@ public class ReplaceBackupPeerRequest extends Request {
         m_failedBackupPeer = p_importer.readShort(m_failedBackupPeer);
         m_newBackupPeer = p_importer.readShort(m_newBackupPeer);
         m_isBackup = p_importer.readBoolean(m_isBackup);
+        m_version = p_importer.readLong(m_version);
     }
 
 }
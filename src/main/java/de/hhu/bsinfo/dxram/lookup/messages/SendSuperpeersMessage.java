@@ -16,12 +16,11 @@
 
 package de.hhu.bsinfo.dxram.lookup.messages;
 
-import java.util.ArrayList;
-
 import de.hhu.bsinfo.dxnet.core.AbstractMessageExporter;
 import de.hhu.bsinfo.dxnet.core.AbstractMessageImporter;
 import de.hhu.bsinfo.dxnet.core.Message;
 import de.hhu.bsinfo.dxram.DXRAMMessageTypes;
+import de.hhu.bsinfo.dxram.lookup.overlay.NodeIDSet;
 import de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil;
 
 /**
@@ -32,9 +31,7 @@ import de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil;
 public class SendSuperpeersMessage extends Message {
 
     // Attributes
-    private ArrayList<Short> m_superpeers;
-
-    private int m_superpeersToRead; // For serialization, only
+    private short[] m_superpeers;
 
     // Constructors
 
@@ -55,12 +52,12 @@ public class SendSuperpeersMessage extends Message {
      * @param p_superpeers
      *         the superpeers
      */
-    public SendSuperpeersMessage(final short p_destination, final ArrayList<Short> p_superpeers) {
+    public SendSuperpeersMessage(final short p_destination, final NodeIDSet p_superpeers) {
         super(p_destination, DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_SEND_SUPERPEERS_MESSAGE);
 
         assert p_superpeers != null;
 
-        m_superpeers = p_superpeers;
+        m_superpeers = p_superpeers.toArray();
     }
 
     // Getters
@@ -70,44 +67,32 @@ public class SendSuperpeersMessage extends Message {
      *
      * @return the superpeer array
      */
-    public final ArrayList<Short> getSuperpeers() {
+    public final short[] getSuperpeers() {
         return m_superpeers;
     }
 
     @Override
     protected final int getPayloadLength() {
-        if (m_superpeers == null || m_superpeers.isEmpty()) {
+        if (m_superpeers == null) {
             return Byte.BYTES;
         } else {
-            return ObjectSizeUtil.sizeofCompactedNumber(m_superpeers.size()) + Short.BYTES * m_superpeers.size();
+            return ObjectSizeUtil.sizeofShortArray(m_superpeers);
         }
     }
 
     // Methods
     @Override
     protected final void writePayload(final AbstractMessageExporter p_exporter) {
-        if (m_superpeers == null || m_superpeers.isEmpty()) {
+        if (m_superpeers == null) {
             p_exporter.writeCompactNumber(0);
         } else {
-            p_exporter.writeCompactNumber(m_superpeers.size());
-            for (short superpeer : m_superpeers) {
-                p_exporter.writeShort(superpeer);
-            }
+            p_exporter.writeShortArray(m_superpeers);
         }
     }
 
     @Override
     protected final void readPayload(final AbstractMessageImporter p_importer) {
-        m_superpeersToRead = p_importer.readCompactNumber(m_superpeersToRead);
-        if (m_superpeers == null) {
-            m_superpeers = new ArrayList<Short>(m_superpeersToRead);
-        }
-        for (int i = 0; i < m_superpeersToRead; i++) {
-            short superpeer = p_importer.readShort((short) 0);
-            if (m_superpeers.size() == i) {
-                m_superpeers.add(superpeer);
-            }
-        }
+        m_superpeers = p_importer.readShortArray(m_superpeers);
     }
 
 }
@@ -34,6 +34,8 @@ public class SuperpeerStorageGetAnonRequest extends Request {
     private ChunkAnon m_chunk;
     // this is only used when receiving the request
     private int m_storageID;
+    // offset within the block to start reading at
+    private int m_offset;
 
     /**
      * Creates an instance of SuperpeerStorageGetRequest.
@@ -59,6 +61,23 @@ public class SuperpeerStorageGetAnonRequest extends Request {
         m_chunk = p_chunk;
     }
 
+    /**
+     * Creates an instance of SuperpeerStorageGetRequest to read the data of a block starting at an offset.
+     * This constructor is used when sending this message.
+     *
+     * @param p_destination
+     *         the destination node id.
+     * @param p_chunk
+     *         Anonymous chunk with the ID of the chunk to get.
+     * @param p_offset
+     *         Offset within the block to start reading at
+     */
+    public SuperpeerStorageGetAnonRequest(final short p_destination, final ChunkAnon p_chunk, final int p_offset) {
+        this(p_destination, p_chunk);
+
+        m_offset = p_offset;
+    }
+
     /**
      * Get the storage id.
      *
@@ -68,6 +87,15 @@ public class SuperpeerStorageGetAnonRequest extends Request {
         return m_storageID;
     }
 
+    /**
+     * Get the offset within the block to start reading at.
+     *
+     * @return Offset.
+     */
+    public int getOffset() {
+        return m_offset;
+    }
+
     /**
      * Get the chunk stored with this request.
      * This is used to write the received data to the provided object to avoid
@@ -81,16 +109,18 @@ public class SuperpeerStorageGetAnonRequest extends Request {
 
     @Override
     protected final int getPayloadLength() {
-        return Integer.BYTES;
+        return Integer.BYTES * 2;
     }
 
     @Override
     protected final void writePayload(final AbstractMessageExporter p_exporter) {
         p_exporter.writeInt((int) m_chunk.getID());
+        p_exporter.writeInt(m_offset);
     }
 
     @Override
     protected final void readPayload(final AbstractMessageImporter p_importer) {
         m_storageID = p_importer.readInt(m_storageID);
+        m_offset = p_importer.readInt(m_offset);
     }
 }
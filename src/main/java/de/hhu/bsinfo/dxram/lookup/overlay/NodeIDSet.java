@@ -0,0 +1,248 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup.overlay;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Sorted set of NodeIDs (superpeers or peers of the overlay) stored in a primitive short array. The array is
+ * copied on every modification and never changed after publishing. Thus, readers can take a snapshot with
+ * toArray() and work on it without locking and without boxing. Modifications are rare (joining and failing nodes)
+ * and serialized by this class.
+ */
+public final class NodeIDSet {
+
+    private static final short[] EMPTY = new short[0];
+
+    // Attributes
+    private volatile short[] m_nodeIDs;
+
+    // Constructors
+
+    /**
+     * Creates an empty instance of NodeIDSet
+     */
+    public NodeIDSet() {
+        m_nodeIDs = EMPTY;
+    }
+
+    /**
+     * Creates an instance of NodeIDSet
+     *
+     * @param p_nodeIDs
+     *         the NodeIDs (in any order, duplicates are removed)
+     */
+    public NodeIDSet(final short[] p_nodeIDs) {
+        m_nodeIDs = sortedCopy(p_nodeIDs);
+    }
+
+    // Methods
+
+    /**
+     * Returns the number of NodeIDs
+     *
+     * @return the number of NodeIDs
+     */
+    public int size() {
+        return m_nodeIDs.length;
+    }
+
+    /**
+     * Checks if the set is empty
+     *
+     * @return true if there is no NodeID
+     */
+    public boolean isEmpty() {
+        return m_nodeIDs.length == 0;
+    }
+
+    /**
+     * Returns the NodeID at given position
+     *
+     * @param p_index
+     *         the position
+     * @return the NodeID
+     */
+    public short get(final int p_index) {
+        return m_nodeIDs[p_index];
+    }
+
+    /**
+     * Searches given NodeID
+     *
+     * @param p_nodeID
+     *         the NodeID
+     * @return the index of the NodeID or (-(insertion point) - 1) if not in set (like Collections.binarySearch)
+     */
+    public int indexOf(final short p_nodeID) {
+        return Arrays.binarySearch(m_nodeIDs, p_nodeID);
+    }
+
+    /**
+     * Checks if given NodeID is in set
+     *
+     * @param p_nodeID
+     *         the NodeID
+     * @return true if the NodeID was found
+     */
+    public boolean contains(final short p_nodeID) {
+        return Arrays.binarySearch(m_nodeIDs, p_nodeID) >= 0;
+    }
+
+    /**
+     * Returns the current NodeIDs. The returned array is shared and must not be modified
+     *
+     * @return the sorted NodeIDs
+     */
+    public short[] toArray() {
+        return m_nodeIDs;
+    }
+
+    /**
+     * Returns the current NodeIDs as a list
+     *
+     * @return a new list with the sorted NodeIDs
+     */
+    public ArrayList<Short> toArrayList() {
+        short[] nodeIDs = m_nodeIDs;
+        ArrayList<Short> ret = new ArrayList<>(nodeIDs.length);
+
+        for (short nodeID : nodeIDs) {
+            ret.add(nodeID);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Inserts a NodeID at its sorted position
+     *
+     * @param p_nodeID
+     *         the NodeID
+     * @return true if the NodeID was inserted, false if it was in set already
+     */
+    public synchronized boolean add(final short p_nodeID) {
+        short[] nodeIDs = m_nodeIDs;
+        short[] newNodeIDs;
+        int index;
+
+        index = Arrays.binarySearch(nodeIDs, p_nodeID);
+        if (index >= 0) {
+            return false;
+        }
+
+        index = index * -1 - 1;
+        newNodeIDs = new short[nodeIDs.length + 1];
+        System.arraycopy(nodeIDs, 0, newNodeIDs, 0, index);
+        newNodeIDs[index] = p_nodeID;
+        System.arraycopy(nodeIDs, index, newNodeIDs, index + 1, nodeIDs.length - index);
+        m_nodeIDs = newNodeIDs;
+
+        return true;
+    }
+
+    /**
+     * Removes a NodeID
+     *
+     * @param p_nodeID
+     *         the NodeID
+     * @return the former index of the NodeID or -1 if it was not in set
+     */
+    public synchronized int remove(final short p_nodeID) {
+        short[] nodeIDs = m_nodeIDs;
+        short[] newNodeIDs;
+        int index;
+
+        index = Arrays.binarySearch(nodeIDs, p_nodeID);
+        if (index < 0) {
+            return -1;
+        }
+
+        newNodeIDs = new short[nodeIDs.length - 1];
+        System.arraycopy(nodeIDs, 0, newNodeIDs, 0, index);
+        System.arraycopy(nodeIDs, index + 1, newNodeIDs, index, nodeIDs.length - index - 1);
+        m_nodeIDs = newNodeIDs;
+
+        return index;
+    }
+
+    /**
+     * Replaces all NodeIDs
+     *
+     * @param p_nodeIDs
+     *         the new NodeIDs (in any order, duplicates are removed)
+     */
+    public synchronized void replace(final short[] p_nodeIDs) {
+        m_nodeIDs = sortedCopy(p_nodeIDs);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(m_nodeIDs);
+    }
+
+    /**
+     * Returns the index of given NodeID or of the next NodeID in the ring (the first NodeID if there is no
+     * greater one) in given snapshot
+     *
+     * @param p_nodeIDs
+     *         the snapshot (must not be empty)
+     * @param p_nodeID
+     *         the NodeID
+     * @return the index of the NodeID or its successor
+     */
+    public static int ceilingIndex(final short[] p_nodeIDs, final short p_nodeID) {
+        int index;
+
+        index = Arrays.binarySearch(p_nodeIDs, p_nodeID);
+        if (index < 0) {
+            index = index * -1 - 1;
+            if (index == p_nodeIDs.length) {
+                index = 0;
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * Sorts and de-duplicates a copy of given NodeIDs
+     *
+     * @param p_nodeIDs
+     *         the NodeIDs
+     * @return the sorted NodeIDs
+     */
+    private static short[] sortedCopy(final short[] p_nodeIDs) {
+        short[] ret;
+        int size = 0;
+
+        if (p_nodeIDs == null || p_nodeIDs.length == 0) {
+            return EMPTY;
+        }
+
+        ret = Arrays.copyOf(p_nodeIDs, p_nodeIDs.length);
+        Arrays.sort(ret);
+        for (int i = 0; i < ret.length; i++) {
+            if (i == 0 || ret[i] != ret[size - 1]) {
+                ret[size++] = ret[i];
+            }
+        }
+
+        return size == ret.length ? ret : Arrays.copyOf(ret, size);
+    }
+}
@@ -16,8 +16,7 @@
 
 package de.hhu.bsinfo.dxram.lookup.overlay;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -130,15 +129,10 @@ public final class OverlayHelper {
      *         all superpeers
      * @lock overlay lock must be write-locked
      */
-    static void insertSuperpeer(final short p_superpeer, final ArrayList<Short> p_superpeers) {
-        int index;
-
+    static void insertSuperpeer(final short p_superpeer, final NodeIDSet p_superpeers) {
         assert p_superpeer != NodeID.INVALID_ID;
 
-        index = Collections.binarySearch(p_superpeers, p_superpeer);
-        if (index < 0) {
-            p_superpeers.add(index * -1 - 1, p_superpeer);
-        }
+        p_superpeers.add(p_superpeer);
     }
 
     /**
@@ -151,17 +145,8 @@ public final class OverlayHelper {
      * @return the index if p_superpeer was found and deleted, -1 otherwise
      * @lock overlay lock must be write-locked
      */
-    static int removeSuperpeer(final short p_superpeer, final ArrayList<Short> p_superpeers) {
-        int ret = -1;
-        int index;
-
-        index = Collections.binarySearch(p_superpeers, p_superpeer);
-        if (index >= 0) {
-            p_superpeers.remove(index);
-            ret = index;
-        }
-
-        return ret;
+    static int removeSuperpeer(final short p_superpeer, final NodeIDSet p_superpeers) {
+        return p_superpeers.remove(p_superpeer);
     }
 
     /**
@@ -173,15 +158,10 @@ public final class OverlayHelper {
      *         all peers
      * @lock overlay lock must be write-locked
      */
-    static void insertPeer(final short p_peer, final ArrayList<Short> p_peers) {
-        int index;
-
+    static void insertPeer(final short p_peer, final NodeIDSet p_peers) {
         assert p_peer != NodeID.INVALID_ID;
 
-        index = Collections.binarySearch(p_peers, p_peer);
-        if (index < 0) {
-            p_peers.add(index * -1 - 1, p_peer);
-        }
+        p_peers.add(p_peer);
     }
 
     /**
@@ -192,18 +172,9 @@ public final class OverlayHelper {
      * @param p_peers
      *         all peers
      * @return true if peer was found, false otherwise
-     * @lock overlay lock must be read-locked
      */
-    static boolean containsPeer(final short p_peer, final ArrayList<Short> p_peers) {
-        boolean ret = false;
-        int index;
-
-        index = Collections.binarySearch(p_peers, p_peer);
-        if (index >= 0) {
-            ret = true;
-        }
-
-        return ret;
+    static boolean containsPeer(final short p_peer, final NodeIDSet p_peers) {
+        return p_peers.contains(p_peer);
     }
 
     /**
@@ -216,17 +187,8 @@ public final class OverlayHelper {
      * @return true if p_peer was found and deleted, false otherwise
      * @lock overlay lock must be write-locked
      */
-    static boolean removePeer(final short p_peer, final ArrayList<Short> p_peers) {
-        boolean ret = false;
-        int index;
-
-        index = Collections.binarySearch(p_peers, p_peer);
-        if (index >= 0) {
-            p_peers.remove(index);
-            ret = true;
-        }
-
-        return ret;
+    static boolean removePeer(final short p_peer, final NodeIDSet p_peers) {
+        return p_peers.remove(p_peer) >= 0;
     }
 
     /**
@@ -242,21 +204,23 @@ public final class OverlayHelper {
      * @lock overlay lock must be read-locked
      */
     static short[] getResponsibleArea(final short p_nodeID, final short p_predecessor,
-            final ArrayList<Short> p_superpeers) {
+            final NodeIDSet p_superpeers) {
         short[] responsibleArea;
-        short size;
-        short index;
+        short[] superpeers;
+        int size;
+        int index;
 
-        size = (short) p_superpeers.size();
+        superpeers = p_superpeers.toArray();
+        size = superpeers.length;
         responsibleArea = new short[2];
         if (size > 3) {
-            index = (short) Collections.binarySearch(p_superpeers, p_predecessor);
+            index = Arrays.binarySearch(superpeers, p_predecessor);
             if (index >= 3) {
                 index -= 3;
             } else {
-                index = (short) (size - (3 - index));
+                index = size - (3 - index);
             }
-            responsibleArea[0] = p_superpeers.get(index);
+            responsibleArea[0] = superpeers[index];
             responsibleArea[1] = p_nodeID;
         } else {
             responsibleArea[0] = p_nodeID;
@@ -266,30 +230,23 @@ public final class OverlayHelper {
     }
 
     /**
-     * Determines the responsible superpeer for given NodeID
+     * Determines the responsible superpeer for given NodeID. Works on a snapshot of the superpeers, no lock needed
      *
      * @param p_nodeID
      *         NodeID from chunk whose location is searched
      * @param p_superpeers
      *         all superpeers
      * @return the responsible superpeer for given ChunkID
-     * @lock overlay lock must be read-locked
      */
-    static short getResponsibleSuperpeer(final short p_nodeID, final ArrayList<Short> p_superpeers) {
+    static short getResponsibleSuperpeer(final short p_nodeID, final NodeIDSet p_superpeers) {
         short responsibleSuperpeer = NodeID.INVALID_ID;
-        int index;
+        short[] superpeers;
 
         LOGGER.trace("Entering getResponsibleSuperpeer with: p_nodeID=0x%X", p_nodeID);
 
-        if (!p_superpeers.isEmpty()) {
-            index = Collections.binarySearch(p_superpeers, p_nodeID);
-            if (index < 0) {
-                index = index * -1 - 1;
-                if (index == p_superpeers.size()) {
-                    index = 0;
-                }
-            }
-            responsibleSuperpeer = p_superpeers.get(index);
+        superpeers = p_superpeers.toArray();
+        if (superpeers.length > 0) {
+            responsibleSuperpeer = superpeers[NodeIDSet.ceilingIndex(superpeers, p_nodeID)];
         } else {
 
             LOGGER.warn("Do not know any other superpeer");
@@ -311,34 +268,24 @@ public final class OverlayHelper {
      * @return the responsible superpeers for given NodeID
      * @lock overlay lock must be read-locked
      */
-    static short[] getResponsibleSuperpeers(final short p_nodeID, final ArrayList<Short> p_superpeers) {
+    static short[] getResponsibleSuperpeers(final short p_nodeID, final NodeIDSet p_superpeers) {
         short[] ret;
+        short[] superpeers;
         short responsibleSuperpeer;
         short[] backupSuperpeers;
-        int index;
 
-        if (p_superpeers.isEmpty()) {
+        superpeers = p_superpeers.toArray();
+        if (superpeers.length == 0) {
             return null;
         }
 
-        if (p_superpeers.size() <= 4) {
-            ret = new short[p_superpeers.size()];
-            for (int i = 0; i < ret.length; i++) {
-                ret[i] = p_superpeers.get(i);
-            }
-            return ret;
+        if (superpeers.length <= 4) {
+            return Arrays.copyOf(superpeers, superpeers.length);
         }
 
-        index = Collections.binarySearch(p_superpeers, p_nodeID);
-        if (index < 0) {
-            index = index * -1 - 1;
-            if (index == p_superpeers.size()) {
-                index = 0;
-            }
-        }
-        responsibleSuperpeer = p_superpeers.get(index);
+        responsibleSuperpeer = superpeers[NodeIDSet.ceilingIndex(superpeers, p_nodeID)];
 
-        backupSuperpeers = getBackupSuperpeers(responsibleSuperpeer, p_superpeers);
+        backupSuperpeers = getBackupSuperpeers(responsibleSuperpeer, superpeers);
         ret = new short[backupSuperpeers.length + 1];
         System.arraycopy(backupSuperpeers, 0, ret, 1, backupSuperpeers.length);
         ret[0] = responsibleSuperpeer;
@@ -356,29 +303,42 @@ public final class OverlayHelper {
      * @return the three successing superpeers
      * @lock overlay lock must be read-locked
      */
-    static short[] getBackupSuperpeers(final short p_nodeID, final ArrayList<Short> p_superpeers) {
+    static short[] getBackupSuperpeers(final short p_nodeID, final NodeIDSet p_superpeers) {
+        return getBackupSuperpeers(p_nodeID, p_superpeers.toArray());
+    }
+
+    /**
+     * Determines the backup superpeers for this superpeer
+     *
+     * @param p_nodeID
+     *         the NodeID
+     * @param p_superpeers
+     *         snapshot of all superpeers
+     * @return the three successing superpeers
+     */
+    private static short[] getBackupSuperpeers(final short p_nodeID, final short[] p_superpeers) {
         short[] superpeers;
         int size;
         int index;
 
-        if (p_superpeers.isEmpty()) {
+        if (p_superpeers.length == 0) {
             superpeers = new short[] {NodeID.INVALID_ID};
         } else {
-            size = Math.min(p_superpeers.size(), 3);
+            size = Math.min(p_superpeers.length, 3);
             superpeers = new short[size];
 
-            index = Collections.binarySearch(p_superpeers, p_nodeID);
+            index = Arrays.binarySearch(p_superpeers, p_nodeID);
             if (index < 0) {
                 index = index * -1 - 1;
             } else {
                 index++;
             }
             for (int i = 0; i < size; i++) {
-                if (index == p_superpeers.size()) {
-                    superpeers[i] = p_superpeers.get(0);
+                if (index == p_superpeers.length) {
+                    superpeers[i] = p_superpeers[0];
                     index = 1;
                 } else {
-                    superpeers[i] = p_superpeers.get(index);
+                    superpeers[i] = p_superpeers[index];
                     index++;
                 }
             }
@@ -386,28 +346,6 @@ public final class OverlayHelper {
         return superpeers;
     }
 
-    /**
-     * Determines if the given superpeer is in given superpeer list
-     *
-     * @param p_superpeer
-     *         NodeID of the superpeer
-     * @param p_superpeers
-     *         all superpeers
-     * @return true if superpeer was found, false otherwise
-     * @lock overlay lock must be read-locked
-     */
-    private static boolean containsSuperpeer(final short p_superpeer, final ArrayList<Short> p_superpeers) {
-        boolean ret = false;
-        int index;
-
-        index = Collections.binarySearch(p_superpeers, p_superpeer);
-        if (index >= 0) {
-            ret = true;
-        }
-
-        return ret;
-    }
-
     /**
      * Verifies if an id is in interval (p_firstSuperpeer, p_lastSuperpeer]
      *
@@ -17,7 +17,6 @@
 package de.hhu.bsinfo.dxram.lookup.overlay;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -29,6 +28,7 @@ import de.hhu.bsinfo.dxmem.data.ChunkID;
 import de.hhu.bsinfo.dxnet.MessageReceiver;
 import de.hhu.bsinfo.dxnet.core.Message;
 import de.hhu.bsinfo.dxnet.core.NetworkException;
+import de.hhu.bsinfo.dxnet.core.Request;
 import de.hhu.bsinfo.dxram.DXRAMMessageTypes;
 import de.hhu.bsinfo.dxram.backup.BackupRange;
 import de.hhu.bsinfo.dxram.boot.AbstractBootComponent;
@@ -36,6 +36,8 @@ import de.hhu.bsinfo.dxram.chunk.data.ChunkAnon;
 import de.hhu.bsinfo.dxram.event.EventComponent;
 import de.hhu.bsinfo.dxram.lookup.LookupRange;
 import de.hhu.bsinfo.dxram.lookup.LookupState;
+import de.hhu.bsinfo.dxram.lookup.events.LookupRangesAvailableEvent;
+import de.hhu.bsinfo.dxram.lookup.events.NameserviceCacheEntriesUpdateEvent;
 import de.hhu.bsinfo.dxram.lookup.events.NameserviceCacheEntryUpdateEvent;
 import de.hhu.bsinfo.dxram.lookup.events.NodeJoinEvent;
 import de.hhu.bsinfo.dxram.lookup.messages.AskAboutSuccessorRequest;
@@ -56,8 +58,12 @@ import de.hhu.bsinfo.dxram.lookup.messages.GetAllBackupRangesRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.GetAllBackupRangesResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.GetChunkIDForNameserviceEntryRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.GetChunkIDForNameserviceEntryResponse;
+import de.hhu.bsinfo.dxram.lookup.messages.GetChunkIDsForNameserviceEntriesRequest;
+import de.hhu.bsinfo.dxram.lookup.messages.GetChunkIDsForNameserviceEntriesResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.GetLookupRangeRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.GetLookupRangeResponse;
+import de.hhu.bsinfo.dxram.lookup.messages.GetLookupRangesRequest;
+import de.hhu.bsinfo.dxram.lookup.messages.GetLookupRangesResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.GetNameserviceEntriesRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.GetNameserviceEntriesResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.GetNameserviceEntryCountRequest;
@@ -65,6 +71,8 @@ import de.hhu.bsinfo.dxram.lookup.messages.GetNameserviceEntryCountResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.InitRangeRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.InitRangeResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.InsertNameserviceEntriesRequest;
+import de.hhu.bsinfo.dxram.lookup.messages.InsertNameserviceEntriesBatchRequest;
+import de.hhu.bsinfo.dxram.lookup.messages.InsertNameserviceEntriesBatchResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.InsertNameserviceEntriesResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.JoinRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.JoinResponse;
@@ -73,6 +81,7 @@ import de.hhu.bsinfo.dxram.lookup.messages.MigrateRangeRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.MigrateRangeResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.MigrateRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.MigrateResponse;
+import de.hhu.bsinfo.dxram.lookup.messages.LookupRangesAvailableMessage;
 import de.hhu.bsinfo.dxram.lookup.messages.NameserviceUpdatePeerCachesMessage;
 import de.hhu.bsinfo.dxram.lookup.messages.NodeJoinEventMessage;
 import de.hhu.bsinfo.dxram.lookup.messages.PingSuperpeerMessage;
@@ -116,6 +125,8 @@ public class OverlayPeer implements MessageReceiver {
     private static final Logger LOGGER = LogManager.getFormatterLogger(OverlayPeer.class.getSimpleName());
 
     private static final int MSG_TIMEOUT_MS = 100;
+    // max number of nameservice entries sent with a single batch message
+    private static final int MAX_NAMESERVICE_ENTRIES_PER_MESSAGE = 4096;
 
     // Attributes
     private AbstractBootComponent m_boot;
@@ -123,8 +134,9 @@ public class OverlayPeer implements MessageReceiver {
     private EventComponent m_event;
 
     private short m_nodeID;
-    private short m_mySuperpeer = NodeID.INVALID_ID;
-    private ArrayList<Short> m_superpeers;
+    private volatile short m_mySuperpeer = NodeID.INVALID_ID;
+    private final NodeIDSet m_superpeers = new NodeIDSet();
+    private volatile ResponsibilityTable m_responsibilityTable = new ResponsibilityTable();
     private int m_initialNumberOfSuperpeers;
     private ReentrantReadWriteLock m_overlayLock;
 
@@ -169,13 +181,7 @@ public class OverlayPeer implements MessageReceiver {
      * @return array with all superpeers
      */
     public ArrayList<Short> getAllSuperpeers() {
-        ArrayList<Short> ret;
-
-        m_overlayLock.readLock().lock();
-        ret = m_superpeers;
-        m_overlayLock.readLock().unlock();
-
-        return ret;
+        return m_superpeers.toArrayList();
     }
 
     /**
@@ -185,13 +191,11 @@ public class OverlayPeer implements MessageReceiver {
      */
     public int getNameserviceEntryCount() {
         int ret = 0;
-        Short[] superpeers;
+        short[] superpeers;
         GetNameserviceEntryCountRequest request;
         GetNameserviceEntryCountResponse response;
 
-        m_overlayLock.readLock().lock();
-        superpeers = m_superpeers.toArray(new Short[m_superpeers.size()]);
-        m_overlayLock.readLock().unlock();
+        superpeers = m_superpeers.toArray();
 
         for (short superpeer : superpeers) {
             request = new GetNameserviceEntryCountRequest(superpeer);
@@ -219,13 +223,11 @@ public class OverlayPeer implements MessageReceiver {
      */
     public ArrayList<NameserviceEntry> getNameserviceEntries() {
         ArrayList<NameserviceEntry> entries = new ArrayList<>();
-        Short[] superpeers;
+        short[] superpeers;
         GetNameserviceEntriesRequest request;
         GetNameserviceEntriesResponse response;
 
-        m_overlayLock.readLock().lock();
-        superpeers = m_superpeers.toArray(new Short[m_superpeers.size()]);
-        m_overlayLock.readLock().unlock();
+        superpeers = m_superpeers.toArray();
 
         for (short superpeer : superpeers) {
             request = new GetNameserviceEntriesRequest(superpeer);
@@ -256,34 +258,145 @@ public class OverlayPeer implements MessageReceiver {
      * @return the current location and the range borders
      */
     public LookupRange getLookupRange(final long p_chunkID) {
-        LookupRange ret = null;
+        LookupRange[] ret = getLookupRangeWithPrefetch(p_chunkID, 0);
+
+        return ret != null ? ret[0] : null;
+    }
+
+    /**
+     * Get the corresponding LookupRange for the given ChunkID and the subsequent LookupRanges of the same creator
+     *
+     * @param p_chunkID
+     *         the ChunkID
+     * @param p_prefetchCount
+     *         the number of subsequent LookupRanges to request in addition
+     * @return the current location and the range borders at index 0 followed by up to p_prefetchCount subsequent
+     * LookupRanges or null if there is no responsible superpeer
+     */
+    public LookupRange[] getLookupRangeWithPrefetch(final long p_chunkID, final int p_prefetchCount) {
+        LookupRange[] ret = null;
+        LookupRange[] prefetched;
         short nodeID;
         short responsibleSuperpeer;
-        boolean check = false;
 
         GetLookupRangeRequest request;
         GetLookupRangeResponse response;
 
-        m_overlayLock.readLock().lock();
-        if (!OverlayHelper.isOverlayStable(m_initialNumberOfSuperpeers, m_superpeers.size())) {
-            check = true;
-        }
         nodeID = ChunkID.getCreatorID(p_chunkID);
-        responsibleSuperpeer = getResponsibleSuperpeer(nodeID, check);
-        m_overlayLock.readLock().unlock();
+        responsibleSuperpeer = getResponsibleSuperpeer(nodeID, m_responsibilityTable);
 
         if (responsibleSuperpeer != NodeID.INVALID_ID) {
-            request = new GetLookupRangeRequest(responsibleSuperpeer, p_chunkID);
+            request = new GetLookupRangeRequest(responsibleSuperpeer, p_chunkID, p_prefetchCount);
             try {
                 m_network.sendSync(request);
             } catch (final NetworkException e) {
                 // Responsible superpeer is not available
-                return new LookupRange(LookupState.DATA_TEMPORARY_UNAVAILABLE);
+                return new LookupRange[] {new LookupRange(LookupState.DATA_TEMPORARY_UNAVAILABLE)};
             }
 
             response = request.getResponse(GetLookupRangeResponse.class);
 
-            ret = response.getLookupRange();
+            prefetched = response.getPrefetchedRanges();
+            ret = new LookupRange[prefetched.length + 1];
+            ret[0] = response.getLookupRange();
+            System.arraycopy(prefetched, 0, ret, 1, prefetched.length);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Get the corresponding LookupRanges for multiple ChunkIDs. Sends one request to every responsible superpeer
+     * and waits for all responses in parallel
+     *
+     * @param p_chunkIDs
+     *         the ChunkIDs
+     * @return the current locations and range borders in the order of the ChunkIDs. An entry is null if there is no
+     * responsible superpeer for the ChunkID
+     */
+    public LookupRange[] getLookupRanges(final long[] p_chunkIDs) {
+        LookupRange[] ret;
+        short[] responsibleSuperpeers;
+        boolean[] assigned;
+        ResponsibilityTable table;
+
+        ArrayList<GetLookupRangesRequest> requests;
+        ArrayList<int[]> requestIndices;
+
+        ret = new LookupRange[p_chunkIDs.length];
+        responsibleSuperpeers = new short[p_chunkIDs.length];
+
+        table = m_responsibilityTable;
+        for (int i = 0; i < p_chunkIDs.length; i++) {
+            responsibleSuperpeers[i] = getResponsibleSuperpeer(ChunkID.getCreatorID(p_chunkIDs[i]), table);
+        }
+
+        assigned = new boolean[p_chunkIDs.length];
+        requests = new ArrayList<>();
+        requestIndices = new ArrayList<>();
+
+        // one request per superpeer, do not wait for the responses to query all superpeers in parallel
+        for (int i = 0; i < p_chunkIDs.length; i++) {
+            short superpeer = responsibleSuperpeers[i];
+
+            if (assigned[i] || superpeer == NodeID.INVALID_ID) {
+                continue;
+            }
+
+            int count = 0;
+            for (int j = i; j < p_chunkIDs.length; j++) {
+                if (responsibleSuperpeers[j] == superpeer) {
+                    count++;
+                }
+            }
+
+            long[] chunkIDs = new long[count];
+            int[] indices = new int[count];
+            count = 0;
+            for (int j = i; j < p_chunkIDs.length; j++) {
+                if (responsibleSuperpeers[j] == superpeer) {
+                    chunkIDs[count] = p_chunkIDs[j];
+                    indices[count++] = j;
+                    assigned[j] = true;
+                }
+            }
+
+            GetLookupRangesRequest request = new GetLookupRangesRequest(superpeer, chunkIDs);
+            try {
+                m_network.sendSync(request, false);
+            } catch (final NetworkException e) {
+                // Responsible superpeer is not available
+                for (int index : indices) {
+                    ret[index] = new LookupRange(LookupState.DATA_TEMPORARY_UNAVAILABLE);
+                }
+
+                continue;
+            }
+
+            requests.add(request);
+            requestIndices.add(indices);
+        }
+
+        for (int i = 0; i < requests.size(); i++) {
+            GetLookupRangesRequest request = requests.get(i);
+            int[] indices = requestIndices.get(i);
+
+            try {
+                request.waitForResponse(10000);
+            } catch (final NetworkException e) {
+                m_network.cancelRequest(request);
+
+                for (int index : indices) {
+                    ret[index] = new LookupRange(LookupState.DATA_TEMPORARY_UNAVAILABLE);
+                }
+
+                continue;
+            }
+
+            LookupRange[] ranges = request.getResponse(GetLookupRangesResponse.class).getLookupRanges();
+            for (int j = 0; j < indices.length; j++) {
+                ret[indices[j]] = ranges[j];
+            }
         }
 
         return ret;
@@ -297,17 +410,12 @@ public class OverlayPeer implements MessageReceiver {
      * @return the responsible superpeer
      */
     public short getResponsibleSuperpeer(final short p_nodeID) {
-        short ret;
-
-        m_overlayLock.readLock().lock();
+        // No locking required: the responsibility table is immutable
         if (m_nodeID == p_nodeID) {
-            ret = m_mySuperpeer;
+            return m_mySuperpeer;
         } else {
-            ret = OverlayHelper.getResponsibleSuperpeer(p_nodeID, m_superpeers);
+            return m_responsibilityTable.getResponsibleSuperpeer(p_nodeID);
         }
-        m_overlayLock.readLock().unlock();
-
-        return ret;
     }
 
     /**
@@ -318,15 +426,15 @@ public class OverlayPeer implements MessageReceiver {
      */
     public void removeChunkIDs(final ArrayListLong p_chunkIDs) {
         short responsibleSuperpeer;
+        ResponsibilityTable table;
         short[] backupSuperpeers;
 
         RemoveChunkIDsRequest request;
         RemoveChunkIDsResponse response;
 
         while (true) {
-            m_overlayLock.readLock().lock();
+            table = m_responsibilityTable;
             responsibleSuperpeer = m_mySuperpeer;
-            m_overlayLock.readLock().unlock();
 
             request = new RemoveChunkIDsRequest(responsibleSuperpeer, p_chunkIDs, false);
             try {
@@ -334,10 +442,7 @@ public class OverlayPeer implements MessageReceiver {
             } catch (final NetworkException e) {
                 // Responsible superpeer is not available, try again (superpeers will be updated
                 // automatically by network thread)
-                try {
-                    Thread.sleep(MSG_TIMEOUT_MS);
-                } catch (final InterruptedException ignored) {
-                }
+                waitForOverlayUpdate(table);
                 continue;
             }
 
@@ -348,7 +453,8 @@ public class OverlayPeer implements MessageReceiver {
                 if (backupSuperpeers[0] != NodeID.INVALID_ID) {
                     // Send backups
                     for (short backupSuperpeer : backupSuperpeers) {
-                        request = new RemoveChunkIDsRequest(backupSuperpeer, p_chunkIDs, true);
+                        // Forward the version the responsible superpeer assigned to the removal
+                        request = new RemoveChunkIDsRequest(backupSuperpeer, p_chunkIDs, response.getVersion());
                         try {
                             m_network.sendSync(request);
                         } catch (final NetworkException e) {
@@ -372,19 +478,15 @@ public class OverlayPeer implements MessageReceiver {
     public void insertNameserviceEntry(final int p_id, final long p_chunkID) {
         short responsibleSuperpeer;
         short[] backupSuperpeers;
-        boolean check = false;
+        ResponsibilityTable table;
         InsertNameserviceEntriesRequest request;
         InsertNameserviceEntriesResponse response;
 
         // Insert ChunkID <-> ApplicationID mapping
         assert p_id < Math.pow(2, 31) && p_id >= 0;
 
-        m_overlayLock.readLock().lock();
-        if (!OverlayHelper.isOverlayStable(m_initialNumberOfSuperpeers, m_superpeers.size())) {
-            check = true;
-        }
-        responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(p_id), check);
-        m_overlayLock.readLock().unlock();
+        table = m_responsibilityTable;
+        responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(p_id), table);
 
         while (true) {
             if (responsibleSuperpeer != NodeID.INVALID_ID) {
@@ -394,14 +496,8 @@ public class OverlayPeer implements MessageReceiver {
                 } catch (final NetworkException e) {
                     // Responsible superpeer is not available, try again (superpeers will be updated
                     // automatically by network thread)
-                    try {
-                        Thread.sleep(MSG_TIMEOUT_MS);
-                    } catch (final InterruptedException ignored) {
-                    }
-
-                    m_overlayLock.readLock().lock();
-                    responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(p_id), check);
-                    m_overlayLock.readLock().unlock();
+                    table = waitForOverlayUpdate(table);
+                    responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(p_id), table);
 
                     continue;
                 }
@@ -425,9 +521,103 @@ public class OverlayPeer implements MessageReceiver {
                 }
             }
 
-            m_overlayLock.readLock().lock();
-            responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(p_id), check);
-            m_overlayLock.readLock().unlock();
+            table = m_responsibilityTable;
+            responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(p_id), table);
+        }
+    }
+
+    /**
+     * Insert multiple name service entries. Sends one request to every responsible superpeer and waits for all
+     * responses in parallel
+     *
+     * @param p_ids
+     *         the AIDs
+     * @param p_chunkIDs
+     *         the ChunkIDs (same order as AIDs)
+     */
+    public void insertNameserviceEntries(final int[] p_ids, final long[] p_chunkIDs) {
+        int[] pending;
+        int pendingCount;
+        ResponsibilityTable table;
+
+        pending = new int[p_ids.length];
+        for (int i = 0; i < pending.length; i++) {
+            assert p_ids[i] >= 0;
+
+            pending[i] = i;
+        }
+        pendingCount = pending.length;
+
+        table = m_responsibilityTable;
+        while (pendingCount > 0) {
+            short[] responsibleSuperpeers = new short[pendingCount];
+            for (int i = 0; i < pendingCount; i++) {
+                responsibleSuperpeers[i] = getResponsibleSuperpeer(CRC16.hash(p_ids[pending[i]]), table);
+            }
+
+            ArrayList<int[]> groups = groupBySuperpeer(responsibleSuperpeers);
+            InsertNameserviceEntriesBatchRequest[] requests = new InsertNameserviceEntriesBatchRequest[groups.size()];
+            for (int i = 0; i < requests.length; i++) {
+                int[] group = groups.get(i);
+                int[] ids = new int[group.length];
+                long[] chunkIDs = new long[group.length];
+
+                for (int j = 0; j < group.length; j++) {
+                    ids[j] = p_ids[pending[group[j]]];
+                    chunkIDs[j] = p_chunkIDs[pending[group[j]]];
+                }
+
+                requests[i] = new InsertNameserviceEntriesBatchRequest(responsibleSuperpeers[group[0]], ids, chunkIDs,
+                        false);
+            }
+
+            boolean[] answered = sendSyncParallel(requests);
+            boolean[] stored = new boolean[pendingCount];
+            for (int i = 0; i < requests.length; i++) {
+                if (!answered[i]) {
+                    continue;
+                }
+
+                short[] backupSuperpeers =
+                        requests[i].getResponse(InsertNameserviceEntriesBatchResponse.class).getBackupSuperpeers();
+                if (backupSuperpeers == null) {
+                    // Superpeer is not responsible for all entries (overlay changed) -> try again
+                    continue;
+                }
+
+                for (short backupSuperpeer : backupSuperpeers) {
+                    if (backupSuperpeer == NodeID.INVALID_ID) {
+                        break;
+                    }
+
+                    InsertNameserviceEntriesBatchRequest request =
+                            new InsertNameserviceEntriesBatchRequest(backupSuperpeer, requests[i].getIDs(),
+                                    requests[i].getChunkIDs(), true);
+                    try {
+                        m_network.sendSync(request);
+                    } catch (final NetworkException e) {
+                        // Ignore superpeer failure, own superpeer will fix this
+                    }
+                }
+
+                for (int position : groups.get(i)) {
+                    stored[position] = true;
+                }
+            }
+
+            int count = 0;
+            for (int i = 0; i < pendingCount; i++) {
+                if (!stored[i]) {
+                    pending[count++] = pending[i];
+                }
+            }
+            pendingCount = count;
+
+            if (pendingCount > 0) {
+                // Responsible superpeers are not available or changed, try again (superpeers will be updated
+                // automatically by network thread)
+                table = waitForOverlayUpdate(table);
+            }
         }
     }
 
@@ -447,16 +637,12 @@ public class OverlayPeer implements MessageReceiver {
     public long getChunkIDForNameserviceEntry(final int p_id, final int p_timeoutMs) {
         long ret = ChunkID.INVALID_ID;
         short responsibleSuperpeer;
-        boolean check = false;
+        ResponsibilityTable table;
         GetChunkIDForNameserviceEntryRequest request;
 
         // Resolve ChunkID <-> ApplicationID mapping to return corresponding ChunkID
-        m_overlayLock.readLock().lock();
-        if (!OverlayHelper.isOverlayStable(m_initialNumberOfSuperpeers, m_superpeers.size())) {
-            check = true;
-        }
-        responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(p_id), check);
-        m_overlayLock.readLock().unlock();
+        table = m_responsibilityTable;
+        responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(p_id), table);
 
         long start = System.currentTimeMillis();
         do {
@@ -467,14 +653,8 @@ public class OverlayPeer implements MessageReceiver {
                 } catch (final NetworkException e) {
                     // Responsible superpeer is not available, try again (superpeers will be updated
                     // automatically by network thread)
-                    try {
-                        Thread.sleep(MSG_TIMEOUT_MS);
-                    } catch (final InterruptedException ignored) {
-                    }
-
-                    m_overlayLock.readLock().lock();
-                    responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(p_id), check);
-                    m_overlayLock.readLock().unlock();
+                    table = waitForOverlayUpdate(table);
+                    responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(p_id), table);
 
                     continue;
                 }
@@ -486,14 +666,138 @@ public class OverlayPeer implements MessageReceiver {
                 }
             }
 
-            m_overlayLock.readLock().lock();
-            responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(p_id), check);
-            m_overlayLock.readLock().unlock();
+            table = m_responsibilityTable;
+            responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(p_id), table);
         } while (p_timeoutMs == -1 || System.currentTimeMillis() - start < p_timeoutMs);
 
         return ret;
     }
 
+    /**
+     * Get ChunkIDs for multiple nameservice ids. Sends one request to every responsible superpeer and waits for all
+     * responses in parallel
+     *
+     * @param p_ids
+     *         the nameservice ids
+     * @param p_timeoutMs
+     *         Timeout for trying to get the entries (if they do not exist, yet).
+     *         set this to -1 for infinite loop if you know for sure, that the entries have to exist
+     * @return the corresponding ChunkIDs in the order of the ids (-1 if not found)
+     */
+    public long[] getChunkIDsForNameserviceEntries(final int[] p_ids, final int p_timeoutMs) {
+        long[] ret;
+        int[] pending;
+        int pendingCount;
+        ResponsibilityTable table;
+
+        ret = new long[p_ids.length];
+        pending = new int[p_ids.length];
+        for (int i = 0; i < pending.length; i++) {
+            ret[i] = ChunkID.INVALID_ID;
+            pending[i] = i;
+        }
+        pendingCount = pending.length;
+
+        table = m_responsibilityTable;
+        long start = System.currentTimeMillis();
+        while (pendingCount > 0) {
+            short[] responsibleSuperpeers = new short[pendingCount];
+            for (int i = 0; i < pendingCount; i++) {
+                responsibleSuperpeers[i] = getResponsibleSuperpeer(CRC16.hash(p_ids[pending[i]]), table);
+            }
+
+            ArrayList<int[]> groups = groupBySuperpeer(responsibleSuperpeers);
+            GetChunkIDsForNameserviceEntriesRequest[] requests =
+                    new GetChunkIDsForNameserviceEntriesRequest[groups.size()];
+            for (int i = 0; i < requests.length; i++) {
+                int[] group = groups.get(i);
+                int[] ids = new int[group.length];
+
+                for (int j = 0; j < group.length; j++) {
+                    ids[j] = p_ids[pending[group[j]]];
+                }
+
+                requests[i] = new GetChunkIDsForNameserviceEntriesRequest(responsibleSuperpeers[group[0]], ids);
+            }
+
+            boolean[] answered = sendSyncParallel(requests);
+            for (int i = 0; i < requests.length; i++) {
+                if (answered[i]) {
+                    int[] group = groups.get(i);
+                    long[] chunkIDs = requests[i].getResponse(GetChunkIDsForNameserviceEntriesResponse.class)
+                            .getChunkIDs();
+
+                    for (int j = 0; j < group.length; j++) {
+                        ret[pending[group[j]]] = chunkIDs[j];
+                    }
+                }
+            }
+
+            int count = 0;
+            for (int i = 0; i < pendingCount; i++) {
+                if (ret[pending[i]] == ChunkID.INVALID_ID) {
+                    pending[count++] = pending[i];
+                }
+            }
+            pendingCount = count;
+
+            if (pendingCount == 0 || p_timeoutMs != -1 && System.currentTimeMillis() - start >= p_timeoutMs) {
+                break;
+            }
+
+            // Entries do not exist, yet, or responsible superpeers are not available
+            table = waitForOverlayUpdate(table);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Groups positions by responsible superpeer. Groups are split to not exceed the max number of nameservice
+     * entries per message
+     *
+     * @param p_responsibleSuperpeers
+     *         the responsible superpeer for every position
+     * @return one or more arrays of positions per superpeer (positions without responsible superpeer are omitted)
+     */
+    private static ArrayList<int[]> groupBySuperpeer(final short[] p_responsibleSuperpeers) {
+        ArrayList<int[]> ret = new ArrayList<>();
+        boolean[] assigned = new boolean[p_responsibleSuperpeers.length];
+
+        for (int i = 0; i < p_responsibleSuperpeers.length; i++) {
+            short superpeer = p_responsibleSuperpeers[i];
+
+            if (assigned[i] || superpeer == NodeID.INVALID_ID) {
+                continue;
+            }
+
+            int count = 0;
+            for (int j = i; j < p_responsibleSuperpeers.length; j++) {
+                if (p_responsibleSuperpeers[j] == superpeer) {
+                    count++;
+                }
+            }
+
+            int[] positions = new int[Math.min(count, MAX_NAMESERVICE_ENTRIES_PER_MESSAGE)];
+            int size = 0;
+            for (int j = i; j < p_responsibleSuperpeers.length; j++) {
+                if (p_responsibleSuperpeers[j] == superpeer) {
+                    positions[size++] = j;
+                    assigned[j] = true;
+                    count--;
+
+                    if (size == positions.length) {
+                        ret.add(positions);
+                        positions = new int[Math.min(count, MAX_NAMESERVICE_ENTRIES_PER_MESSAGE)];
+                        size = 0;
+                    }
+                }
+            }
+        }
+
+        return ret;
+    }
+
     /**
      * Store migration of given ChunkID to a new location
      *
@@ -504,14 +808,14 @@ public class OverlayPeer implements MessageReceiver {
      */
     public void migrate(final long p_chunkID, final short p_nodeID) {
         short responsibleSuperpeer;
+        ResponsibilityTable table;
         boolean finished = false;
 
         MigrateRequest request;
 
         while (!finished) {
-            m_overlayLock.readLock().lock();
+            table = m_responsibilityTable;
             responsibleSuperpeer = m_mySuperpeer;
-            m_overlayLock.readLock().unlock();
 
             request = new MigrateRequest(responsibleSuperpeer, p_chunkID, p_nodeID, false);
             try {
@@ -519,10 +823,7 @@ public class OverlayPeer implements MessageReceiver {
             } catch (final NetworkException e) {
                 // Responsible superpeer is not available, try again (superpeers will be updated
                 // automatically by network thread)
-                try {
-                    Thread.sleep(MSG_TIMEOUT_MS);
-                } catch (final InterruptedException ignored) {
-                }
+                waitForOverlayUpdate(table);
                 continue;
             }
 
@@ -545,6 +846,7 @@ public class OverlayPeer implements MessageReceiver {
     public void migrateRange(final long p_startCID, final long p_endCID, final short p_nodeID) {
         short creator;
         short responsibleSuperpeer;
+        ResponsibilityTable table;
         boolean finished = false;
 
         MigrateRangeRequest request;
@@ -556,9 +858,8 @@ public class OverlayPeer implements MessageReceiver {
 
         } else {
             while (!finished) {
-                m_overlayLock.readLock().lock();
+                table = m_responsibilityTable;
                 responsibleSuperpeer = m_mySuperpeer;
-                m_overlayLock.readLock().unlock();
 
                 request = new MigrateRangeRequest(responsibleSuperpeer, p_startCID, p_endCID, p_nodeID, false);
                 try {
@@ -566,10 +867,7 @@ public class OverlayPeer implements MessageReceiver {
                 } catch (final NetworkException e) {
                     // Responsible superpeer is not available, try again (superpeers will be updated
                     // automatically by network thread)
-                    try {
-                        Thread.sleep(MSG_TIMEOUT_MS);
-                    } catch (final InterruptedException ignored) {
-                    }
+                    waitForOverlayUpdate(table);
                     continue;
                 }
 
@@ -586,14 +884,14 @@ public class OverlayPeer implements MessageReceiver {
      */
     public void initRange(final BackupRange p_backupRange) {
         short responsibleSuperpeer;
+        ResponsibilityTable table;
         boolean finished = false;
 
         InitRangeRequest request;
 
         while (!finished) {
-            m_overlayLock.readLock().lock();
+            table = m_responsibilityTable;
             responsibleSuperpeer = m_mySuperpeer;
-            m_overlayLock.readLock().unlock();
 
             request = new InitRangeRequest(responsibleSuperpeer, m_nodeID, p_backupRange, false);
             try {
@@ -601,10 +899,7 @@ public class OverlayPeer implements MessageReceiver {
             } catch (final NetworkException e) {
                 // Responsible superpeer is not available, try again (superpeers will be updated
                 // automatically by network thread)
-                try {
-                    Thread.sleep(MSG_TIMEOUT_MS);
-                } catch (final InterruptedException ignored) {
-                }
+                waitForOverlayUpdate(table);
                 continue;
             }
 
@@ -625,16 +920,13 @@ public class OverlayPeer implements MessageReceiver {
         BackupRange[] ret = null;
         short responsibleSuperpeer;
         boolean check = false;
+        ResponsibilityTable table;
 
         GetAllBackupRangesRequest request;
         GetAllBackupRangesResponse response;
 
-        m_overlayLock.readLock().lock();
-        if (!OverlayHelper.isOverlayStable(m_initialNumberOfSuperpeers, m_superpeers.size())) {
-            check = true;
-        }
-        responsibleSuperpeer = getResponsibleSuperpeer(p_nodeID, check);
-        m_overlayLock.readLock().unlock();
+        table = m_responsibilityTable;
+        responsibleSuperpeer = getResponsibleSuperpeer(p_nodeID, table);
 
         while (ret == null) {
             if (responsibleSuperpeer != NodeID.INVALID_ID) {
@@ -656,9 +948,14 @@ public class OverlayPeer implements MessageReceiver {
                 ret = response.getBackupRanges();
             }
 
-            m_overlayLock.readLock().lock();
-            responsibleSuperpeer = getResponsibleSuperpeer(p_nodeID, check);
-            m_overlayLock.readLock().unlock();
+            if (check) {
+                m_overlayLock.readLock().lock();
+                responsibleSuperpeer = getResponsibleSuperpeer(p_nodeID, true);
+                m_overlayLock.readLock().unlock();
+            } else {
+                table = m_responsibilityTable;
+                responsibleSuperpeer = getResponsibleSuperpeer(p_nodeID, table);
+            }
         }
 
         return ret;
@@ -935,15 +1232,11 @@ public class OverlayPeer implements MessageReceiver {
     public boolean superpeerStorageCreate(final int p_storageId, final int p_size) {
         assert p_storageId < Math.pow(2, 31) && p_storageId >= 0;
 
-        boolean check = false;
+        ResponsibilityTable table;
         short responsibleSuperpeer;
 
-        m_overlayLock.readLock().lock();
-        if (!OverlayHelper.isOverlayStable(m_initialNumberOfSuperpeers, m_superpeers.size())) {
-            check = true;
-        }
-        responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(p_storageId), check);
-        m_overlayLock.readLock().unlock();
+        table = m_responsibilityTable;
+        responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(p_storageId), table);
 
         while (true) {
             if (responsibleSuperpeer != NodeID.INVALID_ID) {
@@ -954,14 +1247,8 @@ public class OverlayPeer implements MessageReceiver {
                 } catch (final NetworkException e) {
                     // Responsible superpeer is not available, try again (superpeers will be updated
                     // automatically by network thread)
-                    try {
-                        Thread.sleep(MSG_TIMEOUT_MS);
-                    } catch (final InterruptedException ignored) {
-                    }
-
-                    m_overlayLock.readLock().lock();
-                    responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(p_storageId), check);
-                    m_overlayLock.readLock().unlock();
+                    table = waitForOverlayUpdate(table);
+                    responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(p_storageId), table);
 
                     continue;
                 }
@@ -978,9 +1265,8 @@ public class OverlayPeer implements MessageReceiver {
                 }
             }
 
-            m_overlayLock.readLock().lock();
-            responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(p_storageId), check);
-            m_overlayLock.readLock().unlock();
+            table = m_responsibilityTable;
+            responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(p_storageId), table);
         }
     }
 
@@ -1001,15 +1287,11 @@ public class OverlayPeer implements MessageReceiver {
 
         int storageId = (int) (p_chunk.getID() & 0x7FFFFFFF);
 
-        boolean check = false;
+        ResponsibilityTable table;
         short responsibleSuperpeer;
 
-        m_overlayLock.readLock().lock();
-        if (!OverlayHelper.isOverlayStable(m_initialNumberOfSuperpeers, m_superpeers.size())) {
-            check = true;
-        }
-        responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(storageId), check);
-        m_overlayLock.readLock().unlock();
+        table = m_responsibilityTable;
+        responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(storageId), table);
 
         while (true) {
             if (responsibleSuperpeer != NodeID.INVALID_ID) {
@@ -1020,14 +1302,8 @@ public class OverlayPeer implements MessageReceiver {
                 } catch (final NetworkException e) {
                     // Responsible superpeer is not available, try again (superpeers will be updated
                     // automatically by network thread)
-                    try {
-                        Thread.sleep(MSG_TIMEOUT_MS);
-                    } catch (final InterruptedException ignored) {
-                    }
-
-                    m_overlayLock.readLock().lock();
-                    responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(storageId), check);
-                    m_overlayLock.readLock().unlock();
+                    table = waitForOverlayUpdate(table);
+                    responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(storageId), table);
 
                     continue;
                 }
@@ -1036,9 +1312,8 @@ public class OverlayPeer implements MessageReceiver {
                 return response.getStatus() == 0;
             }
 
-            m_overlayLock.readLock().lock();
-            responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(storageId), check);
-            m_overlayLock.readLock().unlock();
+            table = m_responsibilityTable;
+            responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(storageId), table);
         }
     }
 
@@ -1057,17 +1332,14 @@ public class OverlayPeer implements MessageReceiver {
             return false;
         }
 
-        int storageId = (int) (p_chunk.getID() & 0x7FFFFFFF);
+        // Superpeers use the lower 32 bits as storage id (stripes are stored with negative ids)
+        int storageId = (int) p_chunk.getID();
 
-        boolean check = false;
+        ResponsibilityTable table;
         short responsibleSuperpeer;
 
-        m_overlayLock.readLock().lock();
-        if (!OverlayHelper.isOverlayStable(m_initialNumberOfSuperpeers, m_superpeers.size())) {
-            check = true;
-        }
-        responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(storageId), check);
-        m_overlayLock.readLock().unlock();
+        table = m_responsibilityTable;
+        responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(storageId), table);
 
         while (true) {
             if (responsibleSuperpeer != NodeID.INVALID_ID) {
@@ -1078,14 +1350,8 @@ public class OverlayPeer implements MessageReceiver {
                 } catch (final NetworkException e) {
                     // Responsible superpeer is not available, try again (superpeers will be updated
                     // automatically by network thread)
-                    try {
-                        Thread.sleep(MSG_TIMEOUT_MS);
-                    } catch (final InterruptedException ignored) {
-                    }
-
-                    m_overlayLock.readLock().lock();
-                    responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(storageId), check);
-                    m_overlayLock.readLock().unlock();
+                    table = waitForOverlayUpdate(table);
+                    responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(storageId), table);
 
                     continue;
                 }
@@ -1094,9 +1360,8 @@ public class OverlayPeer implements MessageReceiver {
                 return response.getStatus() == 0;
             }
 
-            m_overlayLock.readLock().lock();
-            responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(storageId), check);
-            m_overlayLock.readLock().unlock();
+            table = m_responsibilityTable;
+            responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(storageId), table);
         }
     }
 
@@ -1117,15 +1382,11 @@ public class OverlayPeer implements MessageReceiver {
 
         int storageId = (int) (p_chunk.getID() & 0x7FFFFFFF);
 
-        boolean check = false;
+        ResponsibilityTable table;
         short responsibleSuperpeer;
 
-        m_overlayLock.readLock().lock();
-        if (!OverlayHelper.isOverlayStable(m_initialNumberOfSuperpeers, m_superpeers.size())) {
-            check = true;
-        }
-        responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(storageId), check);
-        m_overlayLock.readLock().unlock();
+        table = m_responsibilityTable;
+        responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(storageId), table);
 
         while (true) {
             if (responsibleSuperpeer != NodeID.INVALID_ID) {
@@ -1135,14 +1396,8 @@ public class OverlayPeer implements MessageReceiver {
                 } catch (final NetworkException e) {
                     // Responsible superpeer is not available, try again (superpeers will be updated
                     // automatically by network thread)
-                    try {
-                        Thread.sleep(MSG_TIMEOUT_MS);
-                    } catch (final InterruptedException ignored) {
-                    }
-
-                    m_overlayLock.readLock().lock();
-                    responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(storageId), check);
-                    m_overlayLock.readLock().unlock();
+                    table = waitForOverlayUpdate(table);
+                    responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(storageId), table);
 
                     continue;
                 }
@@ -1151,9 +1406,8 @@ public class OverlayPeer implements MessageReceiver {
                 return response.getStatus() == 0;
             }
 
-            m_overlayLock.readLock().lock();
-            responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(storageId), check);
-            m_overlayLock.readLock().unlock();
+            table = m_responsibilityTable;
+            responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(storageId), table);
         }
     }
 
@@ -1165,6 +1419,19 @@ public class OverlayPeer implements MessageReceiver {
      * @return True if successful, false otherwise.
      */
     public boolean superpeerStorageGetAnon(final ChunkAnon p_chunk) {
+        return superpeerStorageGetAnon(p_chunk, 0);
+    }
+
+    /**
+     * Get the data of an allocated block in the superpeer storage starting at an offset.
+     *
+     * @param p_chunk
+     *         Reference to an instance of an anonymous chunk
+     * @param p_offset
+     *         Offset within the block to start reading at
+     * @return True if successful, false otherwise (also if the offset is larger than the block).
+     */
+    public boolean superpeerStorageGetAnon(final ChunkAnon p_chunk, final int p_offset) {
         if (p_chunk.getID() > 0x7FFFFFFF && p_chunk.getID() < 0) {
 
             LOGGER.error("Cannot get data structure from superpeer storage, invalid id 0x%X", p_chunk.getID());
@@ -1172,35 +1439,26 @@ public class OverlayPeer implements MessageReceiver {
             return false;
         }
 
-        int storageId = (int) (p_chunk.getID() & 0x7FFFFFFF);
+        // Superpeers use the lower 32 bits as storage id (stripes are stored with negative ids)
+        int storageId = (int) p_chunk.getID();
 
-        boolean check = false;
+        ResponsibilityTable table;
         short responsibleSuperpeer;
 
-        m_overlayLock.readLock().lock();
-        if (!OverlayHelper.isOverlayStable(m_initialNumberOfSuperpeers, m_superpeers.size())) {
-            check = true;
-        }
-        responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(storageId), check);
-        m_overlayLock.readLock().unlock();
+        table = m_responsibilityTable;
+        responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(storageId), table);
 
         while (true) {
             if (responsibleSuperpeer != NodeID.INVALID_ID) {
                 SuperpeerStorageGetAnonRequest request =
-                        new SuperpeerStorageGetAnonRequest(responsibleSuperpeer, p_chunk);
+                        new SuperpeerStorageGetAnonRequest(responsibleSuperpeer, p_chunk, p_offset);
                 try {
                     m_network.sendSync(request);
                 } catch (final NetworkException e) {
                     // Responsible superpeer is not available, try again (superpeers will be updated
                     // automatically by network thread)
-                    try {
-                        Thread.sleep(MSG_TIMEOUT_MS);
-                    } catch (final InterruptedException ignored) {
-                    }
-
-                    m_overlayLock.readLock().lock();
-                    responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(storageId), check);
-                    m_overlayLock.readLock().unlock();
+                    table = waitForOverlayUpdate(table);
+                    responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(storageId), table);
 
                     continue;
                 }
@@ -1209,9 +1467,8 @@ public class OverlayPeer implements MessageReceiver {
                 return response.getStatus() == 0;
             }
 
-            m_overlayLock.readLock().lock();
-            responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(storageId), check);
-            m_overlayLock.readLock().unlock();
+            table = m_responsibilityTable;
+            responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(storageId), table);
         }
     }
 
@@ -1222,15 +1479,11 @@ public class OverlayPeer implements MessageReceiver {
      *         Id of the allocated block to remove.
      */
     public void superpeerStorageRemove(final int p_superpeerStorageId) {
-        boolean check = false;
+        ResponsibilityTable table;
         short responsibleSuperpeer;
 
-        m_overlayLock.readLock().lock();
-        if (!OverlayHelper.isOverlayStable(m_initialNumberOfSuperpeers, m_superpeers.size())) {
-            check = true;
-        }
-        responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(p_superpeerStorageId), check);
-        m_overlayLock.readLock().unlock();
+        table = m_responsibilityTable;
+        responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(p_superpeerStorageId), table);
 
         while (true) {
             if (responsibleSuperpeer != NodeID.INVALID_ID) {
@@ -1241,14 +1494,8 @@ public class OverlayPeer implements MessageReceiver {
                 } catch (final NetworkException e) {
                     // Responsible superpeer is not available, try again (superpeers will be updated
                     // automatically by network thread)
-                    try {
-                        Thread.sleep(MSG_TIMEOUT_MS);
-                    } catch (final InterruptedException ignored) {
-                    }
-
-                    m_overlayLock.readLock().lock();
-                    responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(p_superpeerStorageId), check);
-                    m_overlayLock.readLock().unlock();
+                    table = waitForOverlayUpdate(table);
+                    responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(p_superpeerStorageId), table);
 
                     continue;
                 }
@@ -1256,23 +1503,133 @@ public class OverlayPeer implements MessageReceiver {
                 return;
             }
 
-            m_overlayLock.readLock().lock();
-            responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(p_superpeerStorageId), check);
-            m_overlayLock.readLock().unlock();
+            table = m_responsibilityTable;
+            responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(p_superpeerStorageId), table);
         }
     }
 
+    /**
+     * Create multiple blocks of memory in the superpeer storage. The requests are sent to all responsible superpeers
+     * in parallel.
+     *
+     * @param p_storageIds
+     *         Storage ids to assign to the newly created blocks.
+     * @param p_sizes
+     *         Sizes of the blocks to create
+     * @return For every block, true if it was created by this call, false if creating it failed (e.g. id in use).
+     */
+    public boolean[] superpeerStorageCreate(final int[] p_storageIds, final int[] p_sizes) {
+        SuperpeerStorageCreateRequest[] requests = new SuperpeerStorageCreateRequest[p_storageIds.length];
+        ResponsibilityTable table = m_responsibilityTable;
+        boolean[] ret = new boolean[p_storageIds.length];
+
+        for (int i = 0; i < requests.length; i++) {
+            short responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(p_storageIds[i]), table);
+            if (responsibleSuperpeer != NodeID.INVALID_ID) {
+                requests[i] =
+                        new SuperpeerStorageCreateRequest(responsibleSuperpeer, p_storageIds[i], p_sizes[i], false);
+            }
+        }
+
+        boolean[] answered = sendSyncParallel(requests);
+        for (int i = 0; i < requests.length; i++) {
+            if (requests[i] == null) {
+                // Responsible superpeer is not available, try again with overlay updates
+                ret[i] = superpeerStorageCreate(p_storageIds[i], p_sizes[i]);
+            } else if (!answered[i] ||
+                    requests[i].getResponse(SuperpeerStorageCreateResponse.class).getStatus() != 0) {
+
+                LOGGER.error("Allocating temporary storage on superpeer 0x%X for 0x%X, size %d failed",
+                        requests[i].getDestination(), p_storageIds[i], p_sizes[i]);
+
+            } else {
+                ret[i] = true;
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Put data of multiple anonymous chunks into allocated blocks in the superpeer storage. The requests are sent to
+     * all responsible superpeers in parallel.
+     *
+     * @param p_chunks
+     *         Chunks with data to put.
+     * @return True if all puts were successful, false otherwise.
+     */
+    public boolean superpeerStoragePutAnon(final ChunkAnon[] p_chunks) {
+        SuperpeerStoragePutAnonRequest[] requests = new SuperpeerStoragePutAnonRequest[p_chunks.length];
+        ResponsibilityTable table = m_responsibilityTable;
+        boolean ret = true;
+
+        for (int i = 0; i < requests.length; i++) {
+            short responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash((int) p_chunks[i].getID()), table);
+            if (responsibleSuperpeer != NodeID.INVALID_ID) {
+                requests[i] = new SuperpeerStoragePutAnonRequest(responsibleSuperpeer, p_chunks[i], false);
+            }
+        }
+
+        boolean[] answered = sendSyncParallel(requests);
+        for (int i = 0; i < requests.length; i++) {
+            if (requests[i] == null) {
+                // Responsible superpeer is not available, try again with overlay updates
+                ret &= superpeerStoragePutAnon(p_chunks[i]);
+            } else if (!answered[i] ||
+                    requests[i].getResponse(SuperpeerStoragePutAnonResponse.class).getStatus() != 0) {
+                ret = false;
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Get data of multiple allocated blocks in the superpeer storage. The requests are sent to all responsible
+     * superpeers in parallel.
+     *
+     * @param p_chunks
+     *         Anonymous chunks with the storage ids assigned to read the data into.
+     * @return True if all gets were successful, false otherwise.
+     */
+    public boolean superpeerStorageGetAnon(final ChunkAnon[] p_chunks) {
+        SuperpeerStorageGetAnonRequest[] requests = new SuperpeerStorageGetAnonRequest[p_chunks.length];
+        ResponsibilityTable table = m_responsibilityTable;
+        boolean ret = true;
+
+        for (int i = 0; i < requests.length; i++) {
+            short responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash((int) p_chunks[i].getID()), table);
+            if (responsibleSuperpeer != NodeID.INVALID_ID) {
+                requests[i] = new SuperpeerStorageGetAnonRequest(responsibleSuperpeer, p_chunks[i]);
+            }
+        }
+
+        boolean[] answered = sendSyncParallel(requests);
+        for (int i = 0; i < requests.length; i++) {
+            if (requests[i] == null) {
+                // Responsible superpeer is not available, try again with overlay updates
+                ret &= superpeerStorageGetAnon(p_chunks[i]);
+            } else if (!answered[i] ||
+                    requests[i].getResponse(SuperpeerStorageGetAnonResponse.class).getStatus() != 0) {
+                ret = false;
+            }
+        }
+
+        return ret;
+    }
+
     /**
      * Get the status of the superpeer storage.
      *
      * @return Status of the superpeer storage.
      */
     public SuperpeerStorage.Status superpeerStorageGetStatus() {
-        SuperpeerStorage.Status[] statusArray = new SuperpeerStorage.Status[m_superpeers.size()];
+        short[] superpeers = m_superpeers.toArray();
+        SuperpeerStorage.Status[] statusArray = new SuperpeerStorage.Status[superpeers.length];
 
         m_overlayLock.readLock().lock();
-        for (int i = 0; i < m_superpeers.size(); i++) {
-            short superpeer = m_superpeers.get(i);
+        for (int i = 0; i < superpeers.length; i++) {
+            short superpeer = superpeers[i];
             m_overlayLock.readLock().unlock();
 
             SuperpeerStorageStatusRequest request = new SuperpeerStorageStatusRequest(superpeer);
@@ -1309,6 +1666,40 @@ public class OverlayPeer implements MessageReceiver {
                 aggregatedStatus);
     }
 
+    /**
+     * Sends all given requests without waiting and waits for the responses afterwards
+     *
+     * @param p_requests
+     *         the requests (null entries are skipped); requests that could not be sent are set to null
+     * @return for every request whether a response was received
+     */
+    private boolean[] sendSyncParallel(final Request[] p_requests) {
+        boolean[] ret = new boolean[p_requests.length];
+
+        for (int i = 0; i < p_requests.length; i++) {
+            if (p_requests[i] != null) {
+                try {
+                    m_network.sendSync(p_requests[i], false);
+                } catch (final NetworkException e) {
+                    p_requests[i] = null;
+                }
+            }
+        }
+
+        for (int i = 0; i < p_requests.length; i++) {
+            if (p_requests[i] != null) {
+                try {
+                    p_requests[i].waitForResponse(10000);
+                    ret[i] = true;
+                } catch (final NetworkException e) {
+                    m_network.cancelRequest(p_requests[i]);
+                }
+            }
+        }
+
+        return ret;
+    }
+
     /**
      * Replaces the backup peer for given range on responsible superpeer
      *
@@ -1358,6 +1749,9 @@ public class OverlayPeer implements MessageReceiver {
                     case LookupMessages.SUBTYPE_NODE_JOIN_EVENT_REQUEST:
                         incomingNodeJoinEventRequest((NodeJoinEventMessage) p_message);
                         break;
+                    case LookupMessages.SUBTYPE_LOOKUP_RANGES_AVAILABLE_MESSAGE:
+                        incomingLookupRangesAvailableMessage((LookupRangesAvailableMessage) p_message);
+                        break;
                     default:
                         break;
                 }
@@ -1432,15 +1826,72 @@ public class OverlayPeer implements MessageReceiver {
             contactSuperpeer = joinResponse.getNewContactSuperpeer();
         }
         assert joinResponse != null;
-        m_superpeers = joinResponse.getSuperpeers();
+        m_overlayLock.writeLock().lock();
+        m_superpeers.replace(joinResponse.getSuperpeers());
         m_mySuperpeer = joinResponse.getSource();
         OverlayHelper.insertSuperpeer(m_mySuperpeer, m_superpeers);
+        updateResponsibilityTable();
+        m_overlayLock.writeLock().unlock();
 
         LOGGER.trace("Exiting joinSuperpeerOverlay");
 
         return true;
     }
 
+    /**
+     * Determines the responsible superpeer for given NodeID. Uses given responsibility table without locking if the
+     * superpeer overlay is complete, checks the responsible superpeer otherwise
+     *
+     * @param p_nodeID
+     *         NodeID from chunk whose location is searched
+     * @param p_table
+     *         the current responsibility table
+     * @return the responsible superpeer for given ChunkID
+     */
+    private short getResponsibleSuperpeer(final short p_nodeID, final ResponsibilityTable p_table) {
+        short ret;
+
+        if (p_table.isStable()) {
+            return p_table.getResponsibleSuperpeer(p_nodeID);
+        }
+
+        m_overlayLock.readLock().lock();
+        ret = getResponsibleSuperpeer(p_nodeID, true);
+        m_overlayLock.readLock().unlock();
+
+        return ret;
+    }
+
+    /**
+     * Waits for an overlay update after a superpeer did not respond. Returns immediately if the responsibility
+     * table has been replaced since given table was used to send the request (superpeers are updated automatically
+     * by network thread)
+     *
+     * @param p_table
+     *         the responsibility table used to send the failed request
+     * @return the current responsibility table
+     */
+    private ResponsibilityTable waitForOverlayUpdate(final ResponsibilityTable p_table) {
+        if (m_responsibilityTable.getVersion() == p_table.getVersion()) {
+            try {
+                Thread.sleep(MSG_TIMEOUT_MS);
+            } catch (final InterruptedException ignored) {
+            }
+        }
+
+        return m_responsibilityTable;
+    }
+
+    /**
+     * Replaces the responsibility table after the superpeer overlay changed
+     *
+     * @lock overlay lock must be write-locked
+     */
+    private void updateResponsibilityTable() {
+        m_responsibilityTable = new ResponsibilityTable(m_responsibilityTable.getVersion() + 1,
+                m_superpeers.toArray(), m_initialNumberOfSuperpeers);
+    }
+
     /**
      * Determines the responsible superpeer for given NodeID
      *
@@ -1456,28 +1907,24 @@ public class OverlayPeer implements MessageReceiver {
         short predecessor;
         short hisSuccessor;
         int index;
+        short[] superpeers;
         AskAboutSuccessorRequest request;
         AskAboutSuccessorResponse response;
 
         LOGGER.trace("Entering getResponsibleSuperpeer with: p_nodeID=0x%X", p_nodeID);
 
-        if (!m_superpeers.isEmpty()) {
-            index = Collections.binarySearch(m_superpeers, p_nodeID);
-            if (index < 0) {
-                index = index * -1 - 1;
-                if (index == m_superpeers.size()) {
-                    index = 0;
-                }
-            }
-            responsibleSuperpeer = m_superpeers.get(index);
+        superpeers = m_superpeers.toArray();
+        if (superpeers.length > 0) {
+            index = NodeIDSet.ceilingIndex(superpeers, p_nodeID);
+            responsibleSuperpeer = superpeers[index];
 
-            if (p_check && m_superpeers.size() > 1) {
+            if (p_check && superpeers.length > 1) {
                 if (index == 0) {
-                    index = m_superpeers.size() - 1;
+                    index = superpeers.length - 1;
                 } else {
                     index--;
                 }
-                predecessor = m_superpeers.get(index);
+                predecessor = superpeers[index];
 
                 while (true) {
                     m_overlayLock.readLock().unlock();
@@ -1529,7 +1976,7 @@ public class OverlayPeer implements MessageReceiver {
         LOGGER.trace("Got Message: SEND_SUPERPEERS_MESSAGE from 0x%X", source);
 
         m_overlayLock.writeLock().lock();
-        m_superpeers = p_sendSuperpeersMessage.getSuperpeers();
+        m_superpeers.replace(p_sendSuperpeersMessage.getSuperpeers());
         OverlayHelper.insertSuperpeer(source, m_superpeers);
 
         if (m_mySuperpeer != source) {
@@ -1537,6 +1984,7 @@ public class OverlayPeer implements MessageReceiver {
                 m_mySuperpeer = source;
             }
         }
+        updateResponsibilityTable();
         m_overlayLock.writeLock().unlock();
     }
 
@@ -1547,8 +1995,14 @@ public class OverlayPeer implements MessageReceiver {
      *         the NameserviceUpdatePeerCachesMessage
      */
     private void incomingNameserviceUpdatePeerCachesMessage(final NameserviceUpdatePeerCachesMessage p_message) {
-        m_event.fireEvent(new NameserviceCacheEntryUpdateEvent(getClass().getSimpleName(), p_message.getID(),
-                p_message.getChunkID()));
+        int[] ids = p_message.getIDs();
+        long[] chunkIDs = p_message.getChunkIDs();
+
+        if (ids.length == 1) {
+            m_event.fireEvent(new NameserviceCacheEntryUpdateEvent(getClass().getSimpleName(), ids[0], chunkIDs[0]));
+        } else {
+            m_event.fireEvent(new NameserviceCacheEntriesUpdateEvent(getClass().getSimpleName(), ids, chunkIDs));
+        }
     }
 
     /**
@@ -1567,6 +2021,20 @@ public class OverlayPeer implements MessageReceiver {
                 p_nodeJoinEventMessage.isAvailableForBackup(), p_nodeJoinEventMessage.getAddress()));
     }
 
+    /**
+     * Handles an incoming LookupRangesAvailableMessage
+     *
+     * @param p_message
+     *         the LookupRangesAvailableMessage
+     */
+    private void incomingLookupRangesAvailableMessage(final LookupRangesAvailableMessage p_message) {
+        LOGGER.trace("Got Message: LOOKUP_RANGES_AVAILABLE_MESSAGE from 0x%X, creator 0x%X", p_message.getSource(),
+                p_message.getCreator());
+
+        // Wake up all operations waiting for a temporarily unavailable range
+        m_event.fireEvent(new LookupRangesAvailableEvent(getClass().getSimpleName(), p_message.getCreator()));
+    }
+
     // -----------------------------------------------------------------------------------
 
     /**
@@ -1583,6 +2051,22 @@ public class OverlayPeer implements MessageReceiver {
                 LookupMessages.SUBTYPE_GET_LOOKUP_RANGE_REQUEST, GetLookupRangeRequest.class);
         m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
                 LookupMessages.SUBTYPE_GET_LOOKUP_RANGE_RESPONSE, GetLookupRangeResponse.class);
+        m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_GET_LOOKUP_RANGES_REQUEST, GetLookupRangesRequest.class);
+        m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_GET_LOOKUP_RANGES_RESPONSE, GetLookupRangesResponse.class);
+        m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_INSERT_NAMESERVICE_ENTRIES_BATCH_REQUEST,
+                InsertNameserviceEntriesBatchRequest.class);
+        m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_INSERT_NAMESERVICE_ENTRIES_BATCH_RESPONSE,
+                InsertNameserviceEntriesBatchResponse.class);
+        m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_GET_CHUNKIDS_FOR_NAMESERVICE_ENTRIES_REQUEST,
+                GetChunkIDsForNameserviceEntriesRequest.class);
+        m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_GET_CHUNKIDS_FOR_NAMESERVICE_ENTRIES_RESPONSE,
+                GetChunkIDsForNameserviceEntriesResponse.class);
         m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
                 LookupMessages.SUBTYPE_REMOVE_CHUNKIDS_REQUEST, RemoveChunkIDsRequest.class);
         m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
@@ -1640,6 +2124,8 @@ public class OverlayPeer implements MessageReceiver {
                 LookupMessages.SUBTYPE_SEND_SUPERPEERS_MESSAGE, SendSuperpeersMessage.class);
         m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
                 LookupMessages.SUBTYPE_NODE_JOIN_EVENT_REQUEST, NodeJoinEventMessage.class);
+        m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_LOOKUP_RANGES_AVAILABLE_MESSAGE, LookupRangesAvailableMessage.class);
 
         m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
                 LookupMessages.SUBTYPE_BARRIER_ALLOC_REQUEST, BarrierAllocRequest.class);
@@ -1704,6 +2190,8 @@ public class OverlayPeer implements MessageReceiver {
                 LookupMessages.SUBTYPE_NAMESERVICE_UPDATE_PEER_CACHES_MESSAGE, this);
         m_network
                 .register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_NODE_JOIN_EVENT_REQUEST, this);
+        m_network.register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_LOOKUP_RANGES_AVAILABLE_MESSAGE, this);
     }
 
 }
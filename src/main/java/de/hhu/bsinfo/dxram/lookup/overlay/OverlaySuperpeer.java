@@ -17,10 +17,8 @@
 package de.hhu.bsinfo.dxram.lookup.overlay;
 
 import java.net.InetSocketAddress;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -45,6 +43,7 @@ import de.hhu.bsinfo.dxram.failure.messages.FailureRequest;
 import de.hhu.bsinfo.dxram.failure.messages.FailureResponse;
 import de.hhu.bsinfo.dxram.lookup.LookupComponent;
 import de.hhu.bsinfo.dxram.lookup.LookupRange;
+import de.hhu.bsinfo.dxram.lookup.LookupState;
 import de.hhu.bsinfo.dxram.lookup.events.NodeJoinEvent;
 import de.hhu.bsinfo.dxram.lookup.messages.AskAboutBackupsRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.AskAboutBackupsResponse;
@@ -66,8 +65,12 @@ import de.hhu.bsinfo.dxram.lookup.messages.GetAllBackupRangesRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.GetAllBackupRangesResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.GetChunkIDForNameserviceEntryRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.GetChunkIDForNameserviceEntryResponse;
+import de.hhu.bsinfo.dxram.lookup.messages.GetChunkIDsForNameserviceEntriesRequest;
+import de.hhu.bsinfo.dxram.lookup.messages.GetChunkIDsForNameserviceEntriesResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.GetLookupRangeRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.GetLookupRangeResponse;
+import de.hhu.bsinfo.dxram.lookup.messages.GetLookupRangesRequest;
+import de.hhu.bsinfo.dxram.lookup.messages.GetLookupRangesResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.GetMetadataSummaryRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.GetMetadataSummaryResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.GetNameserviceEntriesRequest;
@@ -76,11 +79,14 @@ import de.hhu.bsinfo.dxram.lookup.messages.GetNameserviceEntryCountRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.GetNameserviceEntryCountResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.InitRangeRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.InitRangeResponse;
+import de.hhu.bsinfo.dxram.lookup.messages.InsertNameserviceEntriesBatchRequest;
+import de.hhu.bsinfo.dxram.lookup.messages.InsertNameserviceEntriesBatchResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.InsertNameserviceEntriesRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.InsertNameserviceEntriesResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.JoinRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.JoinResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.LookupMessages;
+import de.hhu.bsinfo.dxram.lookup.messages.LookupRangesAvailableMessage;
 import de.hhu.bsinfo.dxram.lookup.messages.MigrateRangeRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.MigrateRangeResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.MigrateRequest;
@@ -155,16 +161,16 @@ public class OverlaySuperpeer implements MessageReceiver {
 
     // All known superpeers: New superpeers are added when there is a new predecessor or successor
     // and during fix fingers method (fixSuperpeers) in stabilization thread
-    private ArrayList<Short> m_superpeers;
+    private final NodeIDSet m_superpeers;
     // All assigned peers (between this superpeer and his predecessor): New peers are added when
     // a peer joins the overlay and this superpeer is responsible and when another superpeer left
     // the overlay and this superpeer takes over
-    private ArrayList<Short> m_peers;
+    private final NodeIDSet m_peers;
     // All assigned peers including the backups (between this superpeer and his fourth predecessor):
     // New peers are added when a peer initializes a backup range for the first time on this superpeer
     // (also backups) and when applying backups from another superpeer and the peer is not yet in the
     // list
-    private ArrayList<Short> m_assignedPeersIncludingBackups;
+    private final NodeIDSet m_assignedPeersIncludingBackups;
 
     private MetadataHandler m_metadata;
 
@@ -209,9 +215,9 @@ public class OverlaySuperpeer implements MessageReceiver {
         m_nodeID = p_nodeID;
         m_initialNumberOfSuperpeers = p_initialNumberOfSuperpeers;
 
-        m_superpeers = new ArrayList<>();
-        m_peers = new ArrayList<>();
-        m_assignedPeersIncludingBackups = new ArrayList<>();
+        m_superpeers = new NodeIDSet();
+        m_peers = new NodeIDSet();
+        m_assignedPeersIncludingBackups = new NodeIDSet();
 
         m_metadata = new MetadataHandler(new PeerHandler[NodeID.MAX_ID], new NameserviceHashTable(1000),
                 new SuperpeerStorage(p_storageMaxNumEntries, p_storageMaxSizeBytes),
@@ -272,11 +278,11 @@ public class OverlaySuperpeer implements MessageReceiver {
     }
 
     /**
-     * Returns the corresponding lookup tree
+     * Returns a snapshot of the corresponding lookup tree
      *
      * @param p_nodeID
      *         the NodeID
-     * @return the lookup tree
+     * @return a copy of the lookup tree
      */
     public LookupTree getLookupTree(final short p_nodeID) {
         return m_metadata.getLookupTree(p_nodeID);
@@ -322,6 +328,9 @@ public class OverlaySuperpeer implements MessageReceiver {
                     case LookupMessages.SUBTYPE_GET_LOOKUP_RANGE_REQUEST:
                         incomingGetLookupRangeRequest((GetLookupRangeRequest) p_message);
                         break;
+                    case LookupMessages.SUBTYPE_GET_LOOKUP_RANGES_REQUEST:
+                        incomingGetLookupRangesRequest((GetLookupRangesRequest) p_message);
+                        break;
                     case LookupMessages.SUBTYPE_REMOVE_CHUNKIDS_REQUEST:
                         incomingRemoveChunkIDsRequest((RemoveChunkIDsRequest) p_message);
                         break;
@@ -331,6 +340,13 @@ public class OverlaySuperpeer implements MessageReceiver {
                     case LookupMessages.SUBTYPE_GET_CHUNKID_FOR_NAMESERVICE_ENTRY_REQUEST:
                         incomingGetChunkIDForNameserviceEntryRequest((GetChunkIDForNameserviceEntryRequest) p_message);
                         break;
+                    case LookupMessages.SUBTYPE_INSERT_NAMESERVICE_ENTRIES_BATCH_REQUEST:
+                        incomingInsertNameserviceEntriesBatchRequest((InsertNameserviceEntriesBatchRequest) p_message);
+                        break;
+                    case LookupMessages.SUBTYPE_GET_CHUNKIDS_FOR_NAMESERVICE_ENTRIES_REQUEST:
+                        incomingGetChunkIDsForNameserviceEntriesRequest(
+                                (GetChunkIDsForNameserviceEntriesRequest) p_message);
+                        break;
                     case LookupMessages.SUBTYPE_GET_NAMESERVICE_ENTRY_COUNT_REQUEST:
                         incomingGetNameserviceEntryCountRequest((GetNameserviceEntryCountRequest) p_message);
                         break;
@@ -355,6 +371,9 @@ public class OverlaySuperpeer implements MessageReceiver {
                     case LookupMessages.SUBTYPE_NODE_JOIN_EVENT_REQUEST:
                         incomingPeerJoinEventRequest((NodeJoinEventMessage) p_message);
                         break;
+                    case LookupMessages.SUBTYPE_LOOKUP_RANGES_AVAILABLE_MESSAGE:
+                        incomingLookupRangesAvailableMessage((LookupRangesAvailableMessage) p_message);
+                        break;
                     case LookupMessages.SUBTYPE_BARRIER_ALLOC_REQUEST:
                         incomingBarrierAllocRequest((BarrierAllocRequest) p_message);
                         break;
@@ -461,7 +480,7 @@ public class OverlaySuperpeer implements MessageReceiver {
      * @return all peers
      * @lock overlay lock must be write-locked
      */
-    protected ArrayList<Short> getPeers() {
+    protected NodeIDSet getPeers() {
         return m_peers;
     }
 
@@ -472,45 +491,57 @@ public class OverlaySuperpeer implements MessageReceiver {
      *         the first superpeer
      * @param p_lastSuperpeer
      *         the last superpeer
-     * @return all peers in responsible area
+     * @return all peers in responsible area (sorted)
      * @lock overlay lock must be read-locked
      */
-    ArrayList<Short> getPeersInResponsibleArea(final short p_firstSuperpeer, final short p_lastSuperpeer) {
+    short[] getPeersInResponsibleArea(final short p_firstSuperpeer, final short p_lastSuperpeer) {
         short currentPeer;
         int index;
         int startIndex;
-        ArrayList<Short> peers;
+        int count = 0;
+        short[] assignedPeers;
+        short[] peers;
 
-        peers = new ArrayList<Short>();
-        if (!m_assignedPeersIncludingBackups.isEmpty()) {
-            // Search for the first superpeer in list of all assigned peers
-            index = Collections.binarySearch(m_assignedPeersIncludingBackups, p_firstSuperpeer);
-            // Result must be negative because there is no peer with NodeID of a superpeer
-            // Get the index where the superpeer would be in the list to get first peer with higher NodeID
-            index = index * -1 - 1;
-            if (index == m_assignedPeersIncludingBackups.size()) {
-                // There is no peer with higher NodeID -> take the one with lowest NodeID
-                index = 0;
-            }
+        assignedPeers = m_assignedPeersIncludingBackups.toArray();
+        peers = new short[assignedPeers.length];
+        if (assignedPeers.length > 0) {
+            // Search for the first superpeer in list of all assigned peers. There is no peer with NodeID of a
+            // superpeer -> get first peer with higher NodeID or the one with lowest NodeID
+            index = NodeIDSet.ceilingIndex(assignedPeers, p_firstSuperpeer);
 
             startIndex = index;
-            currentPeer = m_assignedPeersIncludingBackups.get(index++);
+            currentPeer = assignedPeers[index++];
             while (OverlayHelper.isPeerInSuperpeerRange(currentPeer, p_firstSuperpeer, p_lastSuperpeer)) {
                 // Add current peer to peer list
-                peers.add(Collections.binarySearch(peers, currentPeer) * -1 - 1, currentPeer);
-                if (index == m_assignedPeersIncludingBackups.size()) {
+                peers[count++] = currentPeer;
+                if (index == assignedPeers.length) {
                     index = 0;
                 }
                 if (index == startIndex) {
                     break;
                 }
-                currentPeer = m_assignedPeersIncludingBackups.get(index++);
+                currentPeer = assignedPeers[index++];
             }
         }
 
+        // The area might wrap around -> sort
+        peers = Arrays.copyOf(peers, count);
+        Arrays.sort(peers);
+
         return peers;
     }
 
+    /**
+     * Returns the versions of the lookup trees of given peers
+     *
+     * @param p_peers
+     *         the peers
+     * @return the version of every peer's lookup tree or -1 if there is none
+     */
+    long[] getLookupTreeVersions(final short[] p_peers) {
+        return m_metadata.getLookupTreeVersions(p_peers);
+    }
+
     /**
      * Returns the number of nameservice entries in given area
      *
@@ -545,24 +576,25 @@ public class OverlaySuperpeer implements MessageReceiver {
     }
 
     /**
-     * Compares given peer list with local list and returns all missing backup data
+     * Compares given peer list with local list and returns all missing or outdated backup data
      *
      * @param p_peers
      *         all peers the requesting superpeer stores backups for
+     * @param p_versions
+     *         the versions of the requesting superpeer's lookup trees
      * @param p_numberOfNameserviceEntries
      *         the number of expected nameservice entries
      * @param p_numberOfStorages
      *         the number of expected storages
      * @param p_numberOfBarriers
      *         the number of expected barriers
-     * @return the backup data of missing peers in given peer list
+     * @return the backup data of missing peers in given peer list and of peers with outdated lookup trees
      * @lock overlay lock must be write-locked
      */
-    byte[] compareAndReturnBackups(final ArrayList<Short> p_peers, final int p_numberOfNameserviceEntries,
-            final int p_numberOfStorages, final int p_numberOfBarriers) {
-        return m_metadata
-                .compareAndReturnBackups(p_peers, p_numberOfNameserviceEntries, p_numberOfStorages, p_numberOfBarriers,
-                        m_predecessor, m_nodeID);
+    byte[] compareAndReturnBackups(final short[] p_peers, final long[] p_versions,
+            final int p_numberOfNameserviceEntries, final int p_numberOfStorages, final int p_numberOfBarriers) {
+        return m_metadata.compareAndReturnBackups(p_peers, p_versions, p_numberOfNameserviceEntries,
+                p_numberOfStorages, p_numberOfBarriers, m_predecessor, m_nodeID);
     }
 
     /**
@@ -618,7 +650,7 @@ public class OverlaySuperpeer implements MessageReceiver {
         if (m_superpeers.isEmpty()) {
             firstPeer = (short) (m_nodeID + 1);
         } else {
-            index = Collections.binarySearch(m_superpeers, p_nodeID);
+            index = m_superpeers.indexOf(p_nodeID);
             if (index < 0) {
                 index = index * -1 - 1;
             }
@@ -635,18 +667,11 @@ public class OverlaySuperpeer implements MessageReceiver {
         }
 
         if (!m_assignedPeersIncludingBackups.isEmpty()) {
-            index = Collections.binarySearch(m_assignedPeersIncludingBackups, firstPeer);
-            if (index < 0) {
-                index = index * -1 - 1;
-                if (index == m_assignedPeersIncludingBackups.size()) {
-                    index = 0;
-                }
-            }
+            index = NodeIDSet.ceilingIndex(m_assignedPeersIncludingBackups.toArray(), firstPeer);
             startIndex = index;
             currentPeer = m_assignedPeersIncludingBackups.get(index++);
             while (OverlayHelper.isPeerInSuperpeerRange(currentPeer, firstPeer, p_nodeID)) {
-                if (Collections.binarySearch(m_peers, currentPeer) < 0 &&
-                        Collections.binarySearch(m_superpeers, currentPeer) < 0) {
+                if (!m_peers.contains(currentPeer) && !m_superpeers.contains(currentPeer)) {
                     if (m_metadata.getState(currentPeer) == PeerState.ONLINE) {
 
                         LOGGER.info("** Taking over 0x%X", currentPeer);
@@ -675,7 +700,7 @@ public class OverlaySuperpeer implements MessageReceiver {
      *         the NodeID of the restorer
      * @param p_chunkIDRanges
      *         all ChunkIDs in ranges
-     * @lock overlay lock must be write-locked
+     * @lock overlay lock must not be locked
      */
     private void updateMetadata(final short p_rangeID, final short p_restorer, final long[] p_chunkIDRanges) {
         short creator;
@@ -702,7 +727,8 @@ public class OverlaySuperpeer implements MessageReceiver {
             chunkIDList = entry.getValue();
 
             // Update metadata for assigned (including backups) peers locally
-            m_metadata.updateMetadataAfterRecovery(p_rangeID, creator, p_restorer, chunkIDList.getArray());
+            m_metadata.updateMetadataAfterRecovery(p_rangeID, creator, p_restorer, chunkIDList.getArray(),
+                    getRecoveryVersion(creator));
 
             // Inform other superpeers
             short[] responsibleSuperpeers = OverlayHelper.getResponsibleSuperpeers(creator, m_superpeers);
@@ -716,9 +742,32 @@ public class OverlaySuperpeer implements MessageReceiver {
                     }
                 }
             }
+
+            // Wake up operations waiting for the moved ranges (e.g. migrated chunks of other creators). Only the
+            // superpeer answering lookups for the creator notifies, after it applied the update
+            if (OverlayHelper.isPeerInSuperpeerRange(creator, m_predecessor, m_nodeID)) {
+                notifyLookupRangesAvailable(creator);
+            }
         }
     }
 
+    /**
+     * Returns the version to apply a recovery update with. Recovery updates are not forwarded by the responsible
+     * superpeer -> backup superpeers cannot know the version and get the lookup tree during the next stabilization
+     *
+     * @param p_creator
+     *         the creator of the updated lookup tree
+     * @return PeerHandler.NEXT_VERSION if this superpeer is responsible for the creator, PeerHandler.UNKNOWN_VERSION
+     * otherwise
+     */
+    private long getRecoveryVersion(final short p_creator) {
+        if (OverlayHelper.isPeerInSuperpeerRange(p_creator, m_predecessor, m_nodeID)) {
+            return PeerHandler.NEXT_VERSION;
+        }
+
+        return PeerHandler.UNKNOWN_VERSION;
+    }
+
     /**
      * Handles a superpeer failure for the superpeer overlay
      *
@@ -742,7 +791,7 @@ public class OverlaySuperpeer implements MessageReceiver {
             ret = true;
 
             // Inform all superpeers
-            for (short superpeer : m_superpeers) {
+            for (short superpeer : m_superpeers.toArray()) {
                 if (superpeer != p_failedNode) {
                     FailureRequest request = new FailureRequest(superpeer, p_failedNode);
                     try {
@@ -841,7 +890,7 @@ public class OverlaySuperpeer implements MessageReceiver {
         LOGGER.info("Informing all other peers about failed node 0x%X", p_failedNode);
 
         // Inform all peers (this is done by all superpeers)
-        for (short peer : m_peers) {
+        for (short peer : m_peers.toArray()) {
             if (peer != p_failedNode && m_boot.getDetails(peer).getRole() == NodeRole.PEER) {
 
                 LOGGER.debug("Informing peer 0x%X about failure of 0x%X", peer, p_failedNode);
@@ -864,7 +913,7 @@ public class OverlaySuperpeer implements MessageReceiver {
             LOGGER.info("Informing all other superpeers about failed node 0x%X", p_failedNode);
 
             // Inform all superpeers about failed peer
-            for (short superpeer : m_superpeers) {
+            for (short superpeer : m_superpeers.toArray()) {
 
                 LOGGER.debug("Informing superpeer 0x%X about failure of 0x%X", superpeer, p_failedNode);
 
@@ -1019,6 +1068,9 @@ public class OverlaySuperpeer implements MessageReceiver {
 
                 LOGGER.info("Recovery of failed node 0x%X complete", p_failedNode);
 
+                // Wake up operations on all peers waiting for the failed node's ranges
+                notifyLookupRangesAvailable(p_failedNode);
+
                 LOGGER.info("Starting replication for recovered backup ranges of failed node 0x%X", p_failedNode);
 
                 waitingTimerPerBackupRange = 5000;
@@ -1096,6 +1148,36 @@ public class OverlaySuperpeer implements MessageReceiver {
         return ret;
     }
 
+    /**
+     * Informs own peers and all other superpeers (which inform their peers) that the lookup ranges of
+     * given creator are available again
+     *
+     * @param p_creator
+     *         the creator whose lookup ranges are available again
+     * @lock overlay lock must not be locked
+     */
+    private void notifyLookupRangesAvailable(final short p_creator) {
+        m_overlayLock.readLock().lock();
+        for (short peer : m_peers.toArray()) {
+            try {
+                m_network.sendMessage(new LookupRangesAvailableMessage(peer, p_creator));
+            } catch (final NetworkException e) {
+                // Ignore, failure is detected by network module
+            }
+        }
+
+        for (short superpeer : m_superpeers.toArray()) {
+            if (superpeer != m_nodeID) {
+                try {
+                    m_network.sendMessage(new LookupRangesAvailableMessage(superpeer, p_creator));
+                } catch (final NetworkException e) {
+                    // Ignore, failure is detected by network module
+                }
+            }
+        }
+        m_overlayLock.readLock().unlock();
+    }
+
     /**
      * Adds given NodeID to the list of assigned peers
      *
@@ -1104,12 +1186,7 @@ public class OverlaySuperpeer implements MessageReceiver {
      * @lock overlay lock must be write-locked
      */
     private void addToAssignedPeers(final short p_nodeID) {
-        int index;
-        index = Collections.binarySearch(m_assignedPeersIncludingBackups, p_nodeID);
-        if (index < 0) {
-            index = index * -1 - 1;
-            m_assignedPeersIncludingBackups.add(index, p_nodeID);
-        }
+        m_assignedPeersIncludingBackups.add(p_nodeID);
     }
 
     /**
@@ -1120,7 +1197,7 @@ public class OverlaySuperpeer implements MessageReceiver {
      * @lock overlay lock must be write-locked
      */
     private void removeFromAssignedPeers(final short p_nodeID) {
-        m_assignedPeersIncludingBackups.remove(new Short(p_nodeID));
+        m_assignedPeersIncludingBackups.remove(p_nodeID);
     }
 
     /**
@@ -1180,9 +1257,9 @@ public class OverlaySuperpeer implements MessageReceiver {
             }
 
             assert joinResponse != null;
-            m_superpeers = joinResponse.getSuperpeers();
+            m_superpeers.replace(joinResponse.getSuperpeers());
 
-            m_peers = joinResponse.getPeers();
+            m_peers.replace(joinResponse.getPeers());
 
             newPeers = m_metadata.storeMetadata(joinResponse.getMetadata());
             if (newPeers != null) {
@@ -1209,7 +1286,7 @@ public class OverlaySuperpeer implements MessageReceiver {
         m_overlayLock.readLock().lock();
         // Inform all superpeers
         NodeRegistry.NodeDetails details = m_boot.getDetails();
-        for (short superpeer : m_superpeers) {
+        for (short superpeer : m_superpeers.toArray()) {
             InetSocketAddress socketAddress = details.getAddress();
             NodeJoinEventMessage message =
                     new NodeJoinEventMessage(superpeer, m_nodeID, NodeRole.SUPERPEER, NodeCapabilities.NONE,
@@ -1224,7 +1301,7 @@ public class OverlaySuperpeer implements MessageReceiver {
         }
 
         // Inform own peers
-        for (short peer : m_peers) {
+        for (short peer : m_peers.toArray()) {
             InetSocketAddress socketAddress = details.getAddress();
             NodeJoinEventMessage message =
                     new NodeJoinEventMessage(peer, m_nodeID, NodeRole.SUPERPEER, NodeCapabilities.NONE,
@@ -1282,7 +1359,6 @@ public class OverlaySuperpeer implements MessageReceiver {
      */
     private void spreadBackupsOfThisSuperpeer(final short p_lastBackupSuperpeer) {
         short newBackupSuperpeer;
-        int index;
         boolean superpeerToSendData = false;
         byte[] metadata;
         String str = "Spreaded data of ";
@@ -1291,14 +1367,8 @@ public class OverlaySuperpeer implements MessageReceiver {
 
         while (!m_superpeers.isEmpty()) {
             // Determine successor of last backup superpeer
-            index = (short) Collections.binarySearch(m_superpeers, (short) (p_lastBackupSuperpeer + 1));
-            if (index < 0) {
-                index = index * -1 - 1;
-                if (index == m_superpeers.size()) {
-                    index = 0;
-                }
-            }
-            newBackupSuperpeer = m_superpeers.get(index);
+            newBackupSuperpeer = OverlayHelper.getResponsibleSuperpeer((short) (p_lastBackupSuperpeer + 1),
+                    m_superpeers);
 
             superpeerToSendData = true;
             str += " to " + NodeID.toHexString(newBackupSuperpeer);
@@ -1331,9 +1401,9 @@ public class OverlaySuperpeer implements MessageReceiver {
      */
     private void incomingJoinRequest(final JoinRequest p_joinRequest) {
         short joiningNode;
-        short currentPeer;
-        Iterator<Short> iter;
-        ArrayList<Short> peers;
+        short[] allPeers;
+        short[] peers;
+        int count;
 
         byte[] metadata;
         short joiningNodesPredecessor;
@@ -1358,14 +1428,15 @@ public class OverlaySuperpeer implements MessageReceiver {
                     joiningNodesPredecessor = m_predecessor;
                 }
 
-                iter = m_peers.iterator();
-                peers = new ArrayList<>();
-                while (iter.hasNext()) {
-                    currentPeer = iter.next();
+                allPeers = m_peers.toArray();
+                peers = new short[allPeers.length];
+                count = 0;
+                for (short currentPeer : allPeers) {
                     if (OverlayHelper.isPeerInSuperpeerRange(currentPeer, joiningNodesPredecessor, joiningNode)) {
-                        peers.add(currentPeer);
+                        peers[count++] = currentPeer;
                     }
                 }
+                peers = Arrays.copyOf(peers, count);
 
                 responsibleArea = OverlayHelper.getResponsibleArea(joiningNode, m_predecessor, m_superpeers);
                 metadata = m_metadata.receiveMetadataInRange(responsibleArea[0], responsibleArea[1]);
@@ -1373,13 +1444,13 @@ public class OverlaySuperpeer implements MessageReceiver {
                 try {
                     m_network.sendMessage(
                             new JoinResponse(p_joinRequest, NodeID.INVALID_ID, joiningNodesPredecessor, m_nodeID,
-                                    m_superpeers, peers, null, metadata));
+                                    m_superpeers, new NodeIDSet(peers), null, metadata));
                 } catch (final NetworkException e) {
                     // Joining node is not available anymore -> ignore request and return directly
                     return;
                 }
 
-                for (Short peer : peers) {
+                for (short peer : peers) {
                     OverlayHelper.removePeer(peer, m_peers);
                 }
 
@@ -1457,7 +1528,7 @@ public class OverlaySuperpeer implements MessageReceiver {
         Runnable task = () -> {
             m_overlayLock.readLock().lock();
             // Inform all superpeers
-            for (short superpeer : m_superpeers) {
+            for (short superpeer : m_superpeers.toArray()) {
                 NodeJoinEventMessage message = new NodeJoinEventMessage(superpeer, newPeer, NodeRole.PEER,
                         p_finishedStartupMessage.getCapabilities(), p_finishedStartupMessage.getRack(),
                         p_finishedStartupMessage.getSwitch(), p_finishedStartupMessage.isAvailableForBackup(),
@@ -1471,7 +1542,7 @@ public class OverlaySuperpeer implements MessageReceiver {
             }
 
             // Inform own peers
-            for (short peer : m_peers) {
+            for (short peer : m_peers.toArray()) {
                 if (peer != newPeer) {
                     NodeJoinEventMessage message = new NodeJoinEventMessage(peer, newPeer, NodeRole.PEER,
                             p_finishedStartupMessage.getCapabilities(), p_finishedStartupMessage.getRack(),
@@ -1507,6 +1578,7 @@ public class OverlaySuperpeer implements MessageReceiver {
     private void incomingGetLookupRangeRequest(final GetLookupRangeRequest p_getLookupRangeRequest) {
         long chunkID;
         LookupRange result;
+        LookupRange[] prefetched;
 
         chunkID = p_getLookupRangeRequest.getChunkID();
 
@@ -1518,8 +1590,39 @@ public class OverlaySuperpeer implements MessageReceiver {
         LOGGER.trace("GET_LOOKUP_RANGE_REQUEST 0x%X chunkID 0x%X reply location: %s",
                 p_getLookupRangeRequest.getSource(), chunkID, result);
 
+        if (p_getLookupRangeRequest.getPrefetchCount() > 0 && result.getState() == LookupState.OK) {
+            prefetched = m_metadata.getSubsequentLookupRangesFromLookupTree(chunkID, result,
+                    p_getLookupRangeRequest.getPrefetchCount());
+        } else {
+            prefetched = new LookupRange[0];
+        }
+
         try {
-            m_network.sendMessage(new GetLookupRangeResponse(p_getLookupRangeRequest, result));
+            m_network.sendMessage(new GetLookupRangeResponse(p_getLookupRangeRequest, result, prefetched));
+        } catch (final NetworkException e) {
+            // Requesting peer is not available anymore, ignore it
+        }
+    }
+
+    /**
+     * Handles an incoming GetLookupRangesRequest
+     *
+     * @param p_getLookupRangesRequest
+     *         the GetLookupRangesRequest
+     */
+    private void incomingGetLookupRangesRequest(final GetLookupRangesRequest p_getLookupRangesRequest) {
+        long[] chunkIDs;
+        LookupRange[] result;
+
+        chunkIDs = p_getLookupRangesRequest.getChunkIDs();
+
+        LOGGER.trace("Got request: GET_LOOKUP_RANGES_REQUEST 0x%X, %d chunkIDs", p_getLookupRangesRequest.getSource(),
+                chunkIDs.length);
+
+        result = m_metadata.getLookupRangesFromLookupTree(chunkIDs, m_backupActive);
+
+        try {
+            m_network.sendMessage(new GetLookupRangesResponse(p_getLookupRangesRequest, result));
         } catch (final NetworkException e) {
             // Requesting peer is not available anymore, ignore it
         }
@@ -1536,6 +1639,7 @@ public class OverlaySuperpeer implements MessageReceiver {
         short creator;
         short[] backupSuperpeers;
         boolean isBackup;
+        long version;
 
         LOGGER.trace("Got Message: REMOVE_CHUNKIDS_REQUEST from 0x%X", p_removeChunkIDsRequest.getSource());
 
@@ -1555,12 +1659,15 @@ public class OverlaySuperpeer implements MessageReceiver {
 
         creator = ChunkID.getCreatorID(chunkIDs[0]);
         if (OverlayHelper.isPeerInSuperpeerRange(creator, m_predecessor, m_nodeID)) {
-            if (m_metadata.removeChunkIDsFromLookupTree(m_backupActive, chunkIDs)) {
+            version = m_metadata.removeChunkIDsFromLookupTree(m_backupActive, PeerHandler.NEXT_VERSION, chunkIDs);
+            if (version != MetadataHandler.NO_LOOKUP_TREE) {
                 m_overlayLock.readLock().lock();
                 backupSuperpeers = OverlayHelper.getBackupSuperpeers(m_nodeID, m_superpeers);
                 m_overlayLock.readLock().unlock();
                 try {
-                    m_network.sendMessage(new RemoveChunkIDsResponse(p_removeChunkIDsRequest, backupSuperpeers));
+                    // The requesting peer forwards the removal with given version to the backup superpeers
+                    m_network.sendMessage(
+                            new RemoveChunkIDsResponse(p_removeChunkIDsRequest, backupSuperpeers, version));
                 } catch (final NetworkException e) {
                     // Requesting peer is not available anymore, ignore it
                 }
@@ -1576,7 +1683,8 @@ public class OverlaySuperpeer implements MessageReceiver {
                 }
             }
         } else if (isBackup) {
-            if (!m_metadata.removeChunkIDsFromLookupTree(m_backupActive, chunkIDs)) {
+            if (m_metadata.removeChunkIDsFromLookupTree(m_backupActive, p_removeChunkIDsRequest.getVersion(),
+                    chunkIDs) == MetadataHandler.NO_LOOKUP_TREE) {
 
                 LOGGER.warn("CIDTree range not initialized on backup superpeer 0x%X", m_nodeID);
 
@@ -1622,7 +1730,7 @@ public class OverlaySuperpeer implements MessageReceiver {
                 // Requesting peer is not available anymore, ignore it
             }
 
-            ArrayList<Short> peers = m_peers;
+            short[] peers = m_peers.toArray();
             // notify peers about this to update caches
             for (short peer : peers) {
                 NameserviceUpdatePeerCachesMessage message =
@@ -1684,6 +1792,118 @@ public class OverlaySuperpeer implements MessageReceiver {
         }
     }
 
+    /**
+     * Handles an incoming InsertNameserviceEntriesBatchRequest
+     *
+     * @param p_request
+     *         the InsertNameserviceEntriesBatchRequest
+     */
+    private void incomingInsertNameserviceEntriesBatchRequest(final InsertNameserviceEntriesBatchRequest p_request) {
+        int[] ids;
+        long[] chunkIDs;
+        long[] replaced = null;
+        boolean responsible = true;
+        short[] backupSuperpeers = null;
+
+        ids = p_request.getIDs();
+
+        LOGGER.trace("Got request: INSERT_NAMESERVICE_ENTRIES_BATCH_REQUEST from 0x%X, %d ids",
+                p_request.getSource(), ids.length);
+
+        m_overlayLock.readLock().lock();
+        if (!p_request.isBackup()) {
+            // Store all or nothing to let the requesting peer retry the whole batch
+            for (int id : ids) {
+                if (!OverlayHelper.isHashInSuperpeerRange(CRC16.hash(id), m_predecessor, m_nodeID)) {
+                    responsible = false;
+                    break;
+                }
+            }
+
+            if (responsible) {
+                backupSuperpeers = OverlayHelper.getBackupSuperpeers(m_nodeID, m_superpeers);
+            }
+        }
+
+        chunkIDs = p_request.getChunkIDs();
+        if (responsible) {
+            replaced = m_metadata.putNameserviceEntries(ids, chunkIDs);
+        }
+
+        try {
+            m_network.sendMessage(new InsertNameserviceEntriesBatchResponse(p_request, backupSuperpeers));
+        } catch (final NetworkException e) {
+            // Requesting peer is not available anymore, ignore it
+        }
+
+        if (backupSuperpeers != null) {
+            // Peers only cache existing entries -> notify about replaced entries only
+            int[] updatedIDs = new int[ids.length];
+            long[] updatedChunkIDs = new long[ids.length];
+            int count = 0;
+            for (int i = 0; i < ids.length; i++) {
+                if (replaced[i] != ChunkID.INVALID_ID && replaced[i] != chunkIDs[i]) {
+                    updatedIDs[count] = ids[i];
+                    updatedChunkIDs[count] = chunkIDs[i];
+                    count++;
+                }
+            }
+
+            if (count > 0) {
+                updatedIDs = Arrays.copyOf(updatedIDs, count);
+                updatedChunkIDs = Arrays.copyOf(updatedChunkIDs, count);
+                short[] peers = m_peers.toArray();
+
+                // notify peers about this to update caches (one message per peer for all entries), the requesting
+                // peer updated its cache already
+                for (short peer : peers) {
+                    if (peer == p_request.getSource()) {
+                        continue;
+                    }
+
+                    NameserviceUpdatePeerCachesMessage message =
+                            new NameserviceUpdatePeerCachesMessage(peer, updatedIDs, updatedChunkIDs);
+                    try {
+                        m_network.sendMessage(message);
+                    } catch (final NetworkException e) {
+                        // peer is not available anymore, ignore it
+                    }
+                }
+            }
+        }
+        m_overlayLock.readLock().unlock();
+    }
+
+    /**
+     * Handles an incoming GetChunkIDsForNameserviceEntriesRequest
+     *
+     * @param p_request
+     *         the GetChunkIDsForNameserviceEntriesRequest
+     */
+    private void incomingGetChunkIDsForNameserviceEntriesRequest(
+            final GetChunkIDsForNameserviceEntriesRequest p_request) {
+        int[] ids;
+        long[] chunkIDs;
+
+        ids = p_request.getIDs();
+
+        LOGGER.trace("Got request: GET_CHUNKIDS_FOR_NAMESERVICE_ENTRIES_REQUEST from 0x%X, %d ids",
+                p_request.getSource(), ids.length);
+
+        chunkIDs = m_metadata.getNameserviceEntries(ids);
+        for (int i = 0; i < ids.length; i++) {
+            if (!OverlayHelper.isHashInSuperpeerRange(CRC16.hash(ids[i]), m_predecessor, m_nodeID)) {
+                chunkIDs[i] = ChunkID.INVALID_ID;
+            }
+        }
+
+        try {
+            m_network.sendMessage(new GetChunkIDsForNameserviceEntriesResponse(p_request, chunkIDs));
+        } catch (final NetworkException e) {
+            // Requesting peer is not available anymore, ignore it
+        }
+    }
+
     /**
      * Handles an incoming GetNameserviceEntryCountRequest
      *
@@ -1735,6 +1955,7 @@ public class OverlaySuperpeer implements MessageReceiver {
         short creator;
         short[] backupSuperpeers;
         boolean isBackup;
+        long version;
 
         LOGGER.trace("Got Message: MIGRATE_REQUEST from 0x%X", p_migrateRequest.getSource());
 
@@ -1745,7 +1966,8 @@ public class OverlaySuperpeer implements MessageReceiver {
 
         m_overlayLock.readLock().lock();
         if (OverlayHelper.isPeerInSuperpeerRange(creator, m_predecessor, m_nodeID)) {
-            if (m_metadata.putChunkIDInLookupTree(chunkID, nodeID, m_backupActive)) {
+            version = m_metadata.putChunkIDInLookupTree(chunkID, nodeID, m_backupActive, PeerHandler.NEXT_VERSION);
+            if (version != MetadataHandler.NO_LOOKUP_TREE) {
                 backupSuperpeers = OverlayHelper.getBackupSuperpeers(m_nodeID, m_superpeers);
                 m_overlayLock.readLock().unlock();
                 if (backupSuperpeers[0] != NodeID.INVALID_ID) {
@@ -1753,7 +1975,7 @@ public class OverlaySuperpeer implements MessageReceiver {
                     Runnable task = () -> {
                         // Send backups
                         for (short backupSuperpeer : backupSuperpeers) {
-                            MigrateRequest request = new MigrateRequest(backupSuperpeer, chunkID, nodeID, true);
+                            MigrateRequest request = new MigrateRequest(backupSuperpeer, chunkID, nodeID, version);
 
                             try {
                                 m_network.sendSync(request);
@@ -1782,7 +2004,8 @@ public class OverlaySuperpeer implements MessageReceiver {
                 }
             }
         } else if (isBackup) {
-            if (!m_metadata.putChunkIDInLookupTree(chunkID, nodeID, m_backupActive)) {
+            if (m_metadata.putChunkIDInLookupTree(chunkID, nodeID, m_backupActive, p_migrateRequest.getVersion()) ==
+                    MetadataHandler.NO_LOOKUP_TREE) {
 
                 LOGGER.warn("CIDTree range not initialized on backup superpeer 0x%X", m_nodeID);
 
@@ -1819,6 +2042,7 @@ public class OverlaySuperpeer implements MessageReceiver {
         short creator;
         short[] backupSuperpeers;
         boolean isBackup;
+        long version;
 
         LOGGER.trace("Got Message: MIGRATE_RANGE_REQUEST from 0x%X", p_migrateRangeRequest.getSource());
 
@@ -1837,7 +2061,9 @@ public class OverlaySuperpeer implements MessageReceiver {
 
         m_overlayLock.readLock().lock();
         if (OverlayHelper.isPeerInSuperpeerRange(creator, m_predecessor, m_nodeID)) {
-            if (m_metadata.putChunkIDRangeInLookupTree(startChunkID, endChunkID, nodeID, m_backupActive)) {
+            version = m_metadata.putChunkIDRangeInLookupTree(startChunkID, endChunkID, nodeID, m_backupActive,
+                    PeerHandler.NEXT_VERSION);
+            if (version != MetadataHandler.NO_LOOKUP_TREE) {
                 backupSuperpeers = OverlayHelper.getBackupSuperpeers(m_nodeID, m_superpeers);
                 m_overlayLock.readLock().unlock();
                 if (backupSuperpeers[0] != NodeID.INVALID_ID) {
@@ -1846,7 +2072,7 @@ public class OverlaySuperpeer implements MessageReceiver {
                         // Send backups
                         for (short backupSuperpeer : backupSuperpeers) {
                             MigrateRangeRequest request =
-                                    new MigrateRangeRequest(backupSuperpeer, startChunkID, endChunkID, nodeID, true);
+                                    new MigrateRangeRequest(backupSuperpeer, startChunkID, endChunkID, nodeID, version);
 
                             try {
                                 m_network.sendSync(request);
@@ -1875,7 +2101,8 @@ public class OverlaySuperpeer implements MessageReceiver {
                 }
             }
         } else if (isBackup) {
-            if (!m_metadata.putChunkIDRangeInLookupTree(startChunkID, endChunkID, nodeID, m_backupActive)) {
+            if (m_metadata.putChunkIDRangeInLookupTree(startChunkID, endChunkID, nodeID, m_backupActive,
+                    p_migrateRangeRequest.getVersion()) == MetadataHandler.NO_LOOKUP_TREE) {
 
                 LOGGER.warn("CIDTree range not initialized on backup superpeer 0x%X", m_nodeID);
 
@@ -1910,6 +2137,7 @@ public class OverlaySuperpeer implements MessageReceiver {
         short rangeOwner;
         short[] backupSuperpeers;
         boolean isBackup;
+        long version;
         BackupRange backupRange;
 
         LOGGER.trace("Got Message: INIT_RANGE_REQUEST from 0x%X", p_initRangeRequest.getSource());
@@ -1920,9 +2148,8 @@ public class OverlaySuperpeer implements MessageReceiver {
 
         m_overlayLock.writeLock().lock();
         if (OverlayHelper.isPeerInSuperpeerRange(rangeOwner, m_predecessor, m_nodeID)) {
-            if (m_metadata.initBackupRangeInLookupTree(rangeOwner, backupRange)) {
-                addToAssignedPeers(rangeOwner);
-            }
+            version = m_metadata.initBackupRangeInLookupTree(rangeOwner, backupRange, PeerHandler.NEXT_VERSION);
+            addToAssignedPeers(rangeOwner);
 
             backupSuperpeers = OverlayHelper.getBackupSuperpeers(m_nodeID, m_superpeers);
             m_overlayLock.writeLock().unlock();
@@ -1931,7 +2158,8 @@ public class OverlaySuperpeer implements MessageReceiver {
                 Runnable task = () -> {
                     // Send backups
                     for (short backupSuperpeer : backupSuperpeers) {
-                        InitRangeRequest request = new InitRangeRequest(backupSuperpeer, rangeOwner, backupRange, true);
+                        InitRangeRequest request =
+                                new InitRangeRequest(backupSuperpeer, rangeOwner, backupRange, version);
 
                         try {
                             m_network.sendSync(request);
@@ -1949,9 +2177,8 @@ public class OverlaySuperpeer implements MessageReceiver {
                 // Requesting peer is not available anymore, ignore it
             }
         } else if (isBackup) {
-            if (m_metadata.initBackupRangeInLookupTree(rangeOwner, backupRange)) {
-                addToAssignedPeers(rangeOwner);
-            }
+            m_metadata.initBackupRangeInLookupTree(rangeOwner, backupRange, p_initRangeRequest.getVersion());
+            addToAssignedPeers(rangeOwner);
             m_overlayLock.writeLock().unlock();
 
             try {
@@ -2003,9 +2230,38 @@ public class OverlaySuperpeer implements MessageReceiver {
         LOGGER.trace("Got request: UPDATE_METADATA_AFTER_RECOVERY_MESSAGE 0x%X",
                 p_updateMetadataAfterRecoveryMessage.getSource());
 
-        m_metadata.updateMetadataAfterRecovery(p_updateMetadataAfterRecoveryMessage.getRangeID(),
-                p_updateMetadataAfterRecoveryMessage.getCreator(), p_updateMetadataAfterRecoveryMessage.getRestorer(),
-                p_updateMetadataAfterRecoveryMessage.getChunkIDRanges());
+        short creator = p_updateMetadataAfterRecoveryMessage.getCreator();
+
+        m_metadata.updateMetadataAfterRecovery(p_updateMetadataAfterRecoveryMessage.getRangeID(), creator,
+                p_updateMetadataAfterRecoveryMessage.getRestorer(),
+                p_updateMetadataAfterRecoveryMessage.getChunkIDRanges(), getRecoveryVersion(creator));
+
+        // Wake up operations waiting for the moved ranges if this superpeer answers lookups for the creator
+        if (OverlayHelper.isPeerInSuperpeerRange(creator, m_predecessor, m_nodeID)) {
+            notifyLookupRangesAvailable(creator);
+        }
+    }
+
+    /**
+     * Handles an incoming LookupRangesAvailableMessage
+     *
+     * @param p_message
+     *         the LookupRangesAvailableMessage
+     */
+    private void incomingLookupRangesAvailableMessage(final LookupRangesAvailableMessage p_message) {
+        LOGGER.trace("Got Message: LOOKUP_RANGES_AVAILABLE_MESSAGE from 0x%X, creator 0x%X", p_message.getSource(),
+                p_message.getCreator());
+
+        m_overlayLock.readLock().lock();
+        // Inform own peers
+        for (short peer : m_peers.toArray()) {
+            try {
+                m_network.sendMessage(new LookupRangesAvailableMessage(peer, p_message.getCreator()));
+            } catch (final NetworkException e) {
+                // Ignore, failure is detected by network module
+            }
+        }
+        m_overlayLock.readLock().unlock();
     }
 
     /**
@@ -2019,7 +2275,7 @@ public class OverlaySuperpeer implements MessageReceiver {
 
         m_overlayLock.readLock().lock();
         // Inform own peers
-        for (short p : m_peers) {
+        for (short p : m_peers.toArray()) {
             NodeJoinEventMessage message = new NodeJoinEventMessage(p, p_peerJoinEventRequest.getJoinedPeer(),
                     p_peerJoinEventRequest.getRole(), p_peerJoinEventRequest.getCapabilities(),
                     p_peerJoinEventRequest.getRack(), p_peerJoinEventRequest.getSwitch(),
@@ -2365,7 +2621,7 @@ public class OverlaySuperpeer implements MessageReceiver {
      *         the SuperpeerStorageGetAnonRequest
      */
     private void incomingSuperpeerStorageGetAnonRequest(final SuperpeerStorageGetAnonRequest p_request) {
-        byte[] data = m_metadata.getStorage(p_request.getStorageID());
+        byte[] data = m_metadata.getStorage(p_request.getStorageID(), p_request.getOffset());
 
         SuperpeerStorageGetAnonResponse response;
         if (data == null) {
@@ -2581,6 +2837,7 @@ public class OverlaySuperpeer implements MessageReceiver {
         short rangeID;
         short failedPeer;
         short newBackupPeer;
+        long version;
 
         LOGGER.trace("Got message: NOTIFY_ABOUT_FAILED_PEER_REQUEST from 0x%X", p_replaceBackupPeerRequest.getSource());
 
@@ -2588,8 +2845,13 @@ public class OverlaySuperpeer implements MessageReceiver {
         newBackupPeer = p_replaceBackupPeerRequest.getNewPeer();
         rangeID = p_replaceBackupPeerRequest.getRangeID();
 
-        m_metadata.replaceFailedPeerInLookupTree(rangeID, p_replaceBackupPeerRequest.getSource(), failedPeer,
-                newBackupPeer);
+        if (p_replaceBackupPeerRequest.isBackup()) {
+            version = m_metadata.replaceFailedPeerInLookupTree(rangeID, p_replaceBackupPeerRequest.getSource(),
+                    failedPeer, newBackupPeer, p_replaceBackupPeerRequest.getVersion());
+        } else {
+            version = m_metadata.replaceFailedPeerInLookupTree(rangeID, p_replaceBackupPeerRequest.getSource(),
+                    failedPeer, newBackupPeer, PeerHandler.NEXT_VERSION);
+        }
 
         try {
             m_network.sendMessage(new ReplaceBackupPeerResponse(p_replaceBackupPeerRequest));
@@ -2597,7 +2859,7 @@ public class OverlaySuperpeer implements MessageReceiver {
 
         }
 
-        if (!p_replaceBackupPeerRequest.isBackup()) {
+        if (!p_replaceBackupPeerRequest.isBackup() && version != MetadataHandler.NO_LOOKUP_TREE) {
             // Outsource updating all backup superpeers to another thread to avoid blocking a message handler
             Runnable task = () -> {
                 m_overlayLock.readLock().lock();
@@ -2610,7 +2872,8 @@ public class OverlaySuperpeer implements MessageReceiver {
                     }
 
                     ReplaceBackupPeerRequest request;
-                    request = new ReplaceBackupPeerRequest(backupSuperpeer, rangeID, failedPeer, newBackupPeer, true);
+                    request =
+                            new ReplaceBackupPeerRequest(backupSuperpeer, rangeID, failedPeer, newBackupPeer, version);
                     // send as message, only
                     try {
                         m_network.sendMessage(request);
@@ -2639,6 +2902,22 @@ public class OverlaySuperpeer implements MessageReceiver {
                 LookupMessages.SUBTYPE_GET_LOOKUP_RANGE_REQUEST, GetLookupRangeRequest.class);
         m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
                 LookupMessages.SUBTYPE_GET_LOOKUP_RANGE_RESPONSE, GetLookupRangeResponse.class);
+        m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_GET_LOOKUP_RANGES_REQUEST, GetLookupRangesRequest.class);
+        m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_GET_LOOKUP_RANGES_RESPONSE, GetLookupRangesResponse.class);
+        m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_INSERT_NAMESERVICE_ENTRIES_BATCH_REQUEST,
+                InsertNameserviceEntriesBatchRequest.class);
+        m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_INSERT_NAMESERVICE_ENTRIES_BATCH_RESPONSE,
+                InsertNameserviceEntriesBatchResponse.class);
+        m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_GET_CHUNKIDS_FOR_NAMESERVICE_ENTRIES_REQUEST,
+                GetChunkIDsForNameserviceEntriesRequest.class);
+        m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_GET_CHUNKIDS_FOR_NAMESERVICE_ENTRIES_RESPONSE,
+                GetChunkIDsForNameserviceEntriesResponse.class);
         m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
                 LookupMessages.SUBTYPE_REMOVE_CHUNKIDS_REQUEST, RemoveChunkIDsRequest.class);
         m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
@@ -2711,6 +2990,8 @@ public class OverlaySuperpeer implements MessageReceiver {
                 LookupMessages.SUBTYPE_NOTIFY_ABOUT_NEW_SUCCESSOR_MESSAGE, NotifyAboutNewSuccessorMessage.class);
         m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
                 LookupMessages.SUBTYPE_NODE_JOIN_EVENT_REQUEST, NodeJoinEventMessage.class);
+        m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_LOOKUP_RANGES_AVAILABLE_MESSAGE, LookupRangesAvailableMessage.class);
 
         m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
                 LookupMessages.SUBTYPE_BARRIER_ALLOC_REQUEST, BarrierAllocRequest.class);
@@ -2781,12 +3062,18 @@ public class OverlaySuperpeer implements MessageReceiver {
                 this);
         m_network.register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_GET_LOOKUP_RANGE_REQUEST,
                 this);
+        m_network.register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_GET_LOOKUP_RANGES_REQUEST,
+                this);
         m_network
                 .register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_REMOVE_CHUNKIDS_REQUEST, this);
         m_network.register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
                 LookupMessages.SUBTYPE_INSERT_NAMESERVICE_ENTRIES_REQUEST, this);
         m_network.register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
                 LookupMessages.SUBTYPE_GET_CHUNKID_FOR_NAMESERVICE_ENTRY_REQUEST, this);
+        m_network.register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_INSERT_NAMESERVICE_ENTRIES_BATCH_REQUEST, this);
+        m_network.register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_GET_CHUNKIDS_FOR_NAMESERVICE_ENTRIES_REQUEST, this);
         m_network.register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
                 LookupMessages.SUBTYPE_GET_NAMESERVICE_ENTRY_COUNT_REQUEST, this);
         m_network.register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
@@ -2802,6 +3089,8 @@ public class OverlaySuperpeer implements MessageReceiver {
                 this);
         m_network
                 .register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_NODE_JOIN_EVENT_REQUEST, this);
+        m_network.register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_LOOKUP_RANGES_AVAILABLE_MESSAGE, this);
         m_network.register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_PING_SUPERPEER_MESSAGE, this);
 
         m_network.register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_BARRIER_ALLOC_REQUEST, this);
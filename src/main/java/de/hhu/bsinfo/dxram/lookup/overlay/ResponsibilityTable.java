@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup.overlay;
+
+import de.hhu.bsinfo.dxutils.NodeID;
+
+/**
+ * Immutable mapping of every NodeID (or hash value) to its responsible superpeer. A new table is created whenever
+ * the superpeer overlay changes and replaces the old one atomically. Thus, peers can determine the responsible
+ * superpeer with a single array access and without taking the overlay lock. The version is increased with every
+ * new table to detect overlay changes between sending a request and handling its failure.
+ */
+final class ResponsibilityTable {
+
+    private static final int NUMBER_OF_NODE_IDS = 1 << Short.SIZE;
+
+    // Attributes
+    private final int m_version;
+    private final boolean m_stable;
+    private final short[] m_responsibleSuperpeers;
+
+    // Constructors
+
+    /**
+     * Creates an empty instance of ResponsibilityTable (no superpeers known)
+     */
+    ResponsibilityTable() {
+        m_version = 0;
+        m_stable = false;
+        m_responsibleSuperpeers = null;
+    }
+
+    /**
+     * Creates an instance of ResponsibilityTable
+     *
+     * @param p_version
+     *         the version of this table
+     * @param p_superpeers
+     *         all superpeers (sorted)
+     * @param p_initialNumberOfSuperpeers
+     *         the number of expected superpeers
+     */
+    ResponsibilityTable(final int p_version, final short[] p_superpeers, final int p_initialNumberOfSuperpeers) {
+        int index = 0;
+
+        m_version = p_version;
+        m_stable = OverlayHelper.isOverlayStable(p_initialNumberOfSuperpeers, p_superpeers.length);
+
+        if (p_superpeers.length == 0) {
+            m_responsibleSuperpeers = null;
+        } else {
+            // Every NodeID is assigned to the superpeer with equal or next higher NodeID (ring, signed order)
+            m_responsibleSuperpeers = new short[NUMBER_OF_NODE_IDS];
+            for (int nodeID = Short.MIN_VALUE; nodeID <= Short.MAX_VALUE; nodeID++) {
+                while (index < p_superpeers.length && p_superpeers[index] < nodeID) {
+                    index++;
+                }
+                m_responsibleSuperpeers[nodeID & 0xFFFF] = p_superpeers[index == p_superpeers.length ? 0 : index];
+            }
+        }
+    }
+
+    // Methods
+
+    /**
+     * Returns the version
+     *
+     * @return the version
+     */
+    int getVersion() {
+        return m_version;
+    }
+
+    /**
+     * Checks if the table was built for a complete overlay. Otherwise, the responsible superpeer has to be checked
+     *
+     * @return true if all expected superpeers are known
+     */
+    boolean isStable() {
+        return m_stable;
+    }
+
+    /**
+     * Returns the responsible superpeer for given NodeID
+     *
+     * @param p_nodeID
+     *         the NodeID (or hash value)
+     * @return the responsible superpeer or NodeID.INVALID_ID if no superpeer is known
+     */
+    short getResponsibleSuperpeer(final short p_nodeID) {
+        if (m_responsibleSuperpeers == null) {
+            return NodeID.INVALID_ID;
+        }
+
+        return m_responsibleSuperpeers[p_nodeID & 0xFFFF];
+    }
+}
@@ -16,7 +16,6 @@
 
 package de.hhu.bsinfo.dxram.lookup.overlay;
 
-import java.util.ArrayList;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.logging.log4j.LogManager;
@@ -54,7 +53,7 @@ class SuperpeerStabilizationThread extends Thread implements MessageReceiver {
     private OverlaySuperpeer m_superpeer;
 
     private int m_initialNumberOfSuperpeers;
-    private ArrayList<Short> m_otherSuperpeers;
+    private NodeIDSet m_otherSuperpeers;
     private ReentrantReadWriteLock m_overlayLock;
 
     private short m_nodeID;
@@ -86,7 +85,7 @@ class SuperpeerStabilizationThread extends Thread implements MessageReceiver {
      */
     SuperpeerStabilizationThread(final OverlaySuperpeer p_superpeer, final short p_nodeID,
             final ReentrantReadWriteLock p_overlayLock, final int p_initialNumberOfSuperpeers,
-            final ArrayList<Short> p_superpeers, final int p_sleepInterval, final NetworkComponent p_network) {
+            final NodeIDSet p_superpeers, final int p_sleepInterval, final NetworkComponent p_network) {
         m_superpeer = p_superpeer;
 
         m_network = p_network;
@@ -296,21 +295,11 @@ class SuperpeerStabilizationThread extends Thread implements MessageReceiver {
      * Pings all peers and sends current superpeer overlay
      */
     private void pingPeers() {
-        short peer;
-        int i = 0;
-
-        m_overlayLock.readLock().lock();
-        final ArrayList<Short> peers = m_superpeer.getPeers();
-        m_overlayLock.readLock().unlock();
-
-        if (peers != null && !peers.isEmpty()) {
-            while (true) {
-                if (i < peers.size()) {
-                    peer = peers.get(i++);
-                } else {
-                    break;
-                }
+        // Snapshot, no need to lock the overlay
+        final short[] peers = m_superpeer.getPeers().toArray();
 
+        if (peers.length > 0) {
+            for (short peer : peers) {
                 LOGGER.trace("Pinging 0x%X for heartbeat protocol", peer);
 
                 try {
@@ -350,7 +339,7 @@ class SuperpeerStabilizationThread extends Thread implements MessageReceiver {
     private void gatherBackups(final short[] p_responsibleArea) {
         short currentSuperpeer;
         short oldSuperpeer;
-        ArrayList<Short> peers;
+        short[] peers;
         int numberOfNameserviceEntries;
         int numberOfStorages;
         int numberOfBarriers;
@@ -379,8 +368,8 @@ class SuperpeerStabilizationThread extends Thread implements MessageReceiver {
                 numberOfNameserviceEntries = m_superpeer.getNumberOfNameserviceEntries(currentResponsibleArea);
                 numberOfStorages = m_superpeer.getNumberOfStorages(currentResponsibleArea);
                 numberOfBarriers = m_superpeer.getNumberOfBarriers(currentResponsibleArea);
-                request = new AskAboutBackupsRequest(currentSuperpeer, peers, numberOfNameserviceEntries,
-                        numberOfStorages, numberOfBarriers);
+                request = new AskAboutBackupsRequest(currentSuperpeer, peers, m_superpeer.getLookupTreeVersions(peers),
+                        numberOfNameserviceEntries, numberOfStorages, numberOfBarriers);
                 m_overlayLock.readLock().unlock();
 
                 try {
@@ -391,7 +380,6 @@ class SuperpeerStabilizationThread extends Thread implements MessageReceiver {
                     m_overlayLock.readLock().lock();
                     currentSuperpeer = OverlayHelper.getResponsibleSuperpeer((short) (oldSuperpeer + 1),
                             m_otherSuperpeers);
-                    peers.clear();
                     continue;
                 }
 
@@ -409,8 +397,6 @@ class SuperpeerStabilizationThread extends Thread implements MessageReceiver {
                     break;
                 }
 
-                peers.clear();
-
                 oldSuperpeer = currentSuperpeer;
                 currentSuperpeer = OverlayHelper.getResponsibleSuperpeer((short) (currentSuperpeer + 1),
                         m_otherSuperpeers);
@@ -425,7 +411,6 @@ class SuperpeerStabilizationThread extends Thread implements MessageReceiver {
     private void printOverlay() {
         boolean printed = false;
         short superpeer;
-        short peer;
         StringBuilder superpeersFigure = new StringBuilder("Superpeers: ");
         StringBuilder peersFigure = new StringBuilder("Peers: ");
 
@@ -442,12 +427,9 @@ class SuperpeerStabilizationThread extends Thread implements MessageReceiver {
             superpeersFigure.append(" \'").append(NodeID.toHexString(m_nodeID)).append('\'');
         }
 
-        final ArrayList<Short> peers = m_superpeer.getPeers();
-        if (peers != null && !peers.isEmpty()) {
-            for (int i = 0; i < peers.size(); i++) {
-                peer = peers.get(i);
-                peersFigure.append(' ').append(NodeID.toHexString(peer));
-            }
+        final short[] peers = m_superpeer.getPeers().toArray();
+        for (short peer : peers) {
+            peersFigure.append(' ').append(NodeID.toHexString(peer));
         }
         m_overlayLock.readLock().unlock();
 
@@ -490,7 +472,7 @@ class SuperpeerStabilizationThread extends Thread implements MessageReceiver {
 
         m_overlayLock.readLock().lock();
         missingMetadata = m_superpeer.compareAndReturnBackups(p_askAboutBackupsRequest.getPeers(),
-                p_askAboutBackupsRequest.getNumberOfNameserviceEntries(),
+                p_askAboutBackupsRequest.getVersions(), p_askAboutBackupsRequest.getNumberOfNameserviceEntries(),
                 p_askAboutBackupsRequest.getNumberOfStorages(), p_askAboutBackupsRequest.getNumberOfBarriers());
         m_overlayLock.readLock().unlock();
 
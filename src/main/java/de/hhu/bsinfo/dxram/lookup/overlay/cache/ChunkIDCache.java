@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup.overlay.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import de.hhu.bsinfo.dxmem.data.ChunkID;
+import de.hhu.bsinfo.dxram.lookup.LookupRange;
+import de.hhu.bsinfo.dxutils.NodeID;
+
+/**
+ * Cache for ChunkID ranges with one CacheTree per creator. Ranges never span multiple creators, thus writers
+ * only contend with writers caching or invalidating ranges of the same creator. Readers do not lock at all.
+ * The max. number of cached ranges is split evenly across all creator trees (at least one range per creator).
+ */
+public final class ChunkIDCache {
+
+    // Attributes
+    private long m_ttl;
+    private long m_maxEntries;
+
+    private ConcurrentHashMap<Short, CacheTree> m_trees;
+
+    // Constructors
+
+    /**
+     * Creates an instance of ChunkIDCache
+     *
+     * @param p_ttl
+     *         the ttl for cached entries
+     * @param p_maxEntries
+     *         the maximal number of cache entries of all creators
+     */
+    public ChunkIDCache(final long p_ttl, final long p_maxEntries) {
+        m_ttl = p_ttl;
+        m_maxEntries = p_maxEntries;
+
+        m_trees = new ConcurrentHashMap<>();
+    }
+
+    // Methods
+
+    /**
+     * Removes all cached entries
+     */
+    public void clear() {
+        for (CacheTree tree : m_trees.values()) {
+            tree.clear();
+        }
+    }
+
+    /**
+     * Removes all cached entries and trees
+     */
+    public void close() {
+        for (CacheTree tree : m_trees.values()) {
+            tree.close();
+        }
+        m_trees.clear();
+    }
+
+    /**
+     * Returns the primary peer for given object
+     *
+     * @param p_chunkID
+     *         ChunkID of requested object
+     * @return the NodeID of the primary peer for given object or NodeID.INVALID_ID if not cached
+     */
+    public short getPrimaryPeer(final long p_chunkID) {
+        return getTree(ChunkID.getCreatorID(p_chunkID)).getPrimaryPeer(p_chunkID);
+    }
+
+    /**
+     * Returns the range given ChunkID is in
+     *
+     * @param p_chunkID
+     *         ChunkID of requested object
+     * @return the first and last ChunkID of the range or null if not cached
+     */
+    public LookupRange getMetadata(final long p_chunkID) {
+        return getTree(ChunkID.getCreatorID(p_chunkID)).getMetadata(p_chunkID);
+    }
+
+    /**
+     * Caches a range
+     *
+     * @param p_startCID
+     *         the first ChunkID
+     * @param p_endCID
+     *         the last ChunkID (same creator as the first ChunkID)
+     * @param p_nodeID
+     *         the primary peer
+     * @return true if insertion was successful
+     */
+    public boolean cacheRange(final long p_startCID, final long p_endCID, final short p_nodeID) {
+        return getTree(ChunkID.getCreatorID(p_startCID)).cacheRange(p_startCID, p_endCID, p_nodeID);
+    }
+
+    /**
+     * Removes given ChunkID from cache
+     *
+     * @param p_chunkID
+     *         the ChunkID
+     */
+    public void invalidateChunkID(final long p_chunkID) {
+        CacheTree tree = m_trees.get(ChunkID.getCreatorID(p_chunkID));
+
+        if (tree != null) {
+            tree.invalidateChunkID(p_chunkID);
+        }
+    }
+
+    /**
+     * Removes ChunkID range with given ChunkID from cache
+     *
+     * @param p_chunkID
+     *         the ChunkID
+     */
+    public void invalidateRange(final long p_chunkID) {
+        CacheTree tree = m_trees.get(ChunkID.getCreatorID(p_chunkID));
+
+        if (tree != null) {
+            tree.invalidateRange(p_chunkID);
+        }
+    }
+
+    /**
+     * Removes all ChunkIDs of given peer from cache
+     *
+     * @param p_nodeID
+     *         the NodeID
+     */
+    public void invalidatePeer(final short p_nodeID) {
+        for (CacheTree tree : m_trees.values()) {
+            tree.invalidatePeer(p_nodeID);
+        }
+    }
+
+    /**
+     * Returns the number of cached ranges of all creators
+     *
+     * @return the number of cached ranges
+     */
+    public long getNumberOfCachedRanges() {
+        long ret = 0;
+
+        for (CacheTree tree : m_trees.values()) {
+            ret += tree.getNumberOfCachedRanges();
+        }
+
+        return ret;
+    }
+
+    /**
+     * Returns the tree of given creator, creates it if necessary
+     *
+     * @param p_creatorID
+     *         the creator's NodeID
+     * @return the tree
+     */
+    private CacheTree getTree(final short p_creatorID) {
+        CacheTree ret;
+
+        assert p_creatorID != NodeID.INVALID_ID;
+
+        // avoid computeIfAbsent on the read path, it might lock the bin if the tree exists already
+        ret = m_trees.get(p_creatorID);
+        if (ret == null) {
+            CacheTree tree = new CacheTree(m_ttl, getMaxEntriesPerTree(m_trees.size() + 1));
+
+            ret = m_trees.putIfAbsent(p_creatorID, tree);
+            if (ret == null) {
+                ret = tree;
+                splitMaxEntries();
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Splits the max. number of cached ranges across all trees. Trees exceeding their new share replace ranges
+     * immediately
+     */
+    private synchronized void splitMaxEntries() {
+        // The last call sees all trees created before
+        long maxEntriesPerTree = getMaxEntriesPerTree(m_trees.size());
+
+        for (CacheTree tree : m_trees.values()) {
+            tree.setMaxCachedRanges(maxEntriesPerTree);
+        }
+    }
+
+    /**
+     * Returns the share of the max. number of cached ranges of a single tree
+     *
+     * @param p_numberOfTrees
+     *         the number of trees
+     * @return the max. number of cached ranges of a single tree
+     */
+    private long getMaxEntriesPerTree(final int p_numberOfTrees) {
+        return Math.max(1, m_maxEntries / p_numberOfTrees);
+    }
+}
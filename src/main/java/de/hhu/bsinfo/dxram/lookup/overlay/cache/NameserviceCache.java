@@ -0,0 +1,470 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+
+package de.hhu.bsinfo.dxram.lookup.overlay.cache;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import de.hhu.bsinfo.dxmem.data.ChunkID;
+
+/**
+ * Bounded cache for nameservice entries (id -> ChunkID) without boxing. The entries are stored in sets of eight ways
+ * (set-associative). Every set is protected by a sequence lock: readers never block and retry only if a writer
+ * modified the set concurrently. A full set evicts with CLOCK (second chance for recently read entries).
+ * Lookup results must pass a doorkeeper before they can evict an entry: ids requested only once (e.g. scans over
+ * all names) do not displace hot entries. Entries never expire but are updated or invalidated explicitly.
+ * Every set has an invalidation stamp, so lookup results are only discarded if an id of the same set was updated
+ * while the lookup was in flight.
+ */
+public final class NameserviceCache {
+
+    private static final int WAYS = 8;
+
+    // Attributes
+    private final int m_shift;
+    private final int m_numberOfSets;
+
+    private final AtomicIntegerArray m_versions;
+    private final AtomicIntegerArray m_ids;
+    private final AtomicLongArray m_chunkIDs;
+    private final AtomicIntegerArray m_referenced;
+    private final int[] m_clockHands;
+
+    private final byte[] m_doorkeeper;
+    private int m_doorkeeperEntries;
+
+    private final AtomicLongArray m_stamps;
+
+    // Constructors
+
+    /**
+     * Creates an instance of NameserviceCache
+     *
+     * @param p_maxEntries
+     *         the maximum number of entries (rounded up to a power of two)
+     */
+    public NameserviceCache(final int p_maxEntries) {
+        int sets = Integer.highestOneBit(Math.max(p_maxEntries / WAYS, 1) - 1) << 1;
+
+        m_numberOfSets = Math.max(sets, 1);
+        m_shift = Integer.SIZE - Integer.numberOfTrailingZeros(m_numberOfSets);
+
+        m_versions = new AtomicIntegerArray(m_numberOfSets);
+        m_ids = new AtomicIntegerArray(m_numberOfSets * WAYS);
+        m_chunkIDs = new AtomicLongArray(m_numberOfSets * WAYS);
+        m_referenced = new AtomicIntegerArray(m_numberOfSets * WAYS);
+        m_clockHands = new int[m_numberOfSets];
+        for (int i = 0; i < m_numberOfSets * WAYS; i++) {
+            m_chunkIDs.lazySet(i, ChunkID.INVALID_ID);
+        }
+
+        m_doorkeeper = new byte[m_numberOfSets * WAYS];
+
+        m_stamps = new AtomicLongArray(m_numberOfSets);
+    }
+
+    // Getters
+
+    /**
+     * Returns the maximum number of entries
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return m_numberOfSets * WAYS;
+    }
+
+    /**
+     * Returns the current invalidation stamp for given id. The stamp has to be taken before asking a superpeer and
+     * passed to offer() afterwards to detect updates and invalidations which raced with the request
+     *
+     * @param p_id
+     *         the nameservice id
+     * @return the stamp
+     */
+    public long getStamp(final int p_id) {
+        return m_stamps.get(set(p_id));
+    }
+
+    // Methods
+
+    /**
+     * Returns the cached ChunkID for given id
+     *
+     * @param p_id
+     *         the nameservice id
+     * @return the ChunkID or ChunkID.INVALID_ID if not cached
+     */
+    public long get(final int p_id) {
+        int set = set(p_id);
+        int base = set * WAYS;
+        int version;
+        int index;
+        long ret;
+
+        do {
+            version = m_versions.get(set);
+            index = -1;
+            ret = ChunkID.INVALID_ID;
+
+            if ((version & 1) == 0) {
+                for (int i = base; i < base + WAYS; i++) {
+                    if (m_ids.get(i) == p_id) {
+                        ret = m_chunkIDs.get(i);
+                        if (ret != ChunkID.INVALID_ID) {
+                            index = i;
+                            break;
+                        }
+                    }
+                }
+            }
+        } while ((version & 1) != 0 || m_versions.get(set) != version);
+
+        // avoid writing the shared flag on every hit
+        if (index != -1 && m_referenced.get(index) == 0) {
+            m_referenced.lazySet(index, 1);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Caches an entry which is known to be valid (e.g. inserted by this peer). Evicts an entry if necessary
+     *
+     * @param p_id
+     *         the nameservice id
+     * @param p_chunkID
+     *         the ChunkID
+     */
+    public void put(final int p_id, final long p_chunkID) {
+        if (p_chunkID == ChunkID.INVALID_ID) {
+            invalidate(p_id);
+            return;
+        }
+
+        int set = set(p_id);
+
+        lock(set);
+        try {
+            m_stamps.incrementAndGet(set);
+            store(set, p_id, p_chunkID, true);
+        } finally {
+            unlock(set);
+        }
+    }
+
+    /**
+     * Caches multiple entries which are known to be valid (e.g. inserted by this peer). The entries are grouped by
+     * set to lock every set only once. Entries with ChunkID.INVALID_ID are invalidated
+     *
+     * @param p_ids
+     *         the nameservice ids
+     * @param p_chunkIDs
+     *         the ChunkIDs (same order as ids)
+     */
+    public void putAll(final int[] p_ids, final long[] p_chunkIDs) {
+        storeAll(p_ids, p_chunkIDs, true);
+    }
+
+    /**
+     * Replaces the ChunkIDs of multiple cached entries (e.g. on a superpeer notification). Entries which are not
+     * cached are not inserted. The entries are grouped by set to lock every set only once
+     *
+     * @param p_ids
+     *         the nameservice ids
+     * @param p_chunkIDs
+     *         the new ChunkIDs or ChunkID.INVALID_ID to invalidate entries (same order as ids)
+     */
+    public void updateAll(final int[] p_ids, final long[] p_chunkIDs) {
+        storeAll(p_ids, p_chunkIDs, false);
+    }
+
+    /**
+     * Stores or replaces multiple entries. The entries are grouped by set to lock every set only once
+     *
+     * @param p_ids
+     *         the nameservice ids
+     * @param p_chunkIDs
+     *         the ChunkIDs (same order as ids)
+     * @param p_insert
+     *         whether entries which are not cached are inserted
+     */
+    private void storeAll(final int[] p_ids, final long[] p_chunkIDs, final boolean p_insert) {
+        // set in upper, index in lower half; sets are non-negative
+        long[] order = new long[p_ids.length];
+        int i = 0;
+
+        for (int j = 0; j < p_ids.length; j++) {
+            order[j] = (long) set(p_ids[j]) << 32 | j;
+        }
+        Arrays.sort(order);
+
+        while (i < order.length) {
+            int set = (int) (order[i] >>> 32);
+
+            lock(set);
+            try {
+                m_stamps.incrementAndGet(set);
+
+                for (; i < order.length && (int) (order[i] >>> 32) == set; i++) {
+                    int index = (int) order[i];
+
+                    if (!p_insert || p_chunkIDs[index] == ChunkID.INVALID_ID) {
+                        replace(set, p_ids[index], p_chunkIDs[index]);
+                    } else {
+                        store(set, p_ids[index], p_chunkIDs[index], true);
+                    }
+                }
+            } finally {
+                unlock(set);
+            }
+        }
+    }
+
+    /**
+     * Offers a lookup result to the cache. The entry is not cached if it was updated or invalidated since the
+     * stamp was taken. If the set is full, the entry is only admitted if the id was requested before recently
+     *
+     * @param p_id
+     *         the nameservice id
+     * @param p_chunkID
+     *         the ChunkID returned by the superpeer
+     * @param p_stamp
+     *         the stamp taken before asking the superpeer
+     * @return true if the entry was cached
+     */
+    public boolean offer(final int p_id, final long p_chunkID, final long p_stamp) {
+        boolean ret;
+
+        if (p_chunkID == ChunkID.INVALID_ID) {
+            return false;
+        }
+
+        int set = set(p_id);
+        lock(set);
+        try {
+            // checked while holding the set lock: updates of this set increase the stamp while holding it
+            ret = m_stamps.get(set) == p_stamp && store(set, p_id, p_chunkID, admit(p_id));
+        } finally {
+            unlock(set);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Replaces the ChunkID of a cached entry (e.g. on a superpeer notification). Entries which are not cached are
+     * not inserted to avoid caching all entries of the nameservice
+     *
+     * @param p_id
+     *         the nameservice id
+     * @param p_chunkID
+     *         the new ChunkID or ChunkID.INVALID_ID to invalidate the entry
+     */
+    public void update(final int p_id, final long p_chunkID) {
+        int set = set(p_id);
+
+        lock(set);
+        try {
+            m_stamps.incrementAndGet(set);
+            replace(set, p_id, p_chunkID);
+        } finally {
+            unlock(set);
+        }
+    }
+
+    /**
+     * Removes an entry
+     *
+     * @param p_id
+     *         the nameservice id
+     */
+    public void invalidate(final int p_id) {
+        update(p_id, ChunkID.INVALID_ID);
+    }
+
+    /**
+     * Removes all entries
+     */
+    public void clear() {
+        for (int set = 0; set < m_numberOfSets; set++) {
+            lock(set);
+            try {
+                m_stamps.incrementAndGet(set);
+
+                for (int i = set * WAYS; i < (set + 1) * WAYS; i++) {
+                    m_chunkIDs.set(i, ChunkID.INVALID_ID);
+                    m_referenced.lazySet(i, 0);
+                }
+            } finally {
+                unlock(set);
+            }
+        }
+    }
+
+    /**
+     * Returns the set for given id
+     *
+     * @param p_id
+     *         the nameservice id
+     * @return the set index
+     */
+    private int set(final int p_id) {
+        // Fibonacci hashing, the ids are often consecutive
+        return m_shift == Integer.SIZE ? 0 : p_id * 0x9E3779B9 >>> m_shift;
+    }
+
+    /**
+     * Locks a set for writing (odd version)
+     *
+     * @param p_set
+     *         the set index
+     */
+    private void lock(final int p_set) {
+        int version;
+
+        while (true) {
+            version = m_versions.get(p_set);
+            if ((version & 1) == 0 && m_versions.compareAndSet(p_set, version, version + 1)) {
+                return;
+            }
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Unlocks a set (even version)
+     *
+     * @param p_set
+     *         the set index
+     */
+    private void unlock(final int p_set) {
+        m_versions.incrementAndGet(p_set);
+    }
+
+    /**
+     * Searches an id in a locked set
+     *
+     * @param p_set
+     *         the set index
+     * @param p_id
+     *         the nameservice id
+     * @return the index of the way or -1 if not cached
+     */
+    private int find(final int p_set, final int p_id) {
+        for (int i = p_set * WAYS; i < (p_set + 1) * WAYS; i++) {
+            if (m_ids.get(i) == p_id && m_chunkIDs.get(i) != ChunkID.INVALID_ID) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Replaces the ChunkID of a cached entry in a locked set
+     *
+     * @param p_set
+     *         the set index
+     * @param p_id
+     *         the nameservice id
+     * @param p_chunkID
+     *         the new ChunkID or ChunkID.INVALID_ID to invalidate the entry
+     */
+    private void replace(final int p_set, final int p_id, final long p_chunkID) {
+        int index = find(p_set, p_id);
+
+        if (index != -1) {
+            m_chunkIDs.set(index, p_chunkID);
+        }
+    }
+
+    /**
+     * Stores an entry in a locked set
+     *
+     * @param p_set
+     *         the set index
+     * @param p_id
+     *         the nameservice id
+     * @param p_chunkID
+     *         the ChunkID
+     * @param p_evict
+     *         whether an entry may be evicted if the set is full
+     * @return true if the entry was stored
+     */
+    private boolean store(final int p_set, final int p_id, final long p_chunkID, final boolean p_evict) {
+        int base = p_set * WAYS;
+        int index = find(p_set, p_id);
+
+        if (index == -1) {
+            for (int i = base; i < base + WAYS; i++) {
+                if (m_chunkIDs.get(i) == ChunkID.INVALID_ID) {
+                    index = i;
+                    break;
+                }
+            }
+        }
+
+        if (index == -1) {
+            if (!p_evict) {
+                return false;
+            }
+
+            // CLOCK: skip and reset recently read entries, terminates after one round at the latest
+            int hand = m_clockHands[p_set];
+            while (m_referenced.get(base + hand) != 0) {
+                m_referenced.lazySet(base + hand, 0);
+                hand = (hand + 1) % WAYS;
+            }
+            index = base + hand;
+            m_clockHands[p_set] = (hand + 1) % WAYS;
+        }
+
+        m_ids.set(index, p_id);
+        m_chunkIDs.set(index, p_chunkID);
+        m_referenced.lazySet(index, 0);
+
+        return true;
+    }
+
+    /**
+     * Checks if an id was offered before (since the last reset of the doorkeeper). Races between sets only lose
+     * or duplicate single marks, which is acceptable for a heuristic
+     *
+     * @param p_id
+     *         the nameservice id
+     * @return true if the id may evict an entry
+     */
+    private boolean admit(final int p_id) {
+        int index = (p_id ^ p_id >>> 16) & (m_doorkeeper.length - 1);
+
+        if (m_doorkeeper[index] != 0) {
+            return true;
+        }
+
+        m_doorkeeper[index] = 1;
+        // reset after the doorkeeper filled up to keep the false positive rate low
+        if (++m_doorkeeperEntries >= m_doorkeeper.length / 2) {
+            Arrays.fill(m_doorkeeper, (byte) 0);
+            m_doorkeeperEntries = 0;
+        }
+
+        return false;
+    }
+}
@@ -19,7 +19,7 @@ package de.hhu.bsinfo.dxram.lookup.overlay.storage;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -30,12 +30,14 @@ import de.hhu.bsinfo.dxmem.data.ChunkID;
 import de.hhu.bsinfo.dxram.backup.BackupRange;
 import de.hhu.bsinfo.dxram.lookup.LookupRange;
 import de.hhu.bsinfo.dxram.lookup.LookupState;
+import de.hhu.bsinfo.dxram.lookup.overlay.NodeIDSet;
 import de.hhu.bsinfo.dxram.lookup.overlay.OverlayHelper;
 import de.hhu.bsinfo.dxram.lookup.overlay.storage.SuperpeerStorage.Status;
 import de.hhu.bsinfo.dxutils.NodeID;
 
 /**
- * Wrapper class for all data of one superpeer
+ * Wrapper class for all data of one superpeer. Nameservice entries, storages, barriers and every peer's lookup tree
+ * are locked separately, i.e. modifying one peer's lookup tree does not block lookups for other peers
  *
  * @author Kevin Beineke, kevin.beineke@hhu.de, 06.10.2016
  */
@@ -43,15 +45,24 @@ public final class MetadataHandler {
 
     private static final Logger LOGGER = LogManager.getFormatterLogger(MetadataHandler.class.getSimpleName());
 
+    private static final byte LOOKUP_TREE_SNAPSHOT = 0;
+    private static final byte LOOKUP_TREE_DELTA = 1;
+
+    // Returned instead of a version if a lookup tree is missing
+    public static final long NO_LOOKUP_TREE = Long.MIN_VALUE;
+
     // Attributes
-    private PeerHandler[] m_peerHandlers;
+    // Peer handlers are locked individually, the array itself is modified lock-free
+    private AtomicReferenceArray<PeerHandler> m_peerHandlers;
     private NameserviceHashTable m_nameservice;
     private SuperpeerStorage m_storage;
     private BarriersTable m_barriers;
 
-    private ArrayList<Short> m_assignedPeersIncludingBackups;
+    private NodeIDSet m_assignedPeersIncludingBackups;
 
-    private ReadWriteLock m_dataLock;
+    private ReadWriteLock m_nameserviceLock;
+    private ReadWriteLock m_storageLock;
+    private ReadWriteLock m_barriersLock;
 
     // Constructors
 
@@ -71,15 +82,17 @@ public final class MetadataHandler {
      */
     public MetadataHandler(final PeerHandler[] p_peerHandlers, final NameserviceHashTable p_nameservice,
             final SuperpeerStorage p_storage, final BarriersTable p_barriers,
-            final ArrayList<Short> p_assignedPeersIncludingBackups) {
-        m_peerHandlers = p_peerHandlers;
+            final NodeIDSet p_assignedPeersIncludingBackups) {
+        m_peerHandlers = new AtomicReferenceArray<>(p_peerHandlers);
         m_nameservice = p_nameservice;
         m_storage = p_storage;
         m_barriers = p_barriers;
 
         m_assignedPeersIncludingBackups = p_assignedPeersIncludingBackups;
 
-        m_dataLock = new ReentrantReadWriteLock(false);
+        m_nameserviceLock = new ReentrantReadWriteLock(false);
+        m_storageLock = new ReentrantReadWriteLock(false);
+        m_barriersLock = new ReentrantReadWriteLock(false);
     }
 
     /**
@@ -89,7 +102,7 @@ public final class MetadataHandler {
      *         the peer's NodeID
      */
     public PeerState getState(final short p_nodeID) {
-        return m_peerHandlers[p_nodeID & 0xFFFF].getState();
+        return m_peerHandlers.get(p_nodeID & 0xFFFF).getState();
     }
 
     /**
@@ -101,8 +114,10 @@ public final class MetadataHandler {
      *         the new state
      */
     public void setState(final short p_nodeID, final PeerState p_state) {
-        if (m_peerHandlers[p_nodeID & 0xFFFF] != null) {
-            m_peerHandlers[p_nodeID & 0xFFFF].setState(p_state);
+        PeerHandler peerHandler = m_peerHandlers.get(p_nodeID & 0xFFFF);
+
+        if (peerHandler != null) {
+            peerHandler.setState(p_state);
         }
     }
 
@@ -114,9 +129,9 @@ public final class MetadataHandler {
     public Status getStorageStatus() {
         Status ret;
 
-        m_dataLock.readLock().lock();
+        m_storageLock.readLock().lock();
         ret = m_storage.getStatus();
-        m_dataLock.readLock().unlock();
+        m_storageLock.readLock().unlock();
 
         return ret;
     }
@@ -129,9 +144,9 @@ public final class MetadataHandler {
     public byte[] getAllNameserviceEntries(final short p_predecessor, final short p_nodeID) {
         byte[] ret;
 
-        m_dataLock.readLock().lock();
+        m_nameserviceLock.readLock().lock();
         ret = m_nameservice.receiveMetadataInRange(p_predecessor, p_nodeID);
-        m_dataLock.readLock().unlock();
+        m_nameserviceLock.readLock().unlock();
 
         return ret;
     }
@@ -147,108 +162,64 @@ public final class MetadataHandler {
      * @lock overlay lock must be read-locked
      */
     public byte[] receiveMetadataInRange(final short p_beginOfArea, final short p_endOfArea) {
-        int size;
-        int count = 0;
         int index;
         int startIndex;
+        short[] assignedPeers;
         short currentPeer;
         byte[] ret;
         byte[] nameserviceEntries;
         byte[] storages;
         byte[] barriers;
-        ByteBuffer data;
-        PeerHandler peerHandler;
-
-        m_dataLock.readLock().lock();
+        byte[] lookupTree;
+        ArrayList<byte[]> lookupTrees;
 
         LOGGER.trace("Serializing metadata of area: 0x%X, 0x%X", p_beginOfArea, p_endOfArea);
 
         // Get all corresponding nameservice entries
+        m_nameserviceLock.readLock().lock();
         nameserviceEntries = m_nameservice.receiveMetadataInRange(p_beginOfArea, p_endOfArea);
+        m_nameserviceLock.readLock().unlock();
         // Get all corresponding storages
+        m_storageLock.readLock().lock();
         storages = m_storage.receiveMetadataInRange(p_beginOfArea, p_endOfArea);
+        m_storageLock.readLock().unlock();
         // Get all corresponding barriers
+        m_barriersLock.readLock().lock();
         barriers = m_barriers.receiveMetadataInRange(p_beginOfArea, p_endOfArea);
+        m_barriersLock.readLock().unlock();
 
-        // Get all corresponding lookup trees
-        size = nameserviceEntries.length + storages.length + barriers.length + Integer.BYTES * 4;
-        if (!m_assignedPeersIncludingBackups.isEmpty()) {
+        // Get snapshots of all corresponding lookup trees
+        lookupTrees = new ArrayList<>();
+        assignedPeers = m_assignedPeersIncludingBackups.toArray();
+        if (assignedPeers.length > 0) {
             // Find beginning
-            index = Collections.binarySearch(m_assignedPeersIncludingBackups, p_beginOfArea);
-            if (index < 0) {
-                index = index * -1 - 1;
-                if (index == m_assignedPeersIncludingBackups.size()) {
-                    index = 0;
-                }
-            }
+            index = NodeIDSet.ceilingIndex(assignedPeers, p_beginOfArea);
 
-            // Iterate over assigned peers and count lookup tree sizes
+            // Iterate over assigned peers and serialize lookup trees
             startIndex = index;
-            currentPeer = m_assignedPeersIncludingBackups.get(index++);
+            currentPeer = assignedPeers[index++];
             while (OverlayHelper.isPeerInSuperpeerRange(currentPeer, p_beginOfArea, p_endOfArea)) {
-                peerHandler = getPeerHandler(currentPeer);
+                lookupTree = serializePeerHandler(currentPeer);
                 // no tree available -> no chunks were created or backup system is deactivated
-                if (peerHandler != null) {
-                    size += peerHandler.getSize();
-                    count++;
-                }
+                if (lookupTree != null) {
 
-                if (index == m_assignedPeersIncludingBackups.size()) {
-                    index = 0;
-                }
-                if (index == startIndex) {
-                    break;
-                }
-                currentPeer = m_assignedPeersIncludingBackups.get(index++);
-            }
-
-            // Allocate array for all data and copy already gathered data
-            ret = new byte[size];
-            data = ByteBuffer.wrap(ret);
-            data.putInt(nameserviceEntries.length);
-            data.put(nameserviceEntries);
-            data.putInt(storages.length);
-            data.put(storages);
-            data.putInt(barriers.length);
-            data.put(barriers);
-
-            // Iterate over assigned peers and write lookup trees
-            data.putInt(count);
-            index = startIndex;
-            currentPeer = m_assignedPeersIncludingBackups.get(index++);
-            while (OverlayHelper.isPeerInSuperpeerRange(currentPeer, p_beginOfArea, p_endOfArea)) {
-
-                LOGGER.trace("Including LookupTree of 0x%X", currentPeer);
+                    LOGGER.trace("Including LookupTree of 0x%X", currentPeer);
 
-                peerHandler = getPeerHandler(currentPeer);
-                // no tree available -> no chunks were created or backup system is deactivated
-                if (peerHandler != null) {
-                    data.putShort(currentPeer);
-                    peerHandler.receiveMetadata(data);
+                    lookupTrees.add(lookupTree);
                 }
 
-                if (index == m_assignedPeersIncludingBackups.size()) {
+                if (index == assignedPeers.length) {
                     index = 0;
                 }
                 if (index == startIndex) {
                     break;
                 }
-                currentPeer = m_assignedPeersIncludingBackups.get(index++);
+                currentPeer = assignedPeers[index++];
             }
-        } else {
-            // There might be data in given area even without any assigned peer
-
-            // Allocate array for all data and copy gathered data
-            ret = new byte[size];
-            data = ByteBuffer.wrap(ret);
-            data.putInt(nameserviceEntries.length);
-            data.put(nameserviceEntries);
-            data.putInt(storages.length);
-            data.put(storages);
-            data.putInt(barriers.length);
-            data.put(barriers);
         }
-        m_dataLock.readLock().unlock();
+        // There might be data in given area even without any assigned peer
+
+        ret = assembleMetadata(nameserviceEntries, storages, barriers, lookupTrees);
 
         // If there is no metadata in given area, return an empty array
         if (ret.length == Integer.BYTES * 4) {
@@ -264,63 +235,42 @@ public final class MetadataHandler {
      * @return all metadata in a byte array
      */
     public byte[] receiveAllMetadata() {
-        int size;
-        int count = 0;
         byte[] ret;
         byte[] nameserviceEntries;
         byte[] storages;
         byte[] barriers;
-        PeerHandler peerHandler;
-        ByteBuffer data;
-
-        m_dataLock.readLock().lock();
+        byte[] lookupTree;
+        ArrayList<byte[]> lookupTrees;
 
         LOGGER.trace("Serializing all metadata");
 
         // Get all nameservice entries
+        m_nameserviceLock.readLock().lock();
         nameserviceEntries = m_nameservice.receiveAllMetadata();
+        m_nameserviceLock.readLock().unlock();
         // Get all storages
+        m_storageLock.readLock().lock();
         storages = m_storage.receiveAllMetadata();
+        m_storageLock.readLock().unlock();
         // Get all barriers
+        m_barriersLock.readLock().lock();
         barriers = m_barriers.receiveAllMetadata();
+        m_barriersLock.readLock().unlock();
 
-        // Get all nameservice entries
-        size = nameserviceEntries.length + storages.length + barriers.length + Integer.BYTES * 4;
-
-        // Iterate over all peers and count lookup tree sizes
-        for (int i = 0; i < Short.MAX_VALUE * 2; i++) {
-            peerHandler = getPeerHandler((short) i);
-            // no tree available -> no chunks were created or backup system is deactivated
-            if (peerHandler != null) {
-                size += peerHandler.getSize();
-                count++;
-            }
-        }
-
-        // Allocate array for all data and copy already gathered data
-        ret = new byte[size];
-        data = ByteBuffer.wrap(ret);
-        data.putInt(nameserviceEntries.length);
-        data.put(nameserviceEntries);
-        data.putInt(storages.length);
-        data.put(storages);
-        data.putInt(barriers.length);
-        data.put(barriers);
-
-        // Iterate over all peers and write lookup trees
-        data.putInt(count);
+        // Iterate over all peers and serialize lookup trees
+        lookupTrees = new ArrayList<>();
         for (int i = 0; i < Short.MAX_VALUE * 2; i++) {
-            peerHandler = getPeerHandler((short) i);
+            lookupTree = serializePeerHandler((short) i);
             // no tree available -> no chunks were created or backup system is deactivated
-            if (peerHandler != null) {
+            if (lookupTree != null) {
 
                 LOGGER.trace("Including LookupTree of 0x%X", (short) i);
 
-                data.putShort((short) i);
-                peerHandler.receiveMetadata(data);
+                lookupTrees.add(lookupTree);
             }
         }
-        m_dataLock.readLock().unlock();
+
+        ret = assembleMetadata(nameserviceEntries, storages, barriers, lookupTrees);
 
         // If there is no metadata, return an empty array
         if (ret.length == Integer.BYTES * 4) {
@@ -340,9 +290,9 @@ public final class MetadataHandler {
     public int getNumberOfNameserviceEntries(final short[] p_responsibleArea) {
         int ret;
 
-        m_dataLock.readLock().lock();
+        m_nameserviceLock.readLock().lock();
         ret = m_nameservice.quantifyMetadata(p_responsibleArea[0], p_responsibleArea[1]);
-        m_dataLock.readLock().unlock();
+        m_nameserviceLock.readLock().unlock();
 
         return ret;
     }
@@ -357,9 +307,9 @@ public final class MetadataHandler {
     public int getNumberOfStorages(final short[] p_responsibleArea) {
         int ret;
 
-        m_dataLock.readLock().lock();
+        m_storageLock.readLock().lock();
         ret = m_storage.quantifyMetadata(p_responsibleArea[0], p_responsibleArea[1]);
-        m_dataLock.readLock().unlock();
+        m_storageLock.readLock().unlock();
 
         return ret;
     }
@@ -374,9 +324,9 @@ public final class MetadataHandler {
     public int getNumberOfBarriers(final short[] p_responsibleArea) {
         int ret;
 
-        m_dataLock.readLock().lock();
+        m_barriersLock.readLock().lock();
         ret = m_barriers.quantifyMetadata(p_responsibleArea[0], p_responsibleArea[1]);
-        m_dataLock.readLock().unlock();
+        m_barriersLock.readLock().unlock();
 
         return ret;
     }
@@ -393,25 +343,27 @@ public final class MetadataHandler {
      */
     public String getSummary(final short p_nodeID, final short p_predecessor) {
         StringBuilder ret = new StringBuilder();
-        PeerHandler peerHandler;
-
-        m_dataLock.readLock().lock();
 
+        m_nameserviceLock.readLock().lock();
         ret.append("Number of nameservice entries: ").append(m_nameservice.quantifyMetadata(p_nodeID, p_nodeID))
                 .append(", assigned: ").append(m_nameservice.quantifyMetadata(p_predecessor, p_nodeID)).append('\n');
+        m_nameserviceLock.readLock().unlock();
 
+        m_storageLock.readLock().lock();
         ret.append("Number of storages: \t\t ").append(m_storage.quantifyMetadata(p_nodeID, p_nodeID))
                 .append(", assigned: ").append(m_storage.quantifyMetadata(p_predecessor, p_nodeID)).append('\n');
+        m_storageLock.readLock().unlock();
 
+        m_barriersLock.readLock().lock();
         ret.append("Number of barriers: \t\t ").append(m_barriers.quantifyMetadata(p_nodeID, p_nodeID))
                 .append(", assigned: ").append(m_barriers.quantifyMetadata(p_predecessor, p_nodeID)).append('\n');
+        m_barriersLock.readLock().unlock();
 
         ret.append("Storing LookupTrees of following peers:\n");
 
         for (int i = 0; i < Short.MAX_VALUE * 2; i++) {
-            peerHandler = getPeerHandler((short) i);
             // no tree available -> no chunks were created or backup system is deactivated
-            if (peerHandler != null) {
+            if (getPeerHandler((short) i) != null) {
                 if (OverlayHelper.isPeerInSuperpeerRange((short) i, p_predecessor, p_nodeID)) {
                     ret.append("--> ").append(NodeID.toHexString((short) i));
                 } else {
@@ -420,17 +372,43 @@ public final class MetadataHandler {
             }
         }
 
-        m_dataLock.readLock().unlock();
-
         return ret.toString();
     }
 
     /**
-     * Compares given peer list with local list and returns all missing backup data between this superpeer and his
-     * predecessor.
+     * Returns the versions of the lookup trees of given peers
      *
      * @param p_peers
-     *         all peers the requesting superpeer stores backups for
+     *         the peers
+     * @return the version of every peer's lookup tree or PeerHandler.UNKNOWN_VERSION if there is none
+     */
+    public long[] getLookupTreeVersions(final short[] p_peers) {
+        long[] ret;
+        PeerHandler peerHandler;
+
+        ret = new long[p_peers.length];
+        for (int i = 0; i < p_peers.length; i++) {
+            peerHandler = readLockPeerHandler(p_peers[i]);
+            if (peerHandler != null) {
+                ret[i] = peerHandler.getVersion();
+                peerHandler.getLock().readLock().unlock();
+            } else {
+                ret[i] = PeerHandler.UNKNOWN_VERSION;
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Compares given peer list with local list and returns all missing or outdated backup data between this
+     * superpeer and his predecessor.
+     *
+     * @param p_peers
+     *         all peers the requesting superpeer stores backups for (sorted)
+     * @param p_versions
+     *         the versions of the requesting superpeer's lookup trees (same order as p_peers,
+     *         PeerHandler.UNKNOWN_VERSION if there is none or it might differ)
      * @param p_numberOfNameserviceEntries
      *         the number of expected nameservice entries
      * @param p_numberOfStorages
@@ -441,156 +419,86 @@ public final class MetadataHandler {
      *         the predecessor
      * @param p_nodeID
      *         the own NodeID
-     * @return the backup data of missing peers in given peer list
+     * @return the backup data of missing peers in given peer list and of peers with outdated lookup trees
      * @lock overlay lock must be read-locked
      */
-    public byte[] compareAndReturnBackups(final ArrayList<Short> p_peers, final int p_numberOfNameserviceEntries,
+    public byte[] compareAndReturnBackups(final short[] p_peers, final long[] p_versions,
+            final int p_numberOfNameserviceEntries,
             final int p_numberOfStorages, final int p_numberOfBarriers, final short p_predecessor,
             final short p_nodeID) {
-        int size;
-        int count = 0;
         int index;
         int startIndex;
+        int peerIndex;
+        short[] assignedPeers;
         short currentPeer;
         byte[] ret;
         byte[] nameserviceEntries = null;
         byte[] storages = null;
         byte[] barriers = null;
-        ByteBuffer data;
-        PeerHandler peerHandler;
-
-        m_dataLock.readLock().lock();
+        byte[] lookupTree;
+        ArrayList<byte[]> lookupTrees;
 
         LOGGER.trace("Compare and return metadata of area: 0x%X, 0x%X", p_predecessor, p_nodeID);
 
         // TODO: Inefficient to send all data (nameservice, storages, barriers) in corresponding area if quantity
         // differs
-        size = 4 * Integer.BYTES;
         // Compare number of actual nameservice entries with expected number
+        m_nameserviceLock.readLock().lock();
         if (m_nameservice.quantifyMetadata(p_predecessor, p_nodeID) != p_numberOfNameserviceEntries) {
             // Get all corresponding nameservice entries
             nameserviceEntries = m_nameservice.receiveMetadataInRange(p_predecessor, p_nodeID);
-            size += nameserviceEntries.length;
         }
+        m_nameserviceLock.readLock().unlock();
         // Compare number of actual storages with expected number
+        m_storageLock.readLock().lock();
         if (m_storage.quantifyMetadata(p_predecessor, p_nodeID) != p_numberOfStorages) {
             // Get all corresponding storages
             storages = m_storage.receiveMetadataInRange(p_predecessor, p_nodeID);
-            size += storages.length;
         }
+        m_storageLock.readLock().unlock();
         // Compare number of actual barriers with expected number
+        m_barriersLock.readLock().lock();
         if (m_barriers.quantifyMetadata(p_predecessor, p_nodeID) != p_numberOfBarriers) {
             // Get all corresponding barriers
             barriers = m_barriers.receiveMetadataInRange(p_predecessor, p_nodeID);
-            size += barriers.length;
         }
+        m_barriersLock.readLock().unlock();
 
-        // Get all corresponding lookup trees
-        if (!m_assignedPeersIncludingBackups.isEmpty()) {
+        // Get snapshots of all corresponding lookup trees
+        lookupTrees = new ArrayList<>();
+        assignedPeers = m_assignedPeersIncludingBackups.toArray();
+        if (assignedPeers.length > 0) {
             // Find beginning
-            index = Collections.binarySearch(m_assignedPeersIncludingBackups, p_predecessor);
-            if (index < 0) {
-                index = index * -1 - 1;
-                if (index == m_assignedPeersIncludingBackups.size()) {
-                    index = 0;
-                }
-            }
+            index = NodeIDSet.ceilingIndex(assignedPeers, p_predecessor);
 
-            // Iterate over assigned peers and count lookup tree sizes
+            // Iterate over assigned peers and serialize missing and outdated lookup trees, only
             startIndex = index;
-            currentPeer = m_assignedPeersIncludingBackups.get(index++);
+            currentPeer = assignedPeers[index++];
             while (OverlayHelper.isPeerInSuperpeerRange(currentPeer, p_predecessor, p_nodeID)) {
-                if (Collections.binarySearch(p_peers, currentPeer) < 0) {
-                    peerHandler = getPeerHandler(currentPeer);
-                    // no tree available -> no chunks were created or backup system is deactivated
-                    if (peerHandler != null) {
-                        size += peerHandler.getSize();
-                        count++;
-                    }
-                }
-
-                if (index == m_assignedPeersIncludingBackups.size()) {
-                    index = 0;
-                }
-                if (index == startIndex) {
-                    break;
-                }
-                currentPeer = m_assignedPeersIncludingBackups.get(index++);
-            }
-
-            // Allocate array for all data and copy already gathered data
-            ret = new byte[size];
-            data = ByteBuffer.wrap(ret);
-            if (nameserviceEntries != null) {
-                data.putInt(nameserviceEntries.length);
-                data.put(nameserviceEntries);
-            } else {
-                data.putInt(0);
-            }
-            if (storages != null) {
-                data.putInt(storages.length);
-                data.put(storages);
-            } else {
-                data.putInt(0);
-            }
-            if (barriers != null) {
-                data.putInt(barriers.length);
-                data.put(barriers);
-            } else {
-                data.putInt(0);
-            }
-
-            // Iterate over assigned peers and write lookup trees
-            data.putInt(count);
-            index = startIndex;
-            currentPeer = m_assignedPeersIncludingBackups.get(index++);
-            while (OverlayHelper.isPeerInSuperpeerRange(currentPeer, p_predecessor, p_nodeID)) {
-                if (Collections.binarySearch(p_peers, currentPeer) < 0) {
+                peerIndex = Arrays.binarySearch(p_peers, currentPeer);
+                lookupTree = serializePeerHandler(currentPeer,
+                        peerIndex < 0 ? PeerHandler.UNKNOWN_VERSION : p_versions[peerIndex]);
+                // no tree available -> no chunks were created or backup system is deactivated
+                // or the requesting superpeer's tree is up to date
+                if (lookupTree != null) {
 
                     LOGGER.trace("Including LookupTree of 0x%X", currentPeer);
 
-                    peerHandler = getPeerHandler(currentPeer);
-                    // no tree available -> no chunks were created or backup system is deactivated
-                    if (peerHandler != null) {
-                        data.putShort(currentPeer);
-                        peerHandler.receiveMetadata(data);
-                    }
+                    lookupTrees.add(lookupTree);
                 }
 
-                if (index == m_assignedPeersIncludingBackups.size()) {
+                if (index == assignedPeers.length) {
                     index = 0;
                 }
                 if (index == startIndex) {
                     break;
                 }
-                currentPeer = m_assignedPeersIncludingBackups.get(index++);
-            }
-        } else {
-            // There might be data in given area even without any assigned peer
-
-            // Allocate array for all data and copy gathered data
-            ret = new byte[size];
-            data = ByteBuffer.wrap(ret);
-            if (nameserviceEntries != null) {
-                data.putInt(nameserviceEntries.length);
-                data.put(nameserviceEntries);
-            } else {
-                data.putInt(0);
-            }
-            if (storages != null) {
-                data.putInt(storages.length);
-                data.put(storages);
-            } else {
-                data.putInt(0);
-            }
-            if (barriers != null) {
-                data.putInt(barriers.length);
-                data.put(barriers);
-            } else {
-                data.putInt(0);
+                currentPeer = assignedPeers[index++];
             }
         }
-        m_dataLock.readLock().unlock();
+        // There might be data in given area even without any assigned peer
+
+        ret = assembleMetadata(nameserviceEntries, storages, barriers, lookupTrees);
 
         // If there is no missing metadata, return an empty array
         if (ret.length == Integer.BYTES * 4) {
@@ -613,50 +521,48 @@ public final class MetadataHandler {
         short currentPeer;
         int index;
         int startIndex;
+        short[] assignedPeers;
         int count = 0;
 
-        m_dataLock.writeLock().lock();
-
         LOGGER.trace("Deleting all uneccessary metadata outside of area: 0x%X, 0x%X", p_responsibleArea[0],
                 p_responsibleArea[1]);
 
-        if (!m_assignedPeersIncludingBackups.isEmpty()) {
-            ret = new short[m_assignedPeersIncludingBackups.size()];
-            index = Collections.binarySearch(m_assignedPeersIncludingBackups, p_responsibleArea[1]);
-            if (index < 0) {
-                index = index * -1 - 1;
-                if (index == m_assignedPeersIncludingBackups.size()) {
-                    index = 0;
-                }
-            }
+        assignedPeers = m_assignedPeersIncludingBackups.toArray();
+        if (assignedPeers.length > 0) {
+            ret = new short[assignedPeers.length];
+            index = NodeIDSet.ceilingIndex(assignedPeers, p_responsibleArea[1]);
             startIndex = index;
-            currentPeer = m_assignedPeersIncludingBackups.get(index);
+            currentPeer = assignedPeers[index];
             while (!OverlayHelper.isPeerInSuperpeerRange(currentPeer, p_responsibleArea[0], p_responsibleArea[1])) {
                 // Remove lookup tree
 
                 LOGGER.trace("Removing LookupTree of 0x%X", currentPeer);
 
-                m_peerHandlers[currentPeer & 0xFFFF] = null;
+                m_peerHandlers.set(currentPeer & 0xFFFF, null);
                 ret[count++] = currentPeer;
 
-                if (++index == m_assignedPeersIncludingBackups.size()) {
+                if (++index == assignedPeers.length) {
                     index = 0;
                 }
                 if (index == startIndex) {
                     break;
                 }
-                currentPeer = m_assignedPeersIncludingBackups.get(index);
+                currentPeer = assignedPeers[index];
             }
             ret = Arrays.copyOf(ret, count);
         }
         // Remove nameservice entries
+        m_nameserviceLock.writeLock().lock();
         m_nameservice.removeMetadataOutsideOfRange(p_responsibleArea[0], p_responsibleArea[1]);
+        m_nameserviceLock.writeLock().unlock();
         // Remove storages
+        m_storageLock.writeLock().lock();
         m_storage.removeMetadataOutsideOfRange(p_responsibleArea[0], p_responsibleArea[1]);
+        m_storageLock.writeLock().unlock();
         // Remove barriers
+        m_barriersLock.writeLock().lock();
         m_barriers.removeMetadataOutsideOfRange(p_responsibleArea[0], p_responsibleArea[1]);
-
-        m_dataLock.writeLock().unlock();
+        m_barriersLock.writeLock().unlock();
 
         return ret;
     }
@@ -672,6 +578,7 @@ public final class MetadataHandler {
         short nodeID;
         int size;
         int pos;
+        int length;
         short[] ret = null;
         PeerHandler peerHandler;
         ByteBuffer data;
@@ -679,8 +586,6 @@ public final class MetadataHandler {
         if (p_metadata != null && p_metadata.length != 0) {
             data = ByteBuffer.wrap(p_metadata);
 
-            m_dataLock.writeLock().lock();
-
             LOGGER.trace("Storing metadata. Length: %d", p_metadata.length);
 
             // Put all nameservice entries
@@ -689,7 +594,9 @@ public final class MetadataHandler {
 
             LOGGER.trace("Storing nameservice entries. Length: %d", size);
 
+            m_nameserviceLock.writeLock().lock();
             m_nameservice.storeMetadata(p_metadata, pos, size);
+            m_nameserviceLock.writeLock().unlock();
             data.position(pos + size);
 
             // Put all storages
@@ -698,7 +605,9 @@ public final class MetadataHandler {
 
             LOGGER.trace("Storing superpeer storages. Length: %d", size);
 
+            m_storageLock.writeLock().lock();
             m_storage.storeMetadata(p_metadata, pos, size);
+            m_storageLock.writeLock().unlock();
             data.position(pos + size);
 
             // Put all barriers
@@ -707,7 +616,9 @@ public final class MetadataHandler {
 
             LOGGER.trace("Storing barriers. Length: %d", size);
 
+            m_barriersLock.writeLock().lock();
             m_barriers.storeMetadata(p_metadata, pos, size);
+            m_barriersLock.writeLock().unlock();
             data.position(pos + size);
 
             // Put all lookup trees
@@ -719,15 +630,32 @@ public final class MetadataHandler {
             for (int i = 0; i < size; i++) {
                 nodeID = data.getShort();
 
-                LOGGER.trace("Storing lookup tree of 0x%X", nodeID);
+                if (data.get() == LOOKUP_TREE_DELTA) {
+                    length = data.getInt();
+                    pos = data.position();
 
-                peerHandler = new PeerHandler(OverlayHelper.ORDER, nodeID);
-                peerHandler.storeMetadata(data);
+                    LOGGER.trace("Updating lookup tree of 0x%X. Length: %d", nodeID, length);
 
-                m_peerHandlers[nodeID & 0xFFFF] = peerHandler;
+                    peerHandler = writeLockPeerHandler(nodeID);
+                    if (peerHandler != null) {
+                        if (!peerHandler.storeChanges(data)) {
+                            // Modified concurrently, the next stabilization round compares the versions again
+                            LOGGER.warn("Lookup tree of 0x%X differs from the delta's base version", nodeID);
+                        }
+                        peerHandler.getLock().writeLock().unlock();
+                    }
+                    data.position(pos + length);
+                } else {
+                    LOGGER.trace("Storing lookup tree of 0x%X", nodeID);
+
+                    // The new peer handler is not visible before it replaces the old one -> no locking needed
+                    peerHandler = new PeerHandler(OverlayHelper.ORDER, nodeID);
+                    peerHandler.storeMetadata(data);
+
+                    m_peerHandlers.set(nodeID & 0xFFFF, peerHandler);
+                }
                 ret[i] = nodeID;
             }
-            m_dataLock.writeLock().unlock();
         }
 
         return ret;
@@ -744,16 +672,17 @@ public final class MetadataHandler {
      *         the peer that recovered the backup range
      * @param p_chunkIDRanges
      *         ChunkIDs of all recovered chunks arranged in ranges
+     * @param p_version
+     *         PeerHandler.NEXT_VERSION on the responsible superpeer, PeerHandler.UNKNOWN_VERSION on backup superpeers
      */
     public void updateMetadataAfterRecovery(final short p_rangeID, final short p_creator, final short p_recoveryPeer,
-            final long[] p_chunkIDRanges) {
+            final long[] p_chunkIDRanges, final long p_version) {
+        PeerHandler peerHandler = writeLockPeerHandler(p_creator);
 
-        m_dataLock.writeLock().lock();
-        PeerHandler peerHandler = m_peerHandlers[p_creator & 0xFFFF];
         if (peerHandler != null) {
-            peerHandler.updateMetadataAfterRecovery(p_rangeID, p_recoveryPeer, p_chunkIDRanges);
+            peerHandler.updateMetadataAfterRecovery(p_rangeID, p_recoveryPeer, p_chunkIDRanges, p_version);
+            peerHandler.getLock().writeLock().unlock();
         }
-        m_dataLock.writeLock().unlock();
     }
 
     /**
@@ -763,45 +692,46 @@ public final class MetadataHandler {
      *         the creator of the backup range (not necessarily the creator of the chunks)
      * @param p_backupRange
      *         the backup range to initialize
-     * @return whether a new LookupTree was added or not
+     * @param p_version
+     *         the version assigned by the responsible superpeer or PeerHandler.NEXT_VERSION on the responsible
+     *         superpeer
+     * @return the version of the lookup tree after the initialization
      */
-    public boolean initBackupRangeInLookupTree(final short p_rangeOwner, final BackupRange p_backupRange) {
-        boolean ret = false;
+    public long initBackupRangeInLookupTree(final short p_rangeOwner, final BackupRange p_backupRange,
+            final long p_version) {
+        long ret;
         PeerHandler peerHandler;
 
-        m_dataLock.writeLock().lock();
-        peerHandler = getPeerHandler(p_rangeOwner);
-        // no tree available -> no chunks were created yet
-        if (peerHandler == null) {
+        do {
+            // no tree available -> no chunks were created yet
             // With backup activated this is the place to initialize a lookup tree
-            peerHandler = new PeerHandler(OverlayHelper.ORDER, p_rangeOwner);
-            m_peerHandlers[p_rangeOwner & 0xFFFF] = peerHandler;
-            ret = true;
-        }
+            addPeerHandler(p_rangeOwner);
+            peerHandler = writeLockPeerHandler(p_rangeOwner);
+        } while (peerHandler == null);
 
-        peerHandler.initRange(p_backupRange);
-        m_dataLock.writeLock().unlock();
+        ret = peerHandler.initRange(p_backupRange, p_version);
+        peerHandler.getLock().writeLock().unlock();
 
         return ret;
     }
 
     /**
-     * Gets corresponding lookup tree.
+     * Gets a snapshot of the corresponding lookup tree. The lookup tree is copied while the peer's handler is
+     * read-locked, modifications afterwards are not reflected in the snapshot.
      *
      * @param p_nodeID
      *         lookup tree's creator
-     * @return the lookup tree
+     * @return a copy of the lookup tree
      */
     public LookupTree getLookupTree(final short p_nodeID) {
         LookupTree ret = null;
         PeerHandler peerHandler;
 
-        m_dataLock.readLock().lock();
-        peerHandler = m_peerHandlers[p_nodeID & 0xFFFF];
+        peerHandler = readLockPeerHandler(p_nodeID);
         if (peerHandler != null) {
-            ret = peerHandler.getLookupTree();
+            ret = peerHandler.copyLookupTree();
+            peerHandler.getLock().readLock().unlock();
         }
-        m_dataLock.readLock().unlock();
 
         return ret;
     }
@@ -817,11 +747,11 @@ public final class MetadataHandler {
         LookupRange ret;
         PeerHandler peerHandler;
 
-        m_dataLock.readLock().lock();
-        peerHandler = getPeerHandler(ChunkID.getCreatorID(p_chunkID));
+        peerHandler = readLockPeerHandler(ChunkID.getCreatorID(p_chunkID));
         // no tree available -> no chunks were created or backup system is deactivated
         if (peerHandler != null) {
             ret = peerHandler.getMetadata(p_chunkID);
+            peerHandler.getLock().readLock().unlock();
         } else {
             if (!p_backupActive) {
                 // With backup deactivated a lookup tree is only created for migrations -> no migrations
@@ -832,7 +762,77 @@ public final class MetadataHandler {
                 ret = new LookupRange(LookupState.DOES_NOT_EXIST);
             }
         }
-        m_dataLock.readLock().unlock();
+
+        return ret;
+    }
+
+    /**
+     * Gets the lookup ranges following the lookup range of given ChunkID.
+     *
+     * @param p_chunkID
+     *         the ChunkID
+     * @param p_lookupRange
+     *         the lookup range of the ChunkID
+     * @param p_count
+     *         the maximum number of ranges to return
+     * @return the subsequent lookup ranges of the same creator (empty if there is no lookup tree for the creator)
+     */
+    public LookupRange[] getSubsequentLookupRangesFromLookupTree(final long p_chunkID, final LookupRange p_lookupRange,
+            final int p_count) {
+        LookupRange[] ret;
+        PeerHandler peerHandler;
+
+        peerHandler = readLockPeerHandler(ChunkID.getCreatorID(p_chunkID));
+        if (peerHandler != null) {
+            ret = peerHandler.getSubsequentMetadata(p_chunkID, p_lookupRange, p_count);
+            peerHandler.getLock().readLock().unlock();
+        } else {
+            // no tree available -> the range spans all ChunkIDs of the creator or the creator is unknown
+            ret = new LookupRange[0];
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets corresponding lookup ranges of multiple ChunkIDs with a single lock acquisition.
+     *
+     * @param p_chunkIDs
+     *         the ChunkIDs
+     * @return the lookup ranges in the order of the ChunkIDs
+     */
+    public LookupRange[] getLookupRangesFromLookupTree(final long[] p_chunkIDs, boolean p_backupActive) {
+        LookupRange[] ret;
+        PeerHandler peerHandler = null;
+        short creator;
+
+        ret = new LookupRange[p_chunkIDs.length];
+
+        for (int i = 0; i < p_chunkIDs.length; i++) {
+            creator = ChunkID.getCreatorID(p_chunkIDs[i]);
+            // keep the peer handler locked for consecutive ChunkIDs of the same creator
+            if (i == 0 || creator != ChunkID.getCreatorID(p_chunkIDs[i - 1])) {
+                if (peerHandler != null) {
+                    peerHandler.getLock().readLock().unlock();
+                }
+                peerHandler = readLockPeerHandler(creator);
+            }
+            // no tree available -> no chunks were created or backup system is deactivated
+            if (peerHandler != null) {
+                ret[i] = peerHandler.getMetadata(p_chunkIDs[i]);
+            } else {
+                if (!p_backupActive) {
+                    // With backup deactivated a lookup tree is only created for migrations -> no migrations
+                    // -> return complete range
+                    ret[i] = new LookupRange(creator, new long[] {0, (long) Math.pow(2, 48) - 1}, LookupState.OK);
+                } else {
+                    ret[i] = new LookupRange(LookupState.DOES_NOT_EXIST);
+                }
+            }
+        }
+        if (peerHandler != null) {
+            peerHandler.getLock().readLock().unlock();
+        }
 
         return ret;
     }
@@ -844,33 +844,36 @@ public final class MetadataHandler {
      *         the ChunkID
      * @param p_owner
      *         the NodeID of the new owner
-     * @return whether the ChunkID could be put or not
+     * @param p_version
+     *         the version assigned by the responsible superpeer or PeerHandler.NEXT_VERSION on the responsible
+     *         superpeer
+     * @return the version of the lookup tree after the migration or NO_LOOKUP_TREE if the ChunkID could not be put
      */
-    public boolean putChunkIDInLookupTree(final long p_chunkID, final short p_owner, final boolean p_backupActive) {
-        boolean ret;
+    public long putChunkIDInLookupTree(final long p_chunkID, final short p_owner, final boolean p_backupActive,
+            final long p_version) {
+        long ret;
         PeerHandler peerHandler;
+        short creator;
 
-        m_dataLock.writeLock().lock();
-        peerHandler = getPeerHandler(ChunkID.getCreatorID(p_chunkID));
+        creator = ChunkID.getCreatorID(p_chunkID);
+        peerHandler = writeLockPeerHandler(creator);
         // no tree available -> no chunks were created or backup system is deactivated
         if (peerHandler == null) {
-            if (!p_backupActive) {
-                // With backup deactivated this is the place to initialize a peer handler
-                short creator = ChunkID.getCreatorID(p_chunkID);
-                peerHandler = new PeerHandler(OverlayHelper.ORDER, creator);
-
-                m_peerHandlers[creator & 0xFFFF] = peerHandler;
-                return peerHandler.migrate(p_chunkID, p_owner);
+            if (p_backupActive) {
+                return NO_LOOKUP_TREE;
             }
-            m_dataLock.writeLock().unlock();
 
-            return false;
-        } else {
-            ret = peerHandler.migrate(p_chunkID, p_owner);
-            m_dataLock.writeLock().unlock();
-
-            return ret;
+            // With backup deactivated this is the place to initialize a peer handler
+            do {
+                addPeerHandler(creator);
+                peerHandler = writeLockPeerHandler(creator);
+            } while (peerHandler == null);
         }
+
+        ret = peerHandler.migrate(p_chunkID, p_owner, p_version);
+        peerHandler.getLock().writeLock().unlock();
+
+        return ret;
     }
 
     /**
@@ -882,64 +885,68 @@ public final class MetadataHandler {
      *         the last ChunkID
      * @param p_owner
      *         the NodeID of the new owner
-     * @return whether the ChunkID could be put or not
+     * @param p_version
+     *         the version assigned by the responsible superpeer or PeerHandler.NEXT_VERSION on the responsible
+     *         superpeer
+     * @return the version of the lookup tree after the migration or NO_LOOKUP_TREE if the ChunkIDs could not be put
      */
-    public boolean putChunkIDRangeInLookupTree(final long p_firstChunkID, final long p_lastChunkID, final short p_owner,
-            final boolean p_backupActive) {
-        boolean ret;
+    public long putChunkIDRangeInLookupTree(final long p_firstChunkID, final long p_lastChunkID, final short p_owner,
+            final boolean p_backupActive, final long p_version) {
+        long ret;
         PeerHandler peerHandler;
+        short creator;
 
-        m_dataLock.writeLock().lock();
-        peerHandler = getPeerHandler(ChunkID.getCreatorID(p_firstChunkID));
+        creator = ChunkID.getCreatorID(p_firstChunkID);
+        peerHandler = writeLockPeerHandler(creator);
         // no tree available -> no chunks were created or backup system is deactivated
         if (peerHandler == null) {
-            if (!p_backupActive) {
-                // With backup deactivated this is the place to initialize a peer handler
-                short creator = ChunkID.getCreatorID(p_firstChunkID);
-                peerHandler = new PeerHandler(OverlayHelper.ORDER, creator);
-
-                m_peerHandlers[creator & 0xFFFF] = peerHandler;
-                return peerHandler.migrateRange(p_firstChunkID, p_lastChunkID, p_owner);
+            if (p_backupActive) {
+                return NO_LOOKUP_TREE;
             }
-            m_dataLock.writeLock().unlock();
-
-            return false;
-        } else {
-            ret = peerHandler.migrateRange(p_firstChunkID, p_lastChunkID, p_owner);
-            m_dataLock.writeLock().unlock();
 
-            return ret;
+            // With backup deactivated this is the place to initialize a peer handler
+            do {
+                addPeerHandler(creator);
+                peerHandler = writeLockPeerHandler(creator);
+            } while (peerHandler == null);
         }
+
+        ret = peerHandler.migrateRange(p_firstChunkID, p_lastChunkID, p_owner, p_version);
+        peerHandler.getLock().writeLock().unlock();
+
+        return ret;
     }
 
     /**
      * Removes multiple ChunkIDs
      *
+     * @param p_version
+     *         the version assigned by the responsible superpeer or PeerHandler.NEXT_VERSION on the responsible
+     *         superpeer
      * @param p_chunkIDs
      *         Chunk IDs to remove
-     * @return whether the ChunkIDs could be removed or not
+     * @return the version of the lookup tree after the removal or NO_LOOKUP_TREE if the ChunkIDs could not be removed
      */
-    public boolean removeChunkIDsFromLookupTree(final boolean p_backupActive, final long... p_chunkIDs) {
+    public long removeChunkIDsFromLookupTree(final boolean p_backupActive, final long p_version,
+            final long... p_chunkIDs) {
+        long ret;
         PeerHandler peerHandler;
 
         if (p_chunkIDs.length == 0) {
-            return false;
+            return NO_LOOKUP_TREE;
         }
 
-        m_dataLock.writeLock().lock();
-        peerHandler = getPeerHandler(ChunkID.getCreatorID(p_chunkIDs[0]));
+        peerHandler = writeLockPeerHandler(ChunkID.getCreatorID(p_chunkIDs[0]));
         // no tree available -> no chunks were created or backup system is deactivated
         if (peerHandler == null) {
-            m_dataLock.writeLock().unlock();
-
             // Backup activated and no tree -> error
             // Backup deactivated and no migrations (-> tree is null) -> no need to remove ChunkIDs
-            return !p_backupActive;
+            return p_backupActive ? NO_LOOKUP_TREE : PeerHandler.UNKNOWN_VERSION;
         } else {
-            peerHandler.removeObjects(p_chunkIDs);
-            m_dataLock.writeLock().unlock();
+            ret = peerHandler.removeObjects(p_version, p_chunkIDs);
+            peerHandler.getLock().writeLock().unlock();
 
-            return true;
+            return ret;
         }
     }
 
@@ -954,13 +961,12 @@ public final class MetadataHandler {
         BackupRange[] ret = null;
         PeerHandler peerHandler;
 
-        m_dataLock.readLock().lock();
-        peerHandler = getPeerHandler(p_nodeID);
+        peerHandler = readLockPeerHandler(p_nodeID);
         // no tree available -> no chunks were created or backup system is deactivated
         if (peerHandler != null) {
             ret = peerHandler.getAllBackupRanges();
+            peerHandler.getLock().readLock().unlock();
         }
-        m_dataLock.readLock().unlock();
 
         return ret;
     }
@@ -976,19 +982,25 @@ public final class MetadataHandler {
      *         the failed peer
      * @param p_newBackupPeer
      *         the replacement
+     * @param p_version
+     *         the version assigned by the responsible superpeer or PeerHandler.NEXT_VERSION on the responsible
+     *         superpeer
+     * @return the version of the lookup tree after the replacement or NO_LOOKUP_TREE if there is no lookup tree
      */
-    public void replaceFailedPeerInLookupTree(final short p_rangeID, final short p_nodeID, final short p_failedPeer,
-            final short p_newBackupPeer) {
+    public long replaceFailedPeerInLookupTree(final short p_rangeID, final short p_nodeID, final short p_failedPeer,
+            final short p_newBackupPeer, final long p_version) {
+        long ret = NO_LOOKUP_TREE;
         PeerHandler peerHandler;
 
-        m_dataLock.writeLock().lock();
-        peerHandler = getPeerHandler(p_nodeID);
+        peerHandler = writeLockPeerHandler(p_nodeID);
         // no tree available -> no chunks were created or backup system is deactivated
         if (peerHandler != null) {
             // Replace failedPeer from specific backup peer lists
-            peerHandler.replaceBackupPeer(p_rangeID, p_failedPeer, p_newBackupPeer);
+            ret = peerHandler.replaceBackupPeer(p_rangeID, p_failedPeer, p_newBackupPeer, p_version);
+            peerHandler.getLock().writeLock().unlock();
         }
-        m_dataLock.writeLock().unlock();
+
+        return ret;
     }
 
     /**
@@ -1001,9 +1013,9 @@ public final class MetadataHandler {
     public long getNameserviceEntry(final int p_nameserviceID) {
         long ret;
 
-        m_dataLock.readLock().lock();
+        m_nameserviceLock.readLock().lock();
         ret = m_nameservice.getChunkID(p_nameserviceID);
-        m_dataLock.readLock().unlock();
+        m_nameserviceLock.readLock().unlock();
 
         return ret;
     }
@@ -1017,9 +1029,50 @@ public final class MetadataHandler {
      *         the ChunkID
      */
     public void putNameserviceEntry(final int p_nameserviceID, final long p_chunkID) {
-        m_dataLock.writeLock().lock();
+        m_nameserviceLock.writeLock().lock();
         m_nameservice.putChunkID(p_nameserviceID, p_chunkID);
-        m_dataLock.writeLock().unlock();
+        m_nameserviceLock.writeLock().unlock();
+    }
+
+    /**
+     * Gets multiple nameservice entries.
+     *
+     * @param p_nameserviceIDs
+     *         the nameservice IDs
+     * @return the ChunkIDs (same order as nameservice IDs)
+     */
+    public long[] getNameserviceEntries(final int[] p_nameserviceIDs) {
+        long[] ret = new long[p_nameserviceIDs.length];
+
+        m_nameserviceLock.readLock().lock();
+        for (int i = 0; i < p_nameserviceIDs.length; i++) {
+            ret[i] = m_nameservice.getChunkID(p_nameserviceIDs[i]);
+        }
+        m_nameserviceLock.readLock().unlock();
+
+        return ret;
+    }
+
+    /**
+     * Puts multiple nameservice entries.
+     *
+     * @param p_nameserviceIDs
+     *         the nameservice IDs
+     * @param p_chunkIDs
+     *         the ChunkIDs (same order as nameservice IDs)
+     * @return the replaced ChunkIDs (same order as nameservice IDs, ChunkID.INVALID_ID for new entries)
+     */
+    public long[] putNameserviceEntries(final int[] p_nameserviceIDs, final long[] p_chunkIDs) {
+        long[] ret = new long[p_nameserviceIDs.length];
+
+        m_nameserviceLock.writeLock().lock();
+        for (int i = 0; i < p_nameserviceIDs.length; i++) {
+            ret[i] = m_nameservice.getChunkID(p_nameserviceIDs[i]);
+            m_nameservice.putChunkID(p_nameserviceIDs[i], p_chunkIDs[i]);
+        }
+        m_nameserviceLock.writeLock().unlock();
+
+        return ret;
     }
 
     /**
@@ -1034,9 +1087,9 @@ public final class MetadataHandler {
     public int countNameserviceEntries(final short p_bound1, final short p_bound2) {
         int ret;
 
-        m_dataLock.readLock().lock();
+        m_nameserviceLock.readLock().lock();
         ret = m_nameservice.quantifyMetadata(p_bound1, p_bound2);
-        m_dataLock.readLock().unlock();
+        m_nameserviceLock.readLock().unlock();
 
         return ret;
     }
@@ -1055,9 +1108,9 @@ public final class MetadataHandler {
     public int createStorage(final int p_storageID, final int p_size) {
         int ret;
 
-        m_dataLock.writeLock().lock();
+        m_storageLock.writeLock().lock();
         ret = m_storage.create(p_storageID, p_size);
-        m_dataLock.writeLock().unlock();
+        m_storageLock.writeLock().unlock();
 
         return ret;
     }
@@ -1072,9 +1125,28 @@ public final class MetadataHandler {
     public byte[] getStorage(final int p_storageID) {
         byte[] ret;
 
-        m_dataLock.readLock().lock();
+        m_storageLock.readLock().lock();
         ret = m_storage.get(p_storageID);
-        m_dataLock.readLock().unlock();
+        m_storageLock.readLock().unlock();
+
+        return ret;
+    }
+
+    /**
+     * Gets the data of a metadata storage starting at an offset.
+     *
+     * @param p_storageID
+     *         the storage ID
+     * @param p_offset
+     *         the offset within the storage to start reading at
+     * @return the data or null if the storage does not exist or the offset is out of bounds
+     */
+    public byte[] getStorage(final int p_storageID, final int p_offset) {
+        byte[] ret;
+
+        m_storageLock.readLock().lock();
+        ret = m_storage.get(p_storageID, p_offset, Integer.MAX_VALUE);
+        m_storageLock.readLock().unlock();
 
         return ret;
     }
@@ -1091,9 +1163,9 @@ public final class MetadataHandler {
     public int putStorage(final int p_storageID, final byte[] p_data) {
         int ret;
 
-        m_dataLock.readLock().lock();
+        m_storageLock.readLock().lock();
         ret = m_storage.put(p_storageID, p_data);
-        m_dataLock.readLock().unlock();
+        m_storageLock.readLock().unlock();
 
         return ret;
     }
@@ -1108,9 +1180,9 @@ public final class MetadataHandler {
     public boolean removeStorage(final int p_storageID) {
         boolean ret;
 
-        m_dataLock.writeLock().lock();
+        m_storageLock.writeLock().lock();
         ret = m_storage.remove(p_storageID);
-        m_dataLock.writeLock().unlock();
+        m_storageLock.writeLock().unlock();
 
         return ret;
     }
@@ -1127,9 +1199,9 @@ public final class MetadataHandler {
     public int createBarrier(final short p_nodeID, final int p_size) {
         int ret;
 
-        m_dataLock.writeLock().lock();
+        m_barriersLock.writeLock().lock();
         ret = m_barriers.allocateBarrier(p_nodeID, p_size);
-        m_dataLock.writeLock().unlock();
+        m_barriersLock.writeLock().unlock();
 
         return ret;
     }
@@ -1150,9 +1222,9 @@ public final class MetadataHandler {
     public boolean changeSizeOfBarrier(final short p_nodeID, final int p_barrierID, final int p_newSize) {
         boolean ret;
 
-        m_dataLock.writeLock().lock();
+        m_barriersLock.writeLock().lock();
         ret = m_barriers.changeBarrierSize(p_nodeID, p_barrierID, p_newSize);
-        m_dataLock.writeLock().unlock();
+        m_barriersLock.writeLock().unlock();
 
         return ret;
     }
@@ -1169,9 +1241,9 @@ public final class MetadataHandler {
     public boolean removeBarrier(final short p_nodeID, final int p_barrierID) {
         boolean ret;
 
-        m_dataLock.writeLock().lock();
+        m_barriersLock.writeLock().lock();
         ret = m_barriers.freeBarrier(p_nodeID, p_barrierID);
-        m_dataLock.writeLock().unlock();
+        m_barriersLock.writeLock().unlock();
 
         return ret;
     }
@@ -1188,9 +1260,9 @@ public final class MetadataHandler {
     public boolean resetBarrier(final short p_nodeID, final int p_barrierID) {
         boolean ret;
 
-        m_dataLock.writeLock().lock();
+        m_barriersLock.writeLock().lock();
         ret = m_barriers.reset(p_nodeID, p_barrierID);
-        m_dataLock.writeLock().unlock();
+        m_barriersLock.writeLock().unlock();
 
         return ret;
     }
@@ -1212,9 +1284,9 @@ public final class MetadataHandler {
             final long p_barrierData) {
         int ret;
 
-        m_dataLock.writeLock().lock();
+        m_barriersLock.writeLock().lock();
         ret = m_barriers.signOn(p_nodeID, p_barrierID, p_nodeIDToSignOn, p_barrierData);
-        m_dataLock.writeLock().unlock();
+        m_barriersLock.writeLock().unlock();
 
         return ret;
     }
@@ -1231,9 +1303,9 @@ public final class MetadataHandler {
     public BarrierStatus getSignOnStatusOfBarrier(final short p_nodeID, final int p_barrierID) {
         BarrierStatus ret;
 
-        m_dataLock.readLock().lock();
+        m_barriersLock.readLock().lock();
         ret = m_barriers.getBarrierSignOnStatus(p_nodeID, p_barrierID);
-        m_dataLock.readLock().unlock();
+        m_barriersLock.readLock().unlock();
 
         return ret;
     }
@@ -1246,7 +1318,184 @@ public final class MetadataHandler {
      * @return the peer handler
      */
     private PeerHandler getPeerHandler(final short p_nodeID) {
-        return m_peerHandlers[p_nodeID & 0xFFFF];
+        return m_peerHandlers.get(p_nodeID & 0xFFFF);
+    }
+
+    /**
+     * Gets corresponding peer handler and read-locks it.
+     *
+     * @param p_nodeID
+     *         the creator
+     * @return the read-locked peer handler or null if there is none
+     */
+    private PeerHandler readLockPeerHandler(final short p_nodeID) {
+        PeerHandler ret;
+
+        ret = m_peerHandlers.get(p_nodeID & 0xFFFF);
+        if (ret != null) {
+            // Might be replaced or removed concurrently which is fine for reading
+            ret.getLock().readLock().lock();
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets corresponding peer handler and write-locks it.
+     *
+     * @param p_nodeID
+     *         the creator
+     * @return the write-locked peer handler or null if there is none
+     */
+    private PeerHandler writeLockPeerHandler(final short p_nodeID) {
+        PeerHandler ret;
+
+        while (true) {
+            ret = m_peerHandlers.get(p_nodeID & 0xFFFF);
+            if (ret == null) {
+                return null;
+            }
+
+            ret.getLock().writeLock().lock();
+            // Do not modify a peer handler which was replaced (e.g. by storing metadata) or removed meanwhile
+            if (m_peerHandlers.get(p_nodeID & 0xFFFF) == ret) {
+                return ret;
+            }
+            ret.getLock().writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds an empty peer handler if there is none for given creator.
+     *
+     * @param p_nodeID
+     *         the creator
+     * @return whether a new peer handler was added or not
+     */
+    private boolean addPeerHandler(final short p_nodeID) {
+        return m_peerHandlers.get(p_nodeID & 0xFFFF) == null && m_peerHandlers
+                .compareAndSet(p_nodeID & 0xFFFF, null, new PeerHandler(OverlayHelper.ORDER, p_nodeID));
+    }
+
+    /**
+     * Serializes the metadata of given peer. Only the peer's handler is locked while serializing.
+     *
+     * @param p_nodeID
+     *         the creator
+     * @return the NodeID followed by the peer's metadata or null if there is no peer handler
+     */
+    private byte[] serializePeerHandler(final short p_nodeID) {
+        return serializePeerHandler(p_nodeID, PeerHandler.UNKNOWN_VERSION);
+    }
+
+    /**
+     * Serializes the metadata of given peer if it differs from given version. Only the modifications since given
+     * version are serialized if the peer's change log reaches back to it. Only the peer's handler is locked while
+     * serializing.
+     *
+     * @param p_nodeID
+     *         the creator
+     * @param p_knownVersion
+     *         the version already known by the receiver (PeerHandler.UNKNOWN_VERSION if none or unknown)
+     * @return the NodeID followed by the peer's metadata or delta or null if there is no peer handler or the version
+     * is equal
+     */
+    private byte[] serializePeerHandler(final short p_nodeID, final long p_knownVersion) {
+        byte[] ret = null;
+        byte[] changes = null;
+        ByteBuffer data;
+        PeerHandler peerHandler;
+
+        peerHandler = readLockPeerHandler(p_nodeID);
+        if (peerHandler != null) {
+            // An unknown version never equals another one, even the own
+            if (p_knownVersion == PeerHandler.UNKNOWN_VERSION || peerHandler.getVersion() != p_knownVersion) {
+                if (p_knownVersion != PeerHandler.UNKNOWN_VERSION) {
+                    changes = peerHandler.receiveChanges(p_knownVersion);
+                }
+
+                if (changes != null) {
+                    ret = new byte[Short.BYTES + Byte.BYTES + Integer.BYTES + changes.length];
+                    data = ByteBuffer.wrap(ret);
+                    data.putShort(p_nodeID);
+                    data.put(LOOKUP_TREE_DELTA);
+                    data.putInt(changes.length);
+                    data.put(changes);
+                } else {
+                    // Change log was truncated or receiver has no tree -> full snapshot
+                    ret = new byte[peerHandler.getSize() + Byte.BYTES];
+                    data = ByteBuffer.wrap(ret);
+                    data.putShort(p_nodeID);
+                    data.put(LOOKUP_TREE_SNAPSHOT);
+                    peerHandler.receiveMetadata(data);
+                }
+            }
+            peerHandler.getLock().readLock().unlock();
+        }
+
+        return ret;
+    }
+
+    /**
+     * Assembles serialized metadata.
+     *
+     * @param p_nameserviceEntries
+     *         the serialized nameservice entries (might be null)
+     * @param p_storages
+     *         the serialized storages (might be null)
+     * @param p_barriers
+     *         the serialized barriers (might be null)
+     * @param p_lookupTrees
+     *         the serialized peer handlers
+     * @return all metadata in a byte array
+     */
+    private static byte[] assembleMetadata(final byte[] p_nameserviceEntries, final byte[] p_storages,
+            final byte[] p_barriers, final ArrayList<byte[]> p_lookupTrees) {
+        int size;
+        byte[] ret;
+        ByteBuffer data;
+
+        size = Integer.BYTES * 4;
+        if (p_nameserviceEntries != null) {
+            size += p_nameserviceEntries.length;
+        }
+        if (p_storages != null) {
+            size += p_storages.length;
+        }
+        if (p_barriers != null) {
+            size += p_barriers.length;
+        }
+        for (byte[] lookupTree : p_lookupTrees) {
+            size += lookupTree.length;
+        }
+
+        ret = new byte[size];
+        data = ByteBuffer.wrap(ret);
+        if (p_nameserviceEntries != null) {
+            data.putInt(p_nameserviceEntries.length);
+            data.put(p_nameserviceEntries);
+        } else {
+            data.putInt(0);
+        }
+        if (p_storages != null) {
+            data.putInt(p_storages.length);
+            data.put(p_storages);
+        } else {
+            data.putInt(0);
+        }
+        if (p_barriers != null) {
+            data.putInt(p_barriers.length);
+            data.put(p_barriers);
+        } else {
+            data.putInt(0);
+        }
+
+        data.putInt(p_lookupTrees.size());
+        for (byte[] lookupTree : p_lookupTrees) {
+            data.put(lookupTree);
+        }
+
+        return ret;
     }
 
 }
@@ -17,6 +17,11 @@
 package de.hhu.bsinfo.dxram.lookup.overlay.storage;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import de.hhu.bsinfo.dxmem.data.ChunkID;
 import de.hhu.bsinfo.dxram.backup.BackupRange;
@@ -27,17 +32,45 @@ import de.hhu.bsinfo.dxutils.serialization.ByteBufferImExporter;
 
 /**
  * Wrapper class for all data belonging to one peer: One Btree to store ranges, one to store backup range
- * affiliation and an ArrayList for the backup ranges
+ * affiliation and an ArrayList for the backup ranges. The last modifications are kept in a bounded change log to
+ * update backups with a delta instead of the whole lookup tree. Versions are assigned by the responsible superpeer
+ * and carried to the backup superpeers with every forwarded modification
  *
  * @author Kevin Beineke, kevin.beineke@hhu.de, 14.02.2017
  */
 public final class PeerHandler {
 
+    // Version of a lookup tree which might differ from the responsible superpeer's one (or of a missing lookup tree)
+    public static final long UNKNOWN_VERSION = -1;
+    // Passed instead of a version by the responsible superpeer to assign the next version to a modification
+    public static final long NEXT_VERSION = -2;
+
+    private static final int MAX_CHANGE_LOG_SIZE = 1024;
+    private static final int MAX_CHANGE_LOG_BYTES = 64 * 1024;
+
+    private static final byte CHANGE_MIGRATE = 0;
+    private static final byte CHANGE_MIGRATE_RANGE = 1;
+    private static final byte CHANGE_REMOVE = 2;
+    private static final byte CHANGE_REMOVE_OBJECTS = 3;
+    private static final byte CHANGE_INIT_RANGE = 4;
+    private static final byte CHANGE_REPLACE_BACKUP_PEER = 5;
+    private static final byte CHANGE_RECOVERY = 6;
+
     // Attributes
     private volatile PeerState m_state;
 
     private LookupTree m_lookupTree;
     private ArrayListLong m_backupRanges;
+    // Version of lookup tree and backup ranges assigned by the responsible superpeer. Backup superpeers adopt the
+    // version of a forwarded modification if it directly follows their own -> equal versions if the backup is up to
+    // date, UNKNOWN_VERSION if a modification was lost or reordered
+    private long m_version;
+    // Serialized modifications leading to the current version, oldest first
+    private ArrayDeque<byte[]> m_changeLog;
+    private int m_changeLogBytes;
+
+    // Guards the lookup tree and backup ranges of this peer, only
+    private ReadWriteLock m_lock;
 
     // Constructors
 
@@ -52,6 +85,9 @@ public final class PeerHandler {
 
         m_lookupTree = new LookupTree(p_order, p_creator);
         m_backupRanges = new ArrayListLong();
+        m_changeLog = new ArrayDeque<>();
+
+        m_lock = new ReentrantReadWriteLock(false);
     }
 
     // Methods
@@ -74,12 +110,40 @@ public final class PeerHandler {
     }
 
     /**
-     * Returns the lookup tree
+     * Returns the lock for the lookup tree and backup ranges
      *
-     * @return the lookup tree
+     * @return the lock
      */
-    LookupTree getLookupTree() {
-        return m_lookupTree;
+    ReadWriteLock getLock() {
+        return m_lock;
+    }
+
+    /**
+     * Returns the version (number of modifications)
+     *
+     * @return the version
+     */
+    long getVersion() {
+        return m_version;
+    }
+
+    /**
+     * Returns a copy of the lookup tree which can be used without holding the lock
+     *
+     * @return the copy
+     */
+    LookupTree copyLookupTree() {
+        LookupTree ret;
+        ByteBuffer data;
+
+        data = ByteBuffer.allocate(m_lookupTree.sizeofObject());
+        new ByteBufferImExporter(data).exportObject(m_lookupTree);
+        data.flip();
+
+        ret = new LookupTree();
+        new ByteBufferImExporter(data).importObject(ret);
+
+        return ret;
     }
 
     /**
@@ -91,8 +155,17 @@ public final class PeerHandler {
      *         the peer that recovered the backup range
      * @param p_chunkIDRanges
      *         ChunkIDs of all recovered chunks arranged in ranges
+     * @param p_version
+     *         the version assigned by the responsible superpeer, NEXT_VERSION on the responsible superpeer or
+     *         UNKNOWN_VERSION if there is none
+     * @return the version after the update
      */
-    void updateMetadataAfterRecovery(final short p_rangeID, final short p_recoveryPeer, final long[] p_chunkIDRanges) {
+    long updateMetadataAfterRecovery(final short p_rangeID, final short p_recoveryPeer, final long[] p_chunkIDRanges,
+            final long p_version) {
+        if (isContained(p_version)) {
+            return m_version;
+        }
+
         // "Migrate" recovered ChunkIDs
         for (int i = 0; i < p_chunkIDRanges.length; i += 2) {
 
@@ -105,6 +178,19 @@ public final class PeerHandler {
 
         // Invalidate backup range
         m_backupRanges.set(p_rangeID, -1);
+
+        ByteBuffer change = ByteBuffer.allocate(Byte.BYTES + Short.BYTES * 2 + Integer.BYTES +
+                p_chunkIDRanges.length * Long.BYTES);
+        change.put(CHANGE_RECOVERY);
+        change.putShort(p_rangeID);
+        change.putShort(p_recoveryPeer);
+        change.putInt(p_chunkIDRanges.length);
+        for (long chunkID : p_chunkIDRanges) {
+            change.putLong(chunkID);
+        }
+        logChange(change.array(), p_version);
+
+        return m_version;
     }
 
     /**
@@ -134,6 +220,44 @@ public final class PeerHandler {
         return ret;
     }
 
+    /**
+     * Returns the ranges following the range given ChunkID is in
+     *
+     * @param p_chunkID
+     *         ChunkID of requested object
+     * @param p_lookupRange
+     *         the range of the requested object
+     * @param p_count
+     *         the maximum number of ranges to return
+     * @return the subsequent ranges in ascending order, might be less than p_count if the end of the ChunkID space
+     * is reached
+     */
+    LookupRange[] getSubsequentMetadata(final long p_chunkID, final LookupRange p_lookupRange, final int p_count) {
+        LookupRange[] ret;
+        LookupRange range;
+        long creator;
+        int count;
+
+        if (m_state == PeerState.LOST || m_state == PeerState.IN_RECOVERY) {
+            return new LookupRange[0];
+        }
+
+        ret = new LookupRange[p_count];
+        creator = p_chunkID & 0xFFFF000000000000L;
+        range = p_lookupRange;
+        count = 0;
+        while (count < p_count && range.getRange()[1] < ChunkID.MAX_LOCALID) {
+            range = getMetadata(creator + range.getRange()[1] + 1);
+            ret[count++] = range;
+        }
+
+        if (count < p_count) {
+            ret = Arrays.copyOf(ret, count);
+        }
+
+        return ret;
+    }
+
     /**
      * Stores the migration for a single chunk
      *
@@ -141,10 +265,24 @@ public final class PeerHandler {
      *         ChunkID of migrated object
      * @param p_nodeID
      *         new primary peer
-     * @return true if insertion was successful
+     * @param p_version
+     *         the version assigned by the responsible superpeer or NEXT_VERSION on the responsible superpeer
+     * @return the version after the migration
      */
-    boolean migrate(final long p_chunkID, final short p_nodeID) {
-        return m_lookupTree.migrate(p_chunkID, p_nodeID);
+    long migrate(final long p_chunkID, final short p_nodeID, final long p_version) {
+        if (isContained(p_version)) {
+            return m_version;
+        }
+
+        m_lookupTree.migrate(p_chunkID, p_nodeID);
+
+        ByteBuffer change = ByteBuffer.allocate(Byte.BYTES + Long.BYTES + Short.BYTES);
+        change.put(CHANGE_MIGRATE);
+        change.putLong(p_chunkID);
+        change.putShort(p_nodeID);
+        logChange(change.array(), p_version);
+
+        return m_version;
     }
 
     /**
@@ -156,10 +294,25 @@ public final class PeerHandler {
      *         ChunkID of last migrated object
      * @param p_nodeID
      *         new primary peer
-     * @return true if insertion was successful
+     * @param p_version
+     *         the version assigned by the responsible superpeer or NEXT_VERSION on the responsible superpeer
+     * @return the version after the migration
      */
-    boolean migrateRange(final long p_startCID, final long p_endCID, final short p_nodeID) {
-        return m_lookupTree.migrateRange(p_startCID, p_endCID, p_nodeID);
+    long migrateRange(final long p_startCID, final long p_endCID, final short p_nodeID, final long p_version) {
+        if (isContained(p_version)) {
+            return m_version;
+        }
+
+        m_lookupTree.migrateRange(p_startCID, p_endCID, p_nodeID);
+
+        ByteBuffer change = ByteBuffer.allocate(Byte.BYTES + Long.BYTES * 2 + Short.BYTES);
+        change.put(CHANGE_MIGRATE_RANGE);
+        change.putLong(p_startCID);
+        change.putLong(p_endCID);
+        change.putShort(p_nodeID);
+        logChange(change.array(), p_version);
+
+        return m_version;
     }
 
     /**
@@ -167,22 +320,53 @@ public final class PeerHandler {
      *
      * @param p_chunkID
      *         ChunkID of deleted object
+     * @param p_version
+     *         the version assigned by the responsible superpeer or NEXT_VERSION on the responsible superpeer
+     * @return the version after the removal
      * @note should always be called if an object is deleted
      */
-    void remove(final long p_chunkID) {
+    long remove(final long p_chunkID, final long p_version) {
+        if (isContained(p_version)) {
+            return m_version;
+        }
+
         m_lookupTree.remove(p_chunkID);
+
+        ByteBuffer change = ByteBuffer.allocate(Byte.BYTES + Long.BYTES);
+        change.put(CHANGE_REMOVE);
+        change.putLong(p_chunkID);
+        logChange(change.array(), p_version);
+
+        return m_version;
     }
 
     /**
      * Removes multiple chunks from btree; only necessary for migrated chunks
      *
+     * @param p_version
+     *         the version assigned by the responsible superpeer or NEXT_VERSION on the responsible superpeer
      * @param p_chunkIDs
      *         ChunkIDs of deleted objects
+     * @return the version after the removal
      * @note should always be called if an object is deleted
      */
 
-    void removeObjects(final long... p_chunkIDs) {
+    long removeObjects(final long p_version, final long... p_chunkIDs) {
+        if (isContained(p_version)) {
+            return m_version;
+        }
+
         m_lookupTree.removeObjects(p_chunkIDs);
+
+        ByteBuffer change = ByteBuffer.allocate(Byte.BYTES + Integer.BYTES + p_chunkIDs.length * Long.BYTES);
+        change.put(CHANGE_REMOVE_OBJECTS);
+        change.putInt(p_chunkIDs.length);
+        for (long chunkID : p_chunkIDs) {
+            change.putLong(chunkID);
+        }
+        logChange(change.array(), p_version);
+
+        return m_version;
     }
 
     /**
@@ -190,9 +374,39 @@ public final class PeerHandler {
      *
      * @param p_backupRange
      *         the backup range to initialize
+     * @param p_version
+     *         the version assigned by the responsible superpeer or NEXT_VERSION on the responsible superpeer
+     * @return the version after the initialization
      */
-    void initRange(final BackupRange p_backupRange) {
-        m_backupRanges.add(p_backupRange.getRangeID(), BackupRange.convert(p_backupRange.getBackupPeers()));
+    long initRange(final BackupRange p_backupRange, final long p_version) {
+        return initRange(p_backupRange.getRangeID(), BackupRange.convert(p_backupRange.getBackupPeers()), p_version);
+    }
+
+    /**
+     * Initializes a new backup range
+     *
+     * @param p_rangeID
+     *         the RangeID
+     * @param p_backupPeers
+     *         the backup peers of the range in compact form
+     * @param p_version
+     *         the version assigned by the responsible superpeer or NEXT_VERSION on the responsible superpeer
+     * @return the version after the initialization
+     */
+    private long initRange(final short p_rangeID, final long p_backupPeers, final long p_version) {
+        if (isContained(p_version)) {
+            return m_version;
+        }
+
+        m_backupRanges.add(p_rangeID, p_backupPeers);
+
+        ByteBuffer change = ByteBuffer.allocate(Byte.BYTES + Short.BYTES + Long.BYTES);
+        change.put(CHANGE_INIT_RANGE);
+        change.putShort(p_rangeID);
+        change.putLong(p_backupPeers);
+        logChange(change.array(), p_version);
+
+        return m_version;
     }
 
     /**
@@ -204,10 +418,18 @@ public final class PeerHandler {
      *         NodeID of peer to replace
      * @param p_replacement
      *         NodeID of new backup peer
+     * @param p_version
+     *         the version assigned by the responsible superpeer or NEXT_VERSION on the responsible superpeer
+     * @return the version after the replacement
      */
-    void replaceBackupPeer(final short p_rangeID, final short p_toBeReplacedPeer, final short p_replacement) {
+    long replaceBackupPeer(final short p_rangeID, final short p_toBeReplacedPeer, final short p_replacement,
+            final long p_version) {
         long backupPeers;
 
+        if (isContained(p_version)) {
+            return m_version;
+        }
+
         if (p_toBeReplacedPeer == -1) {
             backupPeers = BackupRange.addBackupPeer(m_backupRanges.get(p_rangeID), p_replacement);
         } else {
@@ -216,6 +438,15 @@ public final class PeerHandler {
         }
 
         m_backupRanges.set(p_rangeID, backupPeers);
+
+        ByteBuffer change = ByteBuffer.allocate(Byte.BYTES + Short.BYTES * 3);
+        change.put(CHANGE_REPLACE_BACKUP_PEER);
+        change.putShort(p_rangeID);
+        change.putShort(p_toBeReplacedPeer);
+        change.putShort(p_replacement);
+        logChange(change.array(), p_version);
+
+        return m_version;
     }
 
     /**
@@ -245,6 +476,110 @@ public final class PeerHandler {
         return ret;
     }
 
+    /**
+     * Returns the modifications since given version
+     *
+     * @param p_version
+     *         the version already known by the receiver
+     * @return the state, the given version, the number of changes and all changes since given version in a byte array
+     * or null if the change log does not reach back to given version
+     */
+    byte[] receiveChanges(final long p_version) {
+        byte[] ret;
+        ByteBuffer data;
+        int skip;
+        int size;
+
+        if (p_version >= m_version || p_version < m_version - m_changeLog.size()) {
+            return null;
+        }
+
+        skip = (int) (p_version - (m_version - m_changeLog.size()));
+        size = Byte.BYTES + Long.BYTES + Integer.BYTES;
+        int i = 0;
+        for (byte[] change : m_changeLog) {
+            if (i++ >= skip) {
+                size += change.length;
+            }
+        }
+
+        ret = new byte[size];
+        data = ByteBuffer.wrap(ret);
+        data.put(serializeState());
+        data.putLong(p_version);
+        data.putInt(m_changeLog.size() - skip);
+        i = 0;
+        for (byte[] change : m_changeLog) {
+            if (i++ >= skip) {
+                data.put(change);
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Applies modifications received from the responsible superpeer
+     *
+     * @param p_data
+     *         the state, the version the modifications are based on, the number of changes and the changes
+     * @return whether the modifications were applied; false if they are not based on the current version
+     */
+    boolean storeChanges(final ByteBuffer p_data) {
+        byte state;
+        int count;
+        int length;
+        long[] chunkIDs;
+
+        state = p_data.get();
+        if (m_version == UNKNOWN_VERSION || p_data.getLong() != m_version) {
+            return false;
+        }
+        deserializeState(state);
+
+        count = p_data.getInt();
+        for (int i = 0; i < count; i++) {
+            switch (p_data.get()) {
+                case CHANGE_MIGRATE:
+                    migrate(p_data.getLong(), p_data.getShort(), m_version + 1);
+                    break;
+                case CHANGE_MIGRATE_RANGE:
+                    migrateRange(p_data.getLong(), p_data.getLong(), p_data.getShort(), m_version + 1);
+                    break;
+                case CHANGE_REMOVE:
+                    remove(p_data.getLong(), m_version + 1);
+                    break;
+                case CHANGE_REMOVE_OBJECTS:
+                    chunkIDs = new long[p_data.getInt()];
+                    for (int j = 0; j < chunkIDs.length; j++) {
+                        chunkIDs[j] = p_data.getLong();
+                    }
+                    removeObjects(m_version + 1, chunkIDs);
+                    break;
+                case CHANGE_INIT_RANGE:
+                    initRange(p_data.getShort(), p_data.getLong(), m_version + 1);
+                    break;
+                case CHANGE_REPLACE_BACKUP_PEER:
+                    replaceBackupPeer(p_data.getShort(), p_data.getShort(), p_data.getShort(), m_version + 1);
+                    break;
+                case CHANGE_RECOVERY:
+                    short rangeID = p_data.getShort();
+                    short recoveryPeer = p_data.getShort();
+                    length = p_data.getInt();
+                    chunkIDs = new long[length];
+                    for (int j = 0; j < length; j++) {
+                        chunkIDs[j] = p_data.getLong();
+                    }
+                    updateMetadataAfterRecovery(rangeID, recoveryPeer, chunkIDs, m_version + 1);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        return true;
+    }
+
     /**
      * Writes all peer's data to given byte buffer
      *
@@ -254,20 +589,8 @@ public final class PeerHandler {
     void receiveMetadata(ByteBuffer p_data) {
         ByteBufferImExporter exporter;
 
-        switch (m_state) {
-            case ONLINE:
-                p_data.put((byte) 0);
-                break;
-            case LOST:
-                p_data.put((byte) 1);
-                break;
-            case IN_RECOVERY: // Temporary state is ignored because it is relevant for recovery coordinator, only
-            case RECOVERED:
-                p_data.put((byte) 3);
-                break;
-            default:
-                break;
-        }
+        p_data.put(serializeState());
+        p_data.putLong(m_version);
         exporter = new ByteBufferImExporter(p_data);
         exporter.exportObject(m_lookupTree);
         exporter.exportObject(m_backupRanges);
@@ -284,19 +607,8 @@ public final class PeerHandler {
 
         // Creator was read before
 
-        switch (p_data.get()) {
-            case 0:
-                m_state = PeerState.ONLINE;
-                break;
-            case 1:
-                m_state = PeerState.LOST;
-                break;
-            case 3:
-                m_state = PeerState.RECOVERED;
-                break;
-            default:
-                break;
-        }
+        deserializeState(p_data.get());
+        m_version = p_data.getLong();
 
         importer = new ByteBufferImExporter(p_data);
         importer.importObject(m_lookupTree);
@@ -309,7 +621,98 @@ public final class PeerHandler {
      * @return the size
      */
     int getSize() {
-        return Short.BYTES + Byte.BYTES + m_lookupTree.sizeofObject() + m_backupRanges.sizeofObject();
+        return Short.BYTES + Byte.BYTES + Long.BYTES + m_lookupTree.sizeofObject() + m_backupRanges.sizeofObject();
+    }
+
+    /**
+     * Checks whether a forwarded modification is already part of the lookup tree (e.g. received with a delta or
+     * snapshot before the forwarded modification arrived)
+     *
+     * @param p_version
+     *         the version of the modification
+     * @return whether the modification must not be applied again
+     */
+    private boolean isContained(final long p_version) {
+        return p_version >= 0 && m_version != UNKNOWN_VERSION && p_version <= m_version;
+    }
+
+    /**
+     * Appends a modification to the change log and sets the version. The responsible superpeer assigns the next
+     * version. A backup superpeer adopts the version of a forwarded modification if it directly follows its own and
+     * marks the version as unknown otherwise (the modification was forwarded without a version or a previous one was
+     * lost or reordered) -> the responsible superpeer replaces the lookup tree during the next stabilization. The
+     * oldest modifications are dropped if the change log exceeds its bounds
+     *
+     * @param p_change
+     *         the serialized modification
+     * @param p_version
+     *         the version assigned by the responsible superpeer, NEXT_VERSION on the responsible superpeer or
+     *         UNKNOWN_VERSION if there is none
+     */
+    private void logChange(final byte[] p_change, final long p_version) {
+        if (p_version == NEXT_VERSION) {
+            if (m_version == UNKNOWN_VERSION) {
+                // Took over the responsibility with a lookup tree which might differ from the backups' ones -> start
+                // a version sequence no backup can know
+                m_version = ThreadLocalRandom.current().nextLong(Integer.MAX_VALUE, Long.MAX_VALUE / 2);
+            }
+            m_version++;
+        } else if (m_version != UNKNOWN_VERSION && p_version == m_version + 1) {
+            m_version = p_version;
+        } else {
+            m_version = UNKNOWN_VERSION;
+            m_changeLog.clear();
+            m_changeLogBytes = 0;
+
+            return;
+        }
+
+        m_changeLog.addLast(p_change);
+        m_changeLogBytes += p_change.length;
+        while (m_changeLog.size() > MAX_CHANGE_LOG_SIZE || m_changeLogBytes > MAX_CHANGE_LOG_BYTES) {
+            m_changeLogBytes -= m_changeLog.removeFirst().length;
+        }
+    }
+
+    /**
+     * Serializes the state
+     *
+     * @return the state as byte
+     */
+    private byte serializeState() {
+        switch (m_state) {
+            case ONLINE:
+                return 0;
+            case LOST:
+                return 1;
+            case IN_RECOVERY: // Temporary state is ignored because it is relevant for recovery coordinator, only
+            case RECOVERED:
+                return 3;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Sets the state from its serialized form
+     *
+     * @param p_state
+     *         the state as byte
+     */
+    private void deserializeState(final byte p_state) {
+        switch (p_state) {
+            case 0:
+                m_state = PeerState.ONLINE;
+                break;
+            case 1:
+                m_state = PeerState.LOST;
+                break;
+            case 3:
+                m_state = PeerState.RECOVERED;
+                break;
+            default:
+                break;
+        }
     }
 
 }
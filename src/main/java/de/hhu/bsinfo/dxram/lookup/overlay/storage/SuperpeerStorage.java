@@ -19,10 +19,6 @@ package de.hhu.bsinfo.dxram.lookup.overlay.storage;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.Map.Entry;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -41,16 +37,35 @@ import de.hhu.bsinfo.dxutils.serialization.Importer;
  * and the total size of the storage is limited to avoid abusing this as a primary storage for data.
  * Also, the chunks stored here are NOT covered by the backup/recovery but are replicated to other superpeers
  * to cover superpeer failure (though a full system failure will lose all stored data)
+ * The blocks are stored off-heap in a single slab (direct ByteBuffer) which grows up to the max size. Blocks are
+ * appended to the slab and the slab is compacted if the end is reached. The ids are mapped to the blocks by an
+ * open addressing index (linear probing) on primitive arrays.
+ * Creating and removing blocks must be synchronized with all other operations. Reading and writing blocks
+ * (get and put) can be done concurrently.
  *
  * @author Stefan Nothaas, stefan.nothaas@hhu.de, 18.05.2016
  */
 public class SuperpeerStorage implements MetadataInterface {
     private static final Logger LOGGER = LogManager.getFormatterLogger(SuperpeerStorage.class.getSimpleName());
 
+    private static final int INITIAL_SLAB_SIZE = 1024 * 1024;
+    private static final int MIN_INDEX_CAPACITY = 16;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    // Marks an empty slot in the index
+    private static final int FREE = -1;
+
     private int m_maxNumEntries;
     private int m_maxSizeBytes;
 
-    private HashMap<Integer, byte[]> m_storage = new HashMap<>();
+    // Index: id -> offset and size of the block in the slab
+    private int[] m_ids;
+    private int[] m_offsets;
+    private int[] m_sizes;
+    private int m_mask;
+
+    private volatile ByteBuffer m_slab;
+    private int m_slabTop;
+
     private int m_allocatedSizeBytes;
     private int m_entryCount;
 
@@ -63,9 +78,25 @@ public class SuperpeerStorage implements MetadataInterface {
      *         Max size of bytes the objects are allowed to consume (all together)
      */
     public SuperpeerStorage(final int p_maxNumEntries, final int p_maxSizeBytes) {
+        int capacity;
+
         m_maxNumEntries = p_maxNumEntries;
         m_maxSizeBytes = p_maxSizeBytes;
         m_entryCount = 0;
+
+        // Keep the load factor of the index below 0.5
+        capacity = MIN_INDEX_CAPACITY;
+        while (capacity < p_maxNumEntries * 2) {
+            capacity <<= 1;
+        }
+        m_ids = new int[capacity];
+        m_offsets = new int[capacity];
+        m_sizes = new int[capacity];
+        Arrays.fill(m_sizes, FREE);
+        m_mask = capacity - 1;
+
+        m_slab = ByteBuffer.allocateDirect(Math.min(INITIAL_SLAB_SIZE, p_maxSizeBytes));
+        m_slabTop = 0;
     }
 
     /**
@@ -74,10 +105,11 @@ public class SuperpeerStorage implements MetadataInterface {
      * @return Current status of the storage.
      */
     public Status getStatus() {
-        ArrayList<Long> statusArray = new ArrayList<>(m_storage.size());
-        for (Map.Entry<Integer, byte[]> entry : m_storage.entrySet()) {
-            long val = (long) entry.getKey() << 32L | entry.getValue().length;
-            statusArray.add(val);
+        ArrayList<Long> statusArray = new ArrayList<>(m_entryCount);
+        for (int i = 0; i < m_sizes.length; i++) {
+            if (m_sizes[i] != FREE) {
+                statusArray.add((long) m_ids[i] << 32L | m_sizes[i]);
+            }
         }
 
         return new Status(m_maxNumEntries, m_maxSizeBytes, statusArray);
@@ -88,20 +120,23 @@ public class SuperpeerStorage implements MetadataInterface {
         int ret = 0;
         int id;
         int size;
-        byte[] currentData;
+        int slot;
         ByteBuffer data;
 
         data = ByteBuffer.wrap(p_data, p_offset, p_size);
         while (data.position() < data.limit()) {
             id = data.getInt();
             size = data.getInt();
-            currentData = new byte[size];
-            data.get(currentData);
 
             LOGGER.trace("Storing superpeer storage: %d <-> %d", id, size);
 
             create(id, size);
-            put(id, currentData);
+            slot = findSlot(id);
+            if (slot != FREE) {
+                // Copy directly from the message into the slab
+                write(m_offsets[slot], p_data, data.position(), Math.min(size, m_sizes[slot]));
+            }
+            data.position(data.position() + size);
             ret++;
         }
 
@@ -110,91 +145,81 @@ public class SuperpeerStorage implements MetadataInterface {
 
     @Override
     public byte[] receiveAllMetadata() {
-        int size;
+        byte[] ret;
         ByteBuffer data;
-        Iterator<Entry<Integer, byte[]>> iter;
 
-        size = m_allocatedSizeBytes + m_entryCount * (Integer.BYTES + Integer.BYTES);
-        data = ByteBuffer.allocate(size);
+        ret = new byte[m_allocatedSizeBytes + m_entryCount * (Integer.BYTES + Integer.BYTES)];
+        data = ByteBuffer.wrap(ret);
 
-        iter = m_storage.entrySet().iterator();
-        while (iter.hasNext()) {
-            Map.Entry<Integer, byte[]> pair = iter.next();
+        for (int i = 0; i < m_sizes.length; i++) {
+            if (m_sizes[i] != FREE) {
 
-            LOGGER.trace("Including superpeer storage: %s <-> %d", pair.getKey(), pair.getValue().length);
+                LOGGER.trace("Including superpeer storage: %d <-> %d", m_ids[i], m_sizes[i]);
 
-            data.putInt(pair.getKey());
-            data.putInt(pair.getValue().length);
-            data.put(pair.getValue());
+                exportBlock(i, data);
+            }
         }
 
-        return data.array();
+        return ret;
     }
 
     @Override
     public byte[] receiveMetadataInRange(final short p_bound1, final short p_bound2) {
-        int size;
-        int currentSize = 0;
-        int id;
-        byte[] currentData;
+        int size = 0;
+        byte[] ret;
         ByteBuffer data;
-        Iterator<Entry<Integer, byte[]>> iter;
-
-        size = m_allocatedSizeBytes + m_entryCount * (Integer.BYTES + Integer.BYTES);
-        data = ByteBuffer.allocate(size);
 
-        iter = m_storage.entrySet().iterator();
-        while (iter.hasNext()) {
-            Map.Entry<Integer, byte[]> pair = iter.next();
-            id = pair.getKey();
-            currentData = pair.getValue();
+        // Determine the exact size first to serialize the blocks without intermediate copies
+        for (int i = 0; i < m_sizes.length; i++) {
+            if (m_sizes[i] != FREE && OverlayHelper.isHashInSuperpeerRange(CRC16.hash(m_ids[i]), p_bound1, p_bound2)) {
+                size += 2 * Integer.BYTES + m_sizes[i];
+            }
+        }
 
-            if (OverlayHelper.isHashInSuperpeerRange(CRC16.hash(id), p_bound1, p_bound2)) {
+        ret = new byte[size];
+        data = ByteBuffer.wrap(ret);
+        for (int i = 0; i < m_sizes.length && data.hasRemaining(); i++) {
+            if (m_sizes[i] != FREE && OverlayHelper.isHashInSuperpeerRange(CRC16.hash(m_ids[i]), p_bound1, p_bound2)) {
 
-                LOGGER.trace("Including superpeer storage: %d <-> %d", id, currentData.length);
+                LOGGER.trace("Including superpeer storage: %d <-> %d", m_ids[i], m_sizes[i]);
 
-                data.putInt(id);
-                data.putInt(currentData.length);
-                data.put(currentData);
-                currentSize += 2 * Integer.BYTES + currentData.length;
+                exportBlock(i, data);
             }
         }
 
-        return Arrays.copyOfRange(data.array(), 0, currentSize);
+        return ret;
     }
 
     @Override
     public int removeMetadataOutsideOfRange(final short p_bound1, final short p_bound2) {
-        int ret = 0;
-        int id;
-        Iterator<Entry<Integer, byte[]>> iter;
-
-        iter = m_storage.entrySet().iterator();
-        while (iter.hasNext()) {
-            id = iter.next().getKey();
+        int count = 0;
+        int[] ids;
+
+        // Removing shifts entries of the index -> collect ids first
+        ids = new int[m_entryCount];
+        for (int i = 0; i < m_sizes.length; i++) {
+            if (m_sizes[i] != FREE &&
+                    !OverlayHelper.isHashInSuperpeerRange(CRC16.hash(m_ids[i]), p_bound1, p_bound2)) {
+                ids[count++] = m_ids[i];
+            }
+        }
 
-            if (!OverlayHelper.isHashInSuperpeerRange(CRC16.hash(id), p_bound1, p_bound2)) {
+        for (int i = 0; i < count; i++) {
 
-                LOGGER.trace("Removing superpeer storage: %d", id);
+            LOGGER.trace("Removing superpeer storage: %d", ids[i]);
 
-                iter.remove();
-                ret++;
-            }
+            remove(ids[i]);
         }
 
-        return ret;
+        return count;
     }
 
     @Override
     public int quantifyMetadata(final short p_bound1, final short p_bound2) {
         int count = 0;
-        int id;
-        Iterator<Entry<Integer, byte[]>> iter;
 
-        iter = m_storage.entrySet().iterator();
-        while (iter.hasNext()) {
-            id = iter.next().getKey();
-            if (OverlayHelper.isHashInSuperpeerRange(CRC16.hash(id), p_bound1, p_bound2)) {
+        for (int i = 0; i < m_sizes.length; i++) {
+            if (m_sizes[i] != FREE && OverlayHelper.isHashInSuperpeerRange(CRC16.hash(m_ids[i]), p_bound1, p_bound2)) {
                 count++;
             }
         }
@@ -212,6 +237,8 @@ public class SuperpeerStorage implements MetadataInterface {
      * @return 0 on success, -1 if quota reached, -2 if max num entries reached, -3 if id already in use.
      */
     public int create(final int p_id, final int p_size) {
+        int slot;
+
         if (m_allocatedSizeBytes + p_size > m_maxSizeBytes) {
             return -1;
         }
@@ -220,11 +247,26 @@ public class SuperpeerStorage implements MetadataInterface {
             return -2;
         }
 
-        if (m_storage.containsKey(p_id)) {
+        if (findSlot(p_id) != FREE) {
             return -3;
         }
 
-        m_storage.put(p_id, new byte[p_size]);
+        if (m_slabTop + p_size > m_slab.capacity()) {
+            compact(m_allocatedSizeBytes + p_size);
+        }
+
+        slot = hash(p_id);
+        while (m_sizes[slot] != FREE) {
+            slot = slot + 1 & m_mask;
+        }
+        m_ids[slot] = p_id;
+        m_offsets[slot] = m_slabTop;
+        m_sizes[slot] = p_size;
+
+        // The slab might contain data of removed blocks
+        clear(m_slabTop, p_size);
+        m_slabTop += p_size;
+
         m_allocatedSizeBytes += p_size;
         m_entryCount++;
 
@@ -241,19 +283,28 @@ public class SuperpeerStorage implements MetadataInterface {
      * @return Number of bytes written to the block or -1 if the block does not exist.
      */
     public int put(final int p_id, final byte[] p_data) {
-        byte[] data = m_storage.get(p_id);
-        if (data == null) {
-            return -1;
-        }
+        return put(p_id, 0, p_data);
+    }
 
-        int written;
-        if (p_data.length > data.length) {
-            written = data.length;
-        } else {
-            written = p_data.length;
+    /**
+     * Put data into an allocated block at given offset. The rest of the block is not changed.
+     *
+     * @param p_id
+     *         Id of the block.
+     * @param p_offset
+     *         Offset within the block to write the data to.
+     * @param p_data
+     *         Data to put.
+     * @return Number of bytes written to the block or -1 if the block does not exist or the offset is out of bounds.
+     */
+    public int put(final int p_id, final int p_offset, final byte[] p_data) {
+        int slot = findSlot(p_id);
+        if (slot == FREE || p_offset < 0 || p_offset > m_sizes[slot]) {
+            return -1;
         }
 
-        System.arraycopy(p_data, 0, data, 0, written);
+        int written = Math.min(p_data.length, m_sizes[slot] - p_offset);
+        write(m_offsets[slot] + p_offset, p_data, 0, written);
 
         return written;
     }
@@ -266,11 +317,32 @@ public class SuperpeerStorage implements MetadataInterface {
      * @return Data read from the memory block or null if id does not point to an allocated block.
      */
     public byte[] get(final int p_id) {
-        byte[] data = m_storage.get(p_id);
-        if (data == null) {
+        return get(p_id, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Get a part of the data of an allocated block
+     *
+     * @param p_id
+     *         Id of the block
+     * @param p_offset
+     *         Offset within the block to start reading at
+     * @param p_length
+     *         Number of bytes to read (less are returned if the end of the block is reached)
+     * @return Data read from the memory block or null if id does not point to an allocated block or the offset is
+     * out of bounds.
+     */
+    public byte[] get(final int p_id, final int p_offset, final int p_length) {
+        int slot = findSlot(p_id);
+        if (slot == FREE || p_offset < 0 || p_offset > m_sizes[slot] || p_length < 0) {
             return null;
         }
 
+        byte[] data = new byte[Math.min(p_length, m_sizes[slot] - p_offset)];
+        ByteBuffer slab = m_slab.duplicate();
+        slab.position(m_offsets[slot] + p_offset);
+        slab.get(data);
+
         return data;
     }
 
@@ -282,14 +354,181 @@ public class SuperpeerStorage implements MetadataInterface {
      * @return False if the block does not exist, true on success.
      */
     public boolean remove(final int p_id) {
-        byte[] data = m_storage.remove(p_id);
-        if (data != null) {
-            m_entryCount--;
-            m_allocatedSizeBytes -= data.length;
-            return true;
+        int slot;
+        int next;
+        int home;
+
+        slot = findSlot(p_id);
+        if (slot == FREE) {
+            return false;
+        }
+
+        m_entryCount--;
+        m_allocatedSizeBytes -= m_sizes[slot];
+        if (m_entryCount == 0) {
+            m_slabTop = 0;
+        } else if (m_offsets[slot] + m_sizes[slot] == m_slabTop) {
+            // Last block in slab -> reuse space immediately
+            m_slabTop = m_offsets[slot];
+        }
+
+        // Backward shift deletion: move following entries of the cluster to keep them reachable
+        next = slot + 1 & m_mask;
+        while (m_sizes[next] != FREE) {
+            home = hash(m_ids[next]);
+            if ((next - home & m_mask) >= (next - slot & m_mask)) {
+                m_ids[slot] = m_ids[next];
+                m_offsets[slot] = m_offsets[next];
+                m_sizes[slot] = m_sizes[next];
+                slot = next;
+            }
+            next = next + 1 & m_mask;
+        }
+        m_sizes[slot] = FREE;
+
+        return true;
+    }
+
+    /**
+     * Returns the slot of given id in the index
+     *
+     * @param p_id
+     *         the id
+     * @return the slot or FREE if the id is not in the index
+     */
+    private int findSlot(final int p_id) {
+        int slot = hash(p_id);
+
+        while (m_sizes[slot] != FREE) {
+            if (m_ids[slot] == p_id) {
+                return slot;
+            }
+            slot = slot + 1 & m_mask;
         }
 
-        return false;
+        return FREE;
+    }
+
+    /**
+     * Returns the home slot of given id
+     *
+     * @param p_id
+     *         the id
+     * @return the home slot
+     */
+    private int hash(final int p_id) {
+        // Ids are often consecutive -> spread them (Fibonacci hashing)
+        int hash = p_id * 0x9E3779B9;
+        return (hash ^ hash >>> 16) & m_mask;
+    }
+
+    /**
+     * Writes data to the slab
+     *
+     * @param p_slabOffset
+     *         the offset in the slab
+     * @param p_data
+     *         the data
+     * @param p_offset
+     *         the offset within the data
+     * @param p_length
+     *         the number of bytes to write
+     */
+    private void write(final int p_slabOffset, final byte[] p_data, final int p_offset, final int p_length) {
+        ByteBuffer slab = m_slab.duplicate();
+        slab.position(p_slabOffset);
+        slab.put(p_data, p_offset, p_length);
+    }
+
+    /**
+     * Zeroes a part of the slab
+     *
+     * @param p_slabOffset
+     *         the offset in the slab
+     * @param p_length
+     *         the number of bytes to clear
+     */
+    private void clear(final int p_slabOffset, final int p_length) {
+        byte[] zeros = new byte[Math.min(p_length, COPY_BUFFER_SIZE)];
+        ByteBuffer slab = m_slab.duplicate();
+
+        slab.position(p_slabOffset);
+        for (int remaining = p_length; remaining > 0; remaining -= zeros.length) {
+            slab.put(zeros, 0, Math.min(remaining, zeros.length));
+        }
+    }
+
+    /**
+     * Writes id, size and data of a block to given buffer
+     *
+     * @param p_slot
+     *         the slot of the block in the index
+     * @param p_data
+     *         the buffer
+     */
+    private void exportBlock(final int p_slot, final ByteBuffer p_data) {
+        ByteBuffer slab = m_slab.duplicate();
+
+        p_data.putInt(m_ids[p_slot]);
+        p_data.putInt(m_sizes[p_slot]);
+        slab.position(m_offsets[p_slot]);
+        slab.limit(m_offsets[p_slot] + m_sizes[p_slot]);
+        p_data.put(slab);
+    }
+
+    /**
+     * Moves all blocks to the beginning of the slab (in order) to close the gaps of removed blocks. The slab is
+     * replaced by a larger one if the required size exceeds its capacity.
+     *
+     * @param p_requiredSize
+     *         the number of bytes needed in the slab
+     */
+    private void compact(final int p_requiredSize) {
+        ByteBuffer target;
+        ByteBuffer source;
+        long[] blocks;
+        byte[] buffer;
+        int count = 0;
+        int slot;
+        int top = 0;
+        int length;
+
+        if (p_requiredSize > m_slab.capacity()) {
+            target = ByteBuffer.allocateDirect(Math.min(Math.max(m_slab.capacity() * 2, p_requiredSize),
+                    m_maxSizeBytes));
+        } else {
+            target = m_slab.duplicate();
+        }
+
+        // Sort blocks by offset (offset in upper, slot in lower half)
+        blocks = new long[m_entryCount];
+        for (int i = 0; i < m_sizes.length; i++) {
+            if (m_sizes[i] != FREE) {
+                blocks[count++] = (long) m_offsets[i] << 32 | i;
+            }
+        }
+        Arrays.sort(blocks);
+
+        // Blocks are moved towards the beginning -> copying in chunks from front to back is safe within the slab
+        buffer = new byte[COPY_BUFFER_SIZE];
+        source = m_slab.duplicate();
+        for (long block : blocks) {
+            slot = (int) block;
+            source.position(m_offsets[slot]);
+            target.position(top);
+            for (int remaining = m_sizes[slot]; remaining > 0; remaining -= length) {
+                length = Math.min(remaining, buffer.length);
+                source.get(buffer, 0, length);
+                target.put(buffer, 0, length);
+            }
+            m_offsets[slot] = top;
+            top += m_sizes[slot];
+        }
+
+        if (target.capacity() != m_slab.capacity()) {
+            m_slab = target;
+        }
+        m_slabTop = top;
     }
 
     /**
@@ -18,14 +18,17 @@ package de.hhu.bsinfo.dxram.migration;
 
 import java.text.DecimalFormat;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -46,8 +49,10 @@ import de.hhu.bsinfo.dxram.backup.BackupComponent;
 import de.hhu.bsinfo.dxram.boot.AbstractBootComponent;
 import de.hhu.bsinfo.dxram.chunk.ChunkComponent;
 import de.hhu.bsinfo.dxram.chunk.ChunkMigrationComponent;
+import de.hhu.bsinfo.dxram.chunk.ChunkWriteTracker;
 import de.hhu.bsinfo.dxram.engine.DXRAMComponentAccessor;
 import de.hhu.bsinfo.dxram.log.messages.RemoveMessage;
+import de.hhu.bsinfo.dxram.lookup.LookupComponent;
 import de.hhu.bsinfo.dxram.migration.data.MigrationIdentifier;
 import de.hhu.bsinfo.dxram.migration.data.MigrationPayload;
 import de.hhu.bsinfo.dxram.migration.messages.MigrationFinish;
@@ -66,25 +71,72 @@ public class MigrationManager implements MessageReceiver, ChunkMigrator {
 
     private static final Logger log = LogManager.getFormatterLogger(MigrationManager.class);
 
+    private static final int PUSH_ACKNOWLEDGEMENT_TIMEOUT_MS = 30000;
+
+    // live migration: max. number of rounds re-sending dirty chunks before fencing
+    private static final int MAX_DELTA_ROUNDS = 8;
+
+    // live migration: number of dirty chunks small enough to be copied while writes are fenced
+    private static final long FENCE_DIRTY_THRESHOLD = 1024;
+
+    // live migration: max. time writes are rejected to copy the remaining dirty chunks
+    private static final long FENCE_TIMEOUT_MS = 5000;
+
     private final ExecutorService m_executor;
 
+    private final ExecutorService m_handlerExecutor;
+
+    private final ExecutorService m_liveExecutor;
+
     private final AbstractBootComponent m_boot;
     private final BackupComponent m_backup;
     private final ChunkMigrationComponent m_chunkMigration;
     private final ChunkComponent m_chunk;
+    private final LookupComponent m_lookup;
     private final NetworkComponent m_network;
 
     private final int m_workerCount;
 
+    private final long m_maxPushSize;
+
+    private final int m_maxPushesInFlight;
+
+    private final Map<Short, Semaphore> m_inFlightPushes = new ConcurrentHashMap<>();
+
+    // unacknowledged pushes per migration, set to -1 when the migration failed and its permits were released
+    private final Map<MigrationIdentifier, AtomicInteger> m_outstandingPushes = new ConcurrentHashMap<>();
+
+    // copies of live migrations, the chunks are kept locally until the ownership is switched
+    private final Set<MigrationIdentifier> m_liveCopies = ConcurrentHashMap.newKeySet();
+
     private final MigrationProgressTracker m_progressTracker = new MigrationProgressTracker();
 
-    public MigrationManager(int p_workerCount, final DXRAMComponentAccessor p_componentAccessor) {
+    /**
+     * Creates a migration manager.
+     *
+     * @param p_workerCount
+     *         The number of threads sending chunks (and handling incoming pushes).
+     * @param p_maxPushSize
+     *         The max. payload size of a single migration push in bytes.
+     * @param p_maxPushesInFlight
+     *         The max. number of unacknowledged migration pushes per target.
+     * @param p_componentAccessor
+     *         The component accessor.
+     */
+    public MigrationManager(int p_workerCount, long p_maxPushSize, int p_maxPushesInFlight,
+            final DXRAMComponentAccessor p_componentAccessor) {
         m_workerCount = p_workerCount;
+        m_maxPushSize = p_maxPushSize;
+        m_maxPushesInFlight = p_maxPushesInFlight;
         m_executor = Executors.newFixedThreadPool(p_workerCount, THREAD_FACTORY);
+        // Pushes and acknowledgements are handled separately to never queue them behind workers waiting for the window
+        m_handlerExecutor = Executors.newFixedThreadPool(p_workerCount, THREAD_FACTORY);
+        m_liveExecutor = Executors.newCachedThreadPool(THREAD_FACTORY);
         m_boot = p_componentAccessor.getComponent(AbstractBootComponent.class);
         m_backup = p_componentAccessor.getComponent(BackupComponent.class);
         m_chunk = p_componentAccessor.getComponent(ChunkComponent.class);
         m_chunkMigration = p_componentAccessor.getComponent(ChunkMigrationComponent.class);
+        m_lookup = p_componentAccessor.getComponent(LookupComponent.class);
         m_network = p_componentAccessor.getComponent(NetworkComponent.class);
     }
 
@@ -103,12 +155,164 @@ public class MigrationManager implements MessageReceiver, ChunkMigrator {
 
         CompletableFuture<MigrationStatus> future = m_progressTracker.register(identifier, tasks.stream()
                 .flatMap(task -> task.getRanges().stream()).collect(Collectors.toList()));
+        m_outstandingPushes.put(identifier, new AtomicInteger(0));
 
         tasks.forEach(m_executor::execute);
 
         return new MigrationTicket(future, identifier);
     }
 
+    /**
+     * Migrates the specified chunk range to the target node while the chunks are still written. The range is copied
+     * first while all local writes (puts, resizes, removes and raw writes to pinned chunks) to it are tracked. Then,
+     * dirty chunks are copied again until only a few are left, removed chunks are removed on the target.
+     * Finally, writes to the range are fenced (rejected, not blocked), the remaining dirty chunks are copied and the
+     * range is marked as moved. The migration fails if the fenced copy does not finish within FENCE_TIMEOUT_MS.
+     * Puts arriving at this node afterwards are redirected to the target. The local chunks are removed before the
+     * lookup is updated to never serve stale data.
+     *
+     * @param p_target
+     *         The target node.
+     * @param p_range
+     *         The chunk range.
+     * @return A ticket containing information associated with the created migration.
+     */
+    public MigrationTicket migrateRangeLive(final short p_target, final LongRange p_range) {
+        MigrationIdentifier identifier = new MigrationIdentifier(m_boot.getNodeId(), p_target);
+
+        CompletableFuture<MigrationStatus> future = CompletableFuture.supplyAsync(
+                () -> migrateLive(p_target, p_range), m_liveExecutor);
+
+        return new MigrationTicket(future, identifier);
+    }
+
+    /**
+     * Performs a live migration (see migrateRangeLive).
+     *
+     * @param p_target
+     *         The target node.
+     * @param p_range
+     *         The chunk range.
+     * @return The migration's status.
+     */
+    private MigrationStatus migrateLive(final short p_target, final LongRange p_range) {
+        if (m_boot.getNodeId() == p_target) {
+            log.error("The migration target has to be another node");
+            return MigrationStatus.ERROR;
+        }
+
+        ChunkWriteTracker tracker = m_chunk.getWriteTracker();
+        ChunkWriteTracker.TrackedRange trackedRange = tracker.track(p_range.getFrom(), p_range.getTo());
+
+        try {
+            if (copy(p_target, Collections.singletonList(p_range), 0) != MigrationStatus.OK) {
+                return MigrationStatus.ERROR;
+            }
+
+            for (int i = 0; i < MAX_DELTA_ROUNDS && trackedRange.getDirtyCount() > FENCE_DIRTY_THRESHOLD; i++) {
+                log.debug("Copying %d dirty chunks of %s", trackedRange.getDirtyCount(), p_range);
+
+                if (copyDirty(p_target, trackedRange, 0) != MigrationStatus.OK) {
+                    return MigrationStatus.ERROR;
+                }
+            }
+
+            long fenceStart = System.currentTimeMillis();
+
+            if (!trackedRange.fence(FENCE_TIMEOUT_MS)) {
+                log.error("Running writes to %s did not finish in time", p_range);
+                return MigrationStatus.ERROR;
+            }
+
+            try {
+                // Rejected writers do not block message handlers, thus acknowledgements are not delayed by the fence
+                long remainingMs = FENCE_TIMEOUT_MS - (System.currentTimeMillis() - fenceStart);
+
+                if (copyDirty(p_target, trackedRange, Math.max(remainingMs, 0)) != MigrationStatus.OK) {
+                    return MigrationStatus.ERROR;
+                }
+
+                // Writes fail locally from now on and are redirected to the new owner
+                trackedRange.setMoved(p_target);
+
+                // Remove while fenced, pinning a chunk waits for the fence and must not find the moved chunk
+                removeChunks(Collections.singletonList(p_range));
+            } finally {
+                trackedRange.unfence();
+            }
+
+            m_lookup.migrateRange(p_range.getFrom(), p_range.getTo() - 1, p_target);
+
+            return MigrationStatus.OK;
+        } finally {
+            tracker.untrack(trackedRange);
+        }
+    }
+
+    /**
+     * Copies the dirty chunks of a tracked range to the target node.
+     *
+     * @param p_target
+     *         The target node.
+     * @param p_trackedRange
+     *         The tracked range.
+     * @param p_timeoutMs
+     *         The max. time to wait for the copy in ms (0 to wait until all pushes are acknowledged or timed out).
+     * @return The status of the copy.
+     */
+    private MigrationStatus copyDirty(final short p_target, final ChunkWriteTracker.TrackedRange p_trackedRange,
+            final long p_timeoutMs) {
+        List<LongRange> ranges = new ArrayList<>(LongRange.collectionFromArray(p_trackedRange.drainDirtyRanges()));
+
+        if (ranges.isEmpty()) {
+            return MigrationStatus.OK;
+        }
+
+        return copy(p_target, ranges, p_timeoutMs);
+    }
+
+    /**
+     * Copies chunks to the target node and waits until all pushes are acknowledged. The chunks are not removed
+     * locally. Large ranges are copied by all workers.
+     *
+     * @param p_target
+     *         The target node.
+     * @param p_ranges
+     *         The chunk ranges.
+     * @param p_timeoutMs
+     *         The max. time to wait for the copy in ms (0 to wait until all pushes are acknowledged or timed out).
+     * @return The status of the copy.
+     */
+    private MigrationStatus copy(final short p_target, final List<LongRange> p_ranges, final long p_timeoutMs) {
+        MigrationIdentifier identifier = new MigrationIdentifier(m_boot.getNodeId(), p_target);
+
+        m_liveCopies.add(identifier);
+
+        try {
+            CompletableFuture<MigrationStatus> future = m_progressTracker.register(identifier, p_ranges);
+            m_outstandingPushes.put(identifier, new AtomicInteger(0));
+
+            if (p_ranges.size() == 1 && p_ranges.get(0).size() >= m_workerCount) {
+                createMigrationTasks(identifier, p_ranges.get(0)).forEach(m_executor::execute);
+            } else if (migrate(identifier, p_ranges) != Status.SENT) {
+                return MigrationStatus.ERROR;
+            }
+
+            return p_timeoutMs > 0 ? future.get(p_timeoutMs, TimeUnit.MILLISECONDS) : future.get();
+        } catch (TimeoutException e) {
+            log.warn("Live migration copy to %X did not finish in time", p_target);
+            // Late acknowledgements of failed migrations are ignored
+            fail(identifier);
+            return MigrationStatus.ERROR;
+        } catch (InterruptedException | ExecutionException e) {
+            log.warn("Waiting on live migration copy failed", e);
+            fail(identifier);
+            return MigrationStatus.ERROR;
+        } finally {
+            m_liveCopies.remove(identifier);
+        }
+    }
+
     /**
      * Creates multiple migration tasks using the specified migration identifier.
      *
@@ -173,7 +377,7 @@ public class MigrationManager implements MessageReceiver, ChunkMigrator {
             log.warn("Received wrong message type %d", p_message.getType());
         }
 
-        m_executor.execute(() -> {
+        m_handlerExecutor.execute(() -> {
             switch (p_message.getSubtype()) {
                 case MigrationMessages.SUBTYPE_MIGRATION_PUSH:
                     handle((MigrationPush) p_message);
@@ -190,53 +394,128 @@ public class MigrationManager implements MessageReceiver, ChunkMigrator {
         log.debug("Received Result %s for chunk range [%X, %X]", p_result, p_startId, p_endId);
     }
 
+    /**
+     * Sends the chunks of the specified ranges to the migration target. The chunks are sent in pushes of bounded size
+     * and the number of unacknowledged pushes per target is limited. Thus, the memory needed on both sides does not
+     * depend on the size of the ranges and acknowledged pushes are removed from local memory incrementally.
+     *
+     * @param p_identifier
+     *         The migration identifier.
+     * @param p_ranges
+     *         The chunk ranges.
+     * @return The status.
+     */
     @Override
     public Status migrate(MigrationIdentifier p_identifier, List<LongRange> p_ranges) {
-        int chunkCount = LongRange.collectionToSize(p_ranges);
-
         if (m_boot.getNodeId() == p_identifier.getTarget()) {
             log.error("The migration target has to be another node");
             return Status.INVALID_ARG;
         }
 
-        byte[][] data = new byte[chunkCount][];
+        Semaphore window = m_inFlightPushes.computeIfAbsent(p_identifier.getTarget(),
+                p_target -> new Semaphore(m_maxPushesInFlight));
+        List<byte[]> batch = new ArrayList<>();
+        boolean live = m_liveCopies.contains(p_identifier);
 
-        log.debug("Collecting %d chunks from memory", chunkCount);
+        log.debug("Collecting %d chunks from memory", LongRange.collectionToSize(p_ranges));
 
-        int index = 0;
         for (LongRange range : p_ranges) {
+            long batchStart = range.getFrom();
+            long batchSize = 0;
+
             for (long chunkId = range.getFrom(); chunkId < range.getTo(); chunkId++) {
+                byte[] data = m_chunk.getMemory().get().get(chunkId).getData();
+
+                if (data == null && !live) {
+                    log.warn("Chunk %X does not exist, can't migrate non-existent chunks", chunkId);
+                    fail(p_identifier);
+                    return Status.INVALID_ARG;
+                }
+
+                // Chunks of a live migration removed meanwhile are sent without data to remove the copy sent before
+                // A chunk exceeding the push size is sent on its own
+                if (!batch.isEmpty() && data != null && batchSize + data.length > m_maxPushSize) {
+                    Status status = push(p_identifier, window, new LongRange(batchStart, chunkId), batch, batchSize);
+
+                    if (status != Status.SENT) {
+                        return status;
+                    }
 
-                if ((data[index] = m_chunk.getMemory().get().get(chunkId).getData()) == null) {
-                    log.warn("Chunk %X does not exist", chunkId);
-                    throw new IllegalArgumentException("Can't migrate non-existent chunks");
+                    batch.clear();
+                    batchStart = chunkId;
+                    batchSize = 0;
                 }
 
-                index++;
+                batch.add(data);
+
+                if (data != null) {
+                    batchSize += data.length;
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                Status status = push(p_identifier, window, new LongRange(batchStart, range.getTo()), batch, batchSize);
+
+                if (status != Status.SENT) {
+                    return status;
+                }
+
+                batch.clear();
             }
         }
 
-        log.debug("Creating chunk ranges %s and migration push message for node %X",
-                LongRange.collectionToString(p_ranges),
-                p_identifier.getTarget());
+        return Status.SENT;
+    }
 
-        MigrationPayload migrationPayload = new MigrationPayload(p_ranges, data);
+    /**
+     * Sends a single migration push after a slot in the target's window is free.
+     *
+     * @param p_identifier
+     *         The migration identifier.
+     * @param p_window
+     *         The window of unacknowledged pushes of the target.
+     * @param p_range
+     *         The chunk range.
+     * @param p_data
+     *         The data of all chunks within the range.
+     * @param p_size
+     *         The number of payload bytes.
+     * @return The status.
+     */
+    private Status push(final MigrationIdentifier p_identifier, final Semaphore p_window, final LongRange p_range,
+            final List<byte[]> p_data, final long p_size) {
+        try {
+            if (!p_window.tryAcquire(PUSH_ACKNOWLEDGEMENT_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                log.error("Migration target %X did not acknowledge pushes in time", p_identifier.getTarget());
+                fail(p_identifier);
+                return Status.NOT_SENT;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(p_identifier);
+            return Status.NOT_SENT;
+        }
 
-        MigrationPush migrationPush = new MigrationPush(p_identifier, migrationPayload);
+        if (!addOutstandingPush(p_identifier)) {
+            // failed meanwhile, the permits of the migration were released already
+            p_window.release();
+            return Status.NOT_SENT;
+        }
+
+        MigrationPayload migrationPayload = new MigrationPayload(Collections.singletonList(p_range),
+                p_data.toArray(new byte[p_data.size()][]));
 
-        int size = Arrays.stream(data)
-                .map(a -> a.length)
-                .reduce(0, (a, b) -> a + b);
+        MigrationPush migrationPush = new MigrationPush(p_identifier, migrationPayload);
 
         try {
-            log.debug("Sending chunk ranges %s to %X containing %s",
-                    LongRange.collectionToString(p_ranges),
-                    migrationPush.getDestination(),
-                    readableFileSize(size));
+            log.debug("Sending chunk range %s to %X containing %s", p_range, migrationPush.getDestination(),
+                    readableFileSize(p_size));
 
             m_network.sendMessage(migrationPush);
         } catch (NetworkException e) {
+            releaseOutstandingPush(p_identifier);
             log.error("Couldn't send migration push to target", e);
+            fail(p_identifier);
             return Status.NOT_SENT;
         }
 
@@ -284,32 +563,164 @@ public class MigrationManager implements MessageReceiver, ChunkMigrator {
     }
 
     private void handle(final MigrationFinish p_migrationFinish) {
+        MigrationIdentifier identifier = p_migrationFinish.getIdentifier();
+
+        // Free the slot of the acknowledged push unless it was released when the migration failed
+        releaseOutstandingPush(identifier);
+
         if (!p_migrationFinish.isFinished()) {
+            // Keep the chunks as the target did not store them
             log.warn("Migration was not successful on node %X", p_migrationFinish.getSource());
+            fail(identifier);
+            return;
         }
 
-        MigrationIdentifier identifier = p_migrationFinish.getIdentifier();
+        if (!m_progressTracker.isRunning(identifier)) {
+            // Keep the chunks of failed migrations (e.g. timed out live copies)
+            log.warn("Ignoring acknowledgement of failed migration %s", identifier);
+            return;
+        }
 
         log.debug("ProgressMap[%s] = %b", identifier.toString(), m_progressTracker.isRunning(identifier));
 
         Collection<LongRange> ranges = p_migrationFinish.getLongRanges();
 
+        if (m_liveCopies.contains(identifier)) {
+            // Chunks of a live migration are removed after the ownership was switched
+            setFinished(identifier, ranges);
+            return;
+        }
+
         log.debug("Migration %s successfully migrated chunk ranges %s", p_migrationFinish.getIdentifier().toString(),
                 LongRange.collectionToString(ranges));
 
+        removeChunks(ranges);
+
+        setFinished(identifier, ranges);
+    }
+
+    /**
+     * Marks acknowledged chunk ranges of a migration as finished.
+     *
+     * @param p_identifier
+     *         The migration identifier.
+     * @param p_ranges
+     *         The acknowledged chunk ranges.
+     */
+    private void setFinished(final MigrationIdentifier p_identifier, final Collection<LongRange> p_ranges) {
+        m_progressTracker.setFinished(p_identifier, p_ranges);
+
+        // all pushes were acknowledged
+        if (!m_progressTracker.isRunning(p_identifier)) {
+            m_outstandingPushes.remove(p_identifier);
+        }
+    }
+
+    /**
+     * Marks a migration as failed and releases the window slots of all its unacknowledged pushes. Acknowledgements
+     * arriving later do not release slots anymore.
+     *
+     * @param p_identifier
+     *         The migration identifier.
+     */
+    private void fail(final MigrationIdentifier p_identifier) {
+        m_progressTracker.setError(p_identifier);
+
+        AtomicInteger outstanding = m_outstandingPushes.remove(p_identifier);
+
+        if (outstanding != null) {
+            int permits = outstanding.getAndSet(-1);
+            Semaphore window = m_inFlightPushes.get(p_identifier.getTarget());
+
+            if (permits > 0 && window != null) {
+                log.debug("Releasing %d unacknowledged pushes of failed migration %s", permits, p_identifier);
+                window.release(permits);
+            }
+        }
+    }
+
+    /**
+     * Counts a push of a migration after a slot of the target's window was acquired.
+     *
+     * @param p_identifier
+     *         The migration identifier.
+     * @return False, if the migration failed meanwhile.
+     */
+    private boolean addOutstandingPush(final MigrationIdentifier p_identifier) {
+        AtomicInteger outstanding = m_outstandingPushes.get(p_identifier);
+
+        if (outstanding == null) {
+            return false;
+        }
+
+        int current;
+
+        do {
+            current = outstanding.get();
+
+            if (current < 0) {
+                return false;
+            }
+        } while (!outstanding.compareAndSet(current, current + 1));
+
+        return true;
+    }
+
+    /**
+     * Releases the window slot of an acknowledged (or not sent) push of a migration. Nothing is released if the
+     * migration failed, as all its slots were released already.
+     *
+     * @param p_identifier
+     *         The migration identifier.
+     */
+    private void releaseOutstandingPush(final MigrationIdentifier p_identifier) {
+        AtomicInteger outstanding = m_outstandingPushes.get(p_identifier);
+
+        if (outstanding == null) {
+            return;
+        }
+
+        int current;
+
+        do {
+            current = outstanding.get();
+
+            if (current <= 0) {
+                return;
+            }
+        } while (!outstanding.compareAndSet(current, current - 1));
+
+        Semaphore window = m_inFlightPushes.get(p_identifier.getTarget());
+
+        if (window != null) {
+            window.release();
+        }
+    }
+
+    /**
+     * Removes migrated chunks from local memory and from the backup peers.
+     *
+     * @param p_ranges
+     *         The chunk ranges.
+     */
+    private void removeChunks(final Collection<LongRange> p_ranges) {
         log.debug("Removing migrated chunks from local memory");
 
         // Remove chunks from local storage
-        for (LongRange range : ranges) {
+        for (LongRange range : p_ranges) {
             for (long cid = range.getFrom(); cid < range.getTo(); cid++) {
                 int chunkSize = m_chunk.getMemory().remove().remove(cid, true);
-                m_backup.deregisterChunk(cid, chunkSize);
+
+                // Chunks of live migrated ranges may have been removed meanwhile
+                if (chunkSize > 0) {
+                    m_backup.deregisterChunk(cid, chunkSize);
+                }
             }
         }
 
         // Remove chunks on remote backup peers
         if (m_backup.isActive()) {
-            for (LongRange range : ranges) {
+            for (LongRange range : p_ranges) {
                 for (long cid = range.getFrom(); cid < range.getTo(); cid++) {
                     short[] backupPeers;
                     backupPeers = m_backup.getArrayOfBackupPeersForLocalChunks(cid);
@@ -327,8 +738,6 @@ public class MigrationManager implements MessageReceiver, ChunkMigrator {
                 }
             }
         }
-
-        m_progressTracker.setFinished(identifier, ranges);
     }
 
     /**
@@ -381,7 +790,11 @@ public class MigrationManager implements MessageReceiver, ChunkMigrator {
             final @NotNull MigrationTicket p_ticket) {
         try {
             return p_ticket.getFuture().get(p_timeout, p_timeUnit);
-        } catch (InterruptedException | ExecutionException | TimeoutException p_e) {
+        } catch (TimeoutException p_e) {
+            log.warn("Migration %s did not finish in time", p_ticket.getIdentifier());
+            fail(p_ticket.getIdentifier());
+            return null;
+        } catch (InterruptedException | ExecutionException p_e) {
             log.warn("Waiting on migration failed", p_e);
             return null;
         }
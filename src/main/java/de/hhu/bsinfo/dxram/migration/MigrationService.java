@@ -36,7 +36,6 @@ import de.hhu.bsinfo.dxram.engine.AbstractDXRAMModule;
 import de.hhu.bsinfo.dxram.engine.AbstractDXRAMService;
 import de.hhu.bsinfo.dxram.engine.DXRAMComponentAccessor;
 import de.hhu.bsinfo.dxram.engine.DXRAMConfig;
-import de.hhu.bsinfo.dxram.engine.DXRAMModuleConfig;
 import de.hhu.bsinfo.dxram.log.messages.RemoveMessage;
 import de.hhu.bsinfo.dxram.lookup.LookupComponent;
 import de.hhu.bsinfo.dxram.migration.messages.MigrationMessages;
@@ -56,7 +55,7 @@ import org.jetbrains.annotations.Nullable;
  * @author Filip Krakowski, Filip.Krakowski@Uni-Duesseldorf.de, 12.06.2018
  */
 @AbstractDXRAMModule.Attributes(supportsSuperpeer = false, supportsPeer = true)
-public class MigrationService extends AbstractDXRAMService<DXRAMModuleConfig> implements MessageReceiver {
+public class MigrationService extends AbstractDXRAMService<MigrationServiceConfig> implements MessageReceiver {
     // component dependencies
     private AbstractBootComponent m_boot;
     private BackupComponent m_backup;
@@ -169,6 +168,18 @@ public class MigrationService extends AbstractDXRAMService<DXRAMModuleConfig> im
         return m_migrationManager.migrateRange(p_target, new LongRange(p_startChunkID, p_endChunkID));
     }
 
+    /**
+     * Migrates the corresponding Chunks for the giving ID range to another Node while they are still written.
+     * Writes during the copy are tracked and re-sent, the range is fenced briefly to switch the ownership.
+     *
+     * @param p_startChunkID The first chunk id
+     * @param p_endChunkID The last chunk id
+     * @param p_target The target node
+     */
+    public MigrationTicket migrateRangeLive(final long p_startChunkID, final long p_endChunkID, final short p_target) {
+        return m_migrationManager.migrateRangeLive(p_target, new LongRange(p_startChunkID, p_endChunkID));
+    }
+
     /**
      * Waits until the corresponding migration finishes.
      *
@@ -270,7 +281,8 @@ public class MigrationService extends AbstractDXRAMService<DXRAMModuleConfig> im
 
     @Override
     protected void resolveComponentDependencies(final DXRAMComponentAccessor p_componentAccessor) {
-        m_migrationManager = new MigrationManager(16, p_componentAccessor);
+        m_migrationManager = new MigrationManager(getConfig().getWorkerCount(), getConfig().getMaxPushSize().getBytes(),
+                getConfig().getMaxPushesInFlightPerTarget(), p_componentAccessor);
         m_boot = p_componentAccessor.getComponent(AbstractBootComponent.class);
         m_backup = p_componentAccessor.getComponent(BackupComponent.class);
         m_chunk = p_componentAccessor.getComponent(ChunkComponent.class);
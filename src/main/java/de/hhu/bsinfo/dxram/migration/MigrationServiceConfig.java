@@ -0,0 +1,72 @@
+package de.hhu.bsinfo.dxram.migration;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+
+import com.google.gson.annotations.Expose;
+
+import de.hhu.bsinfo.dxram.engine.DXRAMConfig;
+import de.hhu.bsinfo.dxram.engine.DXRAMModuleConfig;
+import de.hhu.bsinfo.dxutils.unit.StorageUnit;
+
+/**
+ * Config for the MigrationService
+ */
+@Data
+@Accessors(prefix = "m_")
+@EqualsAndHashCode(callSuper = false)
+public class MigrationServiceConfig extends DXRAMModuleConfig {
+    private static final StorageUnit MAX_PUSH_SIZE_MIN = new StorageUnit(64, StorageUnit.KB);
+    private static final StorageUnit MAX_PUSH_SIZE_MAX = new StorageUnit(256, StorageUnit.MB);
+
+    /**
+     * Number of threads collecting and sending the chunks of a migration (a range is split among all workers)
+     */
+    @Expose
+    private int m_workerCount = 16;
+
+    /**
+     * Max payload size of a single migration push. Chunks larger than this are sent in a push of their own
+     */
+    @Expose
+    private StorageUnit m_maxPushSize = new StorageUnit(4, StorageUnit.MB);
+
+    /**
+     * Max number of unacknowledged migration pushes per target (shared by all workers)
+     */
+    @Expose
+    private int m_maxPushesInFlightPerTarget = 8;
+
+    /**
+     * Constructor
+     */
+    public MigrationServiceConfig() {
+        super(MigrationService.class);
+    }
+
+    @Override
+    protected boolean verify(final DXRAMConfig p_config) {
+        if (m_workerCount < 1) {
+            LOGGER.error("Invalid value m_workerCount: %d", m_workerCount);
+            return false;
+        }
+
+        if (m_maxPushSize.getBytes() < MAX_PUSH_SIZE_MIN.getBytes()) {
+            LOGGER.error("Min m_maxPushSize: %s", MAX_PUSH_SIZE_MIN);
+            return false;
+        }
+
+        if (m_maxPushSize.getBytes() > MAX_PUSH_SIZE_MAX.getBytes()) {
+            LOGGER.error("Max m_maxPushSize: %s", MAX_PUSH_SIZE_MAX);
+            return false;
+        }
+
+        if (m_maxPushesInFlightPerTarget < 1) {
+            LOGGER.error("Invalid value m_maxPushesInFlightPerTarget: %d", m_maxPushesInFlightPerTarget);
+            return false;
+        }
+
+        return true;
+    }
+}
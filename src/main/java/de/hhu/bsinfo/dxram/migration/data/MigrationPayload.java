@@ -23,12 +23,18 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+/**
+ * Chunks of a migration push. Chunks of live migrations removed during the migration are sent without data (null)
+ */
 public class MigrationPayload implements Importable, Exportable {
 
     private long[] m_ranges;
 
     private byte[][] m_data;
 
+    // import only
+    private boolean[] m_hasData;
+
     private int m_chunkCount;
 
     public MigrationPayload() {
@@ -51,7 +57,11 @@ public class MigrationPayload implements Importable, Exportable {
 
         p_exporter.writeInt(m_chunkCount);
         for (byte[] chunkData : m_data) {
-            p_exporter.writeByteArray(chunkData);
+            p_exporter.writeBoolean(chunkData != null);
+
+            if (chunkData != null) {
+                p_exporter.writeByteArray(chunkData);
+            }
         }
     }
 
@@ -63,10 +73,15 @@ public class MigrationPayload implements Importable, Exportable {
 
         if (m_data == null) {
             m_data = new byte[m_chunkCount][];
+            m_hasData = new boolean[m_chunkCount];
         }
 
         for (int i = 0; i < m_data.length; i++) {
-            m_data[i] = p_importer.readByteArray(m_data[i]);
+            m_hasData[i] = p_importer.readBoolean(m_hasData[i]);
+
+            if (m_hasData[i]) {
+                m_data[i] = p_importer.readByteArray(m_data[i]);
+            }
         }
     }
 
@@ -75,8 +90,11 @@ public class MigrationPayload implements Importable, Exportable {
         int size = ObjectSizeUtil.sizeofLongArray(m_ranges);
 
         for (int i = 0; i < m_data.length; i++) {
+            size += ObjectSizeUtil.sizeofBoolean();
 
-            size += ObjectSizeUtil.sizeofByteArray(m_data[i]);
+            if (m_data[i] != null) {
+                size += ObjectSizeUtil.sizeofByteArray(m_data[i]);
+            }
         }
 
         return size + Integer.BYTES;
@@ -102,7 +120,7 @@ public class MigrationPayload implements Importable, Exportable {
 
     public int getSize() {
         return Arrays.stream(m_data)
-                .map(a -> a.length)
+                .map(a -> a != null ? a.length : 0)
                 .reduce(0, (a, b) -> a + b);
     }
 }
@@ -2,23 +2,26 @@ package de.hhu.bsinfo.dxram.migration.progress;
 
 import de.hhu.bsinfo.dxram.migration.LongRange;
 import de.hhu.bsinfo.dxram.migration.MigrationStatus;
-import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
 public class MigrationProgress implements Supplier<MigrationStatus> {
 
-    private final CountDownLatch m_countDownLatch;
+    private final CountDownLatch m_countDownLatch = new CountDownLatch(1);
 
-    private final Set<LongRange> m_pendingRanges = ConcurrentHashMap.newKeySet();
+    private final AtomicLong m_pendingChunks = new AtomicLong();
 
     private boolean m_isError = false;
 
     public MigrationProgress(final Collection<LongRange> p_pendingRanges) {
-        m_pendingRanges.addAll(p_pendingRanges);
-        m_countDownLatch = new CountDownLatch(m_pendingRanges.size());
+        p_pendingRanges.forEach(range -> m_pendingChunks.addAndGet(range.size()));
+
+        if (m_pendingChunks.get() == 0) {
+            m_countDownLatch.countDown();
+        }
     }
 
     @Override
@@ -38,27 +41,26 @@ public class MigrationProgress implements Supplier<MigrationStatus> {
     void onError() {
         m_isError = true;
 
-        while (m_countDownLatch.getCount() != 0) {
-            m_countDownLatch.countDown();
-        }
+        m_countDownLatch.countDown();
     }
 
     /**
-     * Sets the corresponding range's status to finished.
+     * Sets the corresponding range's status to finished. The range may be any part of the registered ranges as
+     * the chunks are migrated in multiple pushes.
      *
      * @param p_range The range to finish.
      */
     void setFinished(final LongRange p_range) {
-        if (m_pendingRanges.remove(p_range)) {
+        if (m_pendingChunks.addAndGet(-p_range.size()) <= 0) {
             m_countDownLatch.countDown();
         }
     }
 
     /**
-     * Returns a set containing all pending chunk ranges.
+     * Returns the number of chunks not acknowledged by the target, yet.
      */
-    public Set<LongRange> getPendingRanges() {
-        return m_pendingRanges;
+    public long getPendingChunks() {
+        return Math.max(m_pendingChunks.get(), 0);
     }
 
     /**
@@ -71,6 +73,6 @@ public class MigrationProgress implements Supplier<MigrationStatus> {
     }
 
     public boolean isFinished() {
-        return m_pendingRanges.isEmpty();
+        return m_pendingChunks.get() <= 0;
     }
 }
@@ -17,6 +17,7 @@
 package de.hhu.bsinfo.dxram.nameservice;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -89,6 +90,40 @@ public class NameserviceComponent extends AbstractDXRAMComponent<NameserviceComp
         }
     }
 
+    /**
+     * Register multiple chunk ids at once. The entries are sent to the responsible superpeers in batches.
+     *
+     * @param p_chunkIds
+     *         Chunk ids to register.
+     * @param p_names
+     *         Names to associate with the chunk ids (same order as chunk ids).
+     */
+    public void registerAll(final long[] p_chunkIds, final String[] p_names) {
+        int[] ids = new int[p_names.length];
+        long[] chunkIds = new long[p_names.length];
+        int count = 0;
+
+        for (int i = 0; i < p_names.length; i++) {
+            try {
+                ids[count] = m_converter.convert(p_names[i]);
+                chunkIds[count] = p_chunkIds[i];
+                count++;
+            } catch (final IllegalArgumentException e) {
+                LOGGER.error("Lookup in name service failed", e);
+            }
+        }
+
+        if (count < ids.length) {
+            ids = Arrays.copyOf(ids, count);
+            chunkIds = Arrays.copyOf(chunkIds, count);
+        }
+
+        LOGGER.trace("Registering %d chunkIDs", count);
+
+        m_lookup.insertNameserviceEntries(ids, chunkIds);
+        insertMappings(ids, chunkIds);
+    }
+
     /**
      * Get the chunk ID of the specific name from the service.
      *
@@ -117,6 +152,47 @@ public class NameserviceComponent extends AbstractDXRAMComponent<NameserviceComp
         return ret;
     }
 
+    /**
+     * Get the chunk IDs of multiple names from the service. The names are requested from the responsible
+     * superpeers in batches.
+     *
+     * @param p_names
+     *         Registered names to get the chunk IDs for.
+     * @param p_timeoutMs
+     *         Timeout for trying to get the entries (if they do not exist, yet).
+     *         set this to -1 for infinite loop if you know for sure, that the entries have to exist
+     * @return The chunk IDs in the order of the names, -1 for names that were not registered.
+     */
+    public long[] getChunkIDs(final String[] p_names, final int p_timeoutMs) {
+        long[] ret = new long[p_names.length];
+        int[] ids = new int[p_names.length];
+        int[] positions = new int[p_names.length];
+        int count = 0;
+
+        Arrays.fill(ret, ChunkID.INVALID_ID);
+        for (int i = 0; i < p_names.length; i++) {
+            try {
+                ids[count] = m_converter.convert(p_names[i]);
+                positions[count++] = i;
+            } catch (final IllegalArgumentException e) {
+                LOGGER.error("Lookup in name service failed", e);
+            }
+        }
+
+        if (count < ids.length) {
+            ids = Arrays.copyOf(ids, count);
+        }
+
+        LOGGER.trace("Lookup %d names", count);
+
+        long[] chunkIDs = m_lookup.getChunkIDsForNameserviceEntries(ids, p_timeoutMs);
+        for (int i = 0; i < count; i++) {
+            ret[positions[i]] = chunkIDs[i];
+        }
+
+        return ret;
+    }
+
     public void reinit() {
 
         LOGGER.warn("Re-initializing");
@@ -224,6 +300,19 @@ public class NameserviceComponent extends AbstractDXRAMComponent<NameserviceComp
      * @return whether this operation was successful
      */
     private boolean insertMapping(final int p_key, final long p_chunkID) {
+        return insertMappings(new int[] {p_key}, new long[] {p_chunkID});
+    }
+
+    /**
+     * Inserts multiple nameservice entries to chunk with LocalID 0 for backup. Every index chunk is updated once
+     *
+     * @param p_keys
+     *         the keys
+     * @param p_chunkIDs
+     *         the ChunkIDs (same order as keys)
+     * @return whether this operation was successful
+     */
+    private boolean insertMappings(final int[] p_keys, final long[] p_chunkIDs) {
         if (m_chunkIndexDataEnabled) {
             m_indexDataLock.lock();
 
@@ -231,34 +320,37 @@ public class NameserviceComponent extends AbstractDXRAMComponent<NameserviceComp
                 m_chunkIndex.registerIndexChunk(m_indexData.getID(), m_indexData.sizeofObject());
             }
 
-            if (!m_indexData.insertMapping(p_key, p_chunkID)) {
-                // index chunk full, create new one
-                final NameServiceIndexData nextIndexChunk = new NameServiceIndexData();
-                nextIndexChunk.setID(m_chunkIndex.createIndexChunk(nextIndexChunk.sizeofObject()));
+            for (int i = 0; i < p_keys.length; i++) {
+                if (!m_indexData.insertMapping(p_keys[i], p_chunkIDs[i])) {
+                    // index chunk full, create new one
+                    final NameServiceIndexData nextIndexChunk = new NameServiceIndexData();
+                    nextIndexChunk.setID(m_chunkIndex.createIndexChunk(nextIndexChunk.sizeofObject()));
 
-                if (nextIndexChunk.getID() == ChunkID.INVALID_ID) {
-                    LOGGER.error("Creating next index chunk failed");
+                    if (nextIndexChunk.getID() == ChunkID.INVALID_ID) {
+                        LOGGER.error("Creating next index chunk failed");
 
-                    m_indexDataLock.unlock();
-                    return false;
-                }
+                        m_indexDataLock.unlock();
+                        return false;
+                    }
 
-                // link previous to new and update
-                m_indexData.setNextIndexDataChunk(nextIndexChunk.getID());
+                    // link previous to new and update
+                    m_indexData.setNextIndexDataChunk(nextIndexChunk.getID());
 
-                if (!m_chunkIndex.putIndexChunk(m_indexData)) {
-                    LOGGER.error("Updating current index chunk with successor failed");
+                    if (!m_chunkIndex.putIndexChunk(m_indexData)) {
+                        LOGGER.error("Updating current index chunk with successor failed");
 
-                    m_indexDataLock.unlock();
-                    return false;
-                }
+                        m_indexDataLock.unlock();
+                        return false;
+                    }
 
-                m_indexData = nextIndexChunk;
-            }
+                    m_indexData = nextIndexChunk;
 
-            // insert mapping into current chunk and update
-            m_indexData.insertMapping(p_key, p_chunkID);
+                    // insert mapping into new chunk
+                    m_indexData.insertMapping(p_keys[i], p_chunkIDs[i]);
+                }
+            }
 
+            // update current chunk with all new mappings
             if (!m_chunkIndex.putIndexChunk(m_indexData)) {
                 LOGGER.error("Updating current index chunk failed");
 
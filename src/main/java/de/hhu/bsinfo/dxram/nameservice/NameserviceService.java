@@ -76,6 +76,19 @@ public class NameserviceService extends AbstractDXRAMService<DXRAMModuleConfig>
         m_nameservice.register(p_chunkId, p_name);
     }
 
+    /**
+     * Register multiple chunk ids at once. Use this for bulk loading, the entries are sent to the responsible
+     * superpeers in batches.
+     *
+     * @param p_chunkIds
+     *         Chunk ids to register.
+     * @param p_names
+     *         Names to associate with the chunk ids (same order as chunk ids).
+     */
+    public void registerAll(final long[] p_chunkIds, final String[] p_names) {
+        m_nameservice.registerAll(p_chunkIds, p_names);
+    }
+
     /**
      * Register a AbstractChunk for a specific name.
      *
@@ -102,6 +115,20 @@ public class NameserviceService extends AbstractDXRAMService<DXRAMModuleConfig>
         return m_nameservice.getChunkID(p_name, p_timeoutMs);
     }
 
+    /**
+     * Get the chunk IDs of multiple names from the service.
+     *
+     * @param p_names
+     *         Registered names to get the chunk IDs for.
+     * @param p_timeoutMs
+     *         Timeout for trying to get the entries (if they do not exist, yet).
+     *         set this to -1 for infinite loop if you know for sure, that the entries have to exist
+     * @return The chunk IDs in the order of the names, -1 for names that were not registered.
+     */
+    public long[] getChunkIDs(final String[] p_names, final int p_timeoutMs) {
+        return m_nameservice.getChunkIDs(p_names, p_timeoutMs);
+    }
+
     @Override
     protected void resolveComponentDependencies(final DXRAMComponentAccessor p_componentAccessor) {
         m_nameservice = p_componentAccessor.getComponent(NameserviceComponent.class);
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+
+package de.hhu.bsinfo.dxram.recovery;
+
+import java.util.Arrays;
+
+import de.hhu.bsinfo.dxmem.data.ChunkID;
+
+/**
+ * Coalesces ChunkIDs to ranges of consecutive ChunkIDs. Used to inform the superpeers about recovered Chunks with
+ * one request per range instead of one request per Chunk.
+ */
+final class ChunkIDRangeCoalescer {
+
+    /**
+     * Hidden constructor
+     */
+    private ChunkIDRangeCoalescer() {
+    }
+
+    /**
+     * Sorts given ChunkIDs and coalesces them to ranges. A range never spans more than one creator
+     *
+     * @param p_chunkIDs
+     *         the ChunkIDs (sorted in place, duplicates are ignored)
+     * @param p_count
+     *         the number of valid ChunkIDs in array
+     * @return the ranges (start and end ChunkID, both inclusive)
+     */
+    static long[] coalesce(final long[] p_chunkIDs, final int p_count) {
+        long[] ranges;
+        int size = 0;
+
+        if (p_count == 0) {
+            return new long[0];
+        }
+
+        Arrays.sort(p_chunkIDs, 0, p_count);
+
+        ranges = new long[2 * p_count];
+        ranges[size++] = p_chunkIDs[0];
+        ranges[size++] = p_chunkIDs[0];
+        for (int i = 1; i < p_count; i++) {
+            long chunkID = p_chunkIDs[i];
+            long end = ranges[size - 1];
+
+            if (chunkID == end) {
+                continue;
+            }
+
+            if (chunkID == end + 1 && ChunkID.getCreatorID(chunkID) == ChunkID.getCreatorID(end)) {
+                ranges[size - 1] = chunkID;
+            } else {
+                ranges[size++] = chunkID;
+                ranges[size++] = chunkID;
+            }
+        }
+
+        return size == ranges.length ? ranges : Arrays.copyOf(ranges, size);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+
+package de.hhu.bsinfo.dxram.recovery;
+
+/**
+ * Tracks the progress of all backup range recoveries on this peer. Updated by the recovery threads, read by the
+ * status API
+ */
+class RecoveryProgress {
+
+    // Attributes
+    private int m_rangesQueued;
+    private int m_rangesInProgress;
+    private int m_rangesRecovered;
+    private int m_rangesFailed;
+    private long m_recoveredChunks;
+    private long m_recoveredBytes;
+
+    private long m_activeTimeNs;
+    private long m_activeSinceNs;
+
+    // Methods
+
+    /**
+     * A backup range recovery was submitted
+     */
+    synchronized void queued() {
+        m_rangesQueued++;
+    }
+
+    /**
+     * A recovery thread started to recover a backup range
+     *
+     * @param p_nowNs
+     *         the current time in ns
+     */
+    synchronized void started(final long p_nowNs) {
+        m_rangesQueued--;
+        if (m_rangesInProgress++ == 0) {
+            m_activeSinceNs = p_nowNs;
+        }
+    }
+
+    /**
+     * A backup range was recovered
+     *
+     * @param p_chunks
+     *         the number of recovered chunks
+     * @param p_bytes
+     *         the number of recovered bytes
+     * @param p_nowNs
+     *         the current time in ns
+     */
+    synchronized void recovered(final long p_chunks, final long p_bytes, final long p_nowNs) {
+        m_rangesRecovered++;
+        m_recoveredChunks += p_chunks;
+        m_recoveredBytes += p_bytes;
+        finished(p_nowNs);
+    }
+
+    /**
+     * A backup range could not be recovered
+     *
+     * @param p_nowNs
+     *         the current time in ns
+     */
+    synchronized void failed(final long p_nowNs) {
+        m_rangesFailed++;
+        finished(p_nowNs);
+    }
+
+    /**
+     * Returns a snapshot of the progress
+     *
+     * @param p_nowNs
+     *         the current time in ns
+     * @return the recovery status
+     */
+    synchronized RecoveryStatus getStatus(final long p_nowNs) {
+        long activeTime = m_activeTimeNs;
+
+        if (m_rangesInProgress > 0) {
+            activeTime += p_nowNs - m_activeSinceNs;
+        }
+
+        return new RecoveryStatus(m_rangesQueued, m_rangesInProgress, m_rangesRecovered, m_rangesFailed,
+                m_recoveredChunks, m_recoveredBytes, activeTime);
+    }
+
+    /**
+     * A recovery thread finished a backup range
+     *
+     * @param p_nowNs
+     *         the current time in ns
+     */
+    private void finished(final long p_nowNs) {
+        if (--m_rangesInProgress == 0) {
+            m_activeTimeNs += p_nowNs - m_activeSinceNs;
+        }
+    }
+}
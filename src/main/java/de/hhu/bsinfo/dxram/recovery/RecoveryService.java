@@ -18,6 +18,10 @@ package de.hhu.bsinfo.dxram.recovery;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 
 import de.hhu.bsinfo.dxlog.storage.diskaccess.HarddriveAccessMode;
@@ -36,7 +40,6 @@ import de.hhu.bsinfo.dxram.engine.AbstractDXRAMModule;
 import de.hhu.bsinfo.dxram.engine.AbstractDXRAMService;
 import de.hhu.bsinfo.dxram.engine.DXRAMComponentAccessor;
 import de.hhu.bsinfo.dxram.engine.DXRAMConfig;
-import de.hhu.bsinfo.dxram.engine.DXRAMModuleConfig;
 import de.hhu.bsinfo.dxram.log.LogComponent;
 import de.hhu.bsinfo.dxram.lookup.LookupComponent;
 import de.hhu.bsinfo.dxram.net.NetworkComponent;
@@ -54,7 +57,7 @@ import de.hhu.bsinfo.dxutils.jni.JNIFileRaw;
  * @author Kevin Beineke, kevin.beineke@hhu.de, 31.03.16
  */
 @AbstractDXRAMModule.Attributes(supportsSuperpeer = false, supportsPeer = true)
-public class RecoveryService extends AbstractDXRAMService<DXRAMModuleConfig> implements MessageReceiver {
+public class RecoveryService extends AbstractDXRAMService<RecoveryServiceConfig> implements MessageReceiver {
     // component dependencies
     private AbstractBootComponent m_boot;
     private BackupComponent m_backup;
@@ -64,7 +67,10 @@ public class RecoveryService extends AbstractDXRAMService<DXRAMModuleConfig> imp
     private NetworkComponent m_network;
 
     private String m_backupDirectory;
-    private ReentrantLock m_recoveryLock;
+    // DXLog blocks its single reorganization thread and modifies the log catalog during a recovery -> serialized
+    private ReentrantLock m_logLock;
+    private ExecutorService m_recoveryExecutor;
+    private RecoveryProgress m_progress;
 
     private ArrayList<FinishedRecovery> m_finishedRecoveries;
     private ReentrantLock m_replicationLock;
@@ -108,7 +114,15 @@ public class RecoveryService extends AbstractDXRAMService<DXRAMModuleConfig> imp
 
         m_backupDirectory = m_backup.getConfig().getBackupDirectory();
 
-        m_recoveryLock = new ReentrantLock(false);
+        AtomicInteger threadCounter = new AtomicInteger(1);
+
+        m_logLock = new ReentrantLock(false);
+        m_recoveryExecutor = Executors.newFixedThreadPool(getConfig().getRecoveryThreads(), p_runnable -> {
+            Thread thread = new Thread(p_runnable, "Recovery-thread-" + threadCounter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        m_progress = new RecoveryProgress();
 
         m_finishedRecoveries = new ArrayList<>();
         m_replicationLock = new ReentrantLock(false);
@@ -118,9 +132,23 @@ public class RecoveryService extends AbstractDXRAMService<DXRAMModuleConfig> imp
 
     @Override
     protected boolean shutdownService() {
+        if (m_recoveryExecutor != null) {
+            m_recoveryExecutor.shutdownNow();
+            m_recoveryExecutor = null;
+        }
+
         return true;
     }
 
+    /**
+     * Returns the progress of all backup range recoveries on this peer
+     *
+     * @return the recovery status
+     */
+    public RecoveryStatus getRecoveryStatus() {
+        return m_progress.getStatus(System.nanoTime());
+    }
+
     /**
      * Recovers all Chunks of given node from log file on this node
      *
@@ -160,19 +188,7 @@ public class RecoveryService extends AbstractDXRAMService<DXRAMModuleConfig> imp
 
                             LOGGER.info("Retrieved %d Chunks from file", chunks.length);
 
-                            // Store recovered Chunks
-                            //m_chunkBackup.putRecoveredChunks(chunks);
-
-                            if (fileName.contains("M")) {
-                                // Inform superpeers about new location of migrated Chunks (non-migrated Chunks are
-                                // processed later)
-                                for (AbstractChunk chunk : chunks) {
-                                    if (ChunkID.getCreatorID(chunk.getID()) != p_owner) {
-                                        // TODO: This might crash because there is no tree for creator of this chunk
-                                        m_lookup.migrate(chunk.getID(), m_boot.getNodeId());
-                                    }
-                                }
-                            }
+                            storeRecoveredChunks(p_owner, chunks, fileName.contains("M"));
                         }
                     }
                 }
@@ -208,19 +224,7 @@ public class RecoveryService extends AbstractDXRAMService<DXRAMModuleConfig> imp
 
                         LOGGER.info("Retrieved %d Chunks from file", chunks.length);
 
-                        // Store recovered Chunks
-                        //m_chunkBackup.putRecoveredChunks(chunks);
-
-                        if (fileName.contains("M")) {
-                            // Inform superpeers about new location of migrated Chunks (non-migrated Chunks are
-                            // processed later)
-                            for (AbstractChunk chunk : chunks) {
-                                if (ChunkID.getCreatorID(chunk.getID()) != p_owner) {
-                                    // TODO: This might crash because there is no tree for creator of this chunk
-                                    m_lookup.migrate(chunk.getID(), m_boot.getNodeId());
-                                }
-                            }
-                        }
+                        storeRecoveredChunks(p_owner, chunks, fileName.contains("M"));
                     }
                 }
 
@@ -229,6 +233,58 @@ public class RecoveryService extends AbstractDXRAMService<DXRAMModuleConfig> imp
         }
     }
 
+    /**
+     * Stores recovered Chunks and informs superpeers about the new location of migrated Chunks. Consecutive
+     * ChunkIDs are published as one range
+     *
+     * @param p_owner
+     *         the NodeID of the node whose Chunks have been restored
+     * @param p_chunks
+     *         the recovered Chunks
+     * @param p_migrated
+     *         whether the Chunks were recovered from a backup range of migrated Chunks
+     * @return for every Chunk, whether it was stored successfully
+     */
+    private boolean[] storeRecoveredChunks(final short p_owner, final AbstractChunk[] p_chunks,
+            final boolean p_migrated) {
+        long[] chunkIDs;
+        long[] ranges;
+        int stored = 0;
+        int count = 0;
+
+        boolean[] states = m_chunkBackup.putRecoveredChunks(p_chunks);
+        for (boolean state : states) {
+            if (state) {
+                stored++;
+            }
+        }
+
+        if (stored != p_chunks.length) {
+            LOGGER.error("Stored only %d of %d recovered Chunks", stored, p_chunks.length);
+        }
+
+        if (p_migrated) {
+            // Inform superpeers about new location of migrated Chunks (non-migrated Chunks are processed later).
+            // Chunks which could not be stored must not be published
+            chunkIDs = new long[p_chunks.length];
+            for (int i = 0; i < p_chunks.length; i++) {
+                if (states[i] && ChunkID.getCreatorID(p_chunks[i].getID()) != p_owner) {
+                    chunkIDs[count++] = p_chunks[i].getID();
+                }
+            }
+
+            ranges = ChunkIDRangeCoalescer.coalesce(chunkIDs, count);
+            for (int i = 0; i < ranges.length; i += 2) {
+                // TODO: This might crash because there is no tree for creator of this chunk
+                m_lookup.migrateRange(ranges[i], ranges[i + 1], m_boot.getNodeId());
+            }
+
+            LOGGER.info("Published %d migrated Chunks in %d ranges", count, ranges.length / 2);
+        }
+
+        return states;
+    }
+
     /**
      * Replicates all Chunks of given backup range
      *
@@ -244,12 +300,17 @@ public class RecoveryService extends AbstractDXRAMService<DXRAMModuleConfig> imp
 
         rangeID = p_backupRange.getRangeID();
 
-        m_recoveryLock.lock();
-        ret = m_log.recoverBackupRange(p_owner, rangeID);
-        if (ret != null) {
-            m_log.removeBackupRange(p_owner, rangeID);
+        // Only one backup range is read from the log at a time. Registering the recovered chunks, sending the
+        // response and replicating are done in parallel by the recovery threads
+        m_logLock.lock();
+        try {
+            ret = m_log.recoverBackupRange(p_owner, rangeID);
+            if (ret != null) {
+                m_log.removeBackupRange(p_owner, rangeID);
+            }
+        } finally {
+            m_logLock.unlock();
         }
-        m_recoveryLock.unlock();
 
         return ret;
     }
@@ -322,15 +383,23 @@ public class RecoveryService extends AbstractDXRAMService<DXRAMModuleConfig> imp
          *      j)
          */
 
-        // Outsource recovery to another thread to avoid blocking a message handler
+        // Outsource recovery to the recovery threads to avoid blocking a message handler. Backup ranges are
+        // recovered in parallel, bounded by the number of recovery threads
         Runnable task = () -> {
             short replacementBackupPeer;
             BackupRange backupRange = p_request.getBackupRange();
 
+            m_progress.started(System.nanoTime());
+
             // Recover all chunks of given backup range, store them in chunk module and remove log
             RecoveryMetadata recoveryMetadata = recoverBackupRange(p_request.getOwner(), backupRange);
 
             if (recoveryMetadata == null) {
+                m_progress.failed(System.nanoTime());
+
+                LOGGER.error("Recovery of backup range %d of 0x%X failed", backupRange.getRangeID(),
+                        p_request.getOwner());
+
                 try {
                     m_network.sendMessage(new RecoverBackupRangeResponse(p_request, null, 0, null));
                 } catch (final NetworkException ignored) {
@@ -339,6 +408,9 @@ public class RecoveryService extends AbstractDXRAMService<DXRAMModuleConfig> imp
 
                 }
             } else {
+                m_progress.recovered(recoveryMetadata.getNumberOfChunks(), recoveryMetadata.getSizeInBytes(),
+                        System.nanoTime());
+
                 // Initialize backup ranges in backup, lookup and log modules by joining recovered chunks with
                 // migrated chunks
                 replacementBackupPeer =
@@ -361,7 +433,17 @@ public class RecoveryService extends AbstractDXRAMService<DXRAMModuleConfig> imp
                 }
             }
         };
-        new Thread(task).start();
+
+        m_progress.queued();
+        try {
+            m_recoveryExecutor.execute(task);
+        } catch (final RejectedExecutionException e) {
+            m_progress.started(System.nanoTime());
+            m_progress.failed(System.nanoTime());
+
+            LOGGER.error("Recovery of backup range %d of 0x%X rejected. Service is shut down",
+                    p_request.getBackupRange().getRangeID(), p_request.getOwner());
+        }
     }
 
     /**
@@ -399,12 +481,21 @@ public class RecoveryService extends AbstractDXRAMService<DXRAMModuleConfig> imp
      *         the ReplicateBackupRangeRequest
      */
     private void incomingReplicateBackupRangeRequest(final ReplicateBackupRangeRequest p_request) {
-        replicateBackupRange(p_request.getRangeID());
+        // Replicate in parallel to other recovered backup ranges without blocking a message handler
+        Runnable task = () -> {
+            replicateBackupRange(p_request.getRangeID());
 
-        try {
-            m_network.sendMessage(new ReplicateBackupRangeResponse(p_request));
-        } catch (final NetworkException ignored) {
+            try {
+                m_network.sendMessage(new ReplicateBackupRangeResponse(p_request));
+            } catch (final NetworkException ignored) {
 
+            }
+        };
+
+        try {
+            m_recoveryExecutor.execute(task);
+        } catch (final RejectedExecutionException e) {
+            LOGGER.error("Replication of backup range %d rejected. Service is shut down", p_request.getRangeID());
         }
     }
 
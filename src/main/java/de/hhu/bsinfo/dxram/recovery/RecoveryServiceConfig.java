@@ -0,0 +1,43 @@
+package de.hhu.bsinfo.dxram.recovery;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+
+import com.google.gson.annotations.Expose;
+
+import de.hhu.bsinfo.dxram.engine.DXRAMConfig;
+import de.hhu.bsinfo.dxram.engine.DXRAMModuleConfig;
+
+/**
+ * Config for the RecoveryService
+ */
+@Data
+@Accessors(prefix = "m_")
+@EqualsAndHashCode(callSuper = false)
+public class RecoveryServiceConfig extends DXRAMModuleConfig {
+
+    /**
+     * Number of recovery threads. Reading a backup range from the log is serialized, registering the recovered
+     * chunks, answering the superpeer and replicating run in parallel
+     */
+    @Expose
+    private int m_recoveryThreads = 4;
+
+    /**
+     * Constructor
+     */
+    public RecoveryServiceConfig() {
+        super(RecoveryService.class);
+    }
+
+    @Override
+    protected boolean verify(final DXRAMConfig p_config) {
+        if (m_recoveryThreads < 1) {
+            LOGGER.error("Invalid value m_recoveryThreads: %d", m_recoveryThreads);
+            return false;
+        }
+
+        return true;
+    }
+}
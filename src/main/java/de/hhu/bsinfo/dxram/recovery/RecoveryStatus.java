@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+
+package de.hhu.bsinfo.dxram.recovery;
+
+/**
+ * Snapshot of the progress of all backup range recoveries on this peer
+ */
+public class RecoveryStatus {
+
+    // Attributes
+    private final int m_rangesQueued;
+    private final int m_rangesInProgress;
+    private final int m_rangesRecovered;
+    private final int m_rangesFailed;
+    private final long m_recoveredChunks;
+    private final long m_recoveredBytes;
+    private final long m_activeTimeNs;
+
+    // Constructors
+
+    /**
+     * Creates an instance of RecoveryStatus
+     *
+     * @param p_rangesQueued
+     *         the number of backup ranges waiting for a recovery thread
+     * @param p_rangesInProgress
+     *         the number of backup ranges being recovered
+     * @param p_rangesRecovered
+     *         the number of recovered backup ranges
+     * @param p_rangesFailed
+     *         the number of backup ranges which could not be recovered
+     * @param p_recoveredChunks
+     *         the number of recovered chunks
+     * @param p_recoveredBytes
+     *         the number of recovered bytes
+     * @param p_activeTimeNs
+     *         the time at least one backup range was being recovered
+     */
+    RecoveryStatus(final int p_rangesQueued, final int p_rangesInProgress, final int p_rangesRecovered,
+            final int p_rangesFailed, final long p_recoveredChunks, final long p_recoveredBytes,
+            final long p_activeTimeNs) {
+        m_rangesQueued = p_rangesQueued;
+        m_rangesInProgress = p_rangesInProgress;
+        m_rangesRecovered = p_rangesRecovered;
+        m_rangesFailed = p_rangesFailed;
+        m_recoveredChunks = p_recoveredChunks;
+        m_recoveredBytes = p_recoveredBytes;
+        m_activeTimeNs = p_activeTimeNs;
+    }
+
+    // Getters
+
+    /**
+     * Returns the number of backup ranges waiting for a recovery thread
+     *
+     * @return the number of queued backup ranges
+     */
+    public int getRangesQueued() {
+        return m_rangesQueued;
+    }
+
+    /**
+     * Returns the number of backup ranges being recovered
+     *
+     * @return the number of backup ranges in progress
+     */
+    public int getRangesInProgress() {
+        return m_rangesInProgress;
+    }
+
+    /**
+     * Returns the number of recovered backup ranges
+     *
+     * @return the number of recovered backup ranges
+     */
+    public int getRangesRecovered() {
+        return m_rangesRecovered;
+    }
+
+    /**
+     * Returns the number of backup ranges which could not be recovered
+     *
+     * @return the number of failed backup ranges
+     */
+    public int getRangesFailed() {
+        return m_rangesFailed;
+    }
+
+    /**
+     * Returns the number of recovered chunks
+     *
+     * @return the number of recovered chunks
+     */
+    public long getRecoveredChunks() {
+        return m_recoveredChunks;
+    }
+
+    /**
+     * Returns the number of recovered bytes
+     *
+     * @return the number of recovered bytes
+     */
+    public long getRecoveredBytes() {
+        return m_recoveredBytes;
+    }
+
+    /**
+     * Returns the time at least one backup range was being recovered
+     *
+     * @return the active time in ns
+     */
+    public long getActiveTimeNs() {
+        return m_activeTimeNs;
+    }
+
+    // Methods
+
+    /**
+     * Returns the recovery throughput while recoveries were active
+     *
+     * @return the throughput in bytes per second
+     */
+    public double getThroughput() {
+        if (m_activeTimeNs == 0) {
+            return 0;
+        }
+
+        return m_recoveredBytes * 1000.0 * 1000.0 * 1000.0 / m_activeTimeNs;
+    }
+
+    @Override
+    public String toString() {
+        return "RecoveryStatus[queued " + m_rangesQueued + ", in progress " + m_rangesInProgress + ", recovered " +
+                m_rangesRecovered + ", failed " + m_rangesFailed + ", chunks " + m_recoveredChunks + ", bytes " +
+                m_recoveredBytes + ", throughput " + String.format("%.2f", getThroughput() / 1024 / 1024) +
+                " MB/s]";
+    }
+}
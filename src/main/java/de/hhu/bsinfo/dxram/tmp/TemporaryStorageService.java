@@ -16,6 +16,10 @@
 
 package de.hhu.bsinfo.dxram.tmp;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
 import de.hhu.bsinfo.dxmem.data.AbstractChunk;
 import de.hhu.bsinfo.dxram.chunk.data.ChunkAnon;
 import de.hhu.bsinfo.dxram.engine.AbstractDXRAMModule;
@@ -25,6 +29,8 @@ import de.hhu.bsinfo.dxram.engine.DXRAMConfig;
 import de.hhu.bsinfo.dxram.lookup.LookupComponent;
 import de.hhu.bsinfo.dxram.lookup.overlay.storage.SuperpeerStorage;
 import de.hhu.bsinfo.dxram.nameservice.NameServiceStringConverter;
+import de.hhu.bsinfo.dxutils.serialization.ByteBufferImExporter;
+import de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil;
 
 /**
  * This service provides access to a temporary "chunk" storage residing on the
@@ -33,17 +39,27 @@ import de.hhu.bsinfo.dxram.nameservice.NameServiceStringConverter;
  * data in the ChunkService. However, it is replicated to further superpeers to give
  * a certain degree of fault tolerance.
  * Use this to store results of computations or helper data for computations.
+ * If a stripe size is configured, items larger than the stripe size are split into stripes
+ * which are stored on different superpeers and transferred in parallel. The first stripe is
+ * stored with the id of the item and its data is followed by a stripe table (total size of the item and
+ * the ids of all further stripes). The ids of the further stripes are allocated in the negative
+ * id range which is not usable for regular items.
  *
  * @author Stefan Nothaas, stefan.nothaas@hhu.de, 18.05.2016
  */
 @AbstractDXRAMModule.Attributes(supportsSuperpeer = false, supportsPeer = true)
 public class TemporaryStorageService extends AbstractDXRAMService<TemporaryStorageServiceConfig> {
 
+    private static final int MAX_STRIPE_ID_ATTEMPTS = 3;
+
     // component dependencies
     private LookupComponent m_lookup;
 
     private NameServiceStringConverter m_idConverter = new NameServiceStringConverter("NAME");
 
+    // 0 if striping is disabled
+    private int m_stripeSize;
+
     /**
      * Get the status of the superpeer storage.
      *
@@ -75,6 +91,10 @@ public class TemporaryStorageService extends AbstractDXRAMService<TemporaryStora
      * @return True if successful, false on failure (no space, element count exceeded or id used).
      */
     public boolean create(final int p_id, final int p_size) {
+        if (isStriped(p_size)) {
+            return createStriped(p_id, p_size);
+        }
+
         return m_lookup.superpeerStorageCreate(p_id, p_size);
     }
 
@@ -86,6 +106,10 @@ public class TemporaryStorageService extends AbstractDXRAMService<TemporaryStora
      * @return True if successful, false on failure (no space, element count exceeded or id used).
      */
     public boolean create(final AbstractChunk p_chunk) {
+        if (isStriped(p_chunk.sizeofObject()) && isValidId(p_chunk.getID())) {
+            return createStriped((int) p_chunk.getID(), p_chunk.sizeofObject());
+        }
+
         return m_lookup.superpeerStorageCreate(p_chunk);
     }
 
@@ -97,6 +121,15 @@ public class TemporaryStorageService extends AbstractDXRAMService<TemporaryStora
      * @return True if successful, false otherwise.
      */
     public boolean put(final AbstractChunk p_chunk) {
+        int size = p_chunk.sizeofObject();
+
+        if (isStriped(size) && isValidId(p_chunk.getID())) {
+            ByteBuffer buffer = ByteBuffer.allocate(size);
+            new ByteBufferImExporter(buffer).exportObject(p_chunk);
+
+            return putStriped((int) p_chunk.getID(), buffer.array(), size);
+        }
+
         return m_lookup.superpeerStoragePut(p_chunk);
     }
 
@@ -108,6 +141,12 @@ public class TemporaryStorageService extends AbstractDXRAMService<TemporaryStora
      * @return True if successful, false otherwise.
      */
     public boolean putAnon(final ChunkAnon p_chunk) {
+        int size = p_chunk.getDataSize();
+
+        if (isStriped(size) && isValidId(p_chunk.getID())) {
+            return putStriped((int) p_chunk.getID(), p_chunk.getData(), size);
+        }
+
         return m_lookup.superpeerStoragePutAnon(p_chunk);
     }
 
@@ -119,6 +158,28 @@ public class TemporaryStorageService extends AbstractDXRAMService<TemporaryStora
      * @return True on success, false on failure.
      */
     public boolean get(final AbstractChunk p_chunk) {
+        int size = p_chunk.sizeofObject();
+
+        if (isStriped(size) && isValidId(p_chunk.getID())) {
+            // The first stripe contains the stripe table -> get the remaining stripes in parallel afterwards
+            ChunkAnon first = new ChunkAnon(p_chunk.getID());
+            if (!m_lookup.superpeerStorageGetAnon(first) || getStripedSize(first) != size) {
+                return false;
+            }
+
+            ChunkAnon[] stripes = getStripes(first, size);
+            if (stripes == null) {
+                return false;
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(size);
+            copyStripes(stripes, buffer);
+            buffer.flip();
+            p_chunk.importObject(new ByteBufferImExporter(buffer));
+
+            return true;
+        }
+
         return m_lookup.superpeerStorageGet(p_chunk);
     }
 
@@ -130,7 +191,30 @@ public class TemporaryStorageService extends AbstractDXRAMService<TemporaryStora
      * @return True on success, false on failure.
      */
     public boolean getAnon(final ChunkAnon p_chunk) {
-        return m_lookup.superpeerStorageGetAnon(p_chunk);
+        if (!m_lookup.superpeerStorageGetAnon(p_chunk)) {
+            return false;
+        }
+
+        int size = getStripedSize(p_chunk);
+        if (size == -1) {
+            return true;
+        }
+
+        // The first stripe contains the stripe table -> get the remaining stripes in parallel
+        ChunkAnon[] stripes = getStripes(new ChunkAnon(p_chunk.getID(), p_chunk.getData()), size);
+        if (stripes == null) {
+            return false;
+        }
+
+        // Assemble the serialized byte array (with length field) and import it into the chunk
+        ByteBuffer buffer = ByteBuffer.allocate(ObjectSizeUtil.sizeofCompactedNumber(size) + size);
+        ByteBufferImExporter imExporter = new ByteBufferImExporter(buffer);
+        imExporter.writeCompactNumber(size);
+        copyStripes(stripes, buffer);
+        buffer.flip();
+        p_chunk.importObject(imExporter);
+
+        return true;
     }
 
     /**
@@ -141,6 +225,14 @@ public class TemporaryStorageService extends AbstractDXRAMService<TemporaryStora
      * @return True if successful, false otherwise.
      */
     public boolean remove(final int p_id) {
+        if (m_stripeSize > 0) {
+            // Only the stripe table behind the data of the first stripe is transferred
+            int[] stripeIds = getStripeIds(p_id, -1);
+            if (stripeIds != null) {
+                removeStripes(stripeIds);
+            }
+        }
+
         return m_lookup.superpeerStorageRemove(p_id);
     }
 
@@ -152,9 +244,308 @@ public class TemporaryStorageService extends AbstractDXRAMService<TemporaryStora
      * @return True if successful, false otherwise.
      */
     public boolean remove(final AbstractChunk p_chunk) {
+        if (isStriped(p_chunk.sizeofObject()) && isValidId(p_chunk.getID())) {
+            int[] stripeIds = getStripeIds((int) p_chunk.getID(), p_chunk.sizeofObject());
+            if (stripeIds != null) {
+                removeStripes(stripeIds);
+            }
+        }
+
         return m_lookup.superpeerStorageRemove(p_chunk);
     }
 
+    /**
+     * Checks if an item with given size is split into stripes
+     *
+     * @param p_size
+     *         Size of the item
+     * @return True if striping is enabled and the item is larger than the stripe size.
+     */
+    private boolean isStriped(final int p_size) {
+        return m_stripeSize > 0 && p_size > m_stripeSize;
+    }
+
+    /**
+     * Checks if a chunk id is a valid storage id. Invalid ids are rejected by the lookup component
+     *
+     * @param p_id
+     *         Chunk id
+     * @return True if valid.
+     */
+    private static boolean isValidId(final long p_id) {
+        return p_id >= 0 && p_id <= 0x7FFFFFFF;
+    }
+
+    /**
+     * Get the number of stripes of a striped item
+     *
+     * @param p_size
+     *         Size of the item
+     * @return Number of stripes.
+     */
+    private int getNumberOfStripes(final int p_size) {
+        return (p_size - 1) / m_stripeSize + 1;
+    }
+
+    /**
+     * Get the size of the stripe table (size of the item and ids of all further stripes)
+     *
+     * @param p_size
+     *         Size of the item
+     * @return Size of the stripe table.
+     */
+    private int getStripeTableSize(final int p_size) {
+        return Integer.BYTES * getNumberOfStripes(p_size);
+    }
+
+    /**
+     * Get the size of a block in the superpeer storage (first stripe includes the stripe table)
+     *
+     * @param p_size
+     *         Size of the item
+     * @param p_stripe
+     *         Index of the stripe
+     * @return Size of the block.
+     */
+    private int getStripeBlockSize(final int p_size, final int p_stripe) {
+        if (p_stripe == 0) {
+            return m_stripeSize + getStripeTableSize(p_size);
+        }
+
+        return Math.min(m_stripeSize, p_size - p_stripe * m_stripeSize);
+    }
+
+    /**
+     * Get the size of a striped item from its first stripe
+     *
+     * @param p_first
+     *         First stripe of the item
+     * @return Size of the item or -1 if the chunk is not the first stripe of a striped item.
+     */
+    private int getStripedSize(final ChunkAnon p_first) {
+        // Blocks of items which are not striped are never larger than the stripe size
+        if (m_stripeSize == 0 || p_first.getDataSize() <= m_stripeSize) {
+            return -1;
+        }
+
+        int size = ByteBuffer.wrap(p_first.getData()).getInt(m_stripeSize);
+        if (!isStriped(size) || p_first.getDataSize() != getStripeBlockSize(size, 0)) {
+            return -1;
+        }
+
+        return size;
+    }
+
+    /**
+     * Parse the stripe table stored behind the data of the first stripe
+     *
+     * @param p_id
+     *         Storage id of the item
+     * @param p_table
+     *         Array containing the stripe table
+     * @param p_offset
+     *         Offset of the stripe table in the array
+     * @param p_length
+     *         Length of the stripe table
+     * @param p_size
+     *         Expected size of the item or -1 if unknown
+     * @return Storage ids of all stripes (the first one is the item id) or null if the table is invalid.
+     */
+    private int[] parseStripeTable(final int p_id, final byte[] p_table, final int p_offset, final int p_length,
+            final int p_size) {
+        if (p_length < Integer.BYTES) {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(p_table, p_offset, p_length);
+        int size = buffer.getInt();
+        if (!isStriped(size) || p_size != -1 && size != p_size || p_length != getStripeTableSize(size)) {
+            return null;
+        }
+
+        int[] ids = new int[getNumberOfStripes(size)];
+        ids[0] = p_id;
+        for (int i = 1; i < ids.length; i++) {
+            ids[i] = buffer.getInt();
+        }
+
+        return ids;
+    }
+
+    /**
+     * Get the storage ids of all stripes of an item by reading the stripe table of the first stripe, only
+     *
+     * @param p_id
+     *         Storage id of the item
+     * @param p_size
+     *         Expected size of the item or -1 if unknown
+     * @return Storage ids of all stripes (the first one is the item id) or null if the item is not striped.
+     */
+    private int[] getStripeIds(final int p_id, final int p_size) {
+        // Blocks of items which are not striped are never larger than the stripe size -> nothing to read
+        ChunkAnon table = new ChunkAnon(p_id);
+        if (!m_lookup.superpeerStorageGetAnon(table, m_stripeSize)) {
+            return null;
+        }
+
+        return parseStripeTable(p_id, table.getData(), 0, table.getDataSize(), p_size);
+    }
+
+    /**
+     * Get all stripes of an item except for the first one (in parallel)
+     *
+     * @param p_first
+     *         First stripe of the item (including the stripe table)
+     * @param p_size
+     *         Size of the item
+     * @return All stripes of the item or null on failure.
+     */
+    private ChunkAnon[] getStripes(final ChunkAnon p_first, final int p_size) {
+        int[] ids = parseStripeTable((int) p_first.getID(), p_first.getData(), m_stripeSize,
+                p_first.getDataSize() - m_stripeSize, p_size);
+        if (ids == null) {
+            return null;
+        }
+
+        ChunkAnon[] stripes = new ChunkAnon[ids.length];
+        stripes[0] = p_first;
+        for (int i = 1; i < stripes.length; i++) {
+            stripes[i] = new ChunkAnon(ids[i]);
+        }
+
+        if (!m_lookup.superpeerStorageGetAnon(Arrays.copyOfRange(stripes, 1, stripes.length))) {
+            return null;
+        }
+
+        return stripes;
+    }
+
+    /**
+     * Create all blocks of a striped item. The ids of the further stripes are drawn randomly from the negative id
+     * range (not usable for regular items) and stored in the stripe table of the first stripe. Ids which are already
+     * in use are replaced by new ones.
+     *
+     * @param p_id
+     *         Storage id of the item
+     * @param p_size
+     *         Size of the item
+     * @return True if successful, false on failure (all blocks created by this call are removed again).
+     */
+    private boolean createStriped(final int p_id, final int p_size) {
+        int[] ids = new int[getNumberOfStripes(p_size)];
+        boolean[] created = new boolean[ids.length];
+
+        // Create the first stripe separately to detect used ids before creating any other stripe
+        if (!m_lookup.superpeerStorageCreate(p_id, getStripeBlockSize(p_size, 0))) {
+            return false;
+        }
+
+        ids[0] = p_id;
+        created[0] = true;
+
+        int missing = ids.length - 1;
+        for (int attempt = 0; attempt < MAX_STRIPE_ID_ATTEMPTS && missing > 0; attempt++) {
+            int[] indices = new int[missing];
+            int[] stripeIds = new int[missing];
+            int[] sizes = new int[missing];
+
+            for (int i = 1, j = 0; i < ids.length; i++) {
+                if (!created[i]) {
+                    ids[i] = Integer.MIN_VALUE | ThreadLocalRandom.current().nextInt();
+                    indices[j] = i;
+                    stripeIds[j] = ids[i];
+                    sizes[j] = getStripeBlockSize(p_size, i);
+                    j++;
+                }
+            }
+
+            boolean[] res = m_lookup.superpeerStorageCreate(stripeIds, sizes);
+            for (int j = 0; j < res.length; j++) {
+                if (res[j]) {
+                    created[indices[j]] = true;
+                    missing--;
+                }
+            }
+        }
+
+        if (missing == 0) {
+            // Store the size and stripe ids in the first stripe to be able to access the item by its id, only
+            ByteBuffer buffer = ByteBuffer.allocate(getStripeBlockSize(p_size, 0));
+            buffer.position(m_stripeSize);
+            buffer.putInt(p_size);
+            for (int i = 1; i < ids.length; i++) {
+                buffer.putInt(ids[i]);
+            }
+
+            if (m_lookup.superpeerStoragePutAnon(new ChunkAnon(p_id, buffer.array()))) {
+                return true;
+            }
+        }
+
+        for (int i = ids.length - 1; i >= 0; i--) {
+            if (created[i]) {
+                m_lookup.superpeerStorageRemove(ids[i]);
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Put all stripes of an item
+     *
+     * @param p_id
+     *         Storage id of the item
+     * @param p_data
+     *         Data of the item
+     * @param p_size
+     *         Size of the item
+     * @return True if successful, false otherwise.
+     */
+    private boolean putStriped(final int p_id, final byte[] p_data, final int p_size) {
+        int[] ids = getStripeIds(p_id, p_size);
+        if (ids == null) {
+            return false;
+        }
+
+        // The stripe table behind the data of the first stripe is not overwritten
+        ChunkAnon[] stripes = new ChunkAnon[ids.length];
+        for (int i = 0; i < stripes.length; i++) {
+            int from = i * m_stripeSize;
+            stripes[i] = new ChunkAnon(ids[i], Arrays.copyOfRange(p_data, from, from + Math.min(m_stripeSize,
+                    p_size - from)));
+        }
+
+        return m_lookup.superpeerStoragePutAnon(stripes);
+    }
+
+    /**
+     * Copy the data of all stripes (without the stripe table in the first stripe) to a buffer
+     *
+     * @param p_stripes
+     *         Stripes of an item
+     * @param p_buffer
+     *         Buffer to copy the data to
+     */
+    private void copyStripes(final ChunkAnon[] p_stripes, final ByteBuffer p_buffer) {
+        p_buffer.put(p_stripes[0].getData(), 0, m_stripeSize);
+        for (int i = 1; i < p_stripes.length; i++) {
+            p_buffer.put(p_stripes[i].getData());
+        }
+    }
+
+    /**
+     * Remove all stripes of an item except for the first one
+     *
+     * @param p_stripeIds
+     *         Storage ids of all stripes of the item
+     */
+    private void removeStripes(final int[] p_stripeIds) {
+        for (int i = 1; i < p_stripeIds.length; i++) {
+            m_lookup.superpeerStorageRemove(p_stripeIds[i]);
+        }
+    }
+
     @Override
     protected void resolveComponentDependencies(final DXRAMComponentAccessor p_componentAccessor) {
         m_lookup = p_componentAccessor.getComponent(LookupComponent.class);
@@ -162,6 +553,8 @@ public class TemporaryStorageService extends AbstractDXRAMService<TemporaryStora
 
     @Override
     protected boolean startService(final DXRAMConfig p_config) {
+        m_stripeSize = (int) getConfig().getStripeSize().getBytes();
+
         return true;
     }
 
@@ -34,6 +34,13 @@ public class TemporaryStorageServiceConfig extends DXRAMModuleConfig {
     @Expose
     private StorageUnit m_storageMaxSize = new StorageUnit(32, StorageUnit.MB);
 
+    /**
+     * Items larger than the stripe size are split into stripes which are distributed across the superpeers
+     * (0 to disable striping). Must be equal on all peers
+     */
+    @Expose
+    private StorageUnit m_stripeSize = new StorageUnit(0, StorageUnit.MB);
+
     /**
      * Constructor
      */
@@ -63,6 +70,11 @@ public class TemporaryStorageServiceConfig extends DXRAMModuleConfig {
             return false;
         }
 
+        if (m_stripeSize.getBytes() < 0 || m_stripeSize.getBytes() >= m_storageMaxSize.getBytes()) {
+            LOGGER.error("Invalid value m_stripeSize: %d", m_stripeSize.getBytes());
+            return false;
+        }
+
         return true;
     }
 }
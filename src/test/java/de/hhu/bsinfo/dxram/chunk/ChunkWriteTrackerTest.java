@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+
+package de.hhu.bsinfo.dxram.chunk;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ChunkWriteTrackerTest {
+
+    private static final long CREATOR = 0xC0C0L << 48;
+
+    @Test
+    public void writesAreDrainedAsRanges() {
+        ChunkWriteTracker tracker = new ChunkWriteTracker();
+        ChunkWriteTracker.TrackedRange range = tracker.track(CREATOR + 10, CREATOR + 200);
+
+        for (long chunkID : new long[] {CREATOR + 10, CREATOR + 11, CREATOR + 12, CREATOR + 12, CREATOR + 73,
+                CREATOR + 199}) {
+            ChunkWriteTracker.TrackedRange tracked = tracker.beginWrite(chunkID);
+
+            assertSame(range, tracked);
+            tracker.endWrite(tracked, chunkID);
+        }
+
+        assertNull(tracker.beginWrite(CREATOR + 200));
+        assertEquals(5, range.getDirtyCount());
+        assertArrayEquals(new long[] {CREATOR + 10, CREATOR + 13, CREATOR + 73, CREATOR + 74, CREATOR + 199,
+                CREATOR + 200}, range.drainDirtyRanges());
+        assertEquals(0, range.getDirtyCount());
+        assertEquals(0, range.drainDirtyRanges().length);
+
+        tracker.untrack(range);
+        assertNull(tracker.beginWrite(CREATOR + 10));
+    }
+
+    @Test
+    public void writeInProgressIsNotLostByDrain() {
+        ChunkWriteTracker tracker = new ChunkWriteTracker();
+        ChunkWriteTracker.TrackedRange range = tracker.track(CREATOR, CREATOR + 64);
+
+        // drain (copy of the old data) while the put is still running
+        ChunkWriteTracker.TrackedRange tracked = tracker.beginWrite(CREATOR + 5);
+        assertEquals(0, range.drainDirtyRanges().length);
+        tracker.endWrite(tracked, CREATOR + 5);
+
+        assertEquals(1, range.getDirtyCount());
+        assertArrayEquals(new long[] {CREATOR + 5, CREATOR + 6}, range.drainDirtyRanges());
+    }
+
+    @Test
+    public void fenceWaitsForRunningWritesOnly() throws InterruptedException {
+        ChunkWriteTracker tracker = new ChunkWriteTracker();
+        ChunkWriteTracker.TrackedRange range = tracker.track(CREATOR, CREATOR + 64);
+
+        // a running write delays the fence, the timeout bounds the wait
+        ChunkWriteTracker.TrackedRange tracked = tracker.beginWrite(CREATOR + 1);
+        Thread fence = new Thread(() -> assertFalse(range.fence(50)));
+        fence.start();
+        fence.join();
+        tracker.endWrite(tracked, CREATOR + 1);
+
+        assertSame(range, tracker.beginWrite(CREATOR + 2));
+        tracker.endWrite(range, CREATOR + 2);
+
+        // fenced writers fail immediately instead of blocking
+        assertTrue(range.fence(50));
+        assertSame(ChunkWriteTracker.FENCED, tracker.beginWrite(CREATOR + 3));
+
+        range.unfence();
+        assertSame(range, tracker.beginWrite(CREATOR + 3));
+        tracker.endWrite(range, CREATOR + 3);
+        assertEquals(3, range.getDirtyCount());
+    }
+
+    @Test
+    public void movedRangeRejectsWrites() {
+        ChunkWriteTracker tracker = new ChunkWriteTracker();
+        ChunkWriteTracker.TrackedRange range = tracker.track(CREATOR, CREATOR + 64);
+
+        assertTrue(range.fence(50));
+        range.setMoved((short) 2);
+        range.unfence();
+
+        assertSame(ChunkWriteTracker.MOVED, tracker.beginWrite(CREATOR + 1));
+        assertEquals((short) 2, tracker.getNewOwner(CREATOR + 1));
+
+        tracker.untrack(range);
+        assertSame(ChunkWriteTracker.MOVED, tracker.beginWrite(CREATOR + 1));
+    }
+
+    @Test
+    public void removeDuringMigrationIsDrainedAndFenced() {
+        ChunkWriteTracker tracker = new ChunkWriteTracker();
+        ChunkWriteTracker.TrackedRange range = tracker.track(CREATOR, CREATOR + 64);
+
+        // initial copy
+        assertEquals(0, range.drainDirtyRanges().length);
+
+        // a remove is tracked like a put, the next drain copies the removed chunk (removing the target's copy)
+        ChunkWriteTracker.TrackedRange tracked = tracker.beginWrite(CREATOR + 7);
+        assertSame(range, tracked);
+        tracker.endWrite(tracked, CREATOR + 7);
+        assertArrayEquals(new long[] {CREATOR + 7, CREATOR + 8}, range.drainDirtyRanges());
+
+        // removes are rejected while fenced and not marked dirty
+        assertTrue(range.fence(50));
+        assertSame(ChunkWriteTracker.FENCED, tracker.beginWrite(CREATOR + 9));
+        assertEquals(0, range.getDirtyCount());
+        range.unfence();
+    }
+
+    @Test
+    public void pinnedChunkDelaysFenceAndIsDirtyOnUnpin() throws InterruptedException {
+        ChunkWriteTracker tracker = new ChunkWriteTracker();
+
+        // pinned before the range is tracked
+        assertTrue(tracker.pin(CREATOR + 4));
+        assertFalse(tracker.pin(CREATOR + 4));
+
+        ChunkWriteTracker.TrackedRange range = tracker.track(CREATOR, CREATOR + 64);
+
+        assertFalse(range.fence(20));
+        assertSame(range, tracker.beginWrite(CREATOR + 5));
+        tracker.endWrite(range, CREATOR + 5);
+
+        // raw writes happened while pinned
+        tracker.unpin(CREATOR + 4);
+        assertArrayEquals(new long[] {CREATOR + 4, CREATOR + 6}, range.drainDirtyRanges());
+
+        // pinning waits for the fence
+        assertTrue(range.fence(50));
+
+        Thread pin = new Thread(() -> assertTrue(tracker.pin(CREATOR + 8)));
+        pin.start();
+        pin.join(20);
+        assertTrue(pin.isAlive());
+
+        range.unfence();
+        pin.join();
+        tracker.unpin(CREATOR + 8);
+        assertEquals(1, range.getDirtyCount());
+    }
+}
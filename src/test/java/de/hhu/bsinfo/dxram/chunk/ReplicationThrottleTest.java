@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+
+package de.hhu.bsinfo.dxram.chunk;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ReplicationThrottleTest {
+
+    private static final long SECOND = 1000L * 1000 * 1000;
+
+    @Test
+    public void unlimitedNeverWaits() {
+        ReplicationThrottle throttle = new ReplicationThrottle(0);
+
+        assertEquals(0, throttle.reserve(1024 * 1024, 0));
+        assertEquals(0, throttle.reserve(1024 * 1024, 0));
+    }
+
+    @Test
+    public void sendersAreQueuedOnTimeline() {
+        ReplicationThrottle throttle = new ReplicationThrottle(1000);
+
+        assertEquals(0, throttle.reserve(500, 0));
+        assertEquals(SECOND / 2, throttle.reserve(1000, 0));
+        assertEquals(SECOND, throttle.reserve(1, SECOND / 2));
+    }
+
+    @Test
+    public void idleTimeIsNotAccumulated() {
+        ReplicationThrottle throttle = new ReplicationThrottle(1000);
+
+        assertEquals(0, throttle.reserve(1000, 0));
+        assertEquals(0, throttle.reserve(1000, 10 * SECOND));
+        assertEquals(SECOND, throttle.reserve(1000, 10 * SECOND));
+    }
+}
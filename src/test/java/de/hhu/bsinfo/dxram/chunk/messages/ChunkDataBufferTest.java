@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+
+
+package de.hhu.bsinfo.dxram.chunk.messages;
+
+import org.junit.Test;
+
+import de.hhu.bsinfo.dxmem.data.ChunkState;
+
+import static org.junit.Assert.*;
+
+public class ChunkDataBufferTest {
+
+    @Test
+    public void clearKeepsModeratelyGrownArrays() {
+        ChunkDataBuffer buffer = new ChunkDataBuffer(16, 2);
+
+        buffer.ensureRemaining(64);
+        buffer.add(ChunkState.OK, 64);
+        byte[] data = buffer.getData();
+        buffer.clear();
+
+        assertSame(data, buffer.getData());
+        assertEquals(0, buffer.getCount());
+        assertEquals(0, buffer.getPosition());
+    }
+
+    @Test
+    public void clearShrinksOversizedArrays() {
+        ChunkDataBuffer buffer = new ChunkDataBuffer(16, 2);
+
+        buffer.ensureRemaining(1024);
+        for (int i = 0; i < 16; i++) {
+            buffer.add(ChunkState.OK, 64);
+        }
+        buffer.clear();
+
+        assertEquals(16, buffer.getRemaining());
+
+        for (int i = 0; i < 3; i++) {
+            buffer.add(ChunkState.DOES_NOT_EXIST, 0);
+        }
+        assertEquals(ChunkState.DOES_NOT_EXIST, buffer.getState(2));
+    }
+}
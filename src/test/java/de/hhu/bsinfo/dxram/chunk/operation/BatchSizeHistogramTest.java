@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+
+
+package de.hhu.bsinfo.dxram.chunk.operation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BatchSizeHistogramTest {
+
+    @Test
+    public void bucketsArePowersOfTwo() {
+        assertEquals(0, BatchSizeHistogram.bucket(1));
+        assertEquals(1, BatchSizeHistogram.bucket(2));
+        assertEquals(1, BatchSizeHistogram.bucket(3));
+        assertEquals(2, BatchSizeHistogram.bucket(4));
+        assertEquals(6, BatchSizeHistogram.bucket(64));
+        assertEquals(6, BatchSizeHistogram.bucket(127));
+    }
+
+    @Test
+    public void largeBatchesShareLastBucket() {
+        assertEquals(15, BatchSizeHistogram.bucket(1 << 15));
+        assertEquals(15, BatchSizeHistogram.bucket(Integer.MAX_VALUE));
+    }
+}
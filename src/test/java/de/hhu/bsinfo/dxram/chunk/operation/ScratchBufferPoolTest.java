@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+
+package de.hhu.bsinfo.dxram.chunk.operation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ScratchBufferPoolTest {
+
+    @Test
+    public void sizeRoundedToPowerOfTwo() {
+        assertEquals(1, new ScratchBufferPool<>(1, Object::new).getSize());
+        assertEquals(128, new ScratchBufferPool<>(100, Object::new).getSize());
+        assertEquals(128, new ScratchBufferPool<>(128, Object::new).getSize());
+    }
+
+    @Test
+    public void releasedBufferIsReused() {
+        ScratchBufferPool<Object> pool = new ScratchBufferPool<>(4, Object::new);
+
+        Object buffer = pool.acquire();
+        pool.release(buffer);
+
+        assertSame(buffer, pool.acquire());
+    }
+
+    @Test
+    public void exhaustedPoolCreatesNewBuffers() {
+        ScratchBufferPool<Object> pool = new ScratchBufferPool<>(2, Object::new);
+
+        Object first = pool.acquire();
+        Object second = pool.acquire();
+        Object third = pool.acquire();
+
+        assertNotSame(first, second);
+        assertNotSame(second, third);
+
+        pool.release(first);
+        pool.release(second);
+        // pool is full, dropped
+        pool.release(third);
+
+        Object a = pool.acquire();
+        Object b = pool.acquire();
+
+        assertTrue((a == first && b == second) || (a == second && b == first));
+        assertNotSame(third, pool.acquire());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidSize() {
+        new ScratchBufferPool<>(0, Object::new);
+    }
+}
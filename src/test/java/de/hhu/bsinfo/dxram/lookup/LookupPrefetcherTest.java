@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LookupPrefetcherTest {
+
+    private static final long CREATOR = (long) 0x1234 << 48;
+    private static final long OTHER_CREATOR = (long) 0x4321 << 48;
+
+    @Test
+    public void firstMissDoesNotPrefetch() {
+        LookupPrefetcher prefetcher = new LookupPrefetcher(8);
+
+        assertEquals(0, prefetcher.getPrefetchCount(CREATOR + 100));
+    }
+
+    @Test
+    public void sequentialMissesDoublePrefetchCount() {
+        LookupPrefetcher prefetcher = new LookupPrefetcher(8);
+        long end = 99;
+
+        prefetcher.getPrefetchCount(CREATOR + 1);
+        prefetcher.rangesFetched(CREATOR + end);
+
+        int[] expected = {1, 2, 4, 8, 8};
+        for (int count : expected) {
+            assertEquals(count, prefetcher.getPrefetchCount(CREATOR + end + 1));
+            end += 100 * (count + 1);
+            prefetcher.rangesFetched(CREATOR + end);
+        }
+    }
+
+    @Test
+    public void randomMissResetsPrefetchCount() {
+        LookupPrefetcher prefetcher = new LookupPrefetcher(8);
+
+        prefetcher.rangesFetched(CREATOR + 99);
+        assertEquals(1, prefetcher.getPrefetchCount(CREATOR + 100));
+        prefetcher.rangesFetched(CREATOR + 299);
+
+        assertEquals(0, prefetcher.getPrefetchCount(CREATOR + 300 + LookupPrefetcher.SEQUENTIAL_DISTANCE));
+        assertEquals(0, prefetcher.getPrefetchCount(CREATOR + 50));
+    }
+
+    @Test
+    public void creatorsAreTrackedSeparately() {
+        LookupPrefetcher prefetcher = new LookupPrefetcher(8);
+
+        prefetcher.rangesFetched(CREATOR + 99);
+
+        assertEquals(0, prefetcher.getPrefetchCount(OTHER_CREATOR + 100));
+        assertEquals(1, prefetcher.getPrefetchCount(CREATOR + 100));
+    }
+
+    @Test
+    public void disabledPrefetcherNeverPrefetches() {
+        LookupPrefetcher prefetcher = new LookupPrefetcher(0);
+
+        prefetcher.rangesFetched(CREATOR + 99);
+
+        assertEquals(0, prefetcher.getPrefetchCount(CREATOR + 100));
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup.overlay;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class NodeIDSetTest {
+
+    @Test
+    public void addKeepsSignedOrder() {
+        NodeIDSet set = new NodeIDSet();
+
+        assertTrue(set.add((short) 0x0040));
+        assertTrue(set.add((short) 0xC0C0));
+        assertTrue(set.add((short) 0x0001));
+        assertFalse(set.add((short) 0x0040));
+
+        assertArrayEquals(new short[] {(short) 0xC0C0, 0x0001, 0x0040}, set.toArray());
+    }
+
+    @Test
+    public void removeReturnsFormerIndex() {
+        NodeIDSet set = new NodeIDSet(new short[] {3, 1, 2, 1});
+
+        assertEquals(3, set.size());
+        assertEquals(1, set.remove((short) 2));
+        assertEquals(-1, set.remove((short) 2));
+        assertArrayEquals(new short[] {1, 3}, set.toArray());
+    }
+
+    @Test
+    public void snapshotIsNotChangedByModifications() {
+        NodeIDSet set = new NodeIDSet(new short[] {1, 2});
+        short[] snapshot = set.toArray();
+
+        set.add((short) 3);
+        set.remove((short) 1);
+        set.replace(new short[] {7});
+
+        assertArrayEquals(new short[] {1, 2}, snapshot);
+        assertArrayEquals(new short[] {7}, set.toArray());
+    }
+
+    @Test
+    public void ceilingIndexWrapsAround() {
+        short[] nodeIDs = {10, 20, 30};
+
+        assertEquals(0, NodeIDSet.ceilingIndex(nodeIDs, (short) 5));
+        assertEquals(1, NodeIDSet.ceilingIndex(nodeIDs, (short) 20));
+        assertEquals(2, NodeIDSet.ceilingIndex(nodeIDs, (short) 21));
+        assertEquals(0, NodeIDSet.ceilingIndex(nodeIDs, (short) 31));
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup.overlay;
+
+import org.junit.Test;
+
+import de.hhu.bsinfo.dxutils.NodeID;
+
+import static org.junit.Assert.*;
+
+public class ResponsibilityTableTest {
+
+    @Test
+    public void emptyTableHasNoResponsibleSuperpeer() {
+        ResponsibilityTable table = new ResponsibilityTable();
+
+        assertFalse(table.isStable());
+        assertEquals(NodeID.INVALID_ID, table.getResponsibleSuperpeer((short) 0x1234));
+    }
+
+    @Test
+    public void nodeIDsAreAssignedToNextSuperpeerInRing() {
+        short[] superpeers = {(short) 0xC000, 0x0040, 0x4000};
+        ResponsibilityTable table = new ResponsibilityTable(1, superpeers, superpeers.length);
+
+        assertTrue(table.isStable());
+        for (int nodeID = Short.MIN_VALUE; nodeID <= Short.MAX_VALUE; nodeID++) {
+            assertEquals(OverlayHelper.getResponsibleSuperpeer((short) nodeID, new NodeIDSet(superpeers)),
+                    table.getResponsibleSuperpeer((short) nodeID));
+        }
+    }
+
+    @Test
+    public void incompleteOverlayIsNotStable() {
+        ResponsibilityTable table = new ResponsibilityTable(2, new short[] {0x0040}, 3);
+
+        assertFalse(table.isStable());
+        assertEquals(2, table.getVersion());
+        assertEquals(0x0040, table.getResponsibleSuperpeer((short) 0x7FFF));
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup.overlay.cache;
+
+import org.junit.Test;
+
+import de.hhu.bsinfo.dxram.lookup.LookupRange;
+
+import static org.junit.Assert.*;
+
+public class CacheTreeTest {
+
+    private static final long TTL = 60 * 1000L;
+
+    @Test
+    public void cachedRangeIsFound() {
+        CacheTree tree = new CacheTree(TTL, 10);
+
+        tree.cacheRange(100, 199, (short) 1);
+
+        LookupRange range = tree.getMetadata(150);
+        assertNotNull(range);
+        assertEquals(1, range.getPrimaryPeer());
+        assertNull(tree.getMetadata(250));
+    }
+
+    @Test
+    public void expiredRangeIsMiss() {
+        CacheTree tree = new CacheTree(0, 10);
+
+        tree.cacheRange(100, 199, (short) 1);
+
+        assertNull(tree.getMetadata(150));
+    }
+
+    @Test
+    public void unreferencedRangeIsEvicted() {
+        CacheTree tree = new CacheTree(TTL, 2);
+
+        tree.cacheRange(100, 199, (short) 1);
+        tree.cacheRange(300, 399, (short) 2);
+
+        // second chance for the first range
+        assertNotNull(tree.getMetadata(150));
+
+        tree.cacheRange(500, 599, (short) 3);
+
+        assertNotNull(tree.getMetadata(150));
+        assertNull(tree.getMetadata(350));
+        assertNotNull(tree.getMetadata(550));
+        assertTrue(tree.validate());
+    }
+
+    @Test
+    public void invalidatedPeerIsNotCounted() {
+        CacheTree tree = new CacheTree(TTL, 10);
+
+        tree.cacheRange(100, 199, (short) 1);
+        tree.cacheRange(300, 399, (short) 2);
+        assertEquals(2, tree.getNumberOfCachedRanges());
+
+        tree.invalidatePeer((short) 1);
+
+        assertEquals(1, tree.getNumberOfCachedRanges());
+        assertNull(tree.getMetadata(150));
+        assertNotNull(tree.getMetadata(350));
+    }
+
+    @Test
+    public void lowerMaxEvictsRanges() {
+        CacheTree tree = new CacheTree(TTL, 10);
+
+        for (int i = 0; i < 10; i++) {
+            tree.cacheRange(i * 100, i * 100 + 99, (short) 1);
+        }
+
+        tree.setMaxCachedRanges(4);
+
+        assertEquals(4, tree.getNumberOfCachedRanges());
+        assertTrue(tree.validate());
+    }
+
+    @Test
+    public void neighboringRangesAreMerged() {
+        CacheTree tree = new CacheTree(TTL, 10);
+
+        tree.cacheRange(100, 199, (short) 1);
+        tree.cacheRange(200, 299, (short) 1);
+
+        LookupRange range = tree.getMetadata(150);
+        assertNotNull(range);
+        assertEquals(100, range.getRange()[0]);
+        assertEquals(299, range.getRange()[1]);
+        assertTrue(tree.validate());
+    }
+
+    @Test
+    public void invalidatedChunkIDSplitsRange() {
+        CacheTree tree = new CacheTree(TTL, 10);
+
+        tree.cacheRange(100, 199, (short) 1);
+        tree.invalidateChunkID(150);
+
+        assertNull(tree.getMetadata(150));
+        assertEquals(149, tree.getMetadata(120).getRange()[1]);
+        assertEquals(151, tree.getMetadata(180).getRange()[0]);
+        assertTrue(tree.validate());
+    }
+
+    @Test
+    public void invalidatedRangeIsMiss() {
+        CacheTree tree = new CacheTree(TTL, 10);
+
+        tree.cacheRange(100, 199, (short) 1);
+        tree.cacheRange(200, 299, (short) 2);
+        tree.invalidateRange(150);
+
+        assertNull(tree.getMetadata(100));
+        assertNull(tree.getMetadata(199));
+        assertNotNull(tree.getMetadata(200));
+        assertEquals(1, tree.getNumberOfCachedRanges());
+        assertTrue(tree.validate());
+    }
+}
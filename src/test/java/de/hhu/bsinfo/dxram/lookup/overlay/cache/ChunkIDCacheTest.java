@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup.overlay.cache;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ChunkIDCacheTest {
+
+    private static final long TTL = 60 * 1000L;
+
+    @Test
+    public void maxEntriesAreSplitAcrossCreators() {
+        ChunkIDCache cache = new ChunkIDCache(TTL, 20);
+
+        for (long creator = 1; creator <= 4; creator++) {
+            for (long range = 0; range < 20; range++) {
+                long start = (creator << 48) + range * 100;
+                cache.cacheRange(start, start + 99, (short) creator);
+            }
+        }
+
+        assertEquals(20, cache.getNumberOfCachedRanges());
+        assertNotNull(cache.getMetadata((4L << 48) + 1950));
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+
+package de.hhu.bsinfo.dxram.lookup.overlay.cache;
+
+import org.junit.Test;
+
+import de.hhu.bsinfo.dxmem.data.ChunkID;
+
+import static org.junit.Assert.*;
+
+public class NameserviceCacheTest {
+
+    @Test
+    public void putAndInvalidate() {
+        NameserviceCache cache = new NameserviceCache(64);
+
+        cache.put(7, 0x1000000000001L);
+        assertEquals(0x1000000000001L, cache.get(7));
+        assertEquals(ChunkID.INVALID_ID, cache.get(8));
+
+        cache.invalidate(7);
+        assertEquals(ChunkID.INVALID_ID, cache.get(7));
+    }
+
+    @Test
+    public void updateOnlyReplacesCachedEntries() {
+        NameserviceCache cache = new NameserviceCache(64);
+
+        cache.put(1, 10);
+        cache.update(1, 11);
+        cache.update(2, 20);
+
+        assertEquals(11, cache.get(1));
+        assertEquals(ChunkID.INVALID_ID, cache.get(2));
+    }
+
+    @Test
+    public void offerIsRejectedAfterUpdate() {
+        NameserviceCache cache = new NameserviceCache(64);
+        long stamp = cache.getStamp(3);
+
+        cache.update(3, 30);
+        assertFalse(cache.offer(3, 29, stamp));
+        assertEquals(ChunkID.INVALID_ID, cache.get(3));
+
+        assertTrue(cache.offer(3, 30, cache.getStamp(3)));
+        assertEquals(30, cache.get(3));
+        assertFalse(cache.offer(4, ChunkID.INVALID_ID, cache.getStamp(4)));
+    }
+
+    @Test
+    public void offerIsNotRejectedByUpdateOfOtherSet() {
+        NameserviceCache cache = new NameserviceCache(64);
+        long stamp = cache.getStamp(5);
+        int other = 6;
+
+        // update ids until one is mapped to another set than id 5
+        cache.update(other, 60);
+        while (cache.getStamp(5) != stamp) {
+            stamp = cache.getStamp(5);
+            cache.update(++other, 60);
+        }
+
+        assertTrue(cache.offer(5, 50, stamp));
+        assertEquals(50, cache.get(5));
+    }
+
+    @Test
+    public void putAllStoresAndInvalidates() {
+        NameserviceCache cache = new NameserviceCache(64);
+
+        cache.put(2, 20);
+        cache.putAll(new int[] {1, 2, 3, 4}, new long[] {10, ChunkID.INVALID_ID, 30, 40});
+
+        assertEquals(10, cache.get(1));
+        assertEquals(ChunkID.INVALID_ID, cache.get(2));
+        assertEquals(30, cache.get(3));
+        assertEquals(40, cache.get(4));
+    }
+
+    @Test
+    public void updateAllOnlyReplacesCachedEntries() {
+        NameserviceCache cache = new NameserviceCache(64);
+
+        cache.put(1, 10);
+        cache.put(2, 20);
+        cache.updateAll(new int[] {1, 2, 3}, new long[] {11, ChunkID.INVALID_ID, 30});
+
+        assertEquals(11, cache.get(1));
+        assertEquals(ChunkID.INVALID_ID, cache.get(2));
+        assertEquals(ChunkID.INVALID_ID, cache.get(3));
+    }
+
+    @Test
+    public void sizeIsBounded() {
+        NameserviceCache cache = new NameserviceCache(64);
+        int cached = 0;
+
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, i + 1);
+        }
+        for (int i = 0; i < 1000; i++) {
+            if (cache.get(i) != ChunkID.INVALID_ID) {
+                assertEquals(i + 1, cache.get(i));
+                cached++;
+            }
+        }
+
+        assertEquals(cache.getCapacity(), cached);
+    }
+
+    @Test
+    public void hotEntriesSurviveScan() {
+        NameserviceCache cache = new NameserviceCache(8);
+
+        for (int i = 0; i < 8; i++) {
+            cache.put(i, i + 1);
+            cache.get(i);
+        }
+
+        // ids requested only once must not evict the hot entries
+        for (int i = 100; i < 200; i++) {
+            cache.offer(i, i + 1, cache.getStamp(i));
+        }
+
+        for (int i = 0; i < 8; i++) {
+            assertEquals(i + 1, cache.get(i));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup.overlay.storage;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import de.hhu.bsinfo.dxmem.data.ChunkID;
+import de.hhu.bsinfo.dxram.lookup.LookupRange;
+import de.hhu.bsinfo.dxutils.serialization.ByteBufferImExporter;
+
+import static org.junit.Assert.*;
+
+public class LookupTreeTest {
+
+    private static final short ORDER = 10;
+    private static final short CREATOR = 1;
+
+    @Test
+    public void emptyTreeReturnsCreator() {
+        LookupTree tree = new LookupTree(ORDER, CREATOR);
+
+        assertRange(tree.getMetadata(42), CREATOR, 0, ChunkID.MAX_LOCALID);
+    }
+
+    @Test
+    public void migratedRangeIsFound() {
+        LookupTree tree = new LookupTree(ORDER, CREATOR);
+
+        tree.migrateRange(100, 199, (short) 2);
+
+        assertRange(tree.getMetadata(50), CREATOR, 0, 99);
+        assertRange(tree.getMetadata(100), (short) 2, 100, 199);
+        assertRange(tree.getMetadata(199), (short) 2, 100, 199);
+        assertRange(tree.getMetadata(200), CREATOR, 200, ChunkID.MAX_LOCALID);
+        assertTrue(tree.validate());
+    }
+
+    @Test
+    public void adjacentMigrationsAreMerged() {
+        LookupTree tree = new LookupTree(ORDER, CREATOR);
+
+        tree.migrateRange(100, 199, (short) 2);
+        tree.migrate(200, (short) 2);
+        tree.migrate(150, (short) 3);
+
+        assertRange(tree.getMetadata(120), (short) 2, 100, 149);
+        assertRange(tree.getMetadata(150), (short) 3, 150, 150);
+        assertRange(tree.getMetadata(151), (short) 2, 151, 200);
+        assertTrue(tree.validate());
+    }
+
+    @Test
+    public void removedChunkFallsBackToCreator() {
+        LookupTree tree = new LookupTree(ORDER, CREATOR);
+
+        tree.migrateRange(100, 199, (short) 2);
+        tree.remove(150);
+
+        assertEquals(CREATOR, tree.getMetadata(150).getPrimaryPeer());
+        assertRange(tree.getMetadata(151), (short) 2, 151, 199);
+        assertTrue(tree.validate());
+    }
+
+    @Test
+    public void exportedTreeIsImported() {
+        LookupTree tree = new LookupTree(ORDER, CREATOR);
+        LookupTree imported = new LookupTree();
+        ByteBuffer buffer;
+
+        for (int i = 1; i <= 100; i++) {
+            tree.migrate(i * 10, (short) (i % 3 + 2));
+        }
+
+        buffer = ByteBuffer.allocate(tree.sizeofObject());
+        new ByteBufferImExporter(buffer).exportObject(tree);
+        buffer.flip();
+        new ByteBufferImExporter(buffer).importObject(imported);
+
+        assertTrue(imported.validate());
+        assertEquals(tree.sizeofObject(), imported.sizeofObject());
+        for (int i = 0; i <= 1010; i++) {
+            LookupRange expected = tree.getMetadata(i);
+            LookupRange actual = imported.getMetadata(i);
+
+            assertRange(actual, expected.getPrimaryPeer(), expected.getRange()[0], expected.getRange()[1]);
+        }
+    }
+
+    private static void assertRange(final LookupRange p_range, final short p_nodeID, final long p_start,
+            final long p_end) {
+        assertEquals(p_nodeID, p_range.getPrimaryPeer());
+        assertEquals(p_start, p_range.getRange()[0]);
+        assertEquals(p_end, p_range.getRange()[1]);
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup.overlay.storage;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import de.hhu.bsinfo.dxram.lookup.LookupRange;
+
+import static org.junit.Assert.*;
+
+public class PeerHandlerTest {
+
+    private static final short ORDER = 10;
+    private static final short CREATOR = 1;
+
+    @Test
+    public void deltaUpdatesBackup() {
+        PeerHandler responsible = new PeerHandler(ORDER, CREATOR);
+        responsible.migrateRange(100, 199, (short) 2, PeerHandler.NEXT_VERSION);
+
+        PeerHandler backup = copy(responsible);
+
+        responsible.migrate(150, (short) 3, PeerHandler.NEXT_VERSION);
+        responsible.removeObjects(PeerHandler.NEXT_VERSION, 120, 121);
+        responsible.migrateRange(300, 399, (short) 4, PeerHandler.NEXT_VERSION);
+
+        byte[] changes = responsible.receiveChanges(backup.getVersion());
+
+        assertNotNull(changes);
+        assertTrue(backup.storeChanges(ByteBuffer.wrap(changes)));
+        assertEquals(responsible.getVersion(), backup.getVersion());
+
+        for (long chunkID : new long[] {50, 100, 120, 150, 199, 300, 399, 400}) {
+            LookupRange expected = responsible.getMetadata(chunkID);
+            LookupRange actual = backup.getMetadata(chunkID);
+
+            assertEquals(expected.getPrimaryPeer(), actual.getPrimaryPeer());
+            assertArrayEquals(expected.getRange(), actual.getRange());
+        }
+    }
+
+    @Test
+    public void deltaOfOtherVersionIsRejected() {
+        PeerHandler responsible = new PeerHandler(ORDER, CREATOR);
+        responsible.migrateRange(100, 199, (short) 2, PeerHandler.NEXT_VERSION);
+
+        PeerHandler backup = copy(responsible);
+
+        responsible.migrate(150, (short) 3, PeerHandler.NEXT_VERSION);
+        byte[] changes = responsible.receiveChanges(backup.getVersion());
+        backup.migrate(160, (short) 3, PeerHandler.NEXT_VERSION);
+
+        assertFalse(backup.storeChanges(ByteBuffer.wrap(changes)));
+    }
+
+    @Test
+    public void forwardedVersionIsAdopted() {
+        PeerHandler responsible = new PeerHandler(ORDER, CREATOR);
+        PeerHandler backup = new PeerHandler(ORDER, CREATOR);
+
+        long version = responsible.migrateRange(100, 199, (short) 2, PeerHandler.NEXT_VERSION);
+        assertEquals(version, backup.migrateRange(100, 199, (short) 2, version));
+
+        version = responsible.migrate(150, (short) 3, PeerHandler.NEXT_VERSION);
+        assertEquals(version, backup.migrate(150, (short) 3, version));
+        assertEquals(responsible.getVersion(), backup.getVersion());
+    }
+
+    @Test
+    public void reorderedForwardInvalidatesVersion() {
+        PeerHandler responsible = new PeerHandler(ORDER, CREATOR);
+        PeerHandler backup = new PeerHandler(ORDER, CREATOR);
+
+        long first = responsible.migrate(150, (short) 2, PeerHandler.NEXT_VERSION);
+        long second = responsible.migrate(150, (short) 3, PeerHandler.NEXT_VERSION);
+
+        // The second modification overtakes the first one -> contents differ although both were applied
+        assertEquals(PeerHandler.UNKNOWN_VERSION, backup.migrate(150, (short) 3, second));
+        assertEquals(PeerHandler.UNKNOWN_VERSION, backup.migrate(150, (short) 2, first));
+        assertNotEquals(responsible.getVersion(), backup.getVersion());
+
+        // The unknown version is never up to date -> full snapshot
+        byte[] changes = responsible.receiveChanges(backup.getVersion());
+        assertNull(changes);
+    }
+
+    @Test
+    public void forwardContainedInSnapshotIsSkipped() {
+        PeerHandler responsible = new PeerHandler(ORDER, CREATOR);
+
+        long first = responsible.migrate(150, (short) 2, PeerHandler.NEXT_VERSION);
+        responsible.migrate(150, (short) 3, PeerHandler.NEXT_VERSION);
+
+        PeerHandler backup = copy(responsible);
+
+        // Late forward of a modification already contained in the snapshot
+        assertEquals(responsible.getVersion(), backup.migrate(150, (short) 2, first));
+        assertEquals(3, backup.getMetadata(150).getPrimaryPeer());
+    }
+
+    @Test
+    public void truncatedChangeLogRequiresSnapshot() {
+        PeerHandler responsible = new PeerHandler(ORDER, CREATOR);
+
+        for (int i = 0; i < 2000; i++) {
+            responsible.migrate(i * 2, (short) 2, PeerHandler.NEXT_VERSION);
+        }
+
+        assertNull(responsible.receiveChanges(0));
+        assertNotNull(responsible.receiveChanges(responsible.getVersion() - 1));
+        assertNull(responsible.receiveChanges(responsible.getVersion()));
+    }
+
+    private static PeerHandler copy(final PeerHandler p_peerHandler) {
+        ByteBuffer data = ByteBuffer.allocate(p_peerHandler.getSize());
+        p_peerHandler.receiveMetadata(data);
+        data.flip();
+
+        PeerHandler ret = new PeerHandler(ORDER, CREATOR);
+        ret.storeMetadata(data);
+
+        return ret;
+    }
+}
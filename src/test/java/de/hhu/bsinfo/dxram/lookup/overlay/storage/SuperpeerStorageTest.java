@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup.overlay.storage;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SuperpeerStorageTest {
+
+    @Test
+    public void partialPutAndGet() {
+        SuperpeerStorage storage = new SuperpeerStorage(10, 1024);
+
+        assertEquals(0, storage.create(1, 8));
+        assertEquals(-3, storage.create(1, 8));
+        assertEquals(4, storage.put(1, 2, new byte[] {1, 2, 3, 4}));
+        assertEquals(2, storage.put(1, 6, new byte[] {5, 6, 7}));
+        assertEquals(-1, storage.put(2, new byte[] {1}));
+
+        assertArrayEquals(new byte[] {0, 0, 1, 2, 3, 4, 5, 6}, storage.get(1));
+        assertArrayEquals(new byte[] {2, 3}, storage.get(1, 3, 2));
+        assertArrayEquals(new byte[] {6}, storage.get(1, 7, 10));
+        assertNull(storage.get(1, 9, 1));
+    }
+
+    @Test
+    public void removedSpaceIsReused() {
+        SuperpeerStorage storage = new SuperpeerStorage(100, 64);
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0, storage.create(i, 16));
+            storage.put(i, new byte[] {(byte) i});
+        }
+        assertEquals(-1, storage.create(4, 1));
+
+        assertTrue(storage.remove(1));
+        assertFalse(storage.remove(1));
+        assertEquals(0, storage.create(4, 16));
+
+        for (int i : new int[] {0, 2, 3}) {
+            assertEquals(i, storage.get(i)[0]);
+        }
+        assertArrayEquals(new byte[16], storage.get(4));
+    }
+
+    @Test
+    public void metadataRoundTrip() {
+        SuperpeerStorage storage = new SuperpeerStorage(100, 1024);
+        SuperpeerStorage replica = new SuperpeerStorage(100, 1024);
+
+        for (int i = 0; i < 20; i++) {
+            storage.create(i, i + 1);
+            storage.put(i, new byte[] {(byte) (i + 1)});
+        }
+        for (int i = 0; i < 20; i += 2) {
+            storage.remove(i);
+        }
+
+        byte[] data = storage.receiveAllMetadata();
+        assertEquals(10, replica.storeMetadata(data, 0, data.length));
+        for (int i = 1; i < 20; i += 2) {
+            assertEquals(i + 1, replica.get(i).length);
+            assertEquals(i + 1, replica.get(i)[0]);
+        }
+        assertNull(replica.get(0));
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+
+package de.hhu.bsinfo.dxram.migration.data;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import de.hhu.bsinfo.dxram.migration.LongRange;
+import de.hhu.bsinfo.dxutils.serialization.ByteBufferImExporter;
+
+import static org.junit.Assert.*;
+
+public class MigrationPayloadTest {
+
+    @Test
+    public void removedChunksAreSentWithoutData() {
+        byte[][] data = {{1, 2, 3}, null, {4}};
+        MigrationPayload payload = new MigrationPayload(Arrays.asList(new LongRange(10, 13)), data);
+        MigrationPayload imported = new MigrationPayload();
+        ByteBuffer buffer = ByteBuffer.allocate(payload.sizeofObject());
+
+        new ByteBufferImExporter(buffer).exportObject(payload);
+        assertFalse(buffer.hasRemaining());
+        buffer.flip();
+        new ByteBufferImExporter(buffer).importObject(imported);
+
+        assertArrayEquals(new long[] {10, 13}, imported.getRanges());
+        assertArrayEquals(new byte[] {1, 2, 3}, imported.getData()[0]);
+        assertNull(imported.getData()[1]);
+        assertArrayEquals(new byte[] {4}, imported.getData()[2]);
+        assertEquals(4, imported.getSize());
+    }
+}
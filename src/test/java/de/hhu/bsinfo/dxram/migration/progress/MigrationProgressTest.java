@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+
+package de.hhu.bsinfo.dxram.migration.progress;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import de.hhu.bsinfo.dxram.migration.LongRange;
+import de.hhu.bsinfo.dxram.migration.MigrationStatus;
+
+import static org.junit.Assert.*;
+
+public class MigrationProgressTest {
+
+    @Test
+    public void finishesAfterAllPartialRanges() {
+        MigrationProgress progress = new MigrationProgress(Arrays.asList(new LongRange(0, 100),
+                new LongRange(100, 150)));
+
+        progress.setFinished(Arrays.asList(new LongRange(0, 40), new LongRange(100, 150)));
+        assertFalse(progress.isFinished());
+        assertEquals(60, progress.getPendingChunks());
+
+        progress.setFinished(Collections.singletonList(new LongRange(40, 100)));
+        assertTrue(progress.isFinished());
+        assertEquals(MigrationStatus.OK, progress.get());
+    }
+
+    @Test
+    public void errorReleasesWaiters() {
+        MigrationProgress progress = new MigrationProgress(Collections.singletonList(new LongRange(0, 10)));
+
+        progress.onError();
+        assertEquals(MigrationStatus.ERROR, progress.get());
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.nameservice;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class NameServiceStringConverterTest {
+
+    @Test
+    public void nameRoundTrip() {
+        NameServiceStringConverter converter = new NameServiceStringConverter("NAME");
+
+        for (String name : new String[] {"", "0", "a-Z9", "ZZZZZ", "-----", "idx"}) {
+            assertEquals(name, converter.convert(converter.convert(name)));
+        }
+        assertEquals(1 + (11 << 6), converter.convert("0a"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tooLongName() {
+        new NameServiceStringConverter("NAME").convert("abcdef");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidCharacter() {
+        new NameServiceStringConverter("NAME").convert("a_b");
+    }
+
+    @Test
+    public void idType() {
+        NameServiceStringConverter converter = new NameServiceStringConverter("ID");
+
+        assertEquals(123456789, converter.convert("123456789"));
+        assertEquals("123456789", converter.convert(123456789));
+    }
+}
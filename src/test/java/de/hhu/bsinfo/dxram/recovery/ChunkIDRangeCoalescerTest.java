@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+
+package de.hhu.bsinfo.dxram.recovery;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ChunkIDRangeCoalescerTest {
+
+    private static final long CREATOR_1 = 0x0001L << 48;
+    private static final long CREATOR_2 = 0x0002L << 48;
+
+    @Test
+    public void consecutiveChunkIDsFormOneRange() {
+        long[] chunkIDs = {CREATOR_1 + 3, CREATOR_1 + 1, CREATOR_1 + 2, CREATOR_1 + 2, CREATOR_1 + 7};
+
+        assertArrayEquals(new long[] {CREATOR_1 + 1, CREATOR_1 + 3, CREATOR_1 + 7, CREATOR_1 + 7},
+                ChunkIDRangeCoalescer.coalesce(chunkIDs, chunkIDs.length));
+    }
+
+    @Test
+    public void rangesDoNotSpanCreators() {
+        long[] chunkIDs = {CREATOR_2, CREATOR_1 + 0xFFFFFFFFFFFFL, CREATOR_2 + 1, 0};
+
+        assertArrayEquals(new long[] {CREATOR_1 + 0xFFFFFFFFFFFFL, CREATOR_1 + 0xFFFFFFFFFFFFL, CREATOR_2,
+                CREATOR_2 + 1}, ChunkIDRangeCoalescer.coalesce(chunkIDs, 3));
+        assertEquals(0, ChunkIDRangeCoalescer.coalesce(chunkIDs, 0).length);
+    }
+}
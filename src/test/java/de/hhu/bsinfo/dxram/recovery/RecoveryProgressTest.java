@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+
+package de.hhu.bsinfo.dxram.recovery;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RecoveryProgressTest {
+
+    private static final long SECOND = 1000L * 1000 * 1000;
+
+    @Test
+    public void countsRanges() {
+        RecoveryProgress progress = new RecoveryProgress();
+
+        progress.queued();
+        progress.queued();
+        progress.queued();
+        progress.started(0);
+        progress.started(0);
+        progress.recovered(10, 1000, SECOND);
+        progress.failed(SECOND);
+
+        RecoveryStatus status = progress.getStatus(SECOND);
+        assertEquals(1, status.getRangesQueued());
+        assertEquals(0, status.getRangesInProgress());
+        assertEquals(1, status.getRangesRecovered());
+        assertEquals(1, status.getRangesFailed());
+        assertEquals(10, status.getRecoveredChunks());
+        assertEquals(1000, status.getRecoveredBytes());
+    }
+
+    @Test
+    public void throughputOnlyCountsActiveTime() {
+        RecoveryProgress progress = new RecoveryProgress();
+
+        progress.queued();
+        progress.queued();
+        progress.started(0);
+        progress.started(0);
+        progress.recovered(1, 1000, SECOND);
+        progress.recovered(1, 1000, 2 * SECOND);
+
+        // idle from 2 to 10 seconds
+        progress.queued();
+        progress.started(10 * SECOND);
+
+        RecoveryStatus status = progress.getStatus(12 * SECOND);
+        assertEquals(4 * SECOND, status.getActiveTimeNs());
+        assertEquals(500.0, status.getThroughput(), 0.001);
+    }
+}